@@ -0,0 +1,71 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.analitica.Agrupacion;
+import edu.upc.dsa.analitica.ColumnasCatalogo;
+import edu.upc.dsa.models.AnaliticaCatalogo;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.stock.TablaStock;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ejemplares y stock por temática de un catálogo de numIsbns ISBNs: con ColumnasCatalogo, y
+ * recorriendo los agregados (un Libro por ISBN) con un mapa por temática, como las facetas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnaliticaBenchmark {
+    private static final int NUM_TEMATICAS = 50;
+    private static final int NUM_EDITORIALES = 500;
+
+    @Param({"10000", "1000000"})
+    int numIsbns;
+
+    private TablaStock stock;
+    private ColumnasCatalogo columnas;
+    private List<Libro> agregados;
+    private int[] ejemplares;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        stock = new TablaStock(1);
+        columnas = new ColumnasCatalogo(stock);
+        agregados = new ArrayList<>(numIsbns);
+        ejemplares = new int[numIsbns];
+        for (int isbn = 0; isbn < numIsbns; isbn++) {
+            Libro libro = new Libro("B" + isbn, "ISBN-" + isbn, "Titulo " + isbn, "Editorial " + (isbn % NUM_EDITORIALES),
+                    1900 + isbn % 125, 1 + isbn % 3, "Autor " + isbn, "Tematica " + (isbn % NUM_TEMATICAS));
+            agregados.add(libro);
+            ejemplares[isbn] = 1 + isbn % 4;
+            stock.registrar(isbn).añadir(isbn % 3);
+            columnas.fijarFila(isbn, libro);
+            columnas.añadirEjemplares(isbn, ejemplares[isbn]);
+        }
+    }
+
+    @Benchmark
+    public AnaliticaCatalogo columnas() {
+        return columnas.agrupar(Agrupacion.TEMATICA);
+    }
+
+    @Benchmark
+    public Map<String, long[]> porLibros() {
+        Map<String, long[]> porTematica = new HashMap<>();
+        for (int isbn = 0; isbn < agregados.size(); isbn++) {
+            long[] recuento = porTematica.computeIfAbsent(agregados.get(isbn).getTematica(), t -> new long[3]);
+            recuento[0]++;
+            recuento[1] += ejemplares[isbn];
+            recuento[2] += stock.disponibles(isbn);
+        }
+        return porTematica;
+    }
+}
@@ -0,0 +1,36 @@
+package edu.upc.dsa;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada de target/benchmarks.jar. Acepta las mismas opciones que el Main de JMH
+ * y repite la ejecución para cada número de hilos de -Dhilos (por defecto 1,4,8), salvo que
+ * se pase -t. Si se pide un fichero de resultados (-rff), se escribe uno por número de hilos.
+ *
+ *   java -Dhilos=1,8 -jar target/benchmarks.jar LibrosManagerBenchmark -p numElementos=1000,1000000 -rf json -rff target/jmh.json
+ */
+public class BenchmarksLibros {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions opciones = new CommandLineOptions(args);
+        if (opciones.shouldHelp() || opciones.shouldList() || opciones.getThreads().hasValue()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        for (String hilos : System.getProperty("hilos", "1,4,8").split(",")) {
+            int numHilos = Integer.parseInt(hilos.trim());
+            OptionsBuilder porHilos = new OptionsBuilder();
+            porHilos.parent(opciones).threads(numHilos);
+            if (opciones.getResult().hasValue()) {
+                porHilos.result(conSufijo(opciones.getResult().get(), "-t" + numHilos));
+            }
+            new Runner(porHilos.build()).run();
+        }
+    }
+
+    private static String conSufijo(String fichero, String sufijo) {
+        int punto = fichero.lastIndexOf('.');
+        return (punto < 0) ? fichero + sufijo : fichero.substring(0, punto) + sufijo + fichero.substring(punto);
+    }
+}
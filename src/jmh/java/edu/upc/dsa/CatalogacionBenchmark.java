@@ -0,0 +1,60 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.ResumenCatalogacion;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalogar consume el almacén, así que no admite un bucle de tiempo fijo: cada iteración
+ * deja LOTE libros pendientes por hilo y mide cuánto se tarda en catalogarlos.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = CatalogacionBenchmark.LOTE)
+@Measurement(iterations = 10, batchSize = CatalogacionBenchmark.LOTE)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogacionBenchmark {
+    static final int LOTE = 10000;
+
+    // ISBNs distintos entre los que se reparten los libros pendientes
+    @Param({"10", "10000"})
+    int numIsbns;
+
+    private LibrosManagerImpl manager;
+
+    @Setup(Level.Iteration)
+    public void preparar(BenchmarkParams params) throws IOException {
+        manager = DatosBenchmark.manager("memoria");
+        List<Libro> pendientes = new ArrayList<>();
+        int total = LOTE * params.getThreads();
+        for (int i = 0; i < total; i++) {
+            pendientes.add(DatosBenchmark.libro(DatosBenchmark.ejemplar(i), DatosBenchmark.isbn(i % numIsbns)));
+        }
+        manager.almacenarLibros(pendientes);
+    }
+
+    @TearDown(Level.Iteration)
+    public void limpiar() {
+        manager.clear();
+    }
+
+    @Benchmark
+    public Libro catalogarSiguienteLibro() {
+        return manager.catalogarSiguienteLibro();
+    }
+
+    /** Mismo trabajo que LOTE llamadas a catalogarSiguienteLibro, en lotes de 100 */
+    @Benchmark
+    @Warmup(iterations = 5, batchSize = LOTE / 100)
+    @Measurement(iterations = 10, batchSize = LOTE / 100)
+    public ResumenCatalogacion catalogarSiguientesLibros() {
+        return manager.catalogarSiguientesLibros(100);
+    }
+}
@@ -0,0 +1,104 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.metricas.LibrosManagerInstrumentado;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.persistencia.LibrosManagerDuradero;
+import edu.upc.dsa.prestamos.AlmacenPrestamos;
+import edu.upc.dsa.prestamos.AlmacenPrestamosMapeado;
+import edu.upc.dsa.prestamos.AlmacenPrestamosMemoria;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Datos de partida de los benchmarks: managers nuevos (nunca el singleton) con n ejemplares
+ * catalogados, un lector por cada 10 ejemplares, un ISBN por cada 100 y n préstamos.
+ */
+class DatosBenchmark {
+    // El stock de cada ISBN se sube a este valor para poder prestar sin agotarlo
+    static final int STOCK_ILIMITADO = Integer.MAX_VALUE / 2;
+
+    static {
+        // Se mide el manager, no la consola: con el log a DEBUG cada operación escribe varias líneas
+        Logger.getRootLogger().setLevel(Level.OFF);
+    }
+
+    static int numLectores(int n) {
+        return Math.max(1, n / 10);
+    }
+
+    static int numIsbns(int n) {
+        return Math.max(1, n / 100);
+    }
+
+    static String lector(int i) {
+        return "L" + i;
+    }
+
+    static String ejemplar(int i) {
+        return "B" + i;
+    }
+
+    static String isbn(int i) {
+        return "ISBN-" + i;
+    }
+
+    static Libro libro(String id, String isbn) {
+        return new Libro(id, isbn, "Titulo " + isbn, "Editorial", 2000, 1, "Autor", "Tematica");
+    }
+
+    static AlmacenPrestamos almacen(String tipo) throws IOException {
+        return tipo.equals("mapeado") ? AlmacenPrestamosMapeado.temporal() : new AlmacenPrestamosMemoria();
+    }
+
+    static LibrosManagerImpl manager(String tipoAlmacen) throws IOException {
+        return new LibrosManagerImpl(almacen(tipoAlmacen), almacen(tipoAlmacen));
+    }
+
+    static void añadirLectores(LibrosManager manager, int n) {
+        for (int i = 0; i < numLectores(n); i++) {
+            manager.addLector(lector(i), "Nombre", "Apellidos", "DNI" + i, "01/01/2000", "Barcelona", "Carrer " + i);
+        }
+    }
+
+    /** Almacena y cataloga n ejemplares y deja cada ISBN con STOCK_ILIMITADO */
+    static void catalogar(LibrosManager manager, int n) {
+        List<Libro> lote = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            lote.add(libro(ejemplar(i), isbn(i % numIsbns(n))));
+            if (lote.size() == 10000) {
+                manager.almacenarLibros(lote);
+                manager.catalogarTodosLosLibros();
+                lote = new ArrayList<>();
+            }
+        }
+        manager.almacenarLibros(lote);
+        manager.catalogarTodosLosLibros();
+        LibrosManagerImpl impl = implementacion(manager);
+        for (int i = 0; i < numIsbns(n); i++) {
+            impl.fijarStock(isbn(i), STOCK_ILIMITADO);
+        }
+    }
+
+    // El stock se fija en el manager de debajo de los envoltorios
+    private static LibrosManagerImpl implementacion(LibrosManager manager) {
+        if (manager instanceof LibrosManagerInstrumentado) {
+            return implementacion(((LibrosManagerInstrumentado) manager).getEnvuelto());
+        }
+        if (manager instanceof LibrosManagerDuradero) {
+            return ((LibrosManagerDuradero) manager).getEnvuelto();
+        }
+        return (LibrosManagerImpl) manager;
+    }
+
+    static void prestar(LibrosManager manager, int n) {
+        for (int i = 0; i < n; i++) {
+            manager.prestarLibro(new Prestamo("P" + i, lector(i % numLectores(n)), ejemplar(i), "01/01/2025", "15/01/2025"));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.prestamos.AlmacenPrestamos;
+import edu.upc.dsa.prestamos.AlmacenPrestamosMapeado;
+import edu.upc.dsa.prestamos.AlmacenPrestamosMemoria;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memoria que retienen numPrestamos préstamos en trámite en cada almacén: heap ocupado tras un
+ * GC completo antes y después de llenarlo, y para el mapeado también el fichero. Los ids de
+ * lector y de ejemplar se crean antes de medir, porque en el manager ya los guardan el lector
+ * y el ejemplar; los ids de préstamo sí cuentan. El tiempo es el de llenar el almacén.
+ *
+ *   java -Dhilos=1 -jar target/benchmarks.jar HuellaPrestamosBenchmark -p numPrestamos=1000,1000000
+ *
+ * Los bytes salen como contadores secundarios (bytesHeapPorPrestamo, bytesFicheroPorPrestamo).
+ * Con -prof gc, gc.alloc.rate.norm da además lo asignado al llenar, basura incluida.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class HuellaPrestamosBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int numPrestamos;
+
+    @Param({"memoria", "mapeado"})
+    String almacen;
+
+    private String[] lectores;
+    private String[] ejemplares;
+    private Path fichero;
+    // Se mantiene vivo hasta después de medir
+    private AlmacenPrestamos lleno;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Huella {
+        public long bytesHeapPorPrestamo;
+        public long bytesFicheroPorPrestamo;
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        lectores = new String[DatosBenchmark.numLectores(numPrestamos)];
+        for (int i = 0; i < lectores.length; i++) {
+            lectores[i] = DatosBenchmark.lector(i);
+        }
+        ejemplares = new String[numPrestamos];
+        for (int i = 0; i < numPrestamos; i++) {
+            ejemplares[i] = DatosBenchmark.ejemplar(i);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void limpiar() throws IOException {
+        lleno.clear();
+        lleno = null;
+        if (fichero != null) {
+            Files.deleteIfExists(fichero);
+            fichero = null;
+        }
+    }
+
+    private static long heapOcupado() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Benchmark
+    public void llenar(Huella huella) throws IOException {
+        long antes = heapOcupado();
+        AlmacenPrestamos prestamos;
+        if (almacen.equals("mapeado")) {
+            fichero = Files.createTempFile("huella", ".dat");
+            prestamos = new AlmacenPrestamosMapeado(fichero);
+        }
+        else {
+            prestamos = new AlmacenPrestamosMemoria();
+        }
+        for (int i = 0; i < numPrestamos; i++) {
+            Prestamo prestamo = new Prestamo("P" + i, lectores[i % lectores.length], ejemplares[i], "01/01/2025", "15/01/2025");
+            prestamo.setEnTramite(true);
+            prestamos.guardar(prestamo);
+        }
+        lleno = prestamos;
+        huella.bytesHeapPorPrestamo = (heapOcupado() - antes) / numPrestamos;
+        huella.bytesFicheroPorPrestamo = (fichero == null) ? 0 : Files.size(fichero) / numPrestamos;
+    }
+}
@@ -0,0 +1,87 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Prestamo;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Operaciones del manager de una en una sobre un manager nuevo por iteración, con numElementos
+ * ejemplares catalogados y préstamos. El número de hilos se elige al lanzar (-t, o -Dhilos en
+ * BenchmarksLibros).
+ *
+ * Por defecto numElementos recorre de 10^3 a 10^7 para tener la curva de prestamosDeLector según
+ * el tamaño, y almacen compara los préstamos en el heap con el fichero mapeado; con -p se elige un
+ * tramo (-p numElementos=1000,100000). La memoria de cada almacén está en HuellaPrestamosBenchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LibrosManagerBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int numElementos;
+
+    @Param({"memoria", "mapeado"})
+    String almacen;
+
+    private LibrosManagerImpl manager;
+    private final AtomicLong secuencia = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void preparar() throws IOException {
+        manager = DatosBenchmark.manager(almacen);
+        DatosBenchmark.añadirLectores(manager, numElementos);
+        DatosBenchmark.catalogar(manager, numElementos);
+        DatosBenchmark.prestar(manager, numElementos);
+    }
+
+    @TearDown(Level.Iteration)
+    public void limpiar() {
+        manager.clear();
+    }
+
+    private int aleatorio(int limite) {
+        return ThreadLocalRandom.current().nextInt(limite);
+    }
+
+    @Benchmark
+    public void addLector() {
+        long n = secuencia.incrementAndGet();
+        manager.addLector("N" + n, "Nombre", "Apellidos", "DNI" + n, "01/01/2000", "Girona", "Av. 1");
+    }
+
+    @Benchmark
+    public void almacenarLibro() {
+        manager.almacenarLibro(DatosBenchmark.libro("A" + secuencia.incrementAndGet(), DatosBenchmark.isbn(aleatorio(DatosBenchmark.numIsbns(numElementos)))));
+    }
+
+    @Benchmark
+    public void prestarLibro() {
+        manager.prestarLibro(new Prestamo("Q" + secuencia.incrementAndGet(),
+                DatosBenchmark.lector(aleatorio(DatosBenchmark.numLectores(numElementos))),
+                DatosBenchmark.ejemplar(aleatorio(numElementos)), "01/02/2025", "15/02/2025"));
+    }
+
+    @Benchmark
+    public List<Prestamo> prestamosDeLector() {
+        return manager.prestamosDeLector(DatosBenchmark.lector(aleatorio(DatosBenchmark.numLectores(numElementos))));
+    }
+
+    @Benchmark
+    public int getStockPorIsbn() {
+        return manager.getStockPorIsbn(DatosBenchmark.isbn(aleatorio(DatosBenchmark.numIsbns(numElementos))));
+    }
+
+    @Benchmark
+    public Libro getLibroPorIsbn() {
+        return manager.getLibroPorIsbn(DatosBenchmark.isbn(aleatorio(DatosBenchmark.numIsbns(numElementos))));
+    }
+}
@@ -0,0 +1,100 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.models.Prestamo;
+import org.apache.log4j.AsyncAppender;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.WriterAppender;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coste del log en las operaciones más frecuentes. Con nivel OFF no debería quedar nada
+ * (ni concatenaciones ni toString); con INFO se mide la tubería completa, appender asíncrono
+ * incluido, escribiendo a un Writer que lo descarta todo.
+ *
+ * La memoria por operación sale con el perfilador de GC (gc.alloc.rate.norm):
+ *
+ *   java -Dhilos=1 -jar target/benchmarks.jar LogBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogBenchmark {
+    private static final int NUM_ELEMENTOS = 10000;
+
+    @Param({"OFF", "WARN", "INFO"})
+    String nivel;
+
+    private LibrosManagerImpl manager;
+    private AsyncAppender asincrono;
+    private final AtomicLong secuencia = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void preparar() throws IOException {
+        manager = DatosBenchmark.manager("memoria");
+        DatosBenchmark.añadirLectores(manager, NUM_ELEMENTOS);
+        DatosBenchmark.catalogar(manager, NUM_ELEMENTOS);
+
+        asincrono = new AsyncAppender();
+        asincrono.setBlocking(false);
+        asincrono.addAppender(new WriterAppender(new PatternLayout("%d{yyyy-MM-dd HH:mm:ss} %-5p %c{1} - %m%n"), new Descartar()));
+        Logger raiz = Logger.getRootLogger();
+        raiz.removeAllAppenders();
+        raiz.addAppender(asincrono);
+        raiz.setLevel(org.apache.log4j.Level.toLevel(nivel));
+    }
+
+    @TearDown(Level.Iteration)
+    public void limpiar() {
+        Logger.getRootLogger().setLevel(org.apache.log4j.Level.OFF);
+        asincrono.close();
+        manager.clear();
+    }
+
+    @Benchmark
+    public void addLector() {
+        long n = secuencia.incrementAndGet();
+        manager.addLector("N" + n, "Nombre", "Apellidos", "DNI" + n, "01/01/2000", "Girona", "Av. 1");
+    }
+
+    @Benchmark
+    public void almacenarLibro() {
+        manager.almacenarLibro(DatosBenchmark.libro("A" + secuencia.incrementAndGet(), "ISBN-0"));
+    }
+
+    @Benchmark
+    public void prestarLibro() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        manager.prestarLibro(new Prestamo("Q" + secuencia.incrementAndGet(),
+                DatosBenchmark.lector(aleatorio.nextInt(DatosBenchmark.numLectores(NUM_ELEMENTOS))),
+                DatosBenchmark.ejemplar(aleatorio.nextInt(NUM_ELEMENTOS)), "01/02/2025", "15/02/2025"));
+    }
+
+    @Benchmark
+    public int getStockPorIsbn() {
+        return manager.getStockPorIsbn(DatosBenchmark.isbn(ThreadLocalRandom.current().nextInt(DatosBenchmark.numIsbns(NUM_ELEMENTOS))));
+    }
+
+    private static class Descartar extends Writer {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.metricas.HistogramaLatencias;
+import edu.upc.dsa.metricas.LibrosManagerInstrumentado;
+import edu.upc.dsa.metricas.Metricas;
+import edu.upc.dsa.models.Prestamo;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coste de medir las operaciones del manager: el mismo manager con y sin
+ * LibrosManagerInstrumentado delante. getStockPorIsbn es la operación más barata, así que es
+ * donde más se notaría; registrar mide solo el histograma, con todos los hilos en el mismo.
+ *
+ *   java -Dhilos=1,8 -jar target/benchmarks.jar MetricasBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricasBenchmark {
+    private static final int NUM_ELEMENTOS = 10000;
+
+    @Param({"sin", "con"})
+    String metricas;
+
+    private LibrosManager manager;
+    private final HistogramaLatencias histograma = new HistogramaLatencias();
+    private final AtomicLong secuencia = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void preparar() throws IOException {
+        LibrosManagerImpl impl = DatosBenchmark.manager("memoria");
+        manager = metricas.equals("con") ? new LibrosManagerInstrumentado(impl, new Metricas()) : impl;
+        DatosBenchmark.añadirLectores(manager, NUM_ELEMENTOS);
+        DatosBenchmark.catalogar(manager, NUM_ELEMENTOS);
+    }
+
+    @TearDown(Level.Iteration)
+    public void limpiar() {
+        manager.clear();
+    }
+
+    @Benchmark
+    public int getStockPorIsbn() {
+        return manager.getStockPorIsbn(DatosBenchmark.isbn(ThreadLocalRandom.current().nextInt(DatosBenchmark.numIsbns(NUM_ELEMENTOS))));
+    }
+
+    @Benchmark
+    public Object getLector() {
+        return manager.getLector(DatosBenchmark.lector(ThreadLocalRandom.current().nextInt(DatosBenchmark.numLectores(NUM_ELEMENTOS))));
+    }
+
+    @Benchmark
+    public Object prestarLibro() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        return manager.prestarLibro(new Prestamo("Q" + secuencia.incrementAndGet(),
+                DatosBenchmark.lector(aleatorio.nextInt(DatosBenchmark.numLectores(NUM_ELEMENTOS))),
+                DatosBenchmark.ejemplar(aleatorio.nextInt(NUM_ELEMENTOS)), "01/02/2025", "15/02/2025"));
+    }
+
+    @Benchmark
+    public void registrar() {
+        histograma.registrar(ThreadLocalRandom.current().nextInt(1 << 20));
+    }
+}
@@ -0,0 +1,76 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.metricas.Metricas;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lo mismo que MetricasBenchmark pero de punta a punta: el servidor en este proceso con
+ * -Dlibros.metricas=true (manager instrumentado y FiltroMetricasHttp) o false. Cada valor va
+ * en su propio fork porque el singleton del manager se crea una sola vez.
+ *
+ * getStockPorIsbn es la petición más barata del servicio (la respuesta sale de la caché);
+ * prestarLibro es una mutación normal.
+ *
+ *   java -Dhilos=1,4 -jar target/benchmarks.jar MetricasHttpBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricasHttpBenchmark {
+    private static final int NUM_EJEMPLARES = 10000;
+
+    @Param({"false", "true"})
+    String metricas;
+
+    private HttpServer servidor;
+    private String base;
+    private final AtomicLong secuencia = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void arrancar() throws IOException {
+        System.setProperty(Metricas.PROPIEDAD_METRICAS, metricas);
+        // Con lectores el servicio no añade sus datos de ejemplo
+        LibrosManager manager = FabricaManager.getInstance();
+        DatosBenchmark.añadirLectores(manager, NUM_EJEMPLARES);
+        DatosBenchmark.catalogar(manager, NUM_EJEMPLARES);
+
+        int puerto;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            puerto = socket.getLocalPort();
+        }
+        servidor = Main.startServer("http://localhost:" + puerto + "/dsaApp/");
+        base = "http://localhost:" + puerto + "/dsaApp/librosManager/";
+    }
+
+    @TearDown(Level.Trial)
+    public void parar() {
+        servidor.shutdownNow();
+    }
+
+    @Benchmark
+    public int getStockPorIsbn() throws IOException {
+        int isbn = ThreadLocalRandom.current().nextInt(DatosBenchmark.numIsbns(NUM_EJEMPLARES));
+        return ProveedorJsonBenchmark.enviar(base + "libros/catalogo/" + DatosBenchmark.isbn(isbn) + "/stock", "GET", null);
+    }
+
+    @Benchmark
+    public int prestarLibro() throws IOException {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        String json = "{\"id\":\"H" + secuencia.incrementAndGet()
+                + "\",\"lectorId\":\"" + DatosBenchmark.lector(aleatorio.nextInt(DatosBenchmark.numLectores(NUM_EJEMPLARES)))
+                + "\",\"libroId\":\"" + DatosBenchmark.ejemplar(aleatorio.nextInt(NUM_EJEMPLARES))
+                + "\",\"inicioPrestamo\":\"01/02/2025\",\"finalPrestamo\":\"15/02/2025\"}";
+        return ProveedorJsonBenchmark.enviar(base + "prestamos", "POST", json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,110 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.persistencia.LibrosManagerDuradero;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Coste del modo duradero: préstamos por segundo con el diario (un fsync por grupo, así que
+ * mejora con más hilos) y tiempo de arranque recuperando el estado desde el diario o desde
+ * una instantánea.
+ */
+@Fork(1)
+public class PersistenciaBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Escritura {
+        static final int NUM_EJEMPLARES = 10000;
+
+        Path directorio;
+        LibrosManagerDuradero manager;
+        final AtomicLong secuencia = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void preparar() throws IOException {
+            directorio = Files.createTempDirectory("bench-diario");
+            manager = LibrosManagerDuradero.abrir(DatosBenchmark.manager("memoria"), directorio, 0);
+            DatosBenchmark.añadirLectores(manager, NUM_EJEMPLARES);
+            DatosBenchmark.catalogar(manager, NUM_EJEMPLARES);
+        }
+
+        @TearDown(Level.Trial)
+        public void limpiar() throws IOException {
+            manager.cerrar();
+            borrar(directorio);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Recuperacion {
+        @Param({"10000", "1000000"})
+        int numPrestamos;
+
+        // "diario": todo se reproduce del diario; "instantanea": se compacta antes de cerrar
+        @Param({"diario", "instantanea"})
+        String origen;
+
+        Path directorio;
+
+        @Setup(Level.Trial)
+        public void preparar() throws IOException {
+            directorio = Files.createTempDirectory("bench-recuperacion");
+            LibrosManagerDuradero manager = LibrosManagerDuradero.abrir(DatosBenchmark.manager("memoria"), directorio, 0);
+            DatosBenchmark.añadirLectores(manager, numPrestamos);
+            DatosBenchmark.catalogar(manager, numPrestamos);
+            DatosBenchmark.prestar(manager, numPrestamos);
+            if (origen.equals("instantanea")) {
+                manager.compactar();
+            }
+            manager.cerrar();
+        }
+
+        @TearDown(Level.Trial)
+        public void limpiar() throws IOException {
+            borrar(directorio);
+        }
+    }
+
+    private static void borrar(Path directorio) throws IOException {
+        try (Stream<Path> ficheros = Files.walk(directorio)) {
+            ficheros.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public void prestarLibroDuradero(Escritura e) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        e.manager.prestarLibro(new Prestamo("Q" + e.secuencia.incrementAndGet(),
+                DatosBenchmark.lector(aleatorio.nextInt(DatosBenchmark.numLectores(Escritura.NUM_EJEMPLARES))),
+                DatosBenchmark.ejemplar(aleatorio.nextInt(Escritura.NUM_EJEMPLARES)), "01/02/2025", "15/02/2025"));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public int recuperar(Recuperacion r) throws IOException {
+        LibrosManagerDuradero manager = LibrosManagerDuradero.abrir(new LibrosManagerImpl(), r.directorio, 0);
+        try {
+            return manager.lectoresSize();
+        }
+        finally {
+            manager.cerrar();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package edu.upc.dsa;
+
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Peticiones por segundo contra el servicio con cada proveedor JSON (-Dlibros.json.proveedor),
+ * con el servidor arrancado en este mismo proceso. Cada valor de proveedor va en su propio fork
+ * porque el singleton del manager se crea una sola vez.
+ *
+ *  - prestarLibro: POST /prestamos, lee un Prestamo y lo devuelve.
+ *  - listarPrestamos: GET /prestamos?limite=50, escribe una lista de préstamos.
+ *  - prestamosDeLector: GET /prestamos/{lectorId}. Se escribe en streaming con jackson-core sea
+ *    cual sea el proveedor, así que sirve de referencia.
+ *
+ * Con -prof gc, gc.alloc.rate.norm es la memoria por petición de cliente y servidor juntos:
+ *
+ *   java -Dhilos=1,4 -jar target/benchmarks.jar ProveedorJsonBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProveedorJsonBenchmark {
+    private static final int NUM_EJEMPLARES = 10000;
+
+    @Param({"moxy", "modelos"})
+    String proveedor;
+
+    private HttpServer servidor;
+    private String base;
+    private final AtomicLong secuencia = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void arrancar() throws IOException {
+        System.setProperty(Main.PROPIEDAD_PROVEEDOR_JSON, proveedor);
+        // Con lectores el servicio no añade sus datos de ejemplo
+        LibrosManager manager = FabricaManager.getInstance();
+        DatosBenchmark.añadirLectores(manager, NUM_EJEMPLARES);
+        DatosBenchmark.catalogar(manager, NUM_EJEMPLARES);
+        DatosBenchmark.prestar(manager, NUM_EJEMPLARES);
+
+        int puerto;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            puerto = socket.getLocalPort();
+        }
+        servidor = Main.startServer("http://localhost:" + puerto + "/dsaApp/");
+        base = "http://localhost:" + puerto + "/dsaApp/librosManager/";
+    }
+
+    @TearDown(Level.Trial)
+    public void parar() {
+        servidor.shutdownNow();
+    }
+
+    @Benchmark
+    public int prestarLibro() throws IOException {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        String json = "{\"id\":\"H" + secuencia.incrementAndGet()
+                + "\",\"lectorId\":\"" + DatosBenchmark.lector(aleatorio.nextInt(DatosBenchmark.numLectores(NUM_EJEMPLARES)))
+                + "\",\"libroId\":\"" + DatosBenchmark.ejemplar(aleatorio.nextInt(NUM_EJEMPLARES))
+                + "\",\"inicioPrestamo\":\"01/02/2025\",\"finalPrestamo\":\"15/02/2025\"}";
+        return enviar(base + "prestamos", "POST", json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public int listarPrestamos() throws IOException {
+        return enviar(base + "prestamos?limite=50", "GET", null);
+    }
+
+    @Benchmark
+    public int prestamosDeLector() throws IOException {
+        int lector = ThreadLocalRandom.current().nextInt(DatosBenchmark.numLectores(NUM_EJEMPLARES));
+        return enviar(base + "prestamos/" + DatosBenchmark.lector(lector), "GET", null);
+    }
+
+    /** @return los bytes de la respuesta, que se lee entera para que la conexión se reutilice */
+    static int enviar(String url, String metodo, byte[] cuerpo) throws IOException {
+        HttpURLConnection conexion = (HttpURLConnection) new URL(url).openConnection();
+        conexion.setRequestMethod(metodo);
+        if (cuerpo != null) {
+            conexion.setRequestProperty("Content-Type", "application/json");
+            conexion.setDoOutput(true);
+            try (OutputStream out = conexion.getOutputStream()) {
+                out.write(cuerpo);
+            }
+        }
+        int codigo = conexion.getResponseCode();
+        if (codigo < 200 || codigo >= 300) {
+            throw new IllegalStateException(metodo + " " + url + " ha respondido " + codigo);
+        }
+        int leidos = 0;
+        try (InputStream in = conexion.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                leidos += n;
+            }
+        }
+        return leidos;
+    }
+}
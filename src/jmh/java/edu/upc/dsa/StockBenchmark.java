@@ -0,0 +1,61 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.stock.ContadorStock;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Todos los hilos prestan y devuelven el mismo título (un superventas): reservar un ejemplar
+ * y devolverlo. Con maxCeldas=1 el contador es un único entero atómico; con más, se reparte
+ * en celdas en cuanto hay contención. sincronizado es como era antes el stock: un int en el
+ * agregado, cambiado con el cerrojo de su ISBN.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StockBenchmark {
+    // Ejemplares del título: de sobra para que ningún hilo se quede sin
+    private static final int EJEMPLARES = 1000;
+
+    @Param({"1", "16"})
+    int maxCeldas;
+
+    private ContadorStock contador;
+    private final Object cerrojo = new Object();
+    private int numEjemplares;
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        contador = new ContadorStock(maxCeldas);
+        contador.añadir(EJEMPLARES);
+        numEjemplares = EJEMPLARES;
+    }
+
+    @Benchmark
+    public boolean reservarYDevolver() {
+        boolean reservado = contador.reservar();
+        if (reservado) contador.añadir(1);
+        return reservado;
+    }
+
+    @Benchmark
+    public boolean sincronizado() {
+        synchronized (cerrojo) {
+            if (numEjemplares <= 0) return false;
+            numEjemplares--;
+        }
+        synchronized (cerrojo) {
+            numEjemplares++;
+        }
+        return true;
+    }
+
+    @Benchmark
+    public int disponibles() {
+        return contador.disponibles();
+    }
+}
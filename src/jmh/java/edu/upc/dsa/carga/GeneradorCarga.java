@@ -0,0 +1,322 @@
+package edu.upc.dsa.carga;
+
+import edu.upc.dsa.Main;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.glassfish.grizzly.http.server.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generador de carga HTTP contra /dsaApp/librosManager. Arranca el servidor en un puerto libre
+ * dentro del mismo proceso (o usa url=... si ya hay uno) y lanza varios hilos que hacen
+ * peticiones en bucle cerrado. Al final saca, por endpoint, peticiones, errores, peticiones
+ * por segundo y latencias p50/p99/p99.9.
+ *
+ * Dos modos:
+ *  - mezcla sintética (por defecto): almacenar, catalogar, prestar y listar préstamos, con los
+ *    pesos de mezcla=almacenar:25,catalogar:20,prestar:35,listar:20 durante duracion segundos.
+ *  - captura=fichero: reproduce un fichero con una petición JSON por línea (ver Peticion.deCaptura),
+ *    repartido entre los hilos; con respetarTiempos=true se respeta el campo t de cada línea.
+ *
+ *   java -cp target/benchmarks.jar edu.upc.dsa.carga.GeneradorCarga hilos=16 duracion=60
+ *
+ * Cada hilo es una conexión keep-alive, así que con hilos=1000..10000 se mide el servidor con
+ * miles de conexiones a la vez; los modos de ejecución del servidor (ver Ejecucion) se eligen
+ * con sus propiedades:
+ *
+ *   java -Dlibros.ejecucion.manejadores=pool -cp target/benchmarks.jar edu.upc.dsa.carga.GeneradorCarga hilos=2000
+ */
+public class GeneradorCarga {
+    private static final String[] OPERACIONES = {"almacenar", "catalogar", "prestar", "listar"};
+    // Con miles de hilos, la pila por defecto (1 MB) reservaría gigas
+    private static final long TAMAÑO_PILA = 256 * 1024;
+
+    private final Map<String, String> opciones;
+    private final String baseUri;
+    private final int numHilos;
+    private final int numLectores;
+    private final int numEjemplares;
+    private final int numIsbns;
+
+    GeneradorCarga(Map<String, String> opciones, String baseUri) {
+        this.opciones = opciones;
+        this.baseUri = baseUri;
+        this.numHilos = entero("hilos", 8);
+        this.numLectores = entero("lectores", 100);
+        this.numEjemplares = entero("ejemplares", 10000);
+        this.numIsbns = Math.max(1, numEjemplares / 10);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (igual < 0) throw new IllegalArgumentException("Opción sin valor: " + arg);
+            opciones.put(arg.substring(0, igual), arg.substring(igual + 1));
+        }
+        // HttpURLConnection solo guarda 5 conexiones keep-alive por servidor: con más hilos, el
+        // resto abriría una conexión nueva en cada petición. Se lee una vez, antes de la primera
+        System.setProperty("http.maxConnections", opciones.getOrDefault("hilos", "8"));
+        if (!Boolean.parseBoolean(opciones.getOrDefault("log", "false"))) {
+            // Con el log por consola a DEBUG se mediría la consola, no el servicio
+            Logger.getRootLogger().setLevel(Level.OFF);
+        }
+        HttpServer servidor = null;
+        String baseUri = opciones.get("url");
+        if (baseUri == null) {
+            baseUri = "http://localhost:" + puertoLibre() + "/dsaApp/";
+            servidor = Main.startServer(baseUri);
+            System.out.println("Servidor arrancado en " + baseUri);
+        }
+        try {
+            GeneradorCarga generador = new GeneradorCarga(opciones, baseUri);
+            if (opciones.containsKey("captura")) {
+                generador.reproducirCaptura(opciones.get("captura"));
+            }
+            else {
+                generador.ejecutarMezcla();
+            }
+        }
+        finally {
+            if (servidor != null) servidor.shutdownNow();
+        }
+    }
+
+    private static int puertoLibre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private int entero(String clave, int porDefecto) {
+        String valor = opciones.get(clave);
+        return (valor == null) ? porDefecto : Integer.parseInt(valor);
+    }
+
+    // -------- MEZCLA SINTÉTICA --------
+
+    void ejecutarMezcla() throws Exception {
+        int[] pesos = leerMezcla(opciones.getOrDefault("mezcla", "almacenar:25,catalogar:20,prestar:35,listar:20"));
+        int pesoTotal = 0;
+        for (int peso : pesos) pesoTotal += peso;
+        preparar();
+
+        long calentamientoNs = entero("calentamiento", 5) * 1_000_000_000L;
+        long duracionNs = entero("duracion", 30) * 1_000_000_000L;
+        long inicio = System.nanoTime();
+        long inicioMedida = inicio + calentamientoNs;
+        long fin = inicioMedida + duracionNs;
+        AtomicInteger secuencia = new AtomicInteger();
+        final int total = pesoTotal;
+
+        List<Map<String, Latencias>> resultados = ejecutarHilos(hilo -> {
+            Map<String, Latencias> latencias = new HashMap<>();
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            long ahora;
+            while ((ahora = System.nanoTime()) < fin) {
+                int tirada = aleatorio.nextInt(total);
+                int op = 0;
+                while (tirada >= pesos[op]) tirada -= pesos[op++];
+                Peticion peticion = generar(OPERACIONES[op], hilo, secuencia.incrementAndGet(), aleatorio);
+                long t0 = System.nanoTime();
+                boolean ok = enviar(peticion);
+                long t1 = System.nanoTime();
+                if (ahora >= inicioMedida) {
+                    latencias.computeIfAbsent(peticion.endpoint, k -> new Latencias()).añadir(t1 - t0, ok);
+                }
+            }
+            return latencias;
+        });
+        informe(resultados, duracionNs / 1e9);
+    }
+
+    private static int[] leerMezcla(String mezcla) {
+        int[] pesos = new int[OPERACIONES.length];
+        for (String parte : mezcla.split(",")) {
+            String[] claveValor = parte.split(":");
+            int i = Arrays.asList(OPERACIONES).indexOf(claveValor[0].trim());
+            if (i < 0 || claveValor.length != 2) throw new IllegalArgumentException("Mezcla no válida: " + parte);
+            pesos[i] = Integer.parseInt(claveValor[1].trim());
+        }
+        return pesos;
+    }
+
+    /** Lectores y ejemplares catalogados de partida, para que haya a quién y qué prestar */
+    private void preparar() throws IOException {
+        for (int i = 0; i < numLectores; i++) {
+            comprobar(enviar(Peticion.json("", "POST", "librosManager/lectores",
+                    "{\"id\":\"CL" + i + "\",\"nombre\":\"Lector\",\"apellidos\":\"Carga\",\"dni\":\"" + i + "X\",\"fechaNacimiento\":\"01/01/2000\",\"lugarNacimiento\":\"Barcelona\",\"direccion\":\"Carrer " + i + "\"}")));
+        }
+        StringBuilder lote = new StringBuilder("[");
+        for (int i = 0; i < numEjemplares; i++) {
+            if (i > 0) lote.append(',');
+            lote.append(libro("C" + i, i % numIsbns));
+        }
+        comprobar(enviar(Peticion.json("", "POST", "librosManager/libros/almacen/lote", lote.append(']').toString())));
+        comprobar(enviar(Peticion.json("", "POST", "librosManager/libros/catalogo/todos", null)));
+        System.out.println("Preparados " + numLectores + " lectores y " + numEjemplares + " ejemplares de " + numIsbns + " ISBNs");
+    }
+
+    private static void comprobar(boolean ok) throws IOException {
+        if (!ok) throw new IOException("Ha fallado la preparación de los datos");
+    }
+
+    private static String libro(String id, int isbn) {
+        return "{\"id\":\"" + id + "\",\"isbn\":\"CARGA-" + isbn + "\",\"titulo\":\"Titulo " + isbn + "\",\"editorial\":\"Editorial\",\"añoPublicacion\":2000,\"edicion\":1,\"autor\":\"Autor\",\"tematica\":\"Tematica\"}";
+    }
+
+    private Peticion generar(String operacion, int hilo, int n, ThreadLocalRandom aleatorio) {
+        switch (operacion) {
+            case "almacenar":
+                return Peticion.json("POST libros/almacen", "POST", "librosManager/libros/almacen",
+                        libro("A" + hilo + "-" + n, aleatorio.nextInt(numIsbns)));
+            case "catalogar":
+                return Peticion.json("POST libros/catalogo", "POST", "librosManager/libros/catalogo", null);
+            case "prestar":
+                return Peticion.json("POST prestamos", "POST", "librosManager/prestamos",
+                        "{\"id\":\"G" + hilo + "-" + n + "\",\"lectorId\":\"CL" + aleatorio.nextInt(numLectores) + "\",\"libroId\":\"C" + aleatorio.nextInt(numEjemplares) + "\",\"inicioPrestamo\":\"01/03/2025\",\"finalPrestamo\":\"15/03/2025\"}");
+            default:
+                return Peticion.json("GET prestamos/{lectorId}", "GET", "librosManager/prestamos/CL" + aleatorio.nextInt(numLectores), null);
+        }
+    }
+
+    // -------- REPRODUCCIÓN DE CAPTURAS --------
+
+    void reproducirCaptura(String fichero) throws Exception {
+        List<Peticion> peticiones = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(fichero), StandardCharsets.UTF_8)) {
+            String linea;
+            int numLinea = 0;
+            while ((linea = reader.readLine()) != null) {
+                numLinea++;
+                if (linea.trim().isEmpty()) continue;
+                try {
+                    peticiones.add(Peticion.deCaptura(linea));
+                }
+                catch (IOException ex) {
+                    throw new IOException(fichero + ":" + numLinea + ": " + ex.getMessage(), ex);
+                }
+            }
+        }
+        boolean respetarTiempos = Boolean.parseBoolean(opciones.getOrDefault("respetarTiempos", "false"));
+        System.out.println("Reproduciendo " + peticiones.size() + " peticiones de " + fichero + " con " + numHilos + " hilos");
+
+        AtomicInteger siguiente = new AtomicInteger();
+        long inicio = System.nanoTime();
+        List<Map<String, Latencias>> resultados = ejecutarHilos(hilo -> {
+            Map<String, Latencias> latencias = new HashMap<>();
+            int i;
+            while ((i = siguiente.getAndIncrement()) < peticiones.size()) {
+                Peticion peticion = peticiones.get(i);
+                if (respetarTiempos && peticion.instante >= 0) {
+                    long espera = inicio + peticion.instante * 1_000_000L - System.nanoTime();
+                    if (espera > 0) Thread.sleep(espera / 1_000_000L, (int) (espera % 1_000_000L));
+                }
+                long t0 = System.nanoTime();
+                boolean ok = enviar(peticion);
+                latencias.computeIfAbsent(peticion.endpoint, k -> new Latencias()).añadir(System.nanoTime() - t0, ok);
+            }
+            return latencias;
+        });
+        informe(resultados, (System.nanoTime() - inicio) / 1e9);
+    }
+
+    // -------- HILOS, HTTP E INFORME --------
+
+    private interface Trabajo {
+        Map<String, Latencias> ejecutar(int hilo) throws Exception;
+    }
+
+    private List<Map<String, Latencias>> ejecutarHilos(Trabajo trabajo) throws Exception {
+        List<Map<String, Latencias>> resultados = new ArrayList<>();
+        List<Thread> hilos = new ArrayList<>();
+        Exception[] error = new Exception[1];
+        for (int h = 0; h < numHilos; h++) {
+            final int hilo = h;
+            Thread t = new Thread(null, () -> {
+                try {
+                    Map<String, Latencias> parcial = trabajo.ejecutar(hilo);
+                    synchronized (resultados) {
+                        resultados.add(parcial);
+                    }
+                }
+                catch (Exception ex) {
+                    synchronized (resultados) {
+                        error[0] = ex;
+                    }
+                }
+            }, "carga-" + h, TAMAÑO_PILA);
+            hilos.add(t);
+            t.start();
+        }
+        for (Thread t : hilos) t.join();
+        if (error[0] != null) throw error[0];
+        return resultados;
+    }
+
+    /** @return si la respuesta ha sido 2xx */
+    boolean enviar(Peticion peticion) throws IOException {
+        HttpURLConnection conexion = (HttpURLConnection) new URL(baseUri + peticion.ruta).openConnection();
+        conexion.setRequestMethod(peticion.metodo);
+        if (peticion.cuerpo != null || "POST".equals(peticion.metodo) || "PUT".equals(peticion.metodo)) {
+            conexion.setRequestProperty("Content-Type", peticion.tipo);
+            conexion.setDoOutput(true);
+            try (OutputStream out = conexion.getOutputStream()) {
+                if (peticion.cuerpo != null) out.write(peticion.cuerpo);
+            }
+        }
+        int codigo = conexion.getResponseCode();
+        // Se lee la respuesta entera para que la conexión vuelva al pool de keep-alive
+        try (InputStream in = (codigo >= 400) ? conexion.getErrorStream() : conexion.getInputStream()) {
+            if (in != null) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                    // descartar
+                }
+            }
+        }
+        return codigo >= 200 && codigo < 300;
+    }
+
+    private static void informe(List<Map<String, Latencias>> resultados, double segundos) {
+        Map<String, Latencias> porEndpoint = new TreeMap<>();
+        for (Map<String, Latencias> parcial : resultados) {
+            for (Map.Entry<String, Latencias> e : parcial.entrySet()) {
+                porEndpoint.computeIfAbsent(e.getKey(), k -> new Latencias()).juntar(e.getValue());
+            }
+        }
+        System.out.println(String.format("%-40s %10s %8s %10s %9s %9s %9s %9s",
+                "endpoint", "peticiones", "errores", "pet/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Latencias total = new Latencias();
+        for (Map.Entry<String, Latencias> e : porEndpoint.entrySet()) {
+            linea(e.getKey(), e.getValue(), segundos);
+            total.juntar(e.getValue());
+        }
+        linea("TOTAL", total, segundos);
+    }
+
+    private static void linea(String endpoint, Latencias latencias, double segundos) {
+        latencias.ordenar();
+        System.out.println(String.format("%-40s %10d %8d %10.1f %9.3f %9.3f %9.3f %9.3f",
+                endpoint, latencias.getPeticiones(), latencias.getErrores(), latencias.getPeticiones() / segundos,
+                latencias.percentilMs(0.50), latencias.percentilMs(0.99), latencias.percentilMs(0.999), latencias.maximoMs()));
+    }
+}
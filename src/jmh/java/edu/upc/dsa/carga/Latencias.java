@@ -0,0 +1,52 @@
+package edu.upc.dsa.carga;
+
+import java.util.Arrays;
+
+/**
+ * Latencias (en nanosegundos) y errores de un endpoint. Cada hilo lleva las suyas y al
+ * final se juntan, así que no es thread-safe.
+ */
+class Latencias {
+    private long[] valores = new long[1024];
+    private int tamaño;
+    private int errores;
+
+    void añadir(long nanos, boolean ok) {
+        if (tamaño == valores.length) {
+            valores = Arrays.copyOf(valores, valores.length * 2);
+        }
+        valores[tamaño++] = nanos;
+        if (!ok) errores++;
+    }
+
+    void juntar(Latencias otras) {
+        for (int i = 0; i < otras.tamaño; i++) {
+            añadir(otras.valores[i], true);
+        }
+        errores += otras.errores;
+    }
+
+    int getPeticiones() {
+        return tamaño;
+    }
+
+    int getErrores() {
+        return errores;
+    }
+
+    /** Ordena las muestras; hay que llamarlo antes de pedir percentiles */
+    void ordenar() {
+        Arrays.sort(valores, 0, tamaño);
+    }
+
+    /** @param p entre 0 y 1, por ejemplo 0.999 para el p99.9 */
+    double percentilMs(double p) {
+        if (tamaño == 0) return 0;
+        int i = (int) Math.ceil(p * tamaño) - 1;
+        return valores[Math.max(0, Math.min(i, tamaño - 1))] / 1e6;
+    }
+
+    double maximoMs() {
+        return (tamaño == 0) ? 0 : valores[tamaño - 1] / 1e6;
+    }
+}
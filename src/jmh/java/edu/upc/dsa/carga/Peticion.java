@@ -0,0 +1,93 @@
+package edu.upc.dsa.carga;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Una petición HTTP contra el servicio: método, ruta relativa a la URI base, cuerpo opcional
+ * y el nombre del endpoint con el que se agrupan sus latencias.
+ */
+class Peticion {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    final String endpoint;
+    final String metodo;
+    final String ruta;
+    final String tipo;
+    final byte[] cuerpo;
+    // Milisegundos desde el inicio de la captura, o -1 si no se sabe
+    final long instante;
+
+    Peticion(String endpoint, String metodo, String ruta, String tipo, byte[] cuerpo, long instante) {
+        this.endpoint = endpoint;
+        this.metodo = metodo;
+        this.ruta = ruta;
+        this.tipo = tipo;
+        this.cuerpo = cuerpo;
+        this.instante = instante;
+    }
+
+    static Peticion json(String endpoint, String metodo, String ruta, String json) {
+        return new Peticion(endpoint, metodo, ruta, "application/json",
+                (json == null) ? null : json.getBytes(StandardCharsets.UTF_8), -1);
+    }
+
+    /**
+     * Lee una línea de una captura:
+     *
+     *   {"metodo":"POST","ruta":"librosManager/prestamos","tipo":"application/json","cuerpo":{...},"t":1520}
+     *
+     * cuerpo puede ser un objeto o array JSON, o un texto que se envía tal cual (por ejemplo NDJSON).
+     * tipo, cuerpo y t son opcionales; endpoint también, y si falta se usa el método y la ruta sin query.
+     */
+    static Peticion deCaptura(String linea) throws IOException {
+        String endpoint = null, metodo = null, ruta = null, tipo = "application/json";
+        byte[] cuerpo = null;
+        long instante = -1;
+        try (JsonParser p = FACTORY.createParser(linea)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("La línea no es un objeto JSON");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = p.getCurrentName();
+                JsonToken valor = p.nextToken();
+                switch (campo) {
+                    case "endpoint": endpoint = p.getText(); break;
+                    case "metodo": metodo = p.getText(); break;
+                    case "ruta": ruta = p.getText(); break;
+                    case "tipo": tipo = p.getText(); break;
+                    case "t": instante = p.getLongValue(); break;
+                    case "cuerpo":
+                        if (valor == JsonToken.START_OBJECT || valor == JsonToken.START_ARRAY) {
+                            ByteArrayOutputStream out = new ByteArrayOutputStream();
+                            try (JsonGenerator g = FACTORY.createGenerator(out)) {
+                                g.copyCurrentStructure(p);
+                            }
+                            cuerpo = out.toByteArray();
+                        }
+                        else if (valor != JsonToken.VALUE_NULL) {
+                            cuerpo = p.getText().getBytes(StandardCharsets.UTF_8);
+                        }
+                        break;
+                    default:
+                        p.skipChildren();
+                }
+            }
+        }
+        if (metodo == null || ruta == null) {
+            throw new IOException("Faltan metodo o ruta");
+        }
+        if (ruta.startsWith("/")) ruta = ruta.substring(1);
+        if (endpoint == null) {
+            int query = ruta.indexOf('?');
+            endpoint = metodo + " " + ((query < 0) ? ruta : ruta.substring(0, query));
+        }
+        return new Peticion(endpoint, metodo, ruta, tipo, cuerpo, instante);
+    }
+}
@@ -0,0 +1,98 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.models.EstadoCatalogador;
+import edu.upc.dsa.models.ResumenCatalogacion;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Trabajador en segundo plano que va vaciando el almacén hacia el catálogo en lotes.
+ * Un único hilo ejecuta los lotes uno detrás de otro, así que el orden de los montones se
+ * mantiene; la concurrencia con almacenarLibro la resuelve el propio manager.
+ */
+public class CatalogadorAutomatico {
+    final static Logger logger = Logger.getLogger(CatalogadorAutomatico.class);
+
+    private static volatile CatalogadorAutomatico instance;
+
+    private final LibrosManager manager;
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> tarea;
+    private int tamañoLote;
+    private long periodoMs;
+    private volatile long numEjecuciones;
+    private volatile long numCatalogados;
+    private volatile int numPendientes;
+
+    CatalogadorAutomatico(LibrosManager manager) {
+        this.manager = manager;
+    }
+
+    public static CatalogadorAutomatico getInstance() {
+        if (instance == null) {
+            synchronized (CatalogadorAutomatico.class) {
+                if (instance == null) instance = new CatalogadorAutomatico(FabricaManager.getInstance());
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Arranca el trabajador, o lo reprograma si ya estaba activo.
+     * @param tamañoLote libros catalogados como máximo en cada ejecución
+     * @param periodoMs espera entre el final de una ejecución y el inicio de la siguiente
+     */
+    public synchronized void iniciar(int tamañoLote, long periodoMs) {
+        if (tamañoLote <= 0 || periodoMs <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote y el periodo deben ser positivos");
+        }
+        if (tarea != null) {
+            tarea.cancel(false);
+        }
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "catalogador-automatico");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        this.tamañoLote = tamañoLote;
+        this.periodoMs = periodoMs;
+        tarea = executor.scheduleWithFixedDelay(this::ejecutarLote, 0, periodoMs, TimeUnit.MILLISECONDS);
+        logger.info("Catalogador automático iniciado: lote = " + tamañoLote + ", periodo = " + periodoMs + " ms");
+    }
+
+    public synchronized void detener() {
+        if (tarea != null) {
+            tarea.cancel(false);
+            tarea = null;
+            logger.info("Catalogador automático detenido");
+        }
+    }
+
+    public synchronized boolean isActivo() {
+        return tarea != null;
+    }
+
+    public synchronized EstadoCatalogador getEstado() {
+        return new EstadoCatalogador(tarea != null, tamañoLote, periodoMs, numEjecuciones, numCatalogados, numPendientes);
+    }
+
+    private void ejecutarLote() {
+        try {
+            ResumenCatalogacion resumen = manager.catalogarSiguientesLibros(tamañoLote);
+            numEjecuciones++;
+            numCatalogados += resumen.getNumCatalogados();
+            numPendientes = resumen.getNumPendientes();
+        }
+        catch (RuntimeException ex) {
+            // Si la excepción saliera de aquí el executor cancelaría la tarea sin avisar
+            logger.error("Excepción en el catalogador automático: ", ex);
+        }
+    }
+}
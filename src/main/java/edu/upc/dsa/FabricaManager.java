@@ -0,0 +1,118 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.metricas.LibrosManagerInstrumentado;
+import edu.upc.dsa.metricas.Metricas;
+import edu.upc.dsa.particiones.LibrosManagerParticionado;
+import edu.upc.dsa.particiones.LibrosManagerRemoto;
+import edu.upc.dsa.persistencia.LibrosManagerDuradero;
+import edu.upc.dsa.prestamos.AlmacenPrestamos;
+import edu.upc.dsa.prestamos.AlmacenPrestamosMapeado;
+import edu.upc.dsa.prestamos.AlmacenPrestamosMemoria;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * El manager compartido del proceso, montado según las propiedades del sistema: los almacenes
+ * de préstamos, la persistencia, las particiones y las métricas envuelven a LibrosManagerImpl
+ * desde aquí, y LibrosManagerImpl no sabe nada de ellos.
+ */
+public class FabricaManager {
+    // Si está definida, el manager compartido guarda su estado en este directorio (modo duradero)
+    public static final String PROPIEDAD_DIRECTORIO_PERSISTENCIA = "libros.persistencia.dir";
+    public static final String PROPIEDAD_COMPACTAR_CADA_MS = "libros.persistencia.compactarCadaMs";
+    // "memoria" (por defecto) o "mapeado"; con "mapeado", libros.prestamos.fichero elige el fichero
+    // de los préstamos en trámite, y el del histórico es el mismo acabado en -historico
+    public static final String PROPIEDAD_ALMACEN_PRESTAMOS = "libros.prestamos.almacen";
+    public static final String PROPIEDAD_FICHERO_PRESTAMOS = "libros.prestamos.fichero";
+    // Número de particiones en este proceso, o URIs base de los nodos separadas por comas
+    // (http://localhost:8081/dsaApp/,http://localhost:8082/dsaApp/)
+    public static final String PROPIEDAD_PARTICIONES = "libros.particiones";
+    // "true" en los procesos que hacen de nodo de un manager particionado
+    public static final String PROPIEDAD_NODO_PARTICION = "libros.particiones.nodo";
+
+    private static volatile LibrosManager instance;
+
+    private FabricaManager() {
+    }
+
+    public static LibrosManager getInstance() {
+        if (instance == null) {
+            synchronized (FabricaManager.class) {
+                if (instance == null) instance = crearInstancia();
+            }
+        }
+        return instance;
+    }
+
+    private static LibrosManager crearInstancia() {
+        LibrosManager manager = crearManager();
+        return Metricas.activadas() ? new LibrosManagerInstrumentado(manager, Metricas.getInstance()) : manager;
+    }
+
+    private static LibrosManager crearManager() {
+        try {
+            String particiones = System.getProperty(PROPIEDAD_PARTICIONES);
+            if (particiones == null) {
+                return crearParticion("", !Boolean.getBoolean(PROPIEDAD_NODO_PARTICION));
+            }
+            List<LibrosManager> managers = new ArrayList<>();
+            if (particiones.contains("://")) {
+                for (String uri : particiones.split(",")) {
+                    managers.add(new LibrosManagerRemoto(uri.trim()));
+                }
+            }
+            else {
+                int numParticiones;
+                try {
+                    numParticiones = Integer.parseInt(particiones.trim());
+                }
+                catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Particiones no válidas: " + particiones);
+                }
+                // Cada partición con su directorio y su fichero de préstamos, si los hay
+                for (int i = 0; i < numParticiones; i++) {
+                    managers.add(crearParticion("particion-" + i, false));
+                }
+            }
+            return new LibrosManagerParticionado(managers);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException("No se ha podido crear el manager", ex);
+        }
+    }
+
+    private static LibrosManager crearParticion(String nombre, boolean validarLectores) throws IOException {
+        LibrosManagerImpl manager = new LibrosManagerImpl(crearAlmacenPrestamos(nombre, ""), crearAlmacenPrestamos(nombre, "historico"));
+        manager.setValidarLectores(validarLectores);
+        String directorio = System.getProperty(PROPIEDAD_DIRECTORIO_PERSISTENCIA);
+        if (directorio == null) {
+            return manager;
+        }
+        long compactarCadaMs = Long.getLong(PROPIEDAD_COMPACTAR_CADA_MS, 60000L);
+        return LibrosManagerDuradero.abrir(manager, Paths.get(directorio, nombre), compactarCadaMs);
+    }
+
+    /**
+     * Los préstamos en trámite y el histórico van en almacenes del mismo tipo. Con "mapeado" y
+     * libros.prestamos.fichero, cada uno en su fichero: el indicado, con la partición (si la
+     * hay) y el sufijo detrás, por ejemplo prestamos-particion-0 y prestamos-particion-0-historico.
+     */
+    private static AlmacenPrestamos crearAlmacenPrestamos(String particion, String sufijo) throws IOException {
+        String tipo = System.getProperty(PROPIEDAD_ALMACEN_PRESTAMOS, "memoria");
+        switch (tipo) {
+            case "memoria":
+                return new AlmacenPrestamosMemoria();
+            case "mapeado":
+                String fichero = System.getProperty(PROPIEDAD_FICHERO_PRESTAMOS);
+                if (fichero != null && !particion.isEmpty()) fichero += "-" + particion;
+                if (fichero != null && !sufijo.isEmpty()) fichero += "-" + sufijo;
+                return (fichero == null) ? AlmacenPrestamosMapeado.temporal() : new AlmacenPrestamosMapeado(Paths.get(fichero));
+            default:
+                throw new IllegalArgumentException("Almacén de préstamos desconocido: " + tipo);
+        }
+    }
+}
@@ -1,20 +1,45 @@
 package edu.upc.dsa;
 
+import edu.upc.dsa.models.AnaliticaCatalogo;
+import edu.upc.dsa.models.Estadisticas;
 import edu.upc.dsa.models.Libro;
 import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Pagina;
 import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.ResultadoBusqueda;
+import edu.upc.dsa.models.ResultadoDevolucion;
+import edu.upc.dsa.models.ResultadoLector;
+import edu.upc.dsa.models.ResultadoLote;
+import edu.upc.dsa.models.ResultadoPrestamo;
+import edu.upc.dsa.models.ResumenCatalogacion;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface LibrosManager {
-    public void addLector(String id, String nombre, String apellidos, String dni, String fechaNacimiento, String lugarNacimiento, String direccion);
-    public void almacenarLibro(Libro libro);
+    public ResultadoLector addLector(String id, String nombre, String apellidos, String dni, String fechaNacimiento, String lugarNacimiento, String direccion);
+    public boolean almacenarLibro(Libro libro);
+    public ResultadoLote almacenarLibros(List<Libro> libros);
     public Libro catalogarSiguienteLibro ();
-    public void prestarLibro(Prestamo prestamo);
+    public ResumenCatalogacion catalogarSiguientesLibros(int n);
+    public ResumenCatalogacion catalogarTodosLosLibros();
+    public ResultadoPrestamo prestarLibro(Prestamo prestamo);
+    public ResultadoDevolucion devolverLibro(String prestamoId);
+    public Prestamo getPrestamo(String id);
     public List<Prestamo> prestamosDeLector(String lectorId);
+    public void recorrerPrestamosDeLector(String lectorId, Consumer<Prestamo> consumidor);
+    public void recorrerPrestamosDeLector(String lectorId, boolean enTramite, Consumer<Prestamo> consumidor);
+    public List<Prestamo> prestamosVencidosHasta(String fecha);
+    public ResultadoBusqueda buscarLibros(String texto, String tematica, String editorial, Integer año, int pagina, int tamañoPagina);
+    public AnaliticaCatalogo analizarCatalogo(String agrupacion);
+    public Pagina<Lector> listarLectores(String cursor, int limite);
+    public Pagina<Libro> listarCatalogo(String cursor, int limite);
+    public Pagina<Prestamo> listarPrestamos(String cursor, int limite);
     public void clear();
     public Lector getLector(String id);
     public int lectoresSize();
     public Libro getLibroPorIsbn(String isbn);
     public int getStockPorIsbn(String isbn);
+    public long getVersionIsbn(String isbn);
+    public Estadisticas getEstadisticas();
 }
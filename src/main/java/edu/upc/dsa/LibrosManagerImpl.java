@@ -1,245 +1,865 @@
 package edu.upc.dsa;
 
+import edu.upc.dsa.analitica.Agrupacion;
+import edu.upc.dsa.analitica.ColumnasCatalogo;
+import edu.upc.dsa.busqueda.IndiceCatalogo;
+import edu.upc.dsa.models.AnaliticaCatalogo;
 import edu.upc.dsa.models.Prestamo;
 import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Estadisticas;
 import edu.upc.dsa.models.Lector;
-import edu.upc.dsa.exceptions.*;
+import edu.upc.dsa.models.Pagina;
+import edu.upc.dsa.models.ResultadoBusqueda;
+import edu.upc.dsa.models.ResultadoLote;
+import edu.upc.dsa.models.ResultadoDevolucion;
+import edu.upc.dsa.models.ResultadoLector;
+import edu.upc.dsa.models.ResultadoPrestamo;
+import edu.upc.dsa.models.ResumenCatalogacion;
+import edu.upc.dsa.persistencia.ConsumidorEstado;
+import edu.upc.dsa.persistencia.RegistroOperaciones;
+import edu.upc.dsa.prestamos.AlmacenPrestamos;
+import edu.upc.dsa.prestamos.AlmacenPrestamosMemoria;
+import edu.upc.dsa.stock.ContadorStock;
+import edu.upc.dsa.stock.TablaStock;
+import edu.upc.dsa.util.ColaMontones;
+import edu.upc.dsa.util.Cursores;
+import edu.upc.dsa.util.Fechas;
+import edu.upc.dsa.util.TablaIdentificadoresConcurrente;
+import edu.upc.dsa.util.TablaPorNumero;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.apache.log4j.Logger;
 
 public class LibrosManagerImpl implements LibrosManager {
-    private HashMap<String, Lector> lectores;
-    private Queue<Stack<Libro>> montonesLibros;
+    private static final int NUM_CERROJOS_ISBN = 64;
+    private static final int NUM_CERROJOS_PRESTAMO = 64;
+    public static final int LIMITE_LISTADO_MAX = 1000;
+
+    private ConcurrentHashMap<String, Lector> lectores;
     private int numLibrosMaxPorMonton = 10;
-    private HashMap<String, Libro> catalogoLibrosPorIsbn;
-    private HashMap<String, Libro> catalogoLibrosPorId;
-    private HashMap<String, Prestamo> prestamos;
+    private ColaMontones<Libro> montonesLibros;
+    private ConcurrentHashMap<String, Libro> catalogoLibrosPorId;
+    // Lo que el catálogo guarda por ISBN, por número de ISBN
+    private volatile TablasIsbn isbns = new TablasIsbn();
+    // Claves ordenadas de lectores y del catálogo para los listados por páginas; las tablas
+    // siguen siendo hash para que las búsquedas por clave no paguen el orden
+    private final ConcurrentSkipListSet<String> idsLectores = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<String> isbnsCatalogo = new ConcurrentSkipListSet<>();
+    // Búsqueda por texto sobre los agregados del catálogo; cada ISBN nuevo se añade con su
+    // cerrojo, en el mismo momento en que entra en el catálogo
+    private final IndiceCatalogo indiceCatalogo = new IndiceCatalogo();
+    // De donde salen las versiones de los ISBN (ver TablasIsbn): nunca vuelve atrás, ni con
+    // clear(), así que una versión no se repite
+    private final AtomicLong relojVersiones = new AtomicLong();
+    // Préstamos en trámite; los devueltos pasan al histórico para que las búsquedas
+    // habituales solo recorran los activos
+    private AlmacenPrestamos prestamos;
+    private AlmacenPrestamos historicoPrestamos;
+
+    // Cerrojos por franjas de ISBN, para crear el agregado de un ISBN nuevo una sola vez
+    private final Object[] cerrojosIsbn;
+    // Cerrojos por franjas de id de préstamo: comprobar que el id no está en trámite y guardarlo
+    // (o quitarlo al devolver) va junto, pero los préstamos de un mismo título no se esperan
+    private final Object[] cerrojosPrestamo;
+
+    private volatile RegistroOperaciones registro = RegistroOperaciones.NINGUNO;
+    // En una partición no están todos los lectores: quien reparte comprueba el lector en la
+    // suya antes de prestar (ver LibrosManagerParticionado)
+    private boolean validarLectores = true;
 
     final static Logger logger = Logger.getLogger(LibrosManagerImpl.class);
 
-    private static LibrosManager instance;
+    /**
+     * Cada ISBN del catálogo se interna una vez, al catalogar su primer ejemplar, y el resto de
+     * tablas van por ese número: arrays por trozos en lugar de un mapa hash por tabla, y el mismo
+     * texto del ISBN en todos sus ejemplares. clear() cambia el objeto entero, así que una
+     * operación que lo lee una vez nunca usa el número de un ISBN en tablas de otro catálogo.
+     */
+    private static final class TablasIsbn {
+        final TablaIdentificadoresConcurrente numeros = new TablaIdentificadoresConcurrente();
+        // El primer ejemplar catalogado de cada ISBN, que da sus datos
+        final TablaPorNumero<Libro> agregados = new TablaPorNumero<>();
+        // El primer ejemplar de cada ISBN que salió del almacén. Se apunta con el cerrojo del
+        // almacén, en el orden en que se desapila (el del diario), y el agregado sale de aquí:
+        // dos catalogaciones que toman el cerrojo del ISBN en otro orden eligen el mismo
+        final TablaPorNumero<Libro> primerosDesapilados = new TablaPorNumero<>();
+        // Ejemplares disponibles. No está en el agregado: así se presta y se lee el stock sin
+        // cerrojos, y los agregados que salen del manager son copias
+        final TablaStock stock = new TablaStock();
+        // Versión de cada ISBN (para ETags y cachés): se cambia justo después de modificar el
+        // agregado o su stock
+        final TablaPorNumero<AtomicLong> versiones = new TablaPorNumero<>();
+        // Los mismos ISBN por columnas, para agrupar el catálogo (analizarCatalogo)
+        final ColumnasCatalogo columnas = new ColumnasCatalogo(stock);
+    }
+
+    LibrosManagerImpl() {
+        this(new AlmacenPrestamosMemoria(), new AlmacenPrestamosMemoria());
+    }
+
+    LibrosManagerImpl(AlmacenPrestamos prestamos, AlmacenPrestamos historicoPrestamos) {
+        this.lectores = new ConcurrentHashMap<>();
+        this.montonesLibros = new ColaMontones<>(numLibrosMaxPorMonton);
+        this.catalogoLibrosPorId = new ConcurrentHashMap<>();
+        this.prestamos = prestamos;
+        this.historicoPrestamos = historicoPrestamos;
+        this.cerrojosIsbn = new Object[NUM_CERROJOS_ISBN];
+        for (int i = 0; i < NUM_CERROJOS_ISBN; i++) {
+            this.cerrojosIsbn[i] = new Object();
+        }
+        this.cerrojosPrestamo = new Object[NUM_CERROJOS_PRESTAMO];
+        for (int i = 0; i < NUM_CERROJOS_PRESTAMO; i++) {
+            this.cerrojosPrestamo[i] = new Object();
+        }
+    }
+
+    /**
+     * Con false, prestarLibro no comprueba que el lector exista: para las particiones de
+     * LibrosManagerParticionado, que no tienen todos los lectores.
+     */
+    void setValidarLectores(boolean validarLectores) {
+        this.validarLectores = validarLectores;
+    }
+
+    // Llamar después de tocar el agregado o el stock: quien lea la versión nueva ve también el
+    // cambio. Dos cambios a la vez pueden llegar aquí en cualquier orden; se queda la mayor
+    private void nuevaVersion(TablasIsbn tablas, int isbn) {
+        AtomicLong version = tablas.versiones.get(isbn);
+        if (version != null) {
+            version.accumulateAndGet(relojVersiones.incrementAndGet(), Math::max);
+        }
+    }
+
+    // Con el cerrojo del ISBN. El contador de stock se crea antes de guardar ningún ejemplar:
+    // quien encuentre el ejemplar encuentra su stock
+    private static int registrarIsbn(TablasIsbn tablas, String isbn) {
+        int numero = tablas.numeros.internar(isbn);
+        tablas.stock.registrar(numero);
+        if (tablas.versiones.get(numero) == null) {
+            tablas.versiones.set(numero, new AtomicLong());
+        }
+        return numero;
+    }
+
+    // Con el cerrojo del almacén, por cada ejemplar desapilado
+    private static void apuntarDesapilado(TablasIsbn tablas, Libro ejemplar) {
+        int numero = tablas.numeros.internar(ejemplar.getIsbn());
+        if (tablas.primerosDesapilados.get(numero) == null) {
+            tablas.primerosDesapilados.set(numero, ejemplar);
+        }
+    }
+
+    private Object cerrojoIsbn(String isbn) {
+        return cerrojosIsbn[franja(isbn) & (NUM_CERROJOS_ISBN - 1)];
+    }
+
+    private Object cerrojoPrestamo(String prestamoId) {
+        return cerrojosPrestamo[franja(prestamoId) & (NUM_CERROJOS_PRESTAMO - 1)];
+    }
 
-    private LibrosManagerImpl() {
-        this.lectores = new HashMap<>();
-        this.montonesLibros = new LinkedList<>();
-        this.catalogoLibrosPorIsbn = new HashMap<>();
-        this.catalogoLibrosPorId = new HashMap<>();
-        this.prestamos = new HashMap<>();
+    private static int franja(String clave) {
+        int h = (clave == null) ? 0 : clave.hashCode();
+        return h ^ (h >>> 16);
     }
 
-    public static LibrosManager getInstance() {
-        if (instance==null) instance = new LibrosManagerImpl();
-        return instance;
+    // El agregado con el stock de ahora. Es una copia: el agregado del catálogo no lleva stock
+    // y quien reciba el libro no puede cambiar el catálogo a través de él
+    private static Libro conStock(TablasIsbn tablas, int isbn) {
+        Libro agregado = tablas.agregados.get(isbn);
+        if (agregado == null) return null;
+        Libro libro = new Libro(agregado.getId(), agregado.getIsbn(), agregado.getTitulo(), agregado.getEditorial(),
+                agregado.getAñoPublicacion(), agregado.getEdicion(), agregado.getAutor(), agregado.getTematica());
+        libro.setNumEjemplares(tablas.stock.disponibles(isbn));
+        return libro;
     }
 
     @Override
-    public void addLector(String id, String nombre, String apellidos, String dni, String fechaNacimiento, String lugarNacimiento, String direccion) {
-        logger.info("Añadiendo lector: id = " + id + ", nombre = " + nombre + ", apellidos = " + apellidos + ", dni = " + dni + " fecha de nacimiento = " + fechaNacimiento + ", lugar de nacimiento = " + lugarNacimiento + ", direccion = " + direccion);
-        try {
-            if (lectores.containsKey(id)) {
-                Lector lector = lectores.get(id);
-                if (lector.getNombre().equals(nombre) && lector.getApellidos().equals(apellidos) && lector.getDni().equals(dni) && lector.getFechaNacimiento().equals(fechaNacimiento) && lector.getLugarNacimiento().equals(lugarNacimiento) && lector.getDireccion().equals(direccion)) {
-                    logger.error("No se pueden usar los mismos valores de nombre, apellidos, dni, fecha de nacimiento, lugar de nacimiento y dirección para un ID existente");
-                    throw new MismosParametrosPorIdException("El lector con ID " + id + " ya tiene esos valores.");
-                }
-                else {
-                    lector.setNombre(nombre);
-                    lector.setApellidos(apellidos);
-                    lector.setDni(dni);
-                    lector.setFechaNacimiento(fechaNacimiento);
-                    lector.setLugarNacimiento(lugarNacimiento);
-                    lector.setDireccion(direccion);
-                    logger.info("Lector actualizado: " + lector);
-                }
+    public ResultadoLector addLector(String id, String nombre, String apellidos, String dni, String fechaNacimiento, String lugarNacimiento, String direccion) {
+        if (logger.isDebugEnabled()) logger.debug("Añadiendo lector: id = " + id + ", nombre = " + nombre + ", apellidos = " + apellidos + ", dni = " + dni + " fecha de nacimiento = " + fechaNacimiento + ", lugar de nacimiento = " + lugarNacimiento + ", direccion = " + direccion);
+        int diaNacimiento = Fechas.leerDiaEpoch(fechaNacimiento);
+        if (id == null || diaNacimiento == Fechas.NO_VALIDA) {
+            logger.warn("Lector " + id + " no añadido: " + ResultadoLector.NO_VALIDO.getMotivo());
+            return ResultadoLector.NO_VALIDO;
+        }
+        // compute bloquea la entrada del id: el alta o la actualización se registra antes de
+        // que otro hilo pueda ver el lector
+        ResultadoLector[] resultado = new ResultadoLector[1];
+        lectores.compute(id, (k, lector) -> {
+            if (lector == null) {
+                Lector nuevo = new Lector(id, nombre, apellidos, dni, fechaNacimiento, lugarNacimiento, direccion);
+                registro.lectorGuardado(nuevo);
+                idsLectores.add(id);
+                if (logger.isDebugEnabled()) logger.debug("Lector añadido: " + nuevo);
+                resultado[0] = ResultadoLector.CREADO;
+                return nuevo;
             }
-            else {
-                Lector lector = new Lector(id, nombre, apellidos, dni, fechaNacimiento, lugarNacimiento, direccion);
-                lectores.put(id, lector);
-                logger.info("Lector añadido: " + lector);
+            // Todos los campos salvo el id pueden llegar a null
+            if (Objects.equals(lector.getNombre(), nombre) && Objects.equals(lector.getApellidos(), apellidos) && Objects.equals(lector.getDni(), dni)
+                    && lector.diaNacimiento() == diaNacimiento && Objects.equals(lector.getLugarNacimiento(), lugarNacimiento) && Objects.equals(lector.getDireccion(), direccion)) {
+                resultado[0] = ResultadoLector.SIN_CAMBIOS;
+                return lector;
             }
+            lector.setNombre(nombre);
+            lector.setApellidos(apellidos);
+            lector.setDni(dni);
+            lector.setFechaNacimiento(fechaNacimiento);
+            lector.setLugarNacimiento(lugarNacimiento);
+            lector.setDireccion(direccion);
+            registro.lectorGuardado(lector);
+            if (logger.isDebugEnabled()) logger.debug("Lector actualizado: " + lector);
+            resultado[0] = ResultadoLector.ACTUALIZADO;
+            return lector;
+        });
+        if (resultado[0] == ResultadoLector.SIN_CAMBIOS && logger.isDebugEnabled()) {
+            logger.debug("El lector con ID " + id + " ya tiene esos valores");
         }
-        catch (MismosParametrosPorIdException ex) {
-            logger.error("Excepción mismos parametros con mismo id: ", ex);
-        }
+        return resultado[0];
     }
 
     @Override
-    public void almacenarLibro(Libro libro) {
-        logger.info("Almacenando libro: idLibro = " + libro.getId() + ", isbn = " + libro.getIsbn() + ", titulo = " + libro.getTitulo() + ", editorial = " +  libro.getEditorial() + ", año de publicación = " + libro.getAñoPublicacion() + ", edición = " + libro.getEdicion() + ", autor = " + libro.getAutor() + ", tematica = " + libro.getTematica());
-        try {
-            if (libro == null || libro.getId() == null) {
-                logger.error("Error: el libro con id " + libro.getId() + " no existe");
-                throw new LibroNotFoundException("El libro con id " + libro.getId() + " no existe");
+    public boolean almacenarLibro(Libro libro) {
+        if (libro == null || libro.getId() == null || libro.getIsbn() == null) {
+            logger.warn("Libro no almacenado: falta el libro, su id o su isbn");
+            return false;
+        }
+        if (logger.isDebugEnabled()) logger.debug("Almacenando libro: idLibro = " + libro.getId() + ", isbn = " + libro.getIsbn() + ", titulo = " + libro.getTitulo() + ", editorial = " +  libro.getEditorial() + ", año de publicación = " + libro.getAñoPublicacion() + ", edición = " + libro.getEdicion() + ", autor = " + libro.getAutor() + ", tematica = " + libro.getTematica());
+        synchronized (montonesLibros) {
+            if (montonesLibros.apilar(libro)) {
+                if (logger.isDebugEnabled()) logger.debug("Creado nuevo montón. Ahora el número de montones = " + montonesLibros.numMontones());
             }
-            Stack<Libro> ultimo = null;
-            for (Stack<Libro> m : montonesLibros) {
-                ultimo = m;
+            registro.libroAlmacenado(libro);
+            if (logger.isDebugEnabled()) logger.debug("Libro apilado. Tamaño del último montón = " + montonesLibros.tamañoUltimoMonton());
+        }
+        return true;
+    }
+
+    @Override
+    public ResultadoLote almacenarLibros(List<Libro> libros) {
+        if (logger.isDebugEnabled()) logger.debug("Almacenando lote de " + libros.size() + " libros");
+        ResultadoLote resultado = new ResultadoLote();
+        List<Libro> validos = new ArrayList<>(libros.size());
+        for (int i = 0; i < libros.size(); i++) {
+            Libro libro = libros.get(i);
+            if (libro == null || libro.getId() == null || libro.getIsbn() == null) {
+                resultado.añadirError(i, (libro == null) ? null : libro.getId(), "El libro no existe o no tiene id o isbn");
             }
-            if (ultimo == null || ultimo.size() >= numLibrosMaxPorMonton) {
-                if (ultimo != null && ultimo.size() >= numLibrosMaxPorMonton) {
-                    logger.info("Último montón lleno (" + ultimo.size() + "/" + numLibrosMaxPorMonton + ")");
-                }
-                ultimo = new Stack<>();
-                montonesLibros.add(ultimo);
-                logger.info("Creado nuevo montón. Ahora el número de montones = " + montonesLibros.size());
+            else {
+                validos.add(libro);
             }
-            ultimo.push(libro);
-            logger.info("Libro apilado. Tamaño del último montón = " + ultimo.size());
         }
-        catch (LibroNotFoundException ex) {
-            logger.error("Excepción en almacenarLibro: ", ex);
+        // Una sola adquisición del cerrojo del almacén para todo el lote
+        synchronized (montonesLibros) {
+            for (Libro libro : validos) {
+                montonesLibros.apilar(libro);
+            }
+            if (!validos.isEmpty()) {
+                registro.librosAlmacenados(validos);
+            }
         }
+        resultado.setNumProcesados(libros.size());
+        resultado.setNumAlmacenados(validos.size());
+        if (logger.isDebugEnabled()) logger.debug("Lote almacenado: " + validos.size() + " libros apilados, " + resultado.getErrores().size() + " errores");
+        return resultado;
     }
 
     @Override
     public Libro catalogarSiguienteLibro () {
-        logger.info("Catalogando siguiente libro (el libro corresponde al q ocupa la posición: primer montón de la cola, desapilando por arriba)");
-        try {
-            if (montonesLibros.isEmpty()) {
-                logger.error("No hay libros pendientes de catalogar");
-                throw new NoHayLibrosPorCatalogarException("No hay libros pendientes de catalogar");
+        logger.debug("Catalogando siguiente libro (el libro corresponde al q ocupa la posición: primer montón de la cola, desapilando por arriba)");
+        Libro libroACatalogar;
+        TablasIsbn tablas;
+        synchronized (montonesLibros) {
+            libroACatalogar = montonesLibros.desapilarSiguiente();
+            if (libroACatalogar == null) {
+                logger.debug("No hay libros pendientes de catalogar");
+                return null;
             }
-            Stack<Libro> primerMonton = montonesLibros.peek();
-            Libro libroACatalogar = primerMonton.pop();
+            tablas = isbns;
+            apuntarDesapilado(tablas, libroACatalogar);
+            registro.librosCatalogados(1);
+        }
+        String isbn = libroACatalogar.getIsbn();
+        synchronized (cerrojoIsbn(isbn)) {
+            int numero = registrarIsbn(tablas, isbn);
+            // Todos los ejemplares del ISBN comparten el mismo texto
+            libroACatalogar.setIsbn(tablas.numeros.texto(numero));
+            ContadorStock stock = tablas.stock.contador(numero);
+            Libro libroYaExistente = tablas.agregados.get(numero);
 
-            if (primerMonton.isEmpty()) {
-                montonesLibros.poll();
-                logger.info("Primer montón se quedó vacío. Eliminado de la cola.");
+            if (libroYaExistente == null) {
+                Libro agregado = crearAgregado(tablas, numero);
+                if (logger.isDebugEnabled()) logger.debug("Nuevo ISBN en catálogo. " + agregado);
             }
-            String isbn = libroACatalogar.getIsbn();
-            Libro libroYaExistente = catalogoLibrosPorIsbn.get(isbn);
+            catalogoLibrosPorId.put(libroACatalogar.getId(), libroACatalogar);
+            tablas.columnas.añadirEjemplares(numero, 1);
+            stock.añadir(1);
+            if (libroYaExistente != null && logger.isDebugEnabled()) logger.debug("ISBN ya existente. Incrementando ejemplares a " + stock.disponibles() + " del libro " + libroYaExistente.getId() + " con título " + libroYaExistente.getTitulo());
+            nuevaVersion(tablas, numero);
+            return conStock(tablas, numero);
+        }
+    }
 
-            if (libroYaExistente == null) {
-                libroACatalogar.setNumEjemplares(1);
-                catalogoLibrosPorIsbn.put(isbn, libroACatalogar);
-                logger.info("Nuevo ISBN en catálogo. Ejemplares = 1. " + libroACatalogar);
+    @Override
+    public ResumenCatalogacion catalogarSiguientesLibros(int n) {
+        if (logger.isDebugEnabled()) logger.debug("Catalogando los siguientes " + n + " libros");
+        List<Libro> desapilados = new ArrayList<>(Math.max(0, Math.min(n, 1024)));
+        int pendientes;
+        TablasIsbn tablas;
+        synchronized (montonesLibros) {
+            tablas = isbns;
+            Libro libro;
+            while (desapilados.size() < n && (libro = montonesLibros.desapilarSiguiente()) != null) {
+                apuntarDesapilado(tablas, libro);
+                desapilados.add(libro);
             }
-            else {
-                libroYaExistente.aumentarNumEjemplares();
-                logger.info("ISBN ya existente. Incrementando ejemplares a " + libroYaExistente.getNumEjemplares() + " del libro " + libroYaExistente.getId() + " con título " + libroYaExistente.getTitulo());
+            pendientes = montonesLibros.numElementos();
+            if (!desapilados.isEmpty()) {
+                registro.librosCatalogados(desapilados.size());
             }
-            catalogoLibrosPorId.put(libroACatalogar.getId(), libroACatalogar);
-            return catalogoLibrosPorIsbn.get(isbn);
         }
-        catch (NoHayLibrosPorCatalogarException ex) {
-            logger.error("Excepción en catalogarSiguienteLibro: ", ex);
-            return null;
+
+        // Agrupar por ISBN manteniendo el orden de salida del almacén
+        Map<String, List<Libro>> porIsbn = new LinkedHashMap<>();
+        for (Libro libro : desapilados) {
+            porIsbn.computeIfAbsent(libro.getIsbn(), k -> new ArrayList<>()).add(libro);
         }
+        int isbnsNuevos = 0;
+        for (Map.Entry<String, List<Libro>> e : porIsbn.entrySet()) {
+            String isbn = e.getKey();
+            List<Libro> ejemplares = e.getValue();
+            synchronized (cerrojoIsbn(isbn)) {
+                int numero = registrarIsbn(tablas, isbn);
+                String texto = tablas.numeros.texto(numero);
+                for (Libro ejemplar : ejemplares) {
+                    ejemplar.setIsbn(texto);
+                }
+                if (tablas.agregados.get(numero) == null) {
+                    crearAgregado(tablas, numero);
+                    isbnsNuevos++;
+                }
+                for (Libro ejemplar : ejemplares) {
+                    catalogoLibrosPorId.put(ejemplar.getId(), ejemplar);
+                }
+                tablas.columnas.añadirEjemplares(numero, ejemplares.size());
+                tablas.stock.contador(numero).añadir(ejemplares.size());
+                nuevaVersion(tablas, numero);
+            }
+        }
+        ResumenCatalogacion resumen = new ResumenCatalogacion(desapilados.size(), porIsbn.size(), isbnsNuevos, pendientes);
+        if (logger.isDebugEnabled()) logger.debug("Catalogación por lotes terminada: " + resumen);
+        return resumen;
+    }
+
+    /**
+     * Con el cerrojo del ISBN, al catalogar el primer ejemplar que llega: el agregado es el
+     * primero que salió del almacén, que puede estar aún de camino en otro hilo.
+     */
+    private Libro crearAgregado(TablasIsbn tablas, int numero) {
+        Libro agregado = tablas.primerosDesapilados.get(numero);
+        String texto = tablas.numeros.texto(numero);
+        agregado.setIsbn(texto);
+        tablas.agregados.set(numero, agregado);
+        tablas.columnas.fijarFila(numero, agregado);
+        indiceCatalogo.añadir(agregado);
+        isbnsCatalogo.add(texto);
+        return agregado;
     }
 
     @Override
-    public void prestarLibro(Prestamo prestamo) {
-        logger.info("Creando préstamo: " + prestamo);
-        try {
-            if (prestamo == null || prestamo.getId() == null) {
-                logger.error("El préstamo con id " + prestamo.getId() + " no existe");
-                throw new PrestamoNotFoundException("El préstamo con id " + prestamo.getId() + " no existe");
-            }
-            String lectorId = prestamo.getLectorId();
-            String libroId = prestamo.getLibroId();
+    public ResumenCatalogacion catalogarTodosLosLibros() {
+        return catalogarSiguientesLibros(Integer.MAX_VALUE);
+    }
 
-            Lector lector = lectores.get(lectorId);
-            if (lector == null) {
-                logger.error("El lector con id " + lectorId + " no existe");
-                throw new LectorNotFoundException("El lector con id " + lectorId + " no existe");
+    @Override
+    public ResultadoPrestamo prestarLibro(Prestamo prestamo) {
+        if (prestamo == null || prestamo.getId() == null || !prestamo.fechasValidas()) {
+            logger.warn("Préstamo no creado: " + ResultadoPrestamo.NO_VALIDO.getMotivo() + " (" + prestamo + ")");
+            return ResultadoPrestamo.NO_VALIDO;
+        }
+        if (logger.isDebugEnabled()) logger.debug("Creando préstamo: " + prestamo);
+        String lectorId = prestamo.getLectorId();
+        String libroId = prestamo.getLibroId();
+
+        Lector lector = (lectorId == null) ? null : lectores.get(lectorId);
+        if (lectorId == null || (validarLectores && lector == null)) {
+            return rechazar(prestamo, ResultadoPrestamo.LECTOR_NO_EXISTE);
+        }
+        Libro ejemplar = (libroId == null) ? null : catalogoLibrosPorId.get(libroId);
+        if (ejemplar == null) {
+            return rechazar(prestamo, ResultadoPrestamo.EJEMPLAR_NO_CATALOGADO);
+        }
+        TablasIsbn tablas = isbns;
+        int isbn = tablas.numeros.buscar(ejemplar.getIsbn());
+        ContadorStock stock = tablas.stock.contador(isbn);
+        if (stock == null) {
+            logger.error("Inconsistencia: ISBN " + ejemplar.getIsbn() + " no está en el catálogo");
+            return rechazar(prestamo, ResultadoPrestamo.EJEMPLAR_NO_CATALOGADO);
+        }
+        compartirIds(prestamo, lector, ejemplar);
+        // El ejemplar se reserva antes de apuntar el préstamo en el registro, y al devolver se
+        // apunta antes de sumarlo: así el diario nunca tiene un préstamo sin stock al repetirlo
+        synchronized (cerrojoPrestamo(prestamo.getId())) {
+            // Un id devuelto tampoco se reutiliza: el histórico guarda un préstamo por id, y
+            // devolverLibro y getPrestamo lo buscan por él
+            if (prestamos.buscar(prestamo.getId()) != null || historicoPrestamos.buscar(prestamo.getId()) != null) {
+                return rechazar(prestamo, ResultadoPrestamo.DUPLICADO);
             }
-            Libro ejemplar = catalogoLibrosPorId.get(libroId);
-            if (ejemplar == null) {
-                logger.error("El ejemplar con id " + libroId + " no existe o no está catalogado");
-                throw new LibroNotFoundException("El ejemplar con id " + libroId + " no existe o no está catalogado");
+            if (!stock.reservar()) {
+                return rechazar(prestamo, ResultadoPrestamo.SIN_EJEMPLARES);
             }
-            Libro agregadoPorIsbn = catalogoLibrosPorIsbn.get(ejemplar.getIsbn());
-            if (agregadoPorIsbn == null) {
-                logger.error("Inconsistencia: ISBN " + ejemplar.getIsbn() + " no está en el catálogo");
-                throw new LibroNotFoundException("ISBN no encontrado en catálogo");
+            prestamo.setEnTramite(true);
+            prestamos.guardar(prestamo);
+            registro.prestamoCreado(prestamo);
+        }
+        nuevaVersion(tablas, isbn);
+        if (logger.isDebugEnabled()) logger.debug("Préstamo " + prestamo.getId() + " creado. Stock ISBN " + ejemplar.getIsbn() + " = " + stock.disponibles());
+        return ResultadoPrestamo.CREADO;
+    }
+
+    // Con millones de préstamos, que cada uno repita el texto del lector y del ejemplar pesa: se
+    // cambian por las instancias que ya guardan el lector y el ejemplar
+    private static void compartirIds(Prestamo prestamo, Lector lector, Libro ejemplar) {
+        if (lector != null) prestamo.setLectorId(lector.getId());
+        if (ejemplar != null) prestamo.setLibroId(ejemplar.getId());
+    }
+
+    private ResultadoPrestamo rechazar(Prestamo prestamo, ResultadoPrestamo resultado) {
+        if (logger.isDebugEnabled()) logger.debug("Préstamo " + prestamo.getId() + " rechazado: " + resultado.getMotivo() + " (lector " + prestamo.getLectorId() + ", ejemplar " + prestamo.getLibroId() + ")");
+        return resultado;
+    }
+
+    @Override
+    public ResultadoDevolucion devolverLibro(String prestamoId) {
+        if (logger.isDebugEnabled()) logger.debug("Devolviendo préstamo con id " + prestamoId);
+        Prestamo activo = prestamos.buscar(prestamoId);
+        if (activo == null) {
+            return rechazarDevolucion(prestamoId, (historicoPrestamos.buscar(prestamoId) != null) ? ResultadoDevolucion.YA_DEVUELTO : ResultadoDevolucion.NO_EXISTE);
+        }
+        Libro ejemplar;
+        TablasIsbn tablas;
+        int isbn;
+        ContadorStock stock;
+        synchronized (cerrojoPrestamo(prestamoId)) {
+            // Con el cerrojo del préstamo: otra devolución del mismo préstamo puede haber ganado
+            Prestamo devuelto = prestamos.buscar(prestamoId);
+            if (devuelto == null) {
+                return rechazarDevolucion(prestamoId, ResultadoDevolucion.YA_DEVUELTO);
             }
-            if (agregadoPorIsbn.getNumEjemplares() <= 0) {
-                logger.error("Sin ejemplares disponibles para ISBN " + ejemplar.getIsbn());
-                throw new SinEjemplaresDisponiblesException("Sin ejemplares disponibles para ISBN " + ejemplar.getIsbn());
+            ejemplar = catalogoLibrosPorId.get(devuelto.getLibroId());
+            if (ejemplar == null) {
+                logger.error("Inconsistencia: el ejemplar " + devuelto.getLibroId() + " del préstamo " + prestamoId + " no está catalogado");
+                return rechazarDevolucion(prestamoId, ResultadoDevolucion.NO_EXISTE);
             }
-            agregadoPorIsbn.decrementarNumEjemplares();
-            prestamo.setEnTramite(true);
-            prestamos.put(prestamo.getId(), prestamo);
-            logger.info("Préstamo " + prestamo.getId() + " creado. Stock ISBN " + ejemplar.getIsbn() + " = " + agregadoPorIsbn.getNumEjemplares());
+            // El contador se busca aquí, con el ejemplar: un clear() después de soltar el
+            // cerrojo ya no puede dejar el ISBN sin número
+            tablas = isbns;
+            isbn = tablas.numeros.buscar(ejemplar.getIsbn());
+            stock = tablas.stock.contador(isbn);
+            prestamos.eliminar(prestamoId);
+            devuelto.setEnTramite(false);
+            historicoPrestamos.guardar(devuelto);
+            registro.prestamoDevuelto(prestamoId);
         }
-        catch (PrestamoNotFoundException | LectorNotFoundException | LibroNotFoundException | SinEjemplaresDisponiblesException ex) {
-            logger.error("Excepción en prestarLibro: ", ex);
+        if (stock == null) {
+            // clear() entre catalogoLibrosPorId e isbns: el catálogo ya no tiene ese ISBN
+            logger.warn("Préstamo " + prestamoId + " devuelto sin sumar stock: el ISBN " + ejemplar.getIsbn() + " ya no está en el catálogo");
+            return ResultadoDevolucion.DEVUELTO;
         }
+        stock.añadir(1);
+        nuevaVersion(tablas, isbn);
+        if (logger.isDebugEnabled()) logger.debug("Préstamo " + prestamoId + " devuelto. Stock ISBN " + ejemplar.getIsbn() + " = " + stock.disponibles());
+        return ResultadoDevolucion.DEVUELTO;
+    }
+
+    private ResultadoDevolucion rechazarDevolucion(String prestamoId, ResultadoDevolucion resultado) {
+        if (logger.isDebugEnabled()) logger.debug("Devolución del préstamo " + prestamoId + " rechazada: " + resultado.getMotivo());
+        return resultado;
     }
 
+    @Override
+    public Prestamo getPrestamo(String id) {
+        Prestamo prestamo = prestamos.buscar(id);
+        return (prestamo != null) ? prestamo : historicoPrestamos.buscar(id);
+    }
+
+    /**
+     * Préstamos del lector: primero los que están en trámite y después los ya devueltos,
+     * cada grupo en orden de creación.
+     */
     @Override
     public List<Prestamo> prestamosDeLector(String lectorId) {
-        logger.info("Obteniendo préstamos del lector con id " + lectorId);
-        try {
-            List<Prestamo> prestamosLector = new ArrayList<>();
+        if (logger.isDebugEnabled()) logger.debug("Obteniendo préstamos del lector con id " + lectorId);
+        List<Prestamo> prestamosLector = prestamos.deLector(lectorId);
+        prestamosLector.addAll(historicoPrestamos.deLector(lectorId));
+        if (logger.isDebugEnabled()) logger.debug("Se encontraron " + prestamosLector.size() + " préstamos para el lector con id " + lectorId);
+        return prestamosLector;
+    }
+    /**
+     * Los mismos préstamos y en el mismo orden que prestamosDeLector, pero entregados uno a uno
+     * según se leen de los almacenes, para escribirlos en streaming sin construir la lista.
+     */
+    @Override
+    public void recorrerPrestamosDeLector(String lectorId, Consumer<Prestamo> consumidor) {
+        if (logger.isDebugEnabled()) logger.debug("Recorriendo préstamos del lector con id " + lectorId);
+        prestamos.recorrerDeLector(lectorId, consumidor);
+        historicoPrestamos.recorrerDeLector(lectorId, consumidor);
+    }
 
-            for (Prestamo p : prestamos.values()) {
-                if (p.getLectorId().equals(lectorId)) {
-                    prestamosLector.add(p);
-                }
-            }
-            if (prestamosLector.isEmpty()) {
-                logger.error("No se encontraron préstamos para el lector con id " + lectorId);
-                throw new PrestamoNotFoundException("No se encontraron préstamos para el lector con id " + lectorId);
+    /** Solo los que están en trámite, o solo los devueltos: recorre uno de los dos almacenes */
+    @Override
+    public void recorrerPrestamosDeLector(String lectorId, boolean enTramite, Consumer<Prestamo> consumidor) {
+        (enTramite ? prestamos : historicoPrestamos).recorrerDeLector(lectorId, consumidor);
+    }
+
+    /**
+     * Préstamos en trámite cuya fecha final es la dada o anterior, por orden de fecha final.
+     * @return null si la fecha no es válida
+     */
+    @Override
+    public List<Prestamo> prestamosVencidosHasta(String fecha) {
+        if (logger.isDebugEnabled()) logger.debug("Obteniendo préstamos vencidos hasta " + fecha);
+        int dia = Fechas.leerDiaEpoch(fecha);
+        if (dia == Fechas.NO_VALIDA || dia == Fechas.SIN_FECHA) {
+            logger.warn("Fecha no válida en prestamosVencidosHasta: " + fecha);
+            return null;
+        }
+        List<Prestamo> vencidos = prestamos.activosConFinalHasta(dia);
+        if (logger.isDebugEnabled()) logger.debug("Se encontraron " + vencidos.size() + " préstamos vencidos hasta " + fecha);
+        return vencidos;
+    }
+    /**
+     * Búsqueda en el catálogo por prefijos de palabra, con filtros y facetas opcionales.
+     * @return null si la página o su tamaño no son válidos
+     */
+    @Override
+    public ResultadoBusqueda buscarLibros(String texto, String tematica, String editorial, Integer año, int pagina, int tamañoPagina) {
+        if (logger.isDebugEnabled()) logger.debug("Buscando libros: texto = " + texto + ", tematica = " + tematica + ", editorial = " + editorial + ", año = " + año + ", pagina = " + pagina + ", tamaño = " + tamañoPagina);
+        if (pagina < 0 || tamañoPagina < 1 || tamañoPagina > IndiceCatalogo.TAMAÑO_PAGINA_MAX) {
+            logger.warn("Página no válida en buscarLibros: pagina = " + pagina + ", tamaño = " + tamañoPagina);
+            return null;
+        }
+        ResultadoBusqueda resultado = indiceCatalogo.buscar(texto, tematica, editorial, año, pagina, tamañoPagina);
+        TablasIsbn tablas = isbns;
+        resultado.getLibros().replaceAll(libro -> conStock(tablas, tablas.numeros.buscar(libro.getIsbn())));
+        if (logger.isDebugEnabled()) logger.debug("Se encontraron " + resultado.getTotal() + " libros para \"" + texto + "\"");
+        return resultado;
+    }
+
+    /**
+     * ISBNs, ejemplares catalogados y stock del catálogo agrupados por una columna (temática,
+     * editorial, autor, década, año o edición), para los paneles de planificación.
+     * @return null si la agrupación no existe
+     */
+    @Override
+    public AnaliticaCatalogo analizarCatalogo(String agrupacion) {
+        if (logger.isDebugEnabled()) logger.debug("Analizando el catálogo por " + agrupacion);
+        Agrupacion columna = Agrupacion.desde(agrupacion);
+        if (columna == null) {
+            logger.warn("Agrupación no válida en analizarCatalogo: " + agrupacion);
+            return null;
+        }
+        AnaliticaCatalogo resultado = isbns.columnas.agrupar(columna);
+        if (logger.isDebugEnabled()) logger.debug("Catálogo analizado por " + agrupacion + ": " + resultado.getGrupos().size() + " grupos");
+        return resultado;
+    }
+
+    // -------- LISTADOS POR PÁGINAS --------
+    // Paginación por clave: el cursor es la última clave devuelta y cada página recorre el
+    // índice ordenado desde ahí, así que pedir la página mil cuesta lo mismo que la primera.
+    // Son débilmente consistentes, como los iteradores de los mapas concurrentes.
+
+    /**
+     * Lectores por orden de id.
+     * @return null si el cursor o el límite no son válidos
+     */
+    @Override
+    public Pagina<Lector> listarLectores(String cursor, int limite) {
+        if (logger.isDebugEnabled()) logger.debug("Listando lectores: cursor = " + cursor + ", limite = " + limite);
+        String desde = (cursor == null) ? null : Cursores.decodificar(cursor);
+        if ((cursor != null && desde == null) || !limiteValido(limite)) {
+            logger.warn("Cursor o límite no válidos en listarLectores: cursor = " + cursor + ", limite = " + limite);
+            return null;
+        }
+        return paginar(idsLectores, desde, limite, lectores::get);
+    }
+
+    /**
+     * Catálogo por orden de ISBN, un libro (el agregado, con su stock) por ISBN.
+     * @return null si el cursor o el límite no son válidos
+     */
+    @Override
+    public Pagina<Libro> listarCatalogo(String cursor, int limite) {
+        if (logger.isDebugEnabled()) logger.debug("Listando catálogo: cursor = " + cursor + ", limite = " + limite);
+        String desde = (cursor == null) ? null : Cursores.decodificar(cursor);
+        if ((cursor != null && desde == null) || !limiteValido(limite)) {
+            logger.warn("Cursor o límite no válidos en listarCatalogo: cursor = " + cursor + ", limite = " + limite);
+            return null;
+        }
+        TablasIsbn tablas = isbns;
+        return paginar(isbnsCatalogo, desde, limite, isbn -> conStock(tablas, tablas.numeros.buscar(isbn)));
+    }
+
+    /**
+     * Préstamos en trámite y devueltos por orden de id. Si un id está en los dos almacenes
+     * (un diario de cuando los ids devueltos se reutilizaban), sale primero el que está en trámite. El cursor
+     * lleva el id y de qué almacén venía.
+     * @return null si el cursor o el límite no son válidos
+     */
+    @Override
+    public Pagina<Prestamo> listarPrestamos(String cursor, int limite) {
+        if (logger.isDebugEnabled()) logger.debug("Listando préstamos: cursor = " + cursor + ", limite = " + limite);
+        String clave = (cursor == null) ? null : Cursores.decodificar(cursor);
+        if ((cursor != null && (clave == null || clave.isEmpty() || (clave.charAt(0) != 'A' && clave.charAt(0) != 'D'))) || !limiteValido(limite)) {
+            logger.warn("Cursor o límite no válidos en listarPrestamos: cursor = " + cursor + ", limite = " + limite);
+            return null;
+        }
+        String desdeId = (clave == null) ? null : clave.substring(1);
+        boolean ultimoEnTramite = clave != null && clave.charAt(0) == 'A';
+        List<Prestamo> activos = prestamos.porId(desdeId, false, limite + 1);
+        List<Prestamo> devueltos = historicoPrestamos.porId(desdeId, ultimoEnTramite, limite + 1);
+
+        List<Prestamo> elementos = new ArrayList<>(Math.min(limite, 1024));
+        int i = 0, j = 0;
+        while (elementos.size() < limite && (i < activos.size() || j < devueltos.size())) {
+            if (j == devueltos.size() || (i < activos.size() && activos.get(i).getId().compareTo(devueltos.get(j).getId()) <= 0)) {
+                elementos.add(activos.get(i++));
             }
             else {
-                logger.info("Se encontraron " + prestamosLector.size() + " préstamos para el lector con id " + lectorId);
+                elementos.add(devueltos.get(j++));
             }
-            return prestamosLector;
-        } catch (Exception ex) {
-            logger.error("Excepción en prestamosDeLector: ", ex);
-            return new ArrayList<>();
         }
+        String siguiente = null;
+        if (i < activos.size() || j < devueltos.size()) {
+            Prestamo ultimo = elementos.get(elementos.size() - 1);
+            siguiente = Cursores.codificar((ultimo.isEnTramite() ? "A" : "D") + ultimo.getId());
+        }
+        return new Pagina<>(elementos, siguiente);
+    }
+
+    private static boolean limiteValido(int limite) {
+        return limite >= 1 && limite <= LIMITE_LISTADO_MAX;
     }
+
+    // Lee limite + 1 claves para saber si hay página siguiente sin otra consulta
+    private static <T> Pagina<T> paginar(NavigableSet<String> claves, String desde, int limite, Function<String, T> buscar) {
+        List<T> elementos = new ArrayList<>(Math.min(limite, 1024));
+        String ultima = null;
+        for (String clave : (desde == null) ? claves : claves.tailSet(desde, false)) {
+            T elemento = buscar.apply(clave);
+            if (elemento == null) continue;
+            if (elementos.size() == limite) {
+                return new Pagina<>(elementos, Cursores.codificar(ultima));
+            }
+            elementos.add(elemento);
+            ultima = clave;
+        }
+        return new Pagina<>(elementos, null);
+    }
+
     @Override
     public void clear() {
         logger.info("clear(): start");
-        montonesLibros.clear();
+        synchronized (montonesLibros) {
+            montonesLibros.clear();
+        }
         lectores.clear();
-        catalogoLibrosPorIsbn.clear();
+        idsLectores.clear();
+        isbns = new TablasIsbn();
+        isbnsCatalogo.clear();
         catalogoLibrosPorId.clear();
+        indiceCatalogo.clear();
+        prestamos.clear();
+        historicoPrestamos.clear();
+        registro.borradoTotal();
         logger.info("clear(): end");
     }
 
     @Override
     public int lectoresSize() {
-        int ret = this.lectores.size();
-        logger.info("size " + ret);
-        return ret;
+        return this.lectores.size();
     }
 
     @Override
     public Lector getLector(String id) {
-        logger.info("Buscando lector con id = " + id);
-        try {
-            if (!lectores.containsKey(id)) {
-                logger.error("El lector con id " + id + " no existe");
-                throw new LectorNotFoundException("El lector con id " + id + " no existe");
-            }
-            return lectores.get(id);
-        }
-        catch (LectorNotFoundException ex) {
-            logger.error("Excepción buscar lector: ", ex);
-            return null;
-        }
+        if (logger.isDebugEnabled()) logger.debug("Buscando lector con id = " + id);
+        return (id == null) ? null : lectores.get(id);
     }
 
     @Override
     public Libro getLibroPorIsbn(String isbn) {
-        return catalogoLibrosPorIsbn.get(isbn);
+        if (isbn == null) return null;
+        TablasIsbn tablas = isbns;
+        return conStock(tablas, tablas.numeros.buscar(isbn));
     }
 
+    /** Sin cerrojos: una lectura del contador del ISBN */
     @Override
     public int getStockPorIsbn(String isbn) {
-        Libro l = catalogoLibrosPorIsbn.get(isbn);
-        if (l != null) {
-            return l.getNumEjemplares();
+        if (isbn == null) return 0;
+        TablasIsbn tablas = isbns;
+        return tablas.stock.disponibles(tablas.numeros.buscar(isbn));
+    }
+
+    /**
+     * Fija el stock de un ISBN ya catalogado sin pasar por el registro; para preparar datos
+     * en los benchmarks.
+     */
+    void fijarStock(String isbn, int stock) {
+        TablasIsbn tablas = isbns;
+        int numero = tablas.numeros.buscar(isbn);
+        ContadorStock contador = tablas.stock.contador(numero);
+        if (contador == null) throw new IllegalArgumentException("ISBN no catalogado: " + isbn);
+        contador.fijar(stock);
+        nuevaVersion(tablas, numero);
+    }
+
+    /**
+     * Versión actual del agregado del ISBN: cambia cada vez que cambian sus datos o su stock.
+     * @return 0 si el ISBN no está en el catálogo
+     */
+    @Override
+    public long getVersionIsbn(String isbn) {
+        if (isbn == null) return 0;
+        TablasIsbn tablas = isbns;
+        AtomicLong version = tablas.versiones.get(tablas.numeros.buscar(isbn));
+        return (version == null) ? 0 : version.get();
+    }
+
+    /**
+     * Tamaños del estado para las métricas. Cada valor se lee por separado, sin parar las
+     * mutaciones, así que entre ellos puede haber pequeños desfases.
+     */
+    @Override
+    public Estadisticas getEstadisticas() {
+        Estadisticas estadisticas = new Estadisticas();
+        synchronized (montonesLibros) {
+            estadisticas.setNumMontones(montonesLibros.numMontones());
+            estadisticas.setNumLibrosAlmacen(montonesLibros.numElementos());
         }
-        else {
-            return 0;
+        TablasIsbn tablas = isbns;
+        estadisticas.setNumIsbnsCatalogo(tablas.numeros.tamaño());
+        estadisticas.setNumEjemplaresCatalogo(catalogoLibrosPorId.size());
+        estadisticas.setNumIsbnsSinStock(tablas.stock.numSinStock(tablas.numeros.tamaño()));
+        estadisticas.setNumPrestamosActivos(prestamos.tamaño());
+        estadisticas.setNumPrestamosDevueltos(historicoPrestamos.tamaño());
+        return estadisticas;
+    }
+
+    // -------- PERSISTENCIA --------
+
+    /**
+     * Fija quién recibe cada mutación aplicada (el diario en modo duradero).
+     */
+    public void setRegistro(RegistroOperaciones registro) {
+        this.registro = (registro == null) ? RegistroOperaciones.NINGUNO : registro;
+    }
+
+    /**
+     * Recorre todo el estado. Solo es una foto consistente si no hay mutaciones en curso,
+     * así que quien lo llame debe haberlas parado antes.
+     */
+    public void volcarEstado(ConsumidorEstado destino) throws IOException {
+        for (Lector lector : lectores.values()) {
+            destino.lector(lector);
+        }
+        List<List<Libro>> montones;
+        synchronized (montonesLibros) {
+            montones = montonesLibros.copiarMontones();
+        }
+        for (List<Libro> monton : montones) {
+            destino.monton(monton);
+        }
+        for (Libro ejemplar : catalogoLibrosPorId.values()) {
+            destino.ejemplar(ejemplar);
+        }
+        TablasIsbn tablas = isbns;
+        for (int isbn = 0; isbn < tablas.numeros.tamaño(); isbn++) {
+            Libro agregado = tablas.agregados.get(isbn);
+            if (agregado != null) {
+                destino.agregado(tablas.numeros.texto(isbn), agregado.getId(), tablas.stock.disponibles(isbn));
+            }
+        }
+        try {
+            Consumer<Prestamo> volcarPrestamo = prestamo -> {
+                try {
+                    destino.prestamo(prestamo);
+                }
+                catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            };
+            prestamos.recorrer(volcarPrestamo);
+            historicoPrestamos.recorrer(volcarPrestamo);
+        }
+        catch (UncheckedIOException ex) {
+            throw ex.getCause();
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Destino para reconstruir el estado a partir de un volcado, sin pasar por las
+     * validaciones ni por el registro. Los ejemplares deben llegar antes que sus agregados.
+     */
+    public ConsumidorEstado restaurador() {
+        return new ConsumidorEstado() {
+            @Override
+            public void lector(Lector lector) {
+                lectores.put(lector.getId(), lector);
+                idsLectores.add(lector.getId());
+            }
+
+            @Override
+            public void monton(List<Libro> baseACima) {
+                synchronized (montonesLibros) {
+                    montonesLibros.añadirMonton(baseACima);
+                }
+            }
+
+            @Override
+            public void ejemplar(Libro libro) {
+                TablasIsbn tablas = isbns;
+                int numero = tablas.numeros.internar(libro.getIsbn());
+                libro.setIsbn(tablas.numeros.texto(numero));
+                catalogoLibrosPorId.put(libro.getId(), libro);
+                tablas.columnas.añadirEjemplares(numero, 1);
+            }
+
+            @Override
+            public void agregado(String isbn, String idEjemplar, int stock) throws IOException {
+                Libro ejemplar = catalogoLibrosPorId.get(idEjemplar);
+                if (ejemplar == null) {
+                    throw new IOException("El agregado del ISBN " + isbn + " apunta a un ejemplar inexistente: " + idEjemplar);
+                }
+                TablasIsbn tablas = isbns;
+                synchronized (cerrojoIsbn(isbn)) {
+                    int numero = registrarIsbn(tablas, isbn);
+                    tablas.stock.contador(numero).fijar(stock);
+                    tablas.agregados.set(numero, ejemplar);
+                    tablas.columnas.fijarFila(numero, ejemplar);
+                    indiceCatalogo.añadir(ejemplar);
+                    isbnsCatalogo.add(tablas.numeros.texto(numero));
+                    nuevaVersion(tablas, numero);
+                }
+            }
+
+            @Override
+            public void prestamo(Prestamo prestamo) {
+                compartirIds(prestamo, (prestamo.getLectorId() == null) ? null : lectores.get(prestamo.getLectorId()),
+                        (prestamo.getLibroId() == null) ? null : catalogoLibrosPorId.get(prestamo.getLibroId()));
+                if (prestamo.isEnTramite()) {
+                    prestamos.guardar(prestamo);
+                }
+                else {
+                    historicoPrestamos.guardar(prestamo);
+                }
+            }
+        };
+    }
+}
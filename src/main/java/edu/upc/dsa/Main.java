@@ -1,11 +1,18 @@
 package edu.upc.dsa;
 
+import edu.upc.dsa.ejecucion.Ejecucion;
+import edu.upc.dsa.json.ProveedorJsonModelos;
+import edu.upc.dsa.metricas.FiltroMetricasHttp;
+import edu.upc.dsa.metricas.Metricas;
+import edu.upc.dsa.particiones.NodoService;
 import io.swagger.jaxrs.config.BeanConfig;
+import org.apache.log4j.LogManager;
 import org.glassfish.grizzly.http.server.HttpServer;
 import org.glassfish.grizzly.http.server.StaticHttpHandler;
 import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
 import org.glassfish.jersey.server.ResourceConfig;
 
+import javax.ws.rs.ProcessingException;
 import java.io.IOException;
 import java.net.URI;
 
@@ -16,12 +23,24 @@ import java.net.URI;
 public class Main {
     // Base URI the Grizzly HTTP server will listen on
     public static final String BASE_URI = "http://localhost:8080/dsaApp/";
+    // "moxy" (por defecto) o "modelos": Lector, Libro y Prestamo con los proveedores de ProveedorJsonModelos
+    public static final String PROPIEDAD_PROVEEDOR_JSON = "libros.json.proveedor";
+    // URI base en la que escucha main(), por ejemplo para arrancar varios nodos de particiones
+    public static final String PROPIEDAD_URI_BASE = "libros.uri";
 
     /**
      * Starts Grizzly HTTP server exposing JAX-RS resources defined in this application.
      * @return Grizzly HTTP server.
      */
     public static HttpServer startServer() {
+        return startServer(BASE_URI);
+    }
+
+    /**
+     * Starts Grizzly HTTP server on the given base URI (e.g. another port for load tests).
+     * @return Grizzly HTTP server.
+     */
+    public static HttpServer startServer(String baseUri) {
         // create a resource config that scans for JAX-RS resources and providers
         // in edu.upc.dsa package
         final ResourceConfig rc = new ResourceConfig().packages("edu.upc.dsa.services");
@@ -29,6 +48,25 @@ public class Main {
         rc.register(io.swagger.jaxrs.listing.ApiListingResource.class);
         rc.register(io.swagger.jaxrs.listing.SwaggerSerializers.class);
 
+        String proveedorJson = System.getProperty(PROPIEDAD_PROVEEDOR_JSON, "moxy");
+        switch (proveedorJson) {
+            case "moxy":
+                break;
+            case "modelos":
+                rc.registerClasses(ProveedorJsonModelos.clases());
+                break;
+            default:
+                throw new IllegalArgumentException("Proveedor JSON desconocido: " + proveedorJson);
+        }
+
+        if (Boolean.getBoolean(FabricaManager.PROPIEDAD_NODO_PARTICION)) {
+            rc.register(new NodoService(FabricaManager.getInstance()));
+        }
+
+        if (Metricas.activadas()) {
+            rc.register(FiltroMetricasHttp.class);
+        }
+
         BeanConfig beanConfig = new BeanConfig();
 
         beanConfig.setHost("localhost:8080");
@@ -44,7 +82,16 @@ public class Main {
 
         // create and start a new instance of grizzly http server
         // exposing the Jersey application at BASE_URI
-        return GrizzlyHttpServerFactory.createHttpServer(URI.create(BASE_URI), rc);
+        // (sin arrancarlo hasta cambiar sus trabajadores, si hace falta)
+        HttpServer server = GrizzlyHttpServerFactory.createHttpServer(URI.create(baseUri), rc, false);
+        Ejecucion.configurarTrabajadores(server);
+        try {
+            server.start();
+        }
+        catch (IOException ex) {
+            throw new ProcessingException("No se ha podido arrancar el servidor en " + baseUri, ex);
+        }
+        return server;
     }
 
 
@@ -54,17 +101,20 @@ public class Main {
      * @throws IOException
      */
     public static void main(String[] args) throws IOException {
-        final HttpServer server = startServer();
+        String baseUri = System.getProperty(PROPIEDAD_URI_BASE, BASE_URI);
+        final HttpServer server = startServer(baseUri);
 
         StaticHttpHandler staticHttpHandler = new StaticHttpHandler("./public/");
         server.getServerConfiguration().addHttpHandler(staticHttpHandler, "/");
 
 
         System.out.println(String.format("Jersey app started with WADL available at "
-                + "%sapplication.wadl\nHit enter to stop it...", BASE_URI));
+                + "%sapplication.wadl\nHit enter to stop it...", baseUri));
 
         System.in.read();
         server.stop();
+        // Vacía el appender asíncrono antes de salir
+        LogManager.shutdown();
     }
 }
 
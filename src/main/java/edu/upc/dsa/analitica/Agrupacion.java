@@ -0,0 +1,29 @@
+package edu.upc.dsa.analitica;
+
+import java.util.Locale;
+
+/**
+ * Columna por la que se agrupa el catálogo en ColumnasCatalogo. Las tres primeras son texto
+ * (con diccionario); las demás, números, y la década va por tramos de 10 años.
+ */
+public enum Agrupacion {
+    TEMATICA, EDITORIAL, AUTOR, DECADA, AÑO, EDICION;
+
+    /** El nombre en la API: "tematica", "decada", "año"... */
+    public String nombre() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public boolean numerica() {
+        return this == DECADA || this == AÑO || this == EDICION;
+    }
+
+    /** @return null si no es ninguna agrupación */
+    public static Agrupacion desde(String nombre) {
+        if (nombre == null) return null;
+        for (Agrupacion agrupacion : values()) {
+            if (agrupacion.nombre().equalsIgnoreCase(nombre)) return agrupacion;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,227 @@
+package edu.upc.dsa.analitica;
+
+import edu.upc.dsa.models.AnaliticaCatalogo;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Recuento;
+import edu.upc.dsa.stock.TablaStock;
+import edu.upc.dsa.util.TablaIdentificadores;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * El catálogo por columnas para los recuentos de los paneles: una fila por número de ISBN (el
+ * de la TablaIdentificadoresConcurrente de ISBNs del manager) y, por columna, un array de
+ * enteros. Año y edición se guardan tal cual; editorial, autor y temática, como su número en
+ * un diccionario. Agrupar es recorrer unos pocos int[] en orden, sin tocar ningún Libro.
+ *
+ * El stock no se copia aquí: cambia en cada préstamo y ya está en la TablaStock, de donde se
+ * lee una vez por fila al agrupar.
+ *
+ * Como IndiceCatalogo, las agrupaciones pueden ir en paralelo entre ellas y los cambios (un
+ * ISBN nuevo, más ejemplares) las bloquean un momento.
+ */
+public class ColumnasCatalogo {
+    private static final int CAPACIDAD_INICIAL = 64;
+    // Código de los libros sin valor en una columna de texto, y de las filas que aún no existen
+    private static final int SIN_VALOR = -1;
+
+    private final TablaStock stock;
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+
+    // ISBNs con datos (fijarFila); los que solo tienen ejemplares no salen en ningún grupo
+    private final BitSet filas = new BitSet();
+    // Número de ISBN más alto visto + 1
+    private int numFilas;
+    private int[] años = new int[CAPACIDAD_INICIAL];
+    private int[] ediciones = new int[CAPACIDAD_INICIAL];
+    private int[] ejemplares = new int[CAPACIDAD_INICIAL];
+    private int[] editoriales = sinValor(CAPACIDAD_INICIAL);
+    private int[] autores = sinValor(CAPACIDAD_INICIAL);
+    private int[] tematicas = sinValor(CAPACIDAD_INICIAL);
+    private final TablaIdentificadores diccionarioEditoriales = new TablaIdentificadores();
+    private final TablaIdentificadores diccionarioAutores = new TablaIdentificadores();
+    private final TablaIdentificadores diccionarioTematicas = new TablaIdentificadores();
+
+    public ColumnasCatalogo(TablaStock stock) {
+        this.stock = stock;
+    }
+
+    /**
+     * Los datos del ISBN, los de su agregado. Si ya los tenía (una restauración), se cambian.
+     */
+    public void fijarFila(int isbn, Libro agregado) {
+        cerrojo.writeLock().lock();
+        try {
+            asegurarFila(isbn);
+            años[isbn] = agregado.getAñoPublicacion();
+            ediciones[isbn] = agregado.getEdicion();
+            editoriales[isbn] = codigo(diccionarioEditoriales, agregado.getEditorial());
+            autores[isbn] = codigo(diccionarioAutores, agregado.getAutor());
+            tematicas[isbn] = codigo(diccionarioTematicas, agregado.getTematica());
+            filas.set(isbn);
+        }
+        finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /** Suma ejemplares catalogados del ISBN; puede llegar antes que sus datos */
+    public void añadirEjemplares(int isbn, int cantidad) {
+        cerrojo.writeLock().lock();
+        try {
+            asegurarFila(isbn);
+            ejemplares[isbn] += cantidad;
+        }
+        finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    private static int codigo(TablaIdentificadores diccionario, String valor) {
+        return (valor == null) ? SIN_VALOR : diccionario.internar(valor);
+    }
+
+    private void asegurarFila(int isbn) {
+        if (isbn >= años.length) {
+            int capacidad = Math.max(isbn + 1, años.length * 2);
+            años = Arrays.copyOf(años, capacidad);
+            ediciones = Arrays.copyOf(ediciones, capacidad);
+            ejemplares = Arrays.copyOf(ejemplares, capacidad);
+            editoriales = ampliar(editoriales, capacidad);
+            autores = ampliar(autores, capacidad);
+            tematicas = ampliar(tematicas, capacidad);
+        }
+        numFilas = Math.max(numFilas, isbn + 1);
+    }
+
+    private static int[] sinValor(int capacidad) {
+        int[] codigos = new int[capacidad];
+        Arrays.fill(codigos, SIN_VALOR);
+        return codigos;
+    }
+
+    private static int[] ampliar(int[] codigos, int capacidad) {
+        int anterior = codigos.length;
+        codigos = Arrays.copyOf(codigos, capacidad);
+        Arrays.fill(codigos, anterior, capacidad, SIN_VALOR);
+        return codigos;
+    }
+
+    /**
+     * ISBNs, ejemplares catalogados y stock de cada valor de la columna. Los grupos de texto van
+     * de más a menos ejemplares y los numéricos, en orden.
+     */
+    public AnaliticaCatalogo agrupar(Agrupacion agrupacion) {
+        AnaliticaCatalogo resultado = new AnaliticaCatalogo(agrupacion.nombre());
+        cerrojo.readLock().lock();
+        try {
+            int n = numFilas;
+            int[] disponibles = new int[n];
+            for (int isbn = filas.nextSetBit(0); isbn >= 0 && isbn < n; isbn = filas.nextSetBit(isbn + 1)) {
+                disponibles[isbn] = stock.disponibles(isbn);
+            }
+
+            int[] codigos;
+            String[] valores;
+            switch (agrupacion) {
+                case TEMATICA:
+                    codigos = tematicas;
+                    valores = valores(diccionarioTematicas);
+                    break;
+                case EDITORIAL:
+                    codigos = editoriales;
+                    valores = valores(diccionarioEditoriales);
+                    break;
+                case AUTOR:
+                    codigos = autores;
+                    valores = valores(diccionarioAutores);
+                    break;
+                default:
+                    int[] claves = claves(agrupacion, n);
+                    int[] distintas = distintas(claves, n);
+                    codigos = new int[n];
+                    for (int isbn = 0; isbn < n; isbn++) {
+                        codigos[isbn] = filas.get(isbn) ? Arrays.binarySearch(distintas, claves[isbn]) : SIN_VALOR;
+                    }
+                    valores = new String[distintas.length];
+                    for (int i = 0; i < distintas.length; i++) {
+                        valores[i] = String.valueOf(distintas[i]);
+                    }
+            }
+
+            int[] numIsbns = new int[valores.length];
+            long[] numEjemplares = new long[valores.length];
+            long[] stockGrupo = new long[valores.length];
+            for (int isbn = 0; isbn < n; isbn++) {
+                int grupo = codigos[isbn];
+                if (grupo < 0) continue;
+                numIsbns[grupo]++;
+                numEjemplares[grupo] += ejemplares[isbn];
+                stockGrupo[grupo] += disponibles[isbn];
+            }
+            for (int grupo = 0; grupo < valores.length; grupo++) {
+                // Un valor que ya no tiene ningún ISBN (su agregado se cambió al restaurar)
+                if (numIsbns[grupo] == 0) continue;
+                resultado.getGrupos().add(new Recuento(valores[grupo], numIsbns[grupo], numEjemplares[grupo], stockGrupo[grupo]));
+            }
+        }
+        finally {
+            cerrojo.readLock().unlock();
+        }
+        ordenar(agrupacion, resultado.getGrupos());
+        return resultado;
+    }
+
+    private static String[] valores(TablaIdentificadores diccionario) {
+        String[] valores = new String[diccionario.tamaño()];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = diccionario.texto(i);
+        }
+        return valores;
+    }
+
+    // El valor numérico de cada fila en la agrupación: su año, su edición o el primer año de su década
+    private int[] claves(Agrupacion agrupacion, int n) {
+        if (agrupacion == Agrupacion.EDICION) return ediciones;
+        if (agrupacion == Agrupacion.AÑO) return años;
+        int[] decadas = new int[n];
+        for (int isbn = 0; isbn < n; isbn++) {
+            decadas[isbn] = Math.floorDiv(años[isbn], 10) * 10;
+        }
+        return decadas;
+    }
+
+    // Las claves distintas de las filas con datos, ordenadas: el número de grupo es su posición
+    private int[] distintas(int[] claves, int n) {
+        int[] presentes = new int[filas.cardinality()];
+        int i = 0;
+        for (int isbn = filas.nextSetBit(0); isbn >= 0 && isbn < n; isbn = filas.nextSetBit(isbn + 1)) {
+            presentes[i++] = claves[isbn];
+        }
+        Arrays.sort(presentes, 0, i);
+        int distintas = 0;
+        for (int j = 0; j < i; j++) {
+            if (distintas == 0 || presentes[j] != presentes[distintas - 1]) {
+                presentes[distintas++] = presentes[j];
+            }
+        }
+        return Arrays.copyOf(presentes, distintas);
+    }
+
+    /**
+     * El orden de los grupos de una agrupación. Público para juntar los de varias particiones
+     * (LibrosManagerParticionado) con el mismo orden.
+     */
+    public static void ordenar(Agrupacion agrupacion, List<Recuento> grupos) {
+        if (agrupacion.numerica()) {
+            grupos.sort(Comparator.comparingInt(recuento -> Integer.parseInt(recuento.getValor())));
+        }
+        else {
+            grupos.sort(Comparator.comparingLong(Recuento::getNumEjemplares).reversed().thenComparing(Recuento::getValor));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package edu.upc.dsa.busqueda;
+
+import edu.upc.dsa.models.Faceta;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.ResultadoBusqueda;
+import edu.upc.dsa.util.ListaEnteros;
+import edu.upc.dsa.util.TablaIdentificadores;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido del catálogo con un documento por ISBN. Indexa los tokens de título, autor,
+ * editorial y temática (en minúsculas y sin acentos) en un mapa ordenado, así una búsqueda por
+ * prefijo es un recorrido de subMap. Cada token apunta a la lista de documentos que lo
+ * contienen, en orden de alta y sin repetidos.
+ *
+ * El manager lo mantiene al catalogar: cada ISBN se añade una vez, cuando entra en el catálogo.
+ * Las búsquedas pueden ir en paralelo entre ellas; las altas las bloquean un momento.
+ */
+public class IndiceCatalogo {
+    public static final int TAMAÑO_PAGINA_MAX = 100;
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private final TablaIdentificadores isbns = new TablaIdentificadores();
+    // Documento -> agregado del ISBN en el catálogo
+    private final List<Libro> documentos = new ArrayList<>();
+    private final TreeMap<String, ListaEnteros> documentosPorToken = new TreeMap<>();
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+
+    /**
+     * Añade el agregado de un ISBN. Si el ISBN ya estaba (una restauración), solo se cambia
+     * el libro al que apunta su documento.
+     */
+    public void añadir(Libro agregado) {
+        cerrojo.writeLock().lock();
+        try {
+            int doc = isbns.buscar(agregado.getIsbn());
+            if (doc != TablaIdentificadores.NO_EXISTE) {
+                documentos.set(doc, agregado);
+                return;
+            }
+            doc = isbns.internar(agregado.getIsbn());
+            documentos.add(agregado);
+            Set<String> tokens = new HashSet<>();
+            tokens.addAll(tokenizar(agregado.getTitulo()));
+            tokens.addAll(tokenizar(agregado.getAutor()));
+            tokens.addAll(tokenizar(agregado.getEditorial()));
+            tokens.addAll(tokenizar(agregado.getTematica()));
+            for (String token : tokens) {
+                documentosPorToken.computeIfAbsent(token, k -> new ListaEnteros()).añadir(doc);
+            }
+        }
+        finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Libros cuyo texto contiene, para cada palabra de la consulta, algún token que empieza
+     * por ella. Los filtros nulos no se aplican. Los resultados van en orden de alta en el
+     * catálogo y las facetas cuentan todos los que cumplen la consulta y los filtros.
+     *
+     * @param texto palabras de la consulta; nulo o vacío para todo el catálogo
+     * @param pagina empieza en 0
+     */
+    public ResultadoBusqueda buscar(String texto, String tematica, String editorial, Integer año, int pagina, int tamañoPagina) {
+        ResultadoBusqueda resultado = new ResultadoBusqueda(pagina, tamañoPagina);
+        Map<String, Integer> porTematica = new HashMap<>();
+        Map<String, Integer> porEditorial = new HashMap<>();
+        Map<String, Integer> porAño = new HashMap<>();
+        long desde = (long) pagina * tamañoPagina;
+        int total = 0;
+
+        cerrojo.readLock().lock();
+        try {
+            BitSet encontrados = documentosCon(tokenizar(texto));
+            for (int doc = encontrados.nextSetBit(0); doc >= 0; doc = encontrados.nextSetBit(doc + 1)) {
+                Libro libro = documentos.get(doc);
+                if ((tematica != null && !tematica.equalsIgnoreCase(libro.getTematica()))
+                        || (editorial != null && !editorial.equalsIgnoreCase(libro.getEditorial()))
+                        || (año != null && año != libro.getAñoPublicacion())) {
+                    continue;
+                }
+                contar(porTematica, libro.getTematica());
+                contar(porEditorial, libro.getEditorial());
+                contar(porAño, String.valueOf(libro.getAñoPublicacion()));
+                if (total >= desde && resultado.getLibros().size() < tamañoPagina) {
+                    resultado.getLibros().add(libro);
+                }
+                total++;
+            }
+        }
+        finally {
+            cerrojo.readLock().unlock();
+        }
+        resultado.setTotal(total);
+        resultado.setTematicas(facetas(porTematica));
+        resultado.setEditoriales(facetas(porEditorial));
+        resultado.setAñosPublicacion(facetas(porAño));
+        return resultado;
+    }
+
+    // Intersección, palabra a palabra, de la unión de los documentos de los tokens con ese prefijo
+    private BitSet documentosCon(List<String> palabras) {
+        BitSet encontrados = new BitSet(documentos.size());
+        encontrados.set(0, documentos.size());
+        for (String palabra : palabras) {
+            BitSet conPrefijo = new BitSet(documentos.size());
+            for (ListaEnteros docs : documentosPorToken.subMap(palabra, true, palabra + Character.MAX_VALUE, false).values()) {
+                for (int i = 0; i < docs.tamaño(); i++) {
+                    conPrefijo.set(docs.get(i));
+                }
+            }
+            encontrados.and(conPrefijo);
+            if (encontrados.isEmpty()) break;
+        }
+        return encontrados;
+    }
+
+    private static void contar(Map<String, Integer> recuentos, String valor) {
+        if (valor != null) {
+            recuentos.merge(valor, 1, Integer::sum);
+        }
+    }
+
+    // De más a menos libros y, a igualdad, por valor. Pública para juntar las facetas de
+    // varios índices (LibrosManagerParticionado) con el mismo orden
+    public static List<Faceta> facetas(Map<String, Integer> recuentos) {
+        List<Faceta> facetas = new ArrayList<>(recuentos.size());
+        for (Map.Entry<String, Integer> e : recuentos.entrySet()) {
+            facetas.add(new Faceta(e.getKey(), e.getValue()));
+        }
+        facetas.sort(Comparator.comparingInt(Faceta::getNumLibros).reversed().thenComparing(Faceta::getValor));
+        return facetas;
+    }
+
+    /** Palabras del texto en minúsculas y sin acentos; "García-Márquez" da [garcia, marquez] */
+    public static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(normalizado)) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    public int numDocumentos() {
+        cerrojo.readLock().lock();
+        try {
+            return documentos.size();
+        }
+        finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        cerrojo.writeLock().lock();
+        try {
+            isbns.clear();
+            documentos.clear();
+            documentosPorToken.clear();
+        }
+        finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+}
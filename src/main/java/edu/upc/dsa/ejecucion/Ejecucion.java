@@ -0,0 +1,177 @@
+package edu.upc.dsa.ejecucion;
+
+import edu.upc.dsa.models.ErrorRespuesta;
+import org.apache.log4j.Logger;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Quién ejecuta las peticiones HTTP, con dos ajustes independientes:
+ *
+ *  - trabajadores (-Dlibros.ejecucion.trabajadores): los hilos de Grizzly que leen la petición
+ *    y la pasan por Jersey. "grizzly" (por defecto) deja el pool de Grizzly como está; "pool",
+ *    un pool fijo de libros.ejecucion.hilos hilos con una cola de libros.ejecucion.cola
+ *    peticiones; "virtual", un hilo virtual por petición.
+ *  - manejadores (-Dlibros.ejecucion.manejadores): dónde se ejecutan los métodos de
+ *    LibrosService. "directo" (por defecto), en el mismo trabajador; con "pool" o "virtual" el
+ *    método suspende la petición (AsyncResponse) y la termina en ese ejecutor, así que el
+ *    trabajador de Grizzly queda libre mientras el manager espera, por ejemplo al fsync de la
+ *    persistencia. Con el pool lleno se responde 503.
+ *
+ * Los hilos virtuales necesitan Java 21; en una JVM anterior se usa un pool, con un aviso.
+ */
+public class Ejecucion {
+    final static Logger logger = Logger.getLogger(Ejecucion.class);
+
+    public static final String PROPIEDAD_TRABAJADORES = "libros.ejecucion.trabajadores";
+    public static final String PROPIEDAD_MANEJADORES = "libros.ejecucion.manejadores";
+    public static final String PROPIEDAD_HILOS = "libros.ejecucion.hilos";
+    public static final String PROPIEDAD_COLA = "libros.ejecucion.cola";
+
+    private static volatile Ejecucion instance;
+
+    // null: los manejadores se ejecutan en el trabajador que recibe la petición
+    private final ExecutorService manejadores;
+
+    public Ejecucion(ExecutorService manejadores) {
+        this.manejadores = manejadores;
+    }
+
+    public static Ejecucion getInstance() {
+        if (instance == null) {
+            synchronized (Ejecucion.class) {
+                if (instance == null) {
+                    instance = new Ejecucion(crearEjecutor(System.getProperty(PROPIEDAD_MANEJADORES, "directo"), "libros-manejador"));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /** El cuerpo de un método de servicio; puede leer la petición, de ahí la IOException */
+    public interface Manejador {
+        Response manejar() throws IOException;
+    }
+
+    /**
+     * Ejecuta el manejador donde toque y completa la petición con su respuesta. Si lanza una
+     * excepción, la petición se completa con ella y Jersey responde como si la hubiera lanzado
+     * el método de servicio.
+     */
+    public void responder(AsyncResponse respuesta, Manejador manejador) {
+        if (manejadores == null) {
+            completar(respuesta, manejador);
+            return;
+        }
+        try {
+            manejadores.execute(() -> completar(respuesta, manejador));
+        }
+        catch (RejectedExecutionException ex) {
+            respuesta.resume(Response.status(503).entity(new ErrorRespuesta("SATURADO", "Demasiadas peticiones en curso"))
+                    .type(MediaType.APPLICATION_JSON).build());
+        }
+    }
+
+    private static void completar(AsyncResponse respuesta, Manejador manejador) {
+        try {
+            respuesta.resume(manejador.manejar());
+        }
+        catch (IOException | RuntimeException ex) {
+            respuesta.resume(ex);
+        }
+    }
+
+    // -------- EJECUTORES --------
+
+    /**
+     * @param tipo "directo" (devuelve null), "pool" o "virtual"
+     */
+    public static ExecutorService crearEjecutor(String tipo, String nombre) {
+        switch (tipo) {
+            case "directo":
+                return null;
+            case "pool":
+                return crearPool(nombre);
+            case "virtual":
+                ExecutorService virtuales = crearVirtuales();
+                if (virtuales != null) {
+                    return virtuales;
+                }
+                logger.warn("Esta JVM (" + System.getProperty("java.version") + ") no tiene hilos virtuales; " + nombre + " usa un pool");
+                return crearPool(nombre);
+            default:
+                throw new IllegalArgumentException("Ejecución desconocida: " + tipo);
+        }
+    }
+
+    private static ExecutorService crearPool(String nombre) {
+        int hilos = Integer.getInteger(PROPIEDAD_HILOS, 200);
+        int cola = Integer.getInteger(PROPIEDAD_COLA, 10000);
+        AtomicInteger secuencia = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(cola), r -> {
+            Thread hilo = new Thread(r, nombre + "-" + secuencia.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Sin carga no se quedan 200 hilos parados
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /** Executors.newVirtualThreadPerTaskExecutor() si la JVM lo tiene; se compila para Java 8 */
+    static ExecutorService crearVirtuales() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException | UnsupportedOperationException ex) {
+            // No existe, o en Java 19-20 está pero sin --enable-preview
+            return null;
+        }
+    }
+
+    // -------- TRABAJADORES DE GRIZZLY --------
+
+    /**
+     * Cambia los trabajadores de los listeners del servidor según libros.ejecucion.trabajadores;
+     * hay que llamarlo antes de arrancarlo.
+     */
+    public static void configurarTrabajadores(HttpServer servidor) {
+        String tipo = System.getProperty(PROPIEDAD_TRABAJADORES, "grizzly");
+        for (NetworkListener listener : servidor.getListeners()) {
+            switch (tipo) {
+                case "grizzly":
+                    break;
+                case "pool":
+                    // El pool de Grizzly: con la cola llena, cierra la conexión
+                    int hilos = Integer.getInteger(PROPIEDAD_HILOS, 200);
+                    listener.getTransport().setWorkerThreadPoolConfig(ThreadPoolConfig.defaultConfig().copy()
+                            .setPoolName("libros-trabajador")
+                            .setCorePoolSize(hilos)
+                            .setMaxPoolSize(hilos)
+                            .setQueueLimit(Integer.getInteger(PROPIEDAD_COLA, 10000)));
+                    break;
+                case "virtual":
+                    listener.getTransport().setWorkerThreadPool(crearEjecutor("virtual", "libros-trabajador"));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Trabajadores desconocidos: " + tipo);
+            }
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("Trabajadores: " + tipo + "; manejadores: " + System.getProperty(PROPIEDAD_MANEJADORES, "directo"));
+        }
+    }
+}
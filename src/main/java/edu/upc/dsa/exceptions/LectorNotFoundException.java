@@ -1,7 +0,0 @@
-package edu.upc.dsa.exceptions;
-
-public class LectorNotFoundException extends Exception {
-    public LectorNotFoundException(String message) {
-        super(message);
-    }
-}
@@ -1,7 +0,0 @@
-package edu.upc.dsa.exceptions;
-
-public class LibroNotFoundException extends Exception {
-    public LibroNotFoundException(String message) {
-        super(message);
-    }
-}
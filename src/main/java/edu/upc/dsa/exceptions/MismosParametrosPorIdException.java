@@ -1,7 +0,0 @@
-package edu.upc.dsa.exceptions;
-
-public class MismosParametrosPorIdException extends Exception {
-    public MismosParametrosPorIdException(String message) {
-        super(message);
-    }
-}
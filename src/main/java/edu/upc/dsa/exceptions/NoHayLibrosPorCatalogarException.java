@@ -1,7 +0,0 @@
-package edu.upc.dsa.exceptions;
-
-public class NoHayLibrosPorCatalogarException extends Exception {
-    public NoHayLibrosPorCatalogarException(String message) {
-        super(message);
-    }
-}
@@ -1,7 +0,0 @@
-package edu.upc.dsa.exceptions;
-
-public class PrestamoNotFoundException extends Exception {
-    public PrestamoNotFoundException(String message) {
-        super(message);
-    }
-}
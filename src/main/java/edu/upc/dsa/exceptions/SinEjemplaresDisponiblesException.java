@@ -1,7 +0,0 @@
-package edu.upc.dsa.exceptions;
-
-public class SinEjemplaresDisponiblesException extends Exception {
-    public SinEjemplaresDisponiblesException(String message) {
-        super(message);
-    }
-}
@@ -0,0 +1,110 @@
+package edu.upc.dsa.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import edu.upc.dsa.models.Libro;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura en streaming de libros en JSON (array) o NDJSON (un objeto por línea) con jackson-core,
+ * sin construir el documento entero en memoria.
+ */
+public class LibrosJson {
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Resultado de leer un lote: los libros en el orden de entrada (null en las posiciones
+     * que no se han podido leer) y el motivo de cada error de lectura por posición.
+     */
+    public static class LoteLeido {
+        private final List<Libro> libros = new ArrayList<>();
+        private final Map<Integer, String> erroresLectura = new HashMap<>();
+
+        public List<Libro> getLibros() {
+            return libros;
+        }
+
+        public Map<Integer, String> getErroresLectura() {
+            return erroresLectura;
+        }
+
+        private void añadirError(String motivo) {
+            erroresLectura.put(libros.size(), motivo);
+            libros.add(null);
+        }
+    }
+
+    /**
+     * Lee un array JSON de libros. Un valor mal tipado solo invalida su libro; un error de
+     * sintaxis JSON invalida el resto del array, porque a partir de ahí no se puede seguir leyendo.
+     */
+    public static LoteLeido leerArray(InputStream in) throws IOException {
+        LoteLeido lote = new LoteLeido();
+        try (JsonParser p = FACTORY.createParser(in)) {
+            try {
+                if (p.nextToken() != JsonToken.START_ARRAY) {
+                    throw new JsonParseException("Se esperaba un array JSON de libros", p.getCurrentLocation());
+                }
+                JsonToken t;
+                while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+                    if (t == null) {
+                        throw new JsonParseException("Array JSON sin cerrar", p.getCurrentLocation());
+                    }
+                    leerElemento(p, lote);
+                }
+            }
+            catch (JsonParseException ex) {
+                lote.añadirError("JSON mal formado: " + ex.getOriginalMessage());
+            }
+        }
+        return lote;
+    }
+
+    /**
+     * Lee libros en NDJSON. Cada línea se lee por separado, así una línea mal formada
+     * no impide leer las siguientes. Las líneas en blanco se ignoran.
+     */
+    public static LoteLeido leerNdjson(InputStream in) throws IOException {
+        LoteLeido lote = new LoteLeido();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String linea;
+        while ((linea = reader.readLine()) != null) {
+            if (linea.trim().isEmpty()) continue;
+            try (JsonParser p = FACTORY.createParser(linea)) {
+                p.nextToken();
+                leerElemento(p, lote);
+            }
+            catch (JsonParseException ex) {
+                lote.añadirError("JSON mal formado: " + ex.getOriginalMessage());
+            }
+        }
+        return lote;
+    }
+
+    private static void leerElemento(JsonParser p, LoteLeido lote) throws IOException {
+        if (p.getCurrentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            lote.añadirError("Se esperaba un objeto libro");
+            return;
+        }
+        try {
+            lote.getLibros().add(ModelosJson.leerLibro(p));
+        }
+        catch (IllegalArgumentException ex) {
+            lote.añadirError(ex.getMessage());
+        }
+    }
+}
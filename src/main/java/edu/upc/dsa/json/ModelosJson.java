@@ -0,0 +1,194 @@
+package edu.upc.dsa.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.StockIsbn;
+
+import java.io.IOException;
+
+/**
+ * Lectura y escritura de Lector, Libro y Prestamo con el API de streaming de jackson-core.
+ * Los nombres de campo son los mismos que genera MOXy, así que el JSON es intercambiable.
+ */
+public class ModelosJson {
+
+    private interface AsignadorCampo<T> {
+        /** @return false si el campo no es de este modelo */
+        boolean asignar(T objeto, String campo, JsonParser p) throws IOException;
+    }
+
+    // -------- LECTURA --------
+
+    /**
+     * Lee un libro con el parser situado en su START_OBJECT y lo deja en su END_OBJECT.
+     * Los campos desconocidos se ignoran; un valor de tipo incorrecto se consume igualmente
+     * y acaba en IllegalArgumentException para que un lote pueda continuar.
+     */
+    public static Libro leerLibro(JsonParser p) throws IOException {
+        return leerObjeto(p, new Libro(), (l, campo, q) -> {
+            switch (campo) {
+                case "id": l.setId(texto(q, campo)); return true;
+                case "isbn": l.setIsbn(texto(q, campo)); return true;
+                case "titulo": l.setTitulo(texto(q, campo)); return true;
+                case "editorial": l.setEditorial(texto(q, campo)); return true;
+                case "añoPublicacion": l.setAñoPublicacion(entero(q, campo)); return true;
+                case "edicion": l.setEdicion(entero(q, campo)); return true;
+                case "autor": l.setAutor(texto(q, campo)); return true;
+                case "tematica": l.setTematica(texto(q, campo)); return true;
+                case "numEjemplares": l.setNumEjemplares(entero(q, campo)); return true;
+                default: return false;
+            }
+        });
+    }
+
+    public static Lector leerLector(JsonParser p) throws IOException {
+        return leerObjeto(p, new Lector(), (l, campo, q) -> {
+            switch (campo) {
+                case "id": l.setId(texto(q, campo)); return true;
+                case "nombre": l.setNombre(texto(q, campo)); return true;
+                case "apellidos": l.setApellidos(texto(q, campo)); return true;
+                case "dni": l.setDni(texto(q, campo)); return true;
+                case "fechaNacimiento": l.setFechaNacimiento(texto(q, campo)); return true;
+                case "lugarNacimiento": l.setLugarNacimiento(texto(q, campo)); return true;
+                case "direccion": l.setDireccion(texto(q, campo)); return true;
+                default: return false;
+            }
+        });
+    }
+
+    public static Prestamo leerPrestamo(JsonParser p) throws IOException {
+        return leerObjeto(p, new Prestamo(), (pr, campo, q) -> {
+            switch (campo) {
+                case "id": pr.setId(texto(q, campo)); return true;
+                case "lectorId": pr.setLectorId(texto(q, campo)); return true;
+                case "libroId": pr.setLibroId(texto(q, campo)); return true;
+                case "inicioPrestamo": pr.setInicioPrestamo(texto(q, campo)); return true;
+                case "finalPrestamo": pr.setFinalPrestamo(texto(q, campo)); return true;
+                case "enTramite": pr.setEnTramite(booleano(q, campo)); return true;
+                default: return false;
+            }
+        });
+    }
+
+    private static <T> T leerObjeto(JsonParser p, T objeto, AsignadorCampo<T> asignador) throws IOException {
+        if (p.getCurrentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException("Se esperaba un objeto JSON", p.getCurrentLocation());
+        }
+        String error = null;
+        String id = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = p.getCurrentName();
+            JsonToken valor = p.nextToken();
+            try {
+                if (!asignador.asignar(objeto, campo, p)) {
+                    p.skipChildren();
+                }
+                else if ("id".equals(campo)) {
+                    id = p.getText();
+                }
+            }
+            catch (IllegalArgumentException ex) {
+                if (valor == JsonToken.START_OBJECT || valor == JsonToken.START_ARRAY) p.skipChildren();
+                if (error == null) error = ex.getMessage();
+            }
+        }
+        if (error != null) {
+            throw new IllegalArgumentException(error + (id != null ? " (id " + id + ")" : ""));
+        }
+        return objeto;
+    }
+
+    public static String texto(JsonParser p, String campo) throws IOException {
+        JsonToken t = p.getCurrentToken();
+        if (t == JsonToken.VALUE_NULL) return null;
+        if (t == JsonToken.VALUE_STRING || t.isNumeric()) return p.getText();
+        throw new IllegalArgumentException("El campo " + campo + " debe ser un texto");
+    }
+
+    public static int entero(JsonParser p, String campo) throws IOException {
+        JsonToken t = p.getCurrentToken();
+        if (t == JsonToken.VALUE_NUMBER_INT) {
+            try {
+                return p.getIntValue();
+            }
+            catch (JsonParseException ex) {
+                throw new IllegalArgumentException("El campo " + campo + " está fuera de rango");
+            }
+        }
+        if (t == JsonToken.VALUE_STRING) {
+            try {
+                return Integer.parseInt(p.getText().trim());
+            }
+            catch (NumberFormatException ex) {
+                // se informa abajo
+            }
+        }
+        throw new IllegalArgumentException("El campo " + campo + " debe ser un número entero");
+    }
+
+    public static boolean booleano(JsonParser p, String campo) throws IOException {
+        JsonToken t = p.getCurrentToken();
+        if (t == JsonToken.VALUE_TRUE) return true;
+        if (t == JsonToken.VALUE_FALSE) return false;
+        if (t == JsonToken.VALUE_STRING) return Boolean.parseBoolean(p.getText());
+        throw new IllegalArgumentException("El campo " + campo + " debe ser un booleano");
+    }
+
+    // -------- ESCRITURA --------
+
+    public static void escribirLibro(JsonGenerator g, Libro libro) throws IOException {
+        g.writeStartObject();
+        escribirTexto(g, "id", libro.getId());
+        escribirTexto(g, "isbn", libro.getIsbn());
+        escribirTexto(g, "titulo", libro.getTitulo());
+        escribirTexto(g, "editorial", libro.getEditorial());
+        g.writeNumberField("añoPublicacion", libro.getAñoPublicacion());
+        g.writeNumberField("edicion", libro.getEdicion());
+        escribirTexto(g, "autor", libro.getAutor());
+        escribirTexto(g, "tematica", libro.getTematica());
+        g.writeNumberField("numEjemplares", libro.getNumEjemplares());
+        g.writeEndObject();
+    }
+
+    public static void escribirLector(JsonGenerator g, Lector lector) throws IOException {
+        g.writeStartObject();
+        escribirTexto(g, "id", lector.getId());
+        escribirTexto(g, "nombre", lector.getNombre());
+        escribirTexto(g, "apellidos", lector.getApellidos());
+        escribirTexto(g, "dni", lector.getDni());
+        escribirTexto(g, "fechaNacimiento", lector.getFechaNacimiento());
+        escribirTexto(g, "lugarNacimiento", lector.getLugarNacimiento());
+        escribirTexto(g, "direccion", lector.getDireccion());
+        g.writeEndObject();
+    }
+
+    public static void escribirPrestamo(JsonGenerator g, Prestamo prestamo) throws IOException {
+        g.writeStartObject();
+        escribirTexto(g, "id", prestamo.getId());
+        escribirTexto(g, "lectorId", prestamo.getLectorId());
+        escribirTexto(g, "libroId", prestamo.getLibroId());
+        escribirTexto(g, "inicioPrestamo", prestamo.getInicioPrestamo());
+        escribirTexto(g, "finalPrestamo", prestamo.getFinalPrestamo());
+        g.writeBooleanField("enTramite", prestamo.isEnTramite());
+        g.writeEndObject();
+    }
+
+    public static void escribirStock(JsonGenerator g, StockIsbn stock) throws IOException {
+        g.writeStartObject();
+        escribirTexto(g, "isbn", stock.getIsbn());
+        g.writeNumberField("numEjemplares", stock.getNumEjemplares());
+        g.writeEndObject();
+    }
+
+    // MOXy omite los campos nulos, así que aquí también
+    private static void escribirTexto(JsonGenerator g, String campo, String valor) throws IOException {
+        if (valor != null) {
+            g.writeStringField(campo, valor);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package edu.upc.dsa.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Prestamo;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Proveedores JSON para Lector, Libro y Prestamo (y colecciones de ellos) con los serializadores
+ * escritos a mano de ModelosJson, en lugar del binding por reflexión de MOXy. El resto de
+ * modelos siguen pasando por MOXy. Se registran en el ResourceConfig con
+ * -Dlibros.json.proveedor=modelos.
+ *
+ * Hay un proveedor por tipo porque Jersey elige primero el que declara el tipo más cercano a la
+ * entidad: declarados para Object, empatarían con MOXy y ganaría el que se registrase antes.
+ */
+public abstract class ProveedorJsonModelos<T> implements MessageBodyReader<T>, MessageBodyWriter<T> {
+    // Jersey gestiona el stream de la petición y el de la respuesta: el parser y el generador no los cierran
+    private static final JsonFactory FACTORY = new JsonFactory()
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    public static Set<Class<?>> clases() {
+        return new HashSet<>(Arrays.asList(DeLector.class, DeLibro.class, DePrestamo.class, DeColeccion.class));
+    }
+
+    private interface Lectura<T> {
+        T leer(JsonParser p) throws IOException;
+    }
+
+    private interface Escritura<T> {
+        void escribir(JsonGenerator g, T modelo) throws IOException;
+    }
+
+    private final Class<T> modelo;
+    private final Lectura<T> lectura;
+    private final Escritura<T> escritura;
+
+    ProveedorJsonModelos(Class<T> modelo, Lectura<T> lectura, Escritura<T> escritura) {
+        this.modelo = modelo;
+        this.lectura = lectura;
+        this.escritura = escritura;
+    }
+
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public static class DeLector extends ProveedorJsonModelos<Lector> {
+        public DeLector() {
+            super(Lector.class, ModelosJson::leerLector, ModelosJson::escribirLector);
+        }
+    }
+
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public static class DeLibro extends ProveedorJsonModelos<Libro> {
+        public DeLibro() {
+            super(Libro.class, ModelosJson::leerLibro, ModelosJson::escribirLibro);
+        }
+    }
+
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public static class DePrestamo extends ProveedorJsonModelos<Prestamo> {
+        public DePrestamo() {
+            super(Prestamo.class, ModelosJson::leerPrestamo, ModelosJson::escribirPrestamo);
+        }
+    }
+
+    /** Solo escritura, para las listas (GenericEntity<List<Prestamo>>...) de los listados */
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class DeColeccion implements MessageBodyWriter<Collection<?>> {
+        @Override
+        public boolean isWriteable(Class<?> clase, Type tipo, Annotation[] anotaciones, MediaType mediaType) {
+            if (!(tipo instanceof ParameterizedType)) return false;
+            Type elemento = ((ParameterizedType) tipo).getActualTypeArguments()[0];
+            return elemento == Lector.class || elemento == Libro.class || elemento == Prestamo.class;
+        }
+
+        @Override
+        public long getSize(Collection<?> coleccion, Class<?> clase, Type tipo, Annotation[] anotaciones, MediaType mediaType) {
+            return -1;
+        }
+
+        @Override
+        public void writeTo(Collection<?> coleccion, Class<?> clase, Type tipo, Annotation[] anotaciones, MediaType mediaType,
+                            MultivaluedMap<String, Object> cabeceras, OutputStream salida) throws IOException {
+            try (JsonGenerator g = FACTORY.createGenerator(salida)) {
+                g.writeStartArray();
+                for (Object elemento : coleccion) {
+                    if (elemento instanceof Prestamo) ModelosJson.escribirPrestamo(g, (Prestamo) elemento);
+                    else if (elemento instanceof Libro) ModelosJson.escribirLibro(g, (Libro) elemento);
+                    else if (elemento instanceof Lector) ModelosJson.escribirLector(g, (Lector) elemento);
+                    else g.writeNull();
+                }
+                g.writeEndArray();
+            }
+        }
+    }
+
+    // -------- LECTURA --------
+
+    @Override
+    public boolean isReadable(Class<?> clase, Type tipo, Annotation[] anotaciones, MediaType mediaType) {
+        return clase == modelo;
+    }
+
+    /** Un cuerpo vacío da null, como con MOXy; un JSON mal formado o mal tipado, 400 */
+    @Override
+    public T readFrom(Class<T> clase, Type tipo, Annotation[] anotaciones, MediaType mediaType,
+                      MultivaluedMap<String, String> cabeceras, InputStream entrada) throws IOException {
+        try (JsonParser p = FACTORY.createParser(entrada)) {
+            JsonToken t = p.nextToken();
+            if (t == null || t == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (t != JsonToken.START_OBJECT) {
+                throw new BadRequestException("Se esperaba un objeto JSON");
+            }
+            return lectura.leer(p);
+        }
+        catch (JsonParseException | IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
+
+    // -------- ESCRITURA --------
+
+    @Override
+    public boolean isWriteable(Class<?> clase, Type tipo, Annotation[] anotaciones, MediaType mediaType) {
+        return clase == modelo;
+    }
+
+    @Override
+    public long getSize(T objeto, Class<?> clase, Type tipo, Annotation[] anotaciones, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(T objeto, Class<?> clase, Type tipo, Annotation[] anotaciones, MediaType mediaType,
+                        MultivaluedMap<String, Object> cabeceras, OutputStream salida) throws IOException {
+        try (JsonGenerator g = FACTORY.createGenerator(salida)) {
+            escritura.escribir(g, objeto);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package edu.upc.dsa.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Escritura en streaming de colecciones de modelos con jackson-core, como array JSON o como
+ * NDJSON. Los elementos se escriben según los entrega el recorrido, así que la memoria no
+ * depende de cuántos haya: solo el buffer del generador.
+ */
+public class SalidaJson {
+    // Sin separador entre valores raíz: en NDJSON el salto de línea lo pone escribirNdjson
+    private static final JsonFactory FACTORY = new JsonFactory().setRootValueSeparator(null);
+
+    public interface EscritorModelo<T> {
+        void escribir(JsonGenerator g, T elemento) throws IOException;
+    }
+
+    /**
+     * @param recorrido recibe el consumidor al que entregar cada elemento, por ejemplo
+     *                  c -> manager.recorrerPrestamosDeLector(id, c)
+     */
+    public static <T> void escribirArray(OutputStream out, Consumer<Consumer<T>> recorrido, EscritorModelo<T> escritor) throws IOException {
+        try (JsonGenerator g = FACTORY.createGenerator(out)) {
+            g.writeStartArray();
+            recorrer(recorrido, elemento -> escritor.escribir(g, elemento));
+            g.writeEndArray();
+        }
+    }
+
+    /** Un objeto por línea, cada una terminada en '\n' */
+    public static <T> void escribirNdjson(OutputStream out, Consumer<Consumer<T>> recorrido, EscritorModelo<T> escritor) throws IOException {
+        try (JsonGenerator g = FACTORY.createGenerator(out)) {
+            recorrer(recorrido, elemento -> {
+                escritor.escribir(g, elemento);
+                g.writeRaw('\n');
+            });
+        }
+    }
+
+    /** Un solo modelo serializado, para guardarlo ya en bytes (por ejemplo en una caché) */
+    public static <T> byte[] aBytes(T elemento, EscritorModelo<T> escritor) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator g = FACTORY.createGenerator(out)) {
+            escritor.escribir(g, elemento);
+        }
+        catch (IOException ex) {
+            // Escribiendo en memoria no hay E/S que pueda fallar
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    private interface Escritura<T> {
+        void escribir(T elemento) throws IOException;
+    }
+
+    // Los recorridos del manager aceptan un Consumer, que no puede lanzar IOException
+    private static <T> void recorrer(Consumer<Consumer<T>> recorrido, Escritura<T> escritura) throws IOException {
+        try {
+            recorrido.accept(elemento -> {
+                try {
+                    escritura.escribir(elemento);
+                }
+                catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+        catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+}
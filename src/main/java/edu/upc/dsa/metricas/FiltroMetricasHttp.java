@@ -0,0 +1,48 @@
+package edu.upc.dsa.metricas;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import java.lang.reflect.Method;
+
+/**
+ * Mide cada petición HTTP desde que Jersey la recibe hasta que tiene la respuesta, y cuenta
+ * las respuestas por código. La operación es el nombre del método del recurso que la atiende
+ * (por ejemplo prestarLibro), o "sin_recurso" si ninguno encaja.
+ *
+ * Es @PreMatching para que el tiempo incluya buscar el recurso y se midan también las
+ * peticiones que no encajan con ninguno.
+ *
+ * Las respuestas en streaming se miden hasta que empiezan a escribirse: el cuerpo se escribe
+ * después de los filtros de respuesta.
+ */
+@PreMatching
+public class FiltroMetricasHttp implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String PROPIEDAD_INICIO = FiltroMetricasHttp.class.getName() + ".inicio";
+    private static final String SIN_RECURSO = "sin_recurso";
+
+    private final Metricas metricas = Metricas.getInstance();
+
+    @Context
+    private ResourceInfo recurso;
+
+    @Override
+    public void filter(ContainerRequestContext peticion) {
+        peticion.setProperty(PROPIEDAD_INICIO, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext peticion, ContainerResponseContext respuesta) {
+        Object inicio = peticion.getProperty(PROPIEDAD_INICIO);
+        Method metodo = recurso.getResourceMethod();
+        String operacion = (metodo == null) ? SIN_RECURSO : metodo.getName();
+        if (inicio != null) {
+            metricas.peticionHttp(operacion).registrar(System.nanoTime() - (Long) inicio);
+        }
+        metricas.respuestaHttp(operacion, respuesta.getStatus());
+    }
+}
@@ -0,0 +1,73 @@
+package edu.upc.dsa.metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con cubos fijos en potencias de 2 de nanosegundos, de 2^10 ns
+ * (~1 µs) a 2^34 ns (~17 s), más uno final sin límite. Registrar una muestra es calcular el
+ * cubo con numberOfLeadingZeros y sumar en dos LongAdder: sin cerrojos, sin reservar memoria
+ * y sin que los hilos se peleen por la misma línea de caché.
+ *
+ * Cada cubo cuenta las muestras de (2^(k-1), 2^k] ns; el de +Inf, las que pasan del último.
+ */
+public class HistogramaLatencias {
+    private static final int PRIMER_EXPONENTE = 10;
+    private static final int ULTIMO_EXPONENTE = 34;
+    public static final int NUM_CUBOS = ULTIMO_EXPONENTE - PRIMER_EXPONENTE + 2;
+
+    private final LongAdder[] cubos = new LongAdder[NUM_CUBOS];
+    private final LongAdder sumaNanos = new LongAdder();
+
+    public HistogramaLatencias() {
+        for (int i = 0; i < NUM_CUBOS; i++) {
+            cubos[i] = new LongAdder();
+        }
+    }
+
+    public void registrar(long nanos) {
+        // Exponente del menor 2^k >= nanos
+        int exponente = 64 - Long.numberOfLeadingZeros(Math.max(nanos, 1) - 1);
+        int cubo = Math.min(Math.max(exponente - PRIMER_EXPONENTE, 0), NUM_CUBOS - 1);
+        cubos[cubo].increment();
+        sumaNanos.add(nanos);
+    }
+
+    /**
+     * Límite superior del cubo en segundos, o +Infinity para el último.
+     */
+    public static double limiteSegundos(int cubo) {
+        if (cubo >= NUM_CUBOS - 1) return Double.POSITIVE_INFINITY;
+        return (1L << (cubo + PRIMER_EXPONENTE)) / 1e9;
+    }
+
+    /**
+     * Muestras de cada cubo (no acumuladas). Se leen sin parar a quien registra, así que una
+     * muestra que entra durante la lectura puede contar o no.
+     */
+    public long[] muestrasPorCubo() {
+        long[] muestras = new long[NUM_CUBOS];
+        for (int i = 0; i < NUM_CUBOS; i++) {
+            muestras[i] = cubos[i].sum();
+        }
+        return muestras;
+    }
+
+    public long numMuestras() {
+        long total = 0;
+        for (LongAdder cubo : cubos) {
+            total += cubo.sum();
+        }
+        return total;
+    }
+
+    public long sumaNanos() {
+        return sumaNanos.sum();
+    }
+
+    public void clear() {
+        for (LongAdder cubo : cubos) {
+            cubo.reset();
+        }
+        sumaNanos.reset();
+    }
+}
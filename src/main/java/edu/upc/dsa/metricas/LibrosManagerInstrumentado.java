@@ -0,0 +1,358 @@
+package edu.upc.dsa.metricas;
+
+import edu.upc.dsa.LibrosManager;
+import edu.upc.dsa.models.AnaliticaCatalogo;
+import edu.upc.dsa.models.Estadisticas;
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Pagina;
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.ResultadoBusqueda;
+import edu.upc.dsa.models.ResultadoDevolucion;
+import edu.upc.dsa.models.ResultadoLector;
+import edu.upc.dsa.models.ResultadoLote;
+import edu.upc.dsa.models.ResultadoPrestamo;
+import edu.upc.dsa.models.ResumenCatalogacion;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Mide la duración de cada operación del manager que envuelve y la guarda en el histograma
+ * de la operación. Cada método solo añade dos System.nanoTime() y un registrar(); los
+ * histogramas se piden al crear el envoltorio.
+ *
+ * recorrerPrestamosDeLector incluye el tiempo del consumidor (en el servicio, escribir la
+ * respuesta). getEstadisticas no se mide: la llaman las propias métricas al exportar.
+ */
+public class LibrosManagerInstrumentado implements LibrosManager {
+    private final LibrosManager manager;
+
+    private final HistogramaLatencias addLector;
+    private final HistogramaLatencias almacenarLibro;
+    private final HistogramaLatencias almacenarLibros;
+    private final HistogramaLatencias catalogarSiguienteLibro;
+    private final HistogramaLatencias catalogarSiguientesLibros;
+    private final HistogramaLatencias catalogarTodosLosLibros;
+    private final HistogramaLatencias prestarLibro;
+    private final HistogramaLatencias devolverLibro;
+    private final HistogramaLatencias getPrestamo;
+    private final HistogramaLatencias prestamosDeLector;
+    private final HistogramaLatencias recorrerPrestamosDeLector;
+    private final HistogramaLatencias prestamosVencidosHasta;
+    private final HistogramaLatencias buscarLibros;
+    private final HistogramaLatencias analizarCatalogo;
+    private final HistogramaLatencias listarLectores;
+    private final HistogramaLatencias listarCatalogo;
+    private final HistogramaLatencias listarPrestamos;
+    private final HistogramaLatencias clear;
+    private final HistogramaLatencias getLector;
+    private final HistogramaLatencias lectoresSize;
+    private final HistogramaLatencias getLibroPorIsbn;
+    private final HistogramaLatencias getStockPorIsbn;
+    private final HistogramaLatencias getVersionIsbn;
+
+    public LibrosManagerInstrumentado(LibrosManager manager, Metricas metricas) {
+        this.manager = manager;
+        this.addLector = metricas.operacionManager("addLector");
+        this.almacenarLibro = metricas.operacionManager("almacenarLibro");
+        this.almacenarLibros = metricas.operacionManager("almacenarLibros");
+        this.catalogarSiguienteLibro = metricas.operacionManager("catalogarSiguienteLibro");
+        this.catalogarSiguientesLibros = metricas.operacionManager("catalogarSiguientesLibros");
+        this.catalogarTodosLosLibros = metricas.operacionManager("catalogarTodosLosLibros");
+        this.prestarLibro = metricas.operacionManager("prestarLibro");
+        this.devolverLibro = metricas.operacionManager("devolverLibro");
+        this.getPrestamo = metricas.operacionManager("getPrestamo");
+        this.prestamosDeLector = metricas.operacionManager("prestamosDeLector");
+        this.recorrerPrestamosDeLector = metricas.operacionManager("recorrerPrestamosDeLector");
+        this.prestamosVencidosHasta = metricas.operacionManager("prestamosVencidosHasta");
+        this.buscarLibros = metricas.operacionManager("buscarLibros");
+        this.analizarCatalogo = metricas.operacionManager("analizarCatalogo");
+        this.listarLectores = metricas.operacionManager("listarLectores");
+        this.listarCatalogo = metricas.operacionManager("listarCatalogo");
+        this.listarPrestamos = metricas.operacionManager("listarPrestamos");
+        this.clear = metricas.operacionManager("clear");
+        this.getLector = metricas.operacionManager("getLector");
+        this.lectoresSize = metricas.operacionManager("lectoresSize");
+        this.getLibroPorIsbn = metricas.operacionManager("getLibroPorIsbn");
+        this.getStockPorIsbn = metricas.operacionManager("getStockPorIsbn");
+        this.getVersionIsbn = metricas.operacionManager("getVersionIsbn");
+    }
+
+    public LibrosManager getEnvuelto() {
+        return manager;
+    }
+
+    // -------- MUTACIONES --------
+
+    @Override
+    public ResultadoLector addLector(String id, String nombre, String apellidos, String dni, String fechaNacimiento, String lugarNacimiento, String direccion) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.addLector(id, nombre, apellidos, dni, fechaNacimiento, lugarNacimiento, direccion);
+        }
+        finally {
+            addLector.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public boolean almacenarLibro(Libro libro) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.almacenarLibro(libro);
+        }
+        finally {
+            almacenarLibro.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public ResultadoLote almacenarLibros(List<Libro> libros) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.almacenarLibros(libros);
+        }
+        finally {
+            almacenarLibros.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public Libro catalogarSiguienteLibro() {
+        long inicio = System.nanoTime();
+        try {
+            return manager.catalogarSiguienteLibro();
+        }
+        finally {
+            catalogarSiguienteLibro.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public ResumenCatalogacion catalogarSiguientesLibros(int n) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.catalogarSiguientesLibros(n);
+        }
+        finally {
+            catalogarSiguientesLibros.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public ResumenCatalogacion catalogarTodosLosLibros() {
+        long inicio = System.nanoTime();
+        try {
+            return manager.catalogarTodosLosLibros();
+        }
+        finally {
+            catalogarTodosLosLibros.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public ResultadoPrestamo prestarLibro(Prestamo prestamo) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.prestarLibro(prestamo);
+        }
+        finally {
+            prestarLibro.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public ResultadoDevolucion devolverLibro(String prestamoId) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.devolverLibro(prestamoId);
+        }
+        finally {
+            devolverLibro.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public void clear() {
+        long inicio = System.nanoTime();
+        try {
+            manager.clear();
+        }
+        finally {
+            clear.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    // -------- LECTURAS --------
+
+    @Override
+    public Prestamo getPrestamo(String id) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.getPrestamo(id);
+        }
+        finally {
+            getPrestamo.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public List<Prestamo> prestamosDeLector(String lectorId) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.prestamosDeLector(lectorId);
+        }
+        finally {
+            prestamosDeLector.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public void recorrerPrestamosDeLector(String lectorId, Consumer<Prestamo> consumidor) {
+        long inicio = System.nanoTime();
+        try {
+            manager.recorrerPrestamosDeLector(lectorId, consumidor);
+        }
+        finally {
+            recorrerPrestamosDeLector.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public void recorrerPrestamosDeLector(String lectorId, boolean enTramite, Consumer<Prestamo> consumidor) {
+        long inicio = System.nanoTime();
+        try {
+            manager.recorrerPrestamosDeLector(lectorId, enTramite, consumidor);
+        }
+        finally {
+            recorrerPrestamosDeLector.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public List<Prestamo> prestamosVencidosHasta(String fecha) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.prestamosVencidosHasta(fecha);
+        }
+        finally {
+            prestamosVencidosHasta.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public ResultadoBusqueda buscarLibros(String texto, String tematica, String editorial, Integer año, int pagina, int tamañoPagina) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.buscarLibros(texto, tematica, editorial, año, pagina, tamañoPagina);
+        }
+        finally {
+            buscarLibros.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public AnaliticaCatalogo analizarCatalogo(String agrupacion) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.analizarCatalogo(agrupacion);
+        }
+        finally {
+            analizarCatalogo.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public Pagina<Lector> listarLectores(String cursor, int limite) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.listarLectores(cursor, limite);
+        }
+        finally {
+            listarLectores.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public Pagina<Libro> listarCatalogo(String cursor, int limite) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.listarCatalogo(cursor, limite);
+        }
+        finally {
+            listarCatalogo.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public Pagina<Prestamo> listarPrestamos(String cursor, int limite) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.listarPrestamos(cursor, limite);
+        }
+        finally {
+            listarPrestamos.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public Lector getLector(String id) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.getLector(id);
+        }
+        finally {
+            getLector.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public int lectoresSize() {
+        long inicio = System.nanoTime();
+        try {
+            return manager.lectoresSize();
+        }
+        finally {
+            lectoresSize.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public Libro getLibroPorIsbn(String isbn) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.getLibroPorIsbn(isbn);
+        }
+        finally {
+            getLibroPorIsbn.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public int getStockPorIsbn(String isbn) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.getStockPorIsbn(isbn);
+        }
+        finally {
+            getStockPorIsbn.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public long getVersionIsbn(String isbn) {
+        long inicio = System.nanoTime();
+        try {
+            return manager.getVersionIsbn(isbn);
+        }
+        finally {
+            getVersionIsbn.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @Override
+    public Estadisticas getEstadisticas() {
+        return manager.getEstadisticas();
+    }
+}
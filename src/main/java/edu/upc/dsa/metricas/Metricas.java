@@ -0,0 +1,123 @@
+package edu.upc.dsa.metricas;
+
+import edu.upc.dsa.models.Estadisticas;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de la aplicación: latencias de las operaciones del manager y de las peticiones
+ * HTTP, respuestas por código y, al exportar, los tamaños del estado del manager.
+ *
+ * Quien mide pide su histograma una vez (operacionManager, peticionHttp) y se lo guarda; así
+ * en el camino caliente no hay ni búsquedas en mapas. Se exporta en el formato de texto de
+ * Prometheus, ordenado por nombre de operación.
+ */
+public class Metricas {
+    // "true" (por defecto) o "false": sin métricas el manager y las peticiones no se miden
+    public static final String PROPIEDAD_METRICAS = "libros.metricas";
+    public static final String TIPO_PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final Metricas INSTANCIA = new Metricas();
+
+    private final ConcurrentSkipListMap<String, HistogramaLatencias> operacionesManager = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, HistogramaLatencias> peticionesHttp = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, ConcurrentSkipListMap<Integer, LongAdder>> respuestasHttp = new ConcurrentSkipListMap<>();
+
+    public static Metricas getInstance() {
+        return INSTANCIA;
+    }
+
+    public static boolean activadas() {
+        return Boolean.parseBoolean(System.getProperty(PROPIEDAD_METRICAS, "true"));
+    }
+
+    public HistogramaLatencias operacionManager(String operacion) {
+        return operacionesManager.computeIfAbsent(operacion, k -> new HistogramaLatencias());
+    }
+
+    public HistogramaLatencias peticionHttp(String operacion) {
+        return peticionesHttp.computeIfAbsent(operacion, k -> new HistogramaLatencias());
+    }
+
+    public void respuestaHttp(String operacion, int codigo) {
+        respuestasHttp.computeIfAbsent(operacion, k -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(codigo, k -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * Pone a cero todas las métricas; los histogramas ya repartidos siguen valiendo.
+     */
+    public void clear() {
+        for (HistogramaLatencias histograma : operacionesManager.values()) {
+            histograma.clear();
+        }
+        for (HistogramaLatencias histograma : peticionesHttp.values()) {
+            histograma.clear();
+        }
+        respuestasHttp.clear();
+    }
+
+    // -------- EXPORTACIÓN --------
+
+    /**
+     * @param estadisticas tamaños del manager para los gauges, o null para no incluirlos
+     */
+    public void escribirPrometheus(Writer out, Estadisticas estadisticas) throws IOException {
+        escribirHistogramas(out, "libros_manager_operacion_segundos", "Duración de las operaciones de LibrosManager", operacionesManager);
+        escribirHistogramas(out, "libros_http_peticion_segundos", "Duración de las peticiones HTTP hasta tener la respuesta (sin escribir el cuerpo)", peticionesHttp);
+
+        cabecera(out, "libros_http_respuestas_total", "Respuestas HTTP por operación y código", "counter");
+        for (Map.Entry<String, ConcurrentSkipListMap<Integer, LongAdder>> operacion : respuestasHttp.entrySet()) {
+            for (Map.Entry<Integer, LongAdder> codigo : operacion.getValue().entrySet()) {
+                out.write("libros_http_respuestas_total{operacion=\"" + escapar(operacion.getKey()) + "\",codigo=\"" + codigo.getKey() + "\"} " + codigo.getValue().sum() + "\n");
+            }
+        }
+
+        if (estadisticas != null) {
+            gauge(out, "libros_almacen_montones", "Montones de libros pendientes de catalogar", estadisticas.getNumMontones());
+            gauge(out, "libros_almacen_libros", "Libros pendientes de catalogar", estadisticas.getNumLibrosAlmacen());
+            gauge(out, "libros_catalogo_isbns", "ISBNs en el catálogo", estadisticas.getNumIsbnsCatalogo());
+            gauge(out, "libros_catalogo_ejemplares", "Ejemplares catalogados", estadisticas.getNumEjemplaresCatalogo());
+            gauge(out, "libros_catalogo_isbns_sin_stock", "ISBNs del catálogo sin ejemplares disponibles", estadisticas.getNumIsbnsSinStock());
+            gauge(out, "libros_prestamos_activos", "Préstamos en trámite", estadisticas.getNumPrestamosActivos());
+            gauge(out, "libros_prestamos_devueltos", "Préstamos devueltos", estadisticas.getNumPrestamosDevueltos());
+        }
+    }
+
+    private static void escribirHistogramas(Writer out, String nombre, String ayuda, Map<String, HistogramaLatencias> porOperacion) throws IOException {
+        cabecera(out, nombre, ayuda, "histogram");
+        for (Map.Entry<String, HistogramaLatencias> e : porOperacion.entrySet()) {
+            String etiqueta = "operacion=\"" + escapar(e.getKey()) + "\"";
+            long[] muestras = e.getValue().muestrasPorCubo();
+            long acumuladas = 0;
+            for (int i = 0; i < muestras.length; i++) {
+                acumuladas += muestras[i];
+                double limite = HistogramaLatencias.limiteSegundos(i);
+                String le = Double.isInfinite(limite) ? "+Inf" : Double.toString(limite);
+                out.write(nombre + "_bucket{" + etiqueta + ",le=\"" + le + "\"} " + acumuladas + "\n");
+            }
+            // La suma se lee después de los cubos: puede incluir alguna muestra que no cuentan
+            out.write(nombre + "_sum{" + etiqueta + "} " + (e.getValue().sumaNanos() / 1e9) + "\n");
+            out.write(nombre + "_count{" + etiqueta + "} " + acumuladas + "\n");
+        }
+    }
+
+    private static void gauge(Writer out, String nombre, String ayuda, long valor) throws IOException {
+        cabecera(out, nombre, ayuda, "gauge");
+        out.write(nombre + " " + valor + "\n");
+    }
+
+    private static void cabecera(Writer out, String nombre, String ayuda, String tipo) throws IOException {
+        out.write("# HELP " + nombre + " " + ayuda + "\n");
+        out.write("# TYPE " + nombre + " " + tipo + "\n");
+    }
+
+    private static String escapar(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
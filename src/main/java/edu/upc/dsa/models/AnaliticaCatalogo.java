@@ -0,0 +1,42 @@
+package edu.upc.dsa.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AnaliticaCatalogo {
+    // tematica, editorial, autor, decada, año o edicion
+    private String agrupacion;
+    // Los libros sin valor en la agrupación (sin temática, por ejemplo) no están en ningún grupo
+    private List<Recuento> grupos = new ArrayList<>();
+
+    public AnaliticaCatalogo() {}
+
+    public AnaliticaCatalogo(String agrupacion) {
+        this.agrupacion = agrupacion;
+    }
+
+    // GETTERS AND SETTERS
+    public String getAgrupacion() {
+        return agrupacion;
+    }
+
+    public void setAgrupacion(String agrupacion) {
+        this.agrupacion = agrupacion;
+    }
+
+    public List<Recuento> getGrupos() {
+        return grupos;
+    }
+
+    public void setGrupos(List<Recuento> grupos) {
+        this.grupos = grupos;
+    }
+
+    @Override
+    public String toString() {
+        return "AnaliticaCatalogo{" +
+                "agrupacion='" + agrupacion + '\'' +
+                ", grupos=" + grupos.size() +
+                '}';
+    }
+}
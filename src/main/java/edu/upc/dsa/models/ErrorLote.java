@@ -0,0 +1,49 @@
+package edu.upc.dsa.models;
+
+public class ErrorLote {
+    private int posicion;
+    private String id;
+    private String motivo;
+
+    public ErrorLote() {}
+
+    public ErrorLote(int posicion, String id, String motivo) {
+        this.posicion = posicion;
+        this.id = id;
+        this.motivo = motivo;
+    }
+
+    // GETTERS AND SETTERS
+    public int getPosicion() {
+        return posicion;
+    }
+
+    public void setPosicion(int posicion) {
+        this.posicion = posicion;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMotivo() {
+        return motivo;
+    }
+
+    public void setMotivo(String motivo) {
+        this.motivo = motivo;
+    }
+
+    @Override
+    public String toString() {
+        return "ErrorLote{" +
+                "posicion=" + posicion +
+                ", id='" + id + '\'' +
+                ", motivo='" + motivo + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package edu.upc.dsa.models;
+
+public class ErrorRespuesta {
+    private String codigo;
+    private String motivo;
+
+    public ErrorRespuesta() {}
+
+    public ErrorRespuesta(String codigo, String motivo) {
+        this.codigo = codigo;
+        this.motivo = motivo;
+    }
+
+    // GETTERS AND SETTERS
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public String getMotivo() {
+        return motivo;
+    }
+
+    public void setMotivo(String motivo) {
+        this.motivo = motivo;
+    }
+
+    @Override
+    public String toString() {
+        return "ErrorRespuesta{" +
+                "codigo='" + codigo + '\'' +
+                ", motivo='" + motivo + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package edu.upc.dsa.models;
+
+public class Estadisticas {
+    private int numMontones;
+    private int numLibrosAlmacen;
+    private int numIsbnsCatalogo;
+    private int numEjemplaresCatalogo;
+    private int numIsbnsSinStock;
+    private int numPrestamosActivos;
+    private int numPrestamosDevueltos;
+
+    public Estadisticas() {}
+
+    // GETTERS AND SETTERS
+    public int getNumMontones() {
+        return numMontones;
+    }
+
+    public void setNumMontones(int numMontones) {
+        this.numMontones = numMontones;
+    }
+
+    public int getNumLibrosAlmacen() {
+        return numLibrosAlmacen;
+    }
+
+    public void setNumLibrosAlmacen(int numLibrosAlmacen) {
+        this.numLibrosAlmacen = numLibrosAlmacen;
+    }
+
+    public int getNumIsbnsCatalogo() {
+        return numIsbnsCatalogo;
+    }
+
+    public void setNumIsbnsCatalogo(int numIsbnsCatalogo) {
+        this.numIsbnsCatalogo = numIsbnsCatalogo;
+    }
+
+    public int getNumEjemplaresCatalogo() {
+        return numEjemplaresCatalogo;
+    }
+
+    public void setNumEjemplaresCatalogo(int numEjemplaresCatalogo) {
+        this.numEjemplaresCatalogo = numEjemplaresCatalogo;
+    }
+
+    public int getNumIsbnsSinStock() {
+        return numIsbnsSinStock;
+    }
+
+    public void setNumIsbnsSinStock(int numIsbnsSinStock) {
+        this.numIsbnsSinStock = numIsbnsSinStock;
+    }
+
+    public int getNumPrestamosActivos() {
+        return numPrestamosActivos;
+    }
+
+    public void setNumPrestamosActivos(int numPrestamosActivos) {
+        this.numPrestamosActivos = numPrestamosActivos;
+    }
+
+    public int getNumPrestamosDevueltos() {
+        return numPrestamosDevueltos;
+    }
+
+    public void setNumPrestamosDevueltos(int numPrestamosDevueltos) {
+        this.numPrestamosDevueltos = numPrestamosDevueltos;
+    }
+
+    @Override
+    public String toString() {
+        return "Estadisticas{" +
+                "numMontones=" + numMontones +
+                ", numLibrosAlmacen=" + numLibrosAlmacen +
+                ", numIsbnsCatalogo=" + numIsbnsCatalogo +
+                ", numEjemplaresCatalogo=" + numEjemplaresCatalogo +
+                ", numIsbnsSinStock=" + numIsbnsSinStock +
+                ", numPrestamosActivos=" + numPrestamosActivos +
+                ", numPrestamosDevueltos=" + numPrestamosDevueltos +
+                '}';
+    }
+}
@@ -0,0 +1,82 @@
+package edu.upc.dsa.models;
+
+public class EstadoCatalogador {
+    private boolean activo;
+    private int tamañoLote;
+    private long periodoMs;
+    private long numEjecuciones;
+    private long numCatalogados;
+    private int numPendientes;
+
+    public EstadoCatalogador() {}
+
+    public EstadoCatalogador(boolean activo, int tamañoLote, long periodoMs, long numEjecuciones, long numCatalogados, int numPendientes) {
+        this.activo = activo;
+        this.tamañoLote = tamañoLote;
+        this.periodoMs = periodoMs;
+        this.numEjecuciones = numEjecuciones;
+        this.numCatalogados = numCatalogados;
+        this.numPendientes = numPendientes;
+    }
+
+    // GETTERS AND SETTERS
+    public boolean isActivo() {
+        return activo;
+    }
+
+    public void setActivo(boolean activo) {
+        this.activo = activo;
+    }
+
+    public int getTamañoLote() {
+        return tamañoLote;
+    }
+
+    public void setTamañoLote(int tamañoLote) {
+        this.tamañoLote = tamañoLote;
+    }
+
+    public long getPeriodoMs() {
+        return periodoMs;
+    }
+
+    public void setPeriodoMs(long periodoMs) {
+        this.periodoMs = periodoMs;
+    }
+
+    public long getNumEjecuciones() {
+        return numEjecuciones;
+    }
+
+    public void setNumEjecuciones(long numEjecuciones) {
+        this.numEjecuciones = numEjecuciones;
+    }
+
+    public long getNumCatalogados() {
+        return numCatalogados;
+    }
+
+    public void setNumCatalogados(long numCatalogados) {
+        this.numCatalogados = numCatalogados;
+    }
+
+    public int getNumPendientes() {
+        return numPendientes;
+    }
+
+    public void setNumPendientes(int numPendientes) {
+        this.numPendientes = numPendientes;
+    }
+
+    @Override
+    public String toString() {
+        return "EstadoCatalogador{" +
+                "activo=" + activo +
+                ", tamañoLote=" + tamañoLote +
+                ", periodoMs=" + periodoMs +
+                ", numEjecuciones=" + numEjecuciones +
+                ", numCatalogados=" + numCatalogados +
+                ", numPendientes=" + numPendientes +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package edu.upc.dsa.models;
+
+public class Faceta {
+    private String valor;
+    private int numLibros;
+
+    public Faceta() {}
+
+    public Faceta(String valor, int numLibros) {
+        this.valor = valor;
+        this.numLibros = numLibros;
+    }
+
+    // GETTERS AND SETTERS
+    public String getValor() {
+        return valor;
+    }
+
+    public void setValor(String valor) {
+        this.valor = valor;
+    }
+
+    public int getNumLibros() {
+        return numLibros;
+    }
+
+    public void setNumLibros(int numLibros) {
+        this.numLibros = numLibros;
+    }
+
+    @Override
+    public String toString() {
+        return "Faceta{" +
+                "valor='" + valor + '\'' +
+                ", numLibros=" + numLibros +
+                '}';
+    }
+}
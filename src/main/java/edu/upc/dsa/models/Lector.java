@@ -1,11 +1,17 @@
 package edu.upc.dsa.models;
 
+import edu.upc.dsa.util.Fechas;
+
 public class Lector {
     private String id;
     private String nombre;
     private String apellidos;
     private String dni;
-    private String fechaNacimiento;
+    // Días desde epoch; en JSON sigue siendo "dd/MM/yyyy"
+    private int fechaNacimiento = Fechas.SIN_FECHA;
+    // Solo si la fecha recibida no era dd/MM/yyyy: se conserva el texto para que addLector,
+    // que recibe la fecha como texto, la rechace
+    private String fechaNacimientoNoValida;
     private String lugarNacimiento;
     private String direccion;
 
@@ -16,7 +22,7 @@ public class Lector {
         this.nombre = nombre;
         this.apellidos = apellidos;
         this.dni = dni;
-        this.fechaNacimiento = fechaNacimiento;
+        setFechaNacimiento(fechaNacimiento);
         this.lugarNacimiento = lugarNacimiento;
         this.direccion = direccion;
     }
@@ -55,11 +61,18 @@ public class Lector {
     }
 
     public String getFechaNacimiento() {
-        return fechaNacimiento;
+        if (fechaNacimiento == Fechas.NO_VALIDA) return fechaNacimientoNoValida;
+        return Fechas.desdeDiaEpoch(fechaNacimiento);
     }
 
     public void setFechaNacimiento(String fechaNacimiento) {
-        this.fechaNacimiento = fechaNacimiento;
+        this.fechaNacimiento = Fechas.leerDiaEpoch(fechaNacimiento);
+        this.fechaNacimientoNoValida = (this.fechaNacimiento == Fechas.NO_VALIDA) ? fechaNacimiento : null;
+    }
+
+    // No sigue el patrón get/set para que MOXy no lo saque en el JSON
+    public int diaNacimiento() {
+        return fechaNacimiento;
     }
 
     public String getLugarNacimiento() {
@@ -85,7 +98,7 @@ public class Lector {
                 ", nombre='" + nombre + '\'' +
                 ", apellidos='" + apellidos + '\'' +
                 ", dni='" + dni + '\'' +
-                ", fechaNacimiento=" + fechaNacimiento +
+                ", fechaNacimiento=" + getFechaNacimiento() +
                 ", lugarNacimiento='" + lugarNacimiento + '\'' +
                 ", direccion='" + direccion + '\'' +
                 '}';
@@ -97,14 +97,6 @@ public class Libro {
         this.numEjemplares = numEjemplares;
     }
 
-    public void decrementarNumEjemplares () {
-        this.numEjemplares--;
-    }
-
-    public void aumentarNumEjemplares () {
-        this.numEjemplares++;
-    }
-
     @Override
     public String toString() {
         return "Libro{" +
@@ -0,0 +1,44 @@
+package edu.upc.dsa.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Pagina<T> {
+    private List<T> elementos;
+    // Cursor para pedir la página siguiente, o null si esta es la última
+    private String cursorSiguiente;
+
+    public Pagina() {
+        this.elementos = new ArrayList<>();
+    }
+
+    public Pagina(List<T> elementos, String cursorSiguiente) {
+        this.elementos = elementos;
+        this.cursorSiguiente = cursorSiguiente;
+    }
+
+    // GETTERS AND SETTERS
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    public void setElementos(List<T> elementos) {
+        this.elementos = elementos;
+    }
+
+    public String getCursorSiguiente() {
+        return cursorSiguiente;
+    }
+
+    public void setCursorSiguiente(String cursorSiguiente) {
+        this.cursorSiguiente = cursorSiguiente;
+    }
+
+    @Override
+    public String toString() {
+        return "Pagina{" +
+                "elementos=" + elementos.size() +
+                ", cursorSiguiente='" + cursorSiguiente + '\'' +
+                '}';
+    }
+}
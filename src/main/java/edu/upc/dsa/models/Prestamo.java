@@ -1,11 +1,15 @@
 package edu.upc.dsa.models;
 
+import edu.upc.dsa.util.Fechas;
+
 public class Prestamo {
     private String id;
     private String lectorId;
     private String libroId;
-    private  String inicioPrestamo;
-    private  String finalPrestamo;
+    // Días desde epoch; en JSON siguen siendo "dd/MM/yyyy". Fechas.NO_VALIDA si la fecha
+    // recibida no tenía ese formato: prestarLibro lo rechaza
+    private int inicioPrestamo = Fechas.SIN_FECHA;
+    private int finalPrestamo = Fechas.SIN_FECHA;
     private boolean enTramite;
 
     public Prestamo() {}
@@ -14,8 +18,16 @@ public class Prestamo {
         this.id = id;
         this.lectorId = lectorId;
         this.libroId = libroId;
-        this.inicioPrestamo = inicioPrestamo;
-        this.finalPrestamo = finalPrestamo;
+        this.inicioPrestamo = Fechas.leerDiaEpoch(inicioPrestamo);
+        this.finalPrestamo = Fechas.leerDiaEpoch(finalPrestamo);
+    }
+
+    public Prestamo(String id, String lectorId, String libroId, int diaInicioPrestamo, int diaFinalPrestamo) {
+        this.id = id;
+        this.lectorId = lectorId;
+        this.libroId = libroId;
+        this.inicioPrestamo = diaInicioPrestamo;
+        this.finalPrestamo = diaFinalPrestamo;
     }
 
     // GETTERS & SETTERS
@@ -44,19 +56,33 @@ public class Prestamo {
     }
 
     public String getInicioPrestamo() {
-        return inicioPrestamo;
+        return Fechas.desdeDiaEpoch(inicioPrestamo);
     }
 
     public void setInicioPrestamo(String inicioPrestamo) {
-        this.inicioPrestamo = inicioPrestamo;
+        this.inicioPrestamo = Fechas.leerDiaEpoch(inicioPrestamo);
     }
 
     public String getFinalPrestamo() {
-        return finalPrestamo;
+        return Fechas.desdeDiaEpoch(finalPrestamo);
     }
 
     public void setFinalPrestamo(String finalPrestamo) {
-        this.finalPrestamo = finalPrestamo;
+        this.finalPrestamo = Fechas.leerDiaEpoch(finalPrestamo);
+    }
+
+    // No siguen el patrón get/set para que MOXy no los saque en el JSON
+    public int diaInicioPrestamo() {
+        return inicioPrestamo;
+    }
+
+    public int diaFinalPrestamo() {
+        return finalPrestamo;
+    }
+
+    /** false si alguna fecha recibida no era dd/MM/yyyy */
+    public boolean fechasValidas() {
+        return inicioPrestamo != Fechas.NO_VALIDA && finalPrestamo != Fechas.NO_VALIDA;
     }
 
     public boolean isEnTramite() {
@@ -73,8 +99,8 @@ public class Prestamo {
                 "id='" + id + '\'' +
                 ", lectorId='" + lectorId + '\'' +
                 ", libroId='" + libroId + '\'' +
-                ", inicioPrestamo='" + inicioPrestamo + '\'' +
-                ", finalPrestamo='" + finalPrestamo + '\'' +
+                ", inicioPrestamo='" + getInicioPrestamo() + '\'' +
+                ", finalPrestamo='" + getFinalPrestamo() + '\'' +
                 ", enTramite=" + enTramite +
                 '}';
     }
@@ -0,0 +1,61 @@
+package edu.upc.dsa.models;
+
+public class Recuento {
+    private String valor;
+    // ISBNs distintos, ejemplares catalogados y ejemplares disponibles ahora
+    private int numIsbns;
+    private long numEjemplares;
+    private long stock;
+
+    public Recuento() {}
+
+    public Recuento(String valor, int numIsbns, long numEjemplares, long stock) {
+        this.valor = valor;
+        this.numIsbns = numIsbns;
+        this.numEjemplares = numEjemplares;
+        this.stock = stock;
+    }
+
+    // GETTERS AND SETTERS
+    public String getValor() {
+        return valor;
+    }
+
+    public void setValor(String valor) {
+        this.valor = valor;
+    }
+
+    public int getNumIsbns() {
+        return numIsbns;
+    }
+
+    public void setNumIsbns(int numIsbns) {
+        this.numIsbns = numIsbns;
+    }
+
+    public long getNumEjemplares() {
+        return numEjemplares;
+    }
+
+    public void setNumEjemplares(long numEjemplares) {
+        this.numEjemplares = numEjemplares;
+    }
+
+    public long getStock() {
+        return stock;
+    }
+
+    public void setStock(long stock) {
+        this.stock = stock;
+    }
+
+    @Override
+    public String toString() {
+        return "Recuento{" +
+                "valor='" + valor + '\'' +
+                ", numIsbns=" + numIsbns +
+                ", numEjemplares=" + numEjemplares +
+                ", stock=" + stock +
+                '}';
+    }
+}
@@ -0,0 +1,90 @@
+package edu.upc.dsa.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResultadoBusqueda {
+    private int total;
+    private int pagina;
+    private int tamañoPagina;
+    // Un libro por ISBN (el agregado del catálogo, con su stock)
+    private List<Libro> libros = new ArrayList<>();
+    // Recuentos sobre todos los resultados, no solo los de la página
+    private List<Faceta> tematicas = new ArrayList<>();
+    private List<Faceta> editoriales = new ArrayList<>();
+    private List<Faceta> añosPublicacion = new ArrayList<>();
+
+    public ResultadoBusqueda() {}
+
+    public ResultadoBusqueda(int pagina, int tamañoPagina) {
+        this.pagina = pagina;
+        this.tamañoPagina = tamañoPagina;
+    }
+
+    // GETTERS AND SETTERS
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getPagina() {
+        return pagina;
+    }
+
+    public void setPagina(int pagina) {
+        this.pagina = pagina;
+    }
+
+    public int getTamañoPagina() {
+        return tamañoPagina;
+    }
+
+    public void setTamañoPagina(int tamañoPagina) {
+        this.tamañoPagina = tamañoPagina;
+    }
+
+    public List<Libro> getLibros() {
+        return libros;
+    }
+
+    public void setLibros(List<Libro> libros) {
+        this.libros = libros;
+    }
+
+    public List<Faceta> getTematicas() {
+        return tematicas;
+    }
+
+    public void setTematicas(List<Faceta> tematicas) {
+        this.tematicas = tematicas;
+    }
+
+    public List<Faceta> getEditoriales() {
+        return editoriales;
+    }
+
+    public void setEditoriales(List<Faceta> editoriales) {
+        this.editoriales = editoriales;
+    }
+
+    public List<Faceta> getAñosPublicacion() {
+        return añosPublicacion;
+    }
+
+    public void setAñosPublicacion(List<Faceta> añosPublicacion) {
+        this.añosPublicacion = añosPublicacion;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoBusqueda{" +
+                "total=" + total +
+                ", pagina=" + pagina +
+                ", tamañoPagina=" + tamañoPagina +
+                ", libros=" + libros.size() +
+                '}';
+    }
+}
@@ -0,0 +1,20 @@
+package edu.upc.dsa.models;
+
+/**
+ * Cómo ha terminado un devolverLibro. Los casos esperados se devuelven, no se lanzan.
+ */
+public enum ResultadoDevolucion {
+    DEVUELTO("Préstamo devuelto"),
+    YA_DEVUELTO("El préstamo ya estaba devuelto"),
+    NO_EXISTE("No hay ningún préstamo con ese id");
+
+    private final String motivo;
+
+    ResultadoDevolucion(String motivo) {
+        this.motivo = motivo;
+    }
+
+    public String getMotivo() {
+        return motivo;
+    }
+}
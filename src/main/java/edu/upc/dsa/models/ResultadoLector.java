@@ -0,0 +1,21 @@
+package edu.upc.dsa.models;
+
+/**
+ * Cómo ha terminado un addLector. Los casos esperados se devuelven, no se lanzan.
+ */
+public enum ResultadoLector {
+    CREADO("Lector añadido"),
+    ACTUALIZADO("Lector actualizado"),
+    SIN_CAMBIOS("El lector ya tenía esos valores"),
+    NO_VALIDO("Falta el id o la fecha de nacimiento no es dd/MM/yyyy");
+
+    private final String motivo;
+
+    ResultadoLector(String motivo) {
+        this.motivo = motivo;
+    }
+
+    public String getMotivo() {
+        return motivo;
+    }
+}
@@ -0,0 +1,52 @@
+package edu.upc.dsa.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResultadoLote {
+    private int numProcesados;
+    private int numAlmacenados;
+    private List<ErrorLote> errores;
+
+    public ResultadoLote() {
+        this.errores = new ArrayList<>();
+    }
+
+    public void añadirError(int posicion, String id, String motivo) {
+        this.errores.add(new ErrorLote(posicion, id, motivo));
+    }
+
+    // GETTERS AND SETTERS
+    public int getNumProcesados() {
+        return numProcesados;
+    }
+
+    public void setNumProcesados(int numProcesados) {
+        this.numProcesados = numProcesados;
+    }
+
+    public int getNumAlmacenados() {
+        return numAlmacenados;
+    }
+
+    public void setNumAlmacenados(int numAlmacenados) {
+        this.numAlmacenados = numAlmacenados;
+    }
+
+    public List<ErrorLote> getErrores() {
+        return errores;
+    }
+
+    public void setErrores(List<ErrorLote> errores) {
+        this.errores = errores;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoLote{" +
+                "numProcesados=" + numProcesados +
+                ", numAlmacenados=" + numAlmacenados +
+                ", errores=" + errores +
+                '}';
+    }
+}
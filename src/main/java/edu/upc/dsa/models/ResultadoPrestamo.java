@@ -0,0 +1,23 @@
+package edu.upc.dsa.models;
+
+/**
+ * Cómo ha terminado un prestarLibro. Los casos esperados se devuelven, no se lanzan.
+ */
+public enum ResultadoPrestamo {
+    CREADO("Préstamo creado"),
+    NO_VALIDO("Falta el préstamo o su id, o una fecha no es dd/MM/yyyy"),
+    DUPLICADO("Ya hay un préstamo con ese id, en trámite o devuelto"),
+    LECTOR_NO_EXISTE("El lector no existe"),
+    EJEMPLAR_NO_CATALOGADO("El ejemplar no existe o no está catalogado"),
+    SIN_EJEMPLARES("No quedan ejemplares disponibles de ese ISBN");
+
+    private final String motivo;
+
+    ResultadoPrestamo(String motivo) {
+        this.motivo = motivo;
+    }
+
+    public String getMotivo() {
+        return motivo;
+    }
+}
@@ -0,0 +1,60 @@
+package edu.upc.dsa.models;
+
+public class ResumenCatalogacion {
+    private int numCatalogados;
+    private int numIsbns;
+    private int numIsbnsNuevos;
+    private int numPendientes;
+
+    public ResumenCatalogacion() {}
+
+    public ResumenCatalogacion(int numCatalogados, int numIsbns, int numIsbnsNuevos, int numPendientes) {
+        this.numCatalogados = numCatalogados;
+        this.numIsbns = numIsbns;
+        this.numIsbnsNuevos = numIsbnsNuevos;
+        this.numPendientes = numPendientes;
+    }
+
+    // GETTERS AND SETTERS
+    public int getNumCatalogados() {
+        return numCatalogados;
+    }
+
+    public void setNumCatalogados(int numCatalogados) {
+        this.numCatalogados = numCatalogados;
+    }
+
+    public int getNumIsbns() {
+        return numIsbns;
+    }
+
+    public void setNumIsbns(int numIsbns) {
+        this.numIsbns = numIsbns;
+    }
+
+    public int getNumIsbnsNuevos() {
+        return numIsbnsNuevos;
+    }
+
+    public void setNumIsbnsNuevos(int numIsbnsNuevos) {
+        this.numIsbnsNuevos = numIsbnsNuevos;
+    }
+
+    public int getNumPendientes() {
+        return numPendientes;
+    }
+
+    public void setNumPendientes(int numPendientes) {
+        this.numPendientes = numPendientes;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumenCatalogacion{" +
+                "numCatalogados=" + numCatalogados +
+                ", numIsbns=" + numIsbns +
+                ", numIsbnsNuevos=" + numIsbnsNuevos +
+                ", numPendientes=" + numPendientes +
+                '}';
+    }
+}
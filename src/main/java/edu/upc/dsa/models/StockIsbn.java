@@ -0,0 +1,38 @@
+package edu.upc.dsa.models;
+
+public class StockIsbn {
+    private String isbn;
+    private int numEjemplares;
+
+    public StockIsbn() {}
+
+    public StockIsbn(String isbn, int numEjemplares) {
+        this.isbn = isbn;
+        this.numEjemplares = numEjemplares;
+    }
+
+    // GETTERS AND SETTERS
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+
+    public int getNumEjemplares() {
+        return numEjemplares;
+    }
+
+    public void setNumEjemplares(int numEjemplares) {
+        this.numEjemplares = numEjemplares;
+    }
+
+    @Override
+    public String toString() {
+        return "StockIsbn{" +
+                "isbn='" + isbn + '\'' +
+                ", numEjemplares=" + numEjemplares +
+                '}';
+    }
+}
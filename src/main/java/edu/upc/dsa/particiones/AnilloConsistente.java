@@ -0,0 +1,68 @@
+package edu.upc.dsa.particiones;
+
+import java.util.Arrays;
+
+/**
+ * Anillo de hash consistente: cada partición ocupa NODOS_VIRTUALES puntos del anillo y una
+ * clave es de la partición del primer punto que encuentra a partir de su hash. Con n
+ * particiones, pasar a n + 1 solo cambia de dueño ~1/(n + 1) de las claves.
+ *
+ * Los puntos dependen solo del número de la partición, así que el reparto es el mismo en
+ * cada arranque y en cada proceso que use el mismo número de particiones.
+ */
+public class AnilloConsistente {
+    public static final int NODOS_VIRTUALES = 160;
+
+    private final long[] puntos;
+    private final int[] particiones;
+    private final int numParticiones;
+
+    public AnilloConsistente(int numParticiones) {
+        if (numParticiones < 1) {
+            throw new IllegalArgumentException("Hace falta al menos una partición: " + numParticiones);
+        }
+        this.numParticiones = numParticiones;
+        int total = numParticiones * NODOS_VIRTUALES;
+        long[][] ordenados = new long[total][];
+        for (int p = 0; p < numParticiones; p++) {
+            for (int v = 0; v < NODOS_VIRTUALES; v++) {
+                ordenados[p * NODOS_VIRTUALES + v] = new long[] { hash("particion-" + p + "#" + v), p };
+            }
+        }
+        // A igual hash (improbable), gana la partición menor: el reparto sigue siendo determinista
+        Arrays.sort(ordenados, (a, b) -> (a[0] != b[0]) ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.puntos = new long[total];
+        this.particiones = new int[total];
+        for (int i = 0; i < total; i++) {
+            puntos[i] = ordenados[i][0];
+            particiones[i] = (int) ordenados[i][1];
+        }
+    }
+
+    public int getNumParticiones() {
+        return numParticiones;
+    }
+
+    /** Partición dueña de la clave; las claves nulas van a la 0 */
+    public int particion(String clave) {
+        if (clave == null || numParticiones == 1) return 0;
+        int i = Arrays.binarySearch(puntos, hash(clave));
+        if (i < 0) i = -i - 1;
+        return particiones[(i == puntos.length) ? 0 : i];
+    }
+
+    /** FNV-1a de 64 bits sobre los caracteres, con el mezclado final de MurmurHash3 */
+    static long hash(String clave) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < clave.length(); i++) {
+            h ^= clave.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= (h >>> 33);
+        return h;
+    }
+}
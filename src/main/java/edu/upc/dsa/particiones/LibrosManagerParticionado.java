@@ -0,0 +1,532 @@
+package edu.upc.dsa.particiones;
+
+import edu.upc.dsa.LibrosManager;
+import edu.upc.dsa.LibrosManagerImpl;
+import edu.upc.dsa.analitica.Agrupacion;
+import edu.upc.dsa.analitica.ColumnasCatalogo;
+import edu.upc.dsa.busqueda.IndiceCatalogo;
+import edu.upc.dsa.models.AnaliticaCatalogo;
+import edu.upc.dsa.models.ErrorLote;
+import edu.upc.dsa.models.Estadisticas;
+import edu.upc.dsa.models.Faceta;
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Pagina;
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.Recuento;
+import edu.upc.dsa.models.ResultadoBusqueda;
+import edu.upc.dsa.models.ResultadoDevolucion;
+import edu.upc.dsa.models.ResultadoLector;
+import edu.upc.dsa.models.ResultadoLote;
+import edu.upc.dsa.models.ResultadoPrestamo;
+import edu.upc.dsa.models.ResumenCatalogacion;
+import edu.upc.dsa.util.Cursores;
+import edu.upc.dsa.util.ListaEnteros;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Manager repartido en particiones independientes, cada una con su almacén, su catálogo, sus
+ * lectores y sus préstamos. Las particiones pueden ser managers de este proceso o nodos
+ * remotos (LibrosManagerRemoto); el reparto sale de un AnilloConsistente.
+ *
+ * Los lectores van a la partición de su id. Los libros, del almacén al catálogo, van a la
+ * del ISBN, y los préstamos también, porque es donde está el stock. Por eso las particiones no
+ * comprueban los lectores (solo tienen los suyos); lo hace prestarLibro en la partición del
+ * lector antes de prestar, y como los lectores no se borran, entre comprobar y prestar no hay
+ * carrera.
+ *
+ * Un préstamo solo trae el id del ejemplar y después solo su propio id, así que para que
+ * prestar, devolver y getPrestamo toquen una sola partición se guarda aquí la partición de
+ * cada ejemplar (al almacenarlo) y la de cada id de préstamo (al prestar). El directorio de
+ * préstamos se carga de las particiones la primera vez que hace falta, por si ya tenían
+ * préstamos (particiones duraderas o nodos remotos); un ejemplar almacenado antes de crear este
+ * manager se busca en todas la primera vez que se presta.
+ *
+ * Lo que no va por una de esas claves se pregunta a todas las particiones y se juntan las
+ * respuestas: préstamos de un lector, listados, búsquedas y tamaños.
+ */
+public class LibrosManagerParticionado implements LibrosManager {
+    final static Logger logger = Logger.getLogger(LibrosManagerParticionado.class);
+    private static final int NUM_CERROJOS_PRESTAMO = 64;
+
+    private final List<LibrosManager> particiones;
+    private final AnilloConsistente anillo;
+    // Partición por la que empieza la próxima catalogación, para no vaciar siempre la primera
+    private final AtomicInteger turnoCatalogacion = new AtomicInteger();
+    // Partición de cada ejemplar (la de su ISBN) y del último préstamo con cada id
+    private final Map<String, Integer> particionPorEjemplar = new ConcurrentHashMap<>();
+    private final Map<String, Integer> particionPorPrestamo = new ConcurrentHashMap<>();
+    private volatile boolean prestamosCargados;
+    // Un préstamo con un id se comprueba y se presta sin que entre otro con el mismo id
+    private final Object[] cerrojosPrestamo;
+
+    public LibrosManagerParticionado(List<? extends LibrosManager> particiones) {
+        this.particiones = new ArrayList<>(particiones);
+        this.anillo = new AnilloConsistente(particiones.size());
+        this.cerrojosPrestamo = new Object[NUM_CERROJOS_PRESTAMO];
+        for (int i = 0; i < NUM_CERROJOS_PRESTAMO; i++) {
+            cerrojosPrestamo[i] = new Object();
+        }
+        logger.info("Manager particionado en " + particiones.size() + " particiones");
+    }
+
+    public int getNumParticiones() {
+        return particiones.size();
+    }
+
+    public LibrosManager particionDeLector(String lectorId) {
+        return particiones.get(anillo.particion(lectorId));
+    }
+
+    public LibrosManager particionDeIsbn(String isbn) {
+        return particiones.get(anillo.particion(isbn));
+    }
+
+    private int primerTurno() {
+        return Math.floorMod(turnoCatalogacion.getAndIncrement(), particiones.size());
+    }
+
+    private Object cerrojoPrestamo(String prestamoId) {
+        return cerrojosPrestamo[prestamoId.hashCode() & (NUM_CERROJOS_PRESTAMO - 1)];
+    }
+
+    /**
+     * La primera vez, el directorio de préstamos se llena con los que ya tienen las particiones,
+     * recorriendo sus listados. Un id en trámite manda sobre los devueltos con el mismo id.
+     */
+    private void cargarPrestamos() {
+        if (prestamosCargados) return;
+        synchronized (particionPorPrestamo) {
+            if (prestamosCargados) return;
+            long inicio = System.currentTimeMillis();
+            for (int p = 0; p < particiones.size(); p++) {
+                String cursor = null;
+                do {
+                    Pagina<Prestamo> pagina = particiones.get(p).listarPrestamos(cursor, LibrosManagerImpl.LIMITE_LISTADO_MAX);
+                    if (pagina == null) break;
+                    for (Prestamo prestamo : pagina.getElementos()) {
+                        if (prestamo.isEnTramite()) particionPorPrestamo.put(prestamo.getId(), p);
+                        else particionPorPrestamo.putIfAbsent(prestamo.getId(), p);
+                    }
+                    cursor = pagina.getCursorSiguiente();
+                } while (cursor != null);
+            }
+            prestamosCargados = true;
+            logger.info("Directorio de préstamos cargado en " + (System.currentTimeMillis() - inicio) + " ms (" + particionPorPrestamo.size() + " ids)");
+        }
+    }
+
+    // -------- MUTACIONES --------
+
+    @Override
+    public ResultadoLector addLector(String id, String nombre, String apellidos, String dni, String fechaNacimiento, String lugarNacimiento, String direccion) {
+        return particionDeLector(id).addLector(id, nombre, apellidos, dni, fechaNacimiento, lugarNacimiento, direccion);
+    }
+
+    @Override
+    public boolean almacenarLibro(Libro libro) {
+        int p = anillo.particion((libro == null) ? null : libro.getIsbn());
+        if (!particiones.get(p).almacenarLibro(libro)) {
+            return false;
+        }
+        particionPorEjemplar.put(libro.getId(), p);
+        return true;
+    }
+
+    /**
+     * Cada partición recibe su parte del lote en el orden original; los libros sin ISBN van a
+     * la partición 0, que los rechaza. Las posiciones de los errores son las del lote entero.
+     */
+    @Override
+    public ResultadoLote almacenarLibros(List<Libro> libros) {
+        List<List<Libro>> lotes = new ArrayList<>(particiones.size());
+        List<ListaEnteros> posiciones = new ArrayList<>(particiones.size());
+        for (int p = 0; p < particiones.size(); p++) {
+            lotes.add(new ArrayList<>());
+            posiciones.add(new ListaEnteros());
+        }
+        for (int i = 0; i < libros.size(); i++) {
+            Libro libro = libros.get(i);
+            int p = anillo.particion((libro == null) ? null : libro.getIsbn());
+            lotes.get(p).add(libro);
+            posiciones.get(p).añadir(i);
+        }
+        ResultadoLote resultado = new ResultadoLote();
+        int almacenados = 0;
+        for (int p = 0; p < particiones.size(); p++) {
+            if (lotes.get(p).isEmpty()) continue;
+            ResultadoLote parcial = particiones.get(p).almacenarLibros(lotes.get(p));
+            almacenados += parcial.getNumAlmacenados();
+            Set<Integer> rechazados = new HashSet<>();
+            for (ErrorLote error : parcial.getErrores()) {
+                rechazados.add(error.getPosicion());
+                error.setPosicion(posiciones.get(p).get(error.getPosicion()));
+                resultado.getErrores().add(error);
+            }
+            for (int i = 0; i < lotes.get(p).size(); i++) {
+                if (!rechazados.contains(i)) particionPorEjemplar.put(lotes.get(p).get(i).getId(), p);
+            }
+        }
+        resultado.getErrores().sort(Comparator.comparingInt(ErrorLote::getPosicion));
+        resultado.setNumProcesados(libros.size());
+        resultado.setNumAlmacenados(almacenados);
+        return resultado;
+    }
+
+    /**
+     * El siguiente libro de la primera partición con libros pendientes, empezando cada vez por
+     * una distinta. Cada partición mantiene su orden, pero entre particiones no hay uno global.
+     */
+    @Override
+    public Libro catalogarSiguienteLibro() {
+        int primera = primerTurno();
+        for (int k = 0; k < particiones.size(); k++) {
+            Libro libro = particiones.get((primera + k) % particiones.size()).catalogarSiguienteLibro();
+            if (libro != null) return libro;
+        }
+        return null;
+    }
+
+    @Override
+    public ResumenCatalogacion catalogarSiguientesLibros(int n) {
+        int primera = primerTurno();
+        ResumenCatalogacion total = new ResumenCatalogacion(0, 0, 0, 0);
+        for (int k = 0; k < particiones.size(); k++) {
+            // Con el lote ya completo se sigue pidiendo 0 para saber cuántos quedan pendientes
+            int restantes = Math.max(0, n - total.getNumCatalogados());
+            sumar(total, particiones.get((primera + k) % particiones.size()).catalogarSiguientesLibros(restantes));
+        }
+        return total;
+    }
+
+    @Override
+    public ResumenCatalogacion catalogarTodosLosLibros() {
+        ResumenCatalogacion total = new ResumenCatalogacion(0, 0, 0, 0);
+        for (LibrosManager particion : particiones) {
+            sumar(total, particion.catalogarTodosLosLibros());
+        }
+        return total;
+    }
+
+    // Los ISBN no se repiten entre particiones, así que los recuentos se pueden sumar
+    private static void sumar(ResumenCatalogacion total, ResumenCatalogacion parcial) {
+        total.setNumCatalogados(total.getNumCatalogados() + parcial.getNumCatalogados());
+        total.setNumIsbns(total.getNumIsbns() + parcial.getNumIsbns());
+        total.setNumIsbnsNuevos(total.getNumIsbnsNuevos() + parcial.getNumIsbnsNuevos());
+        total.setNumPendientes(total.getNumPendientes() + parcial.getNumPendientes());
+    }
+
+    /**
+     * Comprueba el lector en su partición y presta en la del ejemplar. Si el id ya se usó en
+     * otra partición, antes se mira allí que no siga en trámite (en la misma ya lo mira ella).
+     */
+    @Override
+    public ResultadoPrestamo prestarLibro(Prestamo prestamo) {
+        if (prestamo == null || prestamo.getId() == null || !prestamo.fechasValidas()) {
+            return ResultadoPrestamo.NO_VALIDO;
+        }
+        String lectorId = prestamo.getLectorId();
+        if (lectorId == null || particionDeLector(lectorId).getLector(lectorId) == null) {
+            return ResultadoPrestamo.LECTOR_NO_EXISTE;
+        }
+        String libroId = prestamo.getLibroId();
+        if (libroId == null) {
+            return ResultadoPrestamo.EJEMPLAR_NO_CATALOGADO;
+        }
+        cargarPrestamos();
+        String id = prestamo.getId();
+        synchronized (cerrojoPrestamo(id)) {
+            Integer ejemplar = particionPorEjemplar.get(libroId);
+            Integer anterior = particionPorPrestamo.get(id);
+            if (anterior != null && !anterior.equals(ejemplar)) {
+                // En trámite o devuelto: la partición del ejemplar no lo conoce y lo aceptaría
+                if (particiones.get(anterior).getPrestamo(id) != null) {
+                    return ResultadoPrestamo.DUPLICADO;
+                }
+            }
+            if (ejemplar != null) {
+                return apuntarPrestamo(id, ejemplar, particiones.get(ejemplar).prestarLibro(prestamo));
+            }
+            // Un ejemplar que no se ha almacenado por aquí: las particiones que no lo tienen
+            // responden EJEMPLAR_NO_CATALOGADO sin tocar nada
+            for (int p = 0; p < particiones.size(); p++) {
+                ResultadoPrestamo resultado = particiones.get(p).prestarLibro(prestamo);
+                if (resultado != ResultadoPrestamo.EJEMPLAR_NO_CATALOGADO) {
+                    particionPorEjemplar.put(libroId, p);
+                    return apuntarPrestamo(id, p, resultado);
+                }
+            }
+            return ResultadoPrestamo.EJEMPLAR_NO_CATALOGADO;
+        }
+    }
+
+    private ResultadoPrestamo apuntarPrestamo(String id, int particion, ResultadoPrestamo resultado) {
+        if (resultado == ResultadoPrestamo.CREADO) {
+            particionPorPrestamo.put(id, particion);
+        }
+        return resultado;
+    }
+
+    @Override
+    public ResultadoDevolucion devolverLibro(String prestamoId) {
+        if (prestamoId == null) {
+            return ResultadoDevolucion.NO_EXISTE;
+        }
+        cargarPrestamos();
+        Integer p = particionPorPrestamo.get(prestamoId);
+        return (p == null) ? ResultadoDevolucion.NO_EXISTE : particiones.get(p).devolverLibro(prestamoId);
+    }
+
+    @Override
+    public void clear() {
+        for (LibrosManager particion : particiones) {
+            particion.clear();
+        }
+        particionPorEjemplar.clear();
+        particionPorPrestamo.clear();
+    }
+
+    // -------- LECTURAS --------
+
+    /** El último préstamo con ese id: el que está en trámite, si lo hay */
+    @Override
+    public Prestamo getPrestamo(String id) {
+        if (id == null) {
+            return null;
+        }
+        cargarPrestamos();
+        Integer p = particionPorPrestamo.get(id);
+        return (p == null) ? null : particiones.get(p).getPrestamo(id);
+    }
+
+    /**
+     * Primero los préstamos en trámite y después los devueltos, como en una sola partición;
+     * dentro de cada grupo van por particiones y, en cada una, en orden de creación.
+     */
+    @Override
+    public List<Prestamo> prestamosDeLector(String lectorId) {
+        List<Prestamo> activos = new ArrayList<>();
+        List<Prestamo> devueltos = new ArrayList<>();
+        for (LibrosManager particion : particiones) {
+            for (Prestamo prestamo : particion.prestamosDeLector(lectorId)) {
+                (prestamo.isEnTramite() ? activos : devueltos).add(prestamo);
+            }
+        }
+        activos.addAll(devueltos);
+        return activos;
+    }
+
+    /**
+     * El mismo orden que prestamosDeLector sin reunir nada: una pasada por las particiones
+     * para los préstamos en trámite y otra para los devueltos. Cada pasada pide a cada
+     * partición solo los suyos, así que cada almacén se recorre una vez.
+     */
+    @Override
+    public void recorrerPrestamosDeLector(String lectorId, Consumer<Prestamo> consumidor) {
+        recorrerPrestamosDeLector(lectorId, true, consumidor);
+        recorrerPrestamosDeLector(lectorId, false, consumidor);
+    }
+
+    @Override
+    public void recorrerPrestamosDeLector(String lectorId, boolean enTramite, Consumer<Prestamo> consumidor) {
+        for (LibrosManager particion : particiones) {
+            particion.recorrerPrestamosDeLector(lectorId, enTramite, consumidor);
+        }
+    }
+
+    @Override
+    public List<Prestamo> prestamosVencidosHasta(String fecha) {
+        List<Prestamo> vencidos = new ArrayList<>();
+        for (LibrosManager particion : particiones) {
+            List<Prestamo> parcial = particion.prestamosVencidosHasta(fecha);
+            if (parcial == null) return null;
+            vencidos.addAll(parcial);
+        }
+        vencidos.sort(Comparator.comparingInt(Prestamo::diaFinalPrestamo));
+        return vencidos;
+    }
+
+    /**
+     * Los resultados van partición tras partición (y en cada una en orden de alta en el
+     * catálogo). La primera página de cada partición da su total y sus facetas; con los totales
+     * se sabe qué particiones caen en la página pedida y solo a esas se les pide más.
+     */
+    @Override
+    public ResultadoBusqueda buscarLibros(String texto, String tematica, String editorial, Integer año, int pagina, int tamañoPagina) {
+        if (pagina < 0) return null;
+        List<ResultadoBusqueda> primeras = new ArrayList<>(particiones.size());
+        for (LibrosManager particion : particiones) {
+            ResultadoBusqueda primera = particion.buscarLibros(texto, tematica, editorial, año, 0, tamañoPagina);
+            if (primera == null) return null;
+            primeras.add(primera);
+        }
+
+        ResultadoBusqueda resultado = new ResultadoBusqueda(pagina, tamañoPagina);
+        Map<String, Integer> porTematica = new HashMap<>();
+        Map<String, Integer> porEditorial = new HashMap<>();
+        Map<String, Integer> porAño = new HashMap<>();
+        long desde = (long) pagina * tamañoPagina;
+        long hasta = desde + tamañoPagina;
+        long inicioParticion = 0;
+        for (int p = 0; p < particiones.size(); p++) {
+            ResultadoBusqueda primera = primeras.get(p);
+            contar(porTematica, primera.getTematicas());
+            contar(porEditorial, primera.getEditoriales());
+            contar(porAño, primera.getAñosPublicacion());
+
+            long finParticion = inicioParticion + primera.getTotal();
+            long posicion = Math.max(desde, inicioParticion);
+            while (posicion < Math.min(hasta, finParticion)) {
+                long local = posicion - inicioParticion;
+                int paginaLocal = (int) (local / tamañoPagina);
+                ResultadoBusqueda trozo = (paginaLocal == 0) ? primera
+                        : particiones.get(p).buscarLibros(texto, tematica, editorial, año, paginaLocal, tamañoPagina);
+                List<Libro> libros = (trozo == null || trozo.getLibros() == null) ? new ArrayList<>() : trozo.getLibros();
+                int i = (int) (local - (long) paginaLocal * tamañoPagina);
+                if (i >= libros.size()) break;  // La partición ha cambiado desde la primera página
+                for (; i < libros.size() && posicion < Math.min(hasta, finParticion); i++, posicion++) {
+                    resultado.getLibros().add(libros.get(i));
+                }
+            }
+            inicioParticion = finParticion;
+        }
+        resultado.setTotal((int) inicioParticion);
+        resultado.setTematicas(IndiceCatalogo.facetas(porTematica));
+        resultado.setEditoriales(IndiceCatalogo.facetas(porEditorial));
+        resultado.setAñosPublicacion(IndiceCatalogo.facetas(porAño));
+        return resultado;
+    }
+
+    private static void contar(Map<String, Integer> recuentos, List<Faceta> facetas) {
+        if (facetas == null) return;
+        for (Faceta faceta : facetas) {
+            recuentos.merge(faceta.getValor(), faceta.getNumLibros(), Integer::sum);
+        }
+    }
+
+    // Cada ISBN está en una sola partición, así que los grupos con el mismo valor se suman
+    @Override
+    public AnaliticaCatalogo analizarCatalogo(String agrupacion) {
+        Agrupacion columna = Agrupacion.desde(agrupacion);
+        if (columna == null) return null;
+        Map<String, Recuento> porValor = new HashMap<>();
+        for (LibrosManager particion : particiones) {
+            AnaliticaCatalogo parcial = particion.analizarCatalogo(agrupacion);
+            if (parcial == null) return null;
+            for (Recuento grupo : parcial.getGrupos()) {
+                Recuento total = porValor.computeIfAbsent(grupo.getValor(), v -> new Recuento(v, 0, 0, 0));
+                total.setNumIsbns(total.getNumIsbns() + grupo.getNumIsbns());
+                total.setNumEjemplares(total.getNumEjemplares() + grupo.getNumEjemplares());
+                total.setStock(total.getStock() + grupo.getStock());
+            }
+        }
+        AnaliticaCatalogo resultado = new AnaliticaCatalogo(columna.nombre());
+        resultado.getGrupos().addAll(porValor.values());
+        ColumnasCatalogo.ordenar(columna, resultado.getGrupos());
+        return resultado;
+    }
+
+    // -------- LISTADOS POR PÁGINAS --------
+    // Todas las particiones usan las mismas claves en los cursores, así que el mismo cursor vale
+    // para todas: cada una devuelve su página desde ahí y se juntan en orden.
+
+    @Override
+    public Pagina<Lector> listarLectores(String cursor, int limite) {
+        return juntarPaginas(p -> p.listarLectores(cursor, limite), limite,
+                Comparator.comparing(Lector::getId), Lector::getId);
+    }
+
+    @Override
+    public Pagina<Libro> listarCatalogo(String cursor, int limite) {
+        return juntarPaginas(p -> p.listarCatalogo(cursor, limite), limite,
+                Comparator.comparing(Libro::getIsbn), Libro::getIsbn);
+    }
+
+    /** Por id y, a igual id, primero el que está en trámite; como en LibrosManagerImpl */
+    @Override
+    public Pagina<Prestamo> listarPrestamos(String cursor, int limite) {
+        return juntarPaginas(p -> p.listarPrestamos(cursor, limite), limite,
+                Comparator.comparing(Prestamo::getId).thenComparing(p -> !p.isEnTramite()),
+                p -> (p.isEnTramite() ? "A" : "D") + p.getId());
+    }
+
+    private <T> Pagina<T> juntarPaginas(Function<LibrosManager, Pagina<T>> listar, int limite, Comparator<T> orden, Function<T, String> clave) {
+        List<T> elementos = new ArrayList<>();
+        boolean hayMas = false;
+        for (LibrosManager particion : particiones) {
+            Pagina<T> pagina = listar.apply(particion);
+            if (pagina == null) return null;
+            elementos.addAll(pagina.getElementos());
+            hayMas |= pagina.getCursorSiguiente() != null;
+        }
+        elementos.sort(orden);
+        if (elementos.size() > limite) {
+            elementos = new ArrayList<>(elementos.subList(0, limite));
+            hayMas = true;
+        }
+        String siguiente = (hayMas && !elementos.isEmpty()) ? Cursores.codificar(clave.apply(elementos.get(elementos.size() - 1))) : null;
+        return new Pagina<>(elementos, siguiente);
+    }
+
+    @Override
+    public Lector getLector(String id) {
+        return (id == null) ? null : particionDeLector(id).getLector(id);
+    }
+
+    @Override
+    public int lectoresSize() {
+        int total = 0;
+        for (LibrosManager particion : particiones) {
+            total += particion.lectoresSize();
+        }
+        return total;
+    }
+
+    @Override
+    public Libro getLibroPorIsbn(String isbn) {
+        return (isbn == null) ? null : particionDeIsbn(isbn).getLibroPorIsbn(isbn);
+    }
+
+    @Override
+    public int getStockPorIsbn(String isbn) {
+        return (isbn == null) ? 0 : particionDeIsbn(isbn).getStockPorIsbn(isbn);
+    }
+
+    /**
+     * Cada partición tiene su propio reloj de versiones, pero un ISBN siempre está en la
+     * misma, así que sus versiones nunca se repiten.
+     */
+    @Override
+    public long getVersionIsbn(String isbn) {
+        return (isbn == null) ? 0 : particionDeIsbn(isbn).getVersionIsbn(isbn);
+    }
+
+    @Override
+    public Estadisticas getEstadisticas() {
+        Estadisticas total = new Estadisticas();
+        for (LibrosManager particion : particiones) {
+            Estadisticas e = particion.getEstadisticas();
+            total.setNumMontones(total.getNumMontones() + e.getNumMontones());
+            total.setNumLibrosAlmacen(total.getNumLibrosAlmacen() + e.getNumLibrosAlmacen());
+            total.setNumIsbnsCatalogo(total.getNumIsbnsCatalogo() + e.getNumIsbnsCatalogo());
+            total.setNumEjemplaresCatalogo(total.getNumEjemplaresCatalogo() + e.getNumEjemplaresCatalogo());
+            total.setNumIsbnsSinStock(total.getNumIsbnsSinStock() + e.getNumIsbnsSinStock());
+            total.setNumPrestamosActivos(total.getNumPrestamosActivos() + e.getNumPrestamosActivos());
+            total.setNumPrestamosDevueltos(total.getNumPrestamosDevueltos() + e.getNumPrestamosDevueltos());
+        }
+        return total;
+    }
+}
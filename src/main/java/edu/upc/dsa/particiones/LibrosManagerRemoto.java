@@ -0,0 +1,305 @@
+package edu.upc.dsa.particiones;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import edu.upc.dsa.LibrosManager;
+import edu.upc.dsa.json.ModelosJson;
+import edu.upc.dsa.json.ProveedorJsonModelos;
+import edu.upc.dsa.models.AnaliticaCatalogo;
+import edu.upc.dsa.models.Estadisticas;
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Pagina;
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.ResultadoBusqueda;
+import edu.upc.dsa.models.ResultadoDevolucion;
+import edu.upc.dsa.models.ResultadoLector;
+import edu.upc.dsa.models.ResultadoLote;
+import edu.upc.dsa.models.ResultadoPrestamo;
+import edu.upc.dsa.models.ResumenCatalogacion;
+import edu.upc.dsa.services.LibrosService;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Una partición en otro proceso: cada método es una petición al NodoService del nodo (otro
+ * Main arrancado con -Dlibros.particiones.nodo=true). Si el nodo no responde, o responde algo
+ * inesperado, se lanza una excepción no comprobada, como cualquier fallo interno del manager.
+ */
+public class LibrosManagerRemoto implements LibrosManager {
+    private static final GenericType<List<Lector>> LECTORES = new GenericType<List<Lector>>() {};
+    private static final GenericType<List<Libro>> LIBROS = new GenericType<List<Libro>>() {};
+    private static final GenericType<List<Prestamo>> PRESTAMOS = new GenericType<List<Prestamo>>() {};
+    // Jersey no deja hacer un POST sin cuerpo
+    private static final Entity<String> SIN_CUERPO = Entity.text("");
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final String uriBase;
+    private final Client cliente;
+    private final WebTarget nodo;
+
+    /** @param uriBase la del Main del nodo, por ejemplo http://localhost:8081/dsaApp/ */
+    public LibrosManagerRemoto(String uriBase) {
+        this.uriBase = uriBase;
+        this.cliente = ClientBuilder.newClient();
+        // En el cliente, MOXy escribe con la codificación por defecto de la JVM aunque se pida
+        // UTF-8; los proveedores de ModelosJson siempre escriben UTF-8, y json() lo declara
+        for (Class<?> proveedor : ProveedorJsonModelos.clases()) {
+            cliente.register(proveedor);
+        }
+        this.nodo = cliente.target(uriBase).path("nodo");
+    }
+
+    public void cerrar() {
+        cliente.close();
+    }
+
+    private Response comprobar(Response respuesta, int... esperados) {
+        for (int esperado : esperados) {
+            if (respuesta.getStatus() == esperado) return respuesta;
+        }
+        respuesta.close();
+        throw new IllegalStateException("El nodo " + uriBase + " ha respondido " + respuesta.getStatus());
+    }
+
+    // Sin charset, el nodo leería el cuerpo con la codificación por defecto de su JVM
+    private static <T> Entity<T> json(T cuerpo) {
+        return Entity.entity(cuerpo, NodoService.JSON_UTF8);
+    }
+
+    private String texto(Response respuesta) {
+        return comprobar(respuesta, 200).readEntity(String.class);
+    }
+
+    // Jersey no acepta parámetros con valor null: los que faltan no se mandan
+    private static WebTarget parametro(WebTarget destino, String nombre, Object valor) {
+        return (valor == null) ? destino : destino.queryParam(nombre, valor);
+    }
+
+    // Con MOXy, una lista vacía puede llegar como null
+    private static <T> List<T> lista(List<T> elementos) {
+        return (elementos == null) ? new ArrayList<>() : elementos;
+    }
+
+    private <T> Pagina<T> pagina(WebTarget listado, String cursor, int limite, GenericType<List<T>> tipo) {
+        Response respuesta = comprobar(parametro(listado, "cursor", cursor).queryParam("limite", limite).request().get(), 200, 400);
+        if (respuesta.getStatus() == 400) {
+            respuesta.close();
+            return null;
+        }
+        String siguiente = respuesta.getHeaderString(LibrosService.CABECERA_CURSOR_SIGUIENTE);
+        return new Pagina<>(lista(respuesta.readEntity(tipo)), siguiente);
+    }
+
+    // Lectura de un modelo que puede no existir
+    private <T> T opcional(Response respuesta, int siNoExiste, Class<T> tipo) {
+        comprobar(respuesta, 200, siNoExiste);
+        if (respuesta.getStatus() == siNoExiste) {
+            respuesta.close();
+            return null;
+        }
+        return respuesta.readEntity(tipo);
+    }
+
+    // -------- MUTACIONES --------
+
+    @Override
+    public ResultadoLector addLector(String id, String nombre, String apellidos, String dni, String fechaNacimiento, String lugarNacimiento, String direccion) {
+        Lector lector = new Lector(id, nombre, apellidos, dni, fechaNacimiento, lugarNacimiento, direccion);
+        return ResultadoLector.valueOf(texto(nodo.path("lectores").request().post(json(lector))));
+    }
+
+    @Override
+    public boolean almacenarLibro(Libro libro) {
+        return Boolean.parseBoolean(texto(nodo.path("almacen").request().post(json(libro))));
+    }
+
+    @Override
+    public ResultadoLote almacenarLibros(List<Libro> libros) {
+        Entity<GenericEntity<List<Libro>>> lote = json(new GenericEntity<List<Libro>>(libros) {});
+        ResultadoLote resultado = comprobar(nodo.path("almacen/lote").request().post(lote), 200).readEntity(ResultadoLote.class);
+        resultado.setErrores(lista(resultado.getErrores()));
+        return resultado;
+    }
+
+    @Override
+    public Libro catalogarSiguienteLibro() {
+        return opcional(nodo.path("catalogo/siguiente").request().post(SIN_CUERPO), 204, Libro.class);
+    }
+
+    @Override
+    public ResumenCatalogacion catalogarSiguientesLibros(int n) {
+        return comprobar(nodo.path("catalogo/lote").queryParam("n", n).request().post(SIN_CUERPO), 200).readEntity(ResumenCatalogacion.class);
+    }
+
+    @Override
+    public ResumenCatalogacion catalogarTodosLosLibros() {
+        return comprobar(nodo.path("catalogo/todos").request().post(SIN_CUERPO), 200).readEntity(ResumenCatalogacion.class);
+    }
+
+    @Override
+    public ResultadoPrestamo prestarLibro(Prestamo prestamo) {
+        ResultadoPrestamo resultado = ResultadoPrestamo.valueOf(texto(nodo.path("prestamos").request().post(json(prestamo))));
+        if (resultado == ResultadoPrestamo.CREADO) {
+            // Como en el manager local, que lo marca al guardarlo
+            prestamo.setEnTramite(true);
+        }
+        return resultado;
+    }
+
+    @Override
+    public ResultadoDevolucion devolverLibro(String prestamoId) {
+        if (prestamoId == null) return ResultadoDevolucion.NO_EXISTE;
+        return ResultadoDevolucion.valueOf(texto(nodo.path("prestamos").path(prestamoId).path("devolucion").request().post(SIN_CUERPO)));
+    }
+
+    @Override
+    public void clear() {
+        comprobar(nodo.request().delete(), 204).close();
+    }
+
+    // -------- LECTURAS --------
+
+    @Override
+    public Prestamo getPrestamo(String id) {
+        if (id == null) return null;
+        return opcional(nodo.path("prestamos").path(id).request().get(), 404, Prestamo.class);
+    }
+
+    @Override
+    public List<Prestamo> prestamosDeLector(String lectorId) {
+        List<Prestamo> prestamos = new ArrayList<>();
+        recorrerPrestamosDeLector(lectorId, prestamos::add);
+        return prestamos;
+    }
+
+    @Override
+    public void recorrerPrestamosDeLector(String lectorId, Consumer<Prestamo> consumidor) {
+        if (lectorId == null) return;
+        recorrerPrestamos(nodo.path("prestamos/lector").path(lectorId), consumidor);
+    }
+
+    @Override
+    public void recorrerPrestamosDeLector(String lectorId, boolean enTramite, Consumer<Prestamo> consumidor) {
+        if (lectorId == null) return;
+        recorrerPrestamos(nodo.path("prestamos/lector").path(lectorId).queryParam("enTramite", enTramite), consumidor);
+    }
+
+    /**
+     * El nodo escribe el array en streaming y aquí se lee igual, préstamo a préstamo según
+     * llega: ni el nodo ni este lado tienen la lista entera en el heap.
+     */
+    private void recorrerPrestamos(WebTarget destino, Consumer<Prestamo> consumidor) {
+        Response respuesta = comprobar(destino.request().get(), 200);
+        try (JsonParser p = FACTORY.createParser(respuesta.readEntity(InputStream.class))) {
+            if (p.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalStateException("El nodo " + uriBase + " no ha respondido un array de préstamos");
+            }
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                consumidor.accept(ModelosJson.leerPrestamo(p));
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException("Préstamos mal formados o cortados desde el nodo " + uriBase, ex);
+        }
+        finally {
+            respuesta.close();
+        }
+    }
+
+    @Override
+    public List<Prestamo> prestamosVencidosHasta(String fecha) {
+        Response respuesta = comprobar(parametro(nodo.path("vencimientos"), "hasta", fecha).request().get(), 200, 400);
+        if (respuesta.getStatus() == 400) {
+            respuesta.close();
+            return null;
+        }
+        return lista(respuesta.readEntity(PRESTAMOS));
+    }
+
+    @Override
+    public ResultadoBusqueda buscarLibros(String texto, String tematica, String editorial, Integer año, int pagina, int tamañoPagina) {
+        WebTarget busqueda = nodo.path("busqueda").queryParam("pagina", pagina).queryParam("tamaño", tamañoPagina);
+        busqueda = parametro(busqueda, "q", texto);
+        busqueda = parametro(busqueda, "tematica", tematica);
+        busqueda = parametro(busqueda, "editorial", editorial);
+        busqueda = parametro(busqueda, "año", año);
+        ResultadoBusqueda resultado = opcional(busqueda.request().get(), 400, ResultadoBusqueda.class);
+        if (resultado != null) {
+            resultado.setLibros(lista(resultado.getLibros()));
+        }
+        return resultado;
+    }
+
+    @Override
+    public AnaliticaCatalogo analizarCatalogo(String agrupacion) {
+        WebTarget analitica = parametro(nodo.path("analitica"), "agrupar", agrupacion);
+        AnaliticaCatalogo resultado = opcional(analitica.request().get(), 400, AnaliticaCatalogo.class);
+        if (resultado != null) {
+            resultado.setGrupos(lista(resultado.getGrupos()));
+        }
+        return resultado;
+    }
+
+    @Override
+    public Pagina<Lector> listarLectores(String cursor, int limite) {
+        return pagina(nodo.path("lectores"), cursor, limite, LECTORES);
+    }
+
+    @Override
+    public Pagina<Libro> listarCatalogo(String cursor, int limite) {
+        return pagina(nodo.path("catalogo"), cursor, limite, LIBROS);
+    }
+
+    @Override
+    public Pagina<Prestamo> listarPrestamos(String cursor, int limite) {
+        return pagina(nodo.path("prestamos"), cursor, limite, PRESTAMOS);
+    }
+
+    @Override
+    public Lector getLector(String id) {
+        if (id == null) return null;
+        return opcional(nodo.path("lectores").path(id).request().get(), 404, Lector.class);
+    }
+
+    @Override
+    public int lectoresSize() {
+        return Integer.parseInt(texto(nodo.path("lectores/total").request().get()));
+    }
+
+    @Override
+    public Libro getLibroPorIsbn(String isbn) {
+        if (isbn == null) return null;
+        return opcional(nodo.path("catalogo").path(isbn).request().get(), 404, Libro.class);
+    }
+
+    @Override
+    public int getStockPorIsbn(String isbn) {
+        if (isbn == null) return 0;
+        return Integer.parseInt(texto(nodo.path("catalogo").path(isbn).path("stock").request().get()));
+    }
+
+    @Override
+    public long getVersionIsbn(String isbn) {
+        if (isbn == null) return 0;
+        return Long.parseLong(texto(nodo.path("catalogo").path(isbn).path("version").request().get()));
+    }
+
+    @Override
+    public Estadisticas getEstadisticas() {
+        return comprobar(nodo.path("estadisticas").request().get(), 200).readEntity(Estadisticas.class);
+    }
+}
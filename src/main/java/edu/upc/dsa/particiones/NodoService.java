@@ -0,0 +1,216 @@
+package edu.upc.dsa.particiones;
+
+import edu.upc.dsa.LibrosManager;
+import edu.upc.dsa.json.ModelosJson;
+import edu.upc.dsa.json.SalidaJson;
+import edu.upc.dsa.models.AnaliticaCatalogo;
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Pagina;
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.ResultadoBusqueda;
+import edu.upc.dsa.services.LibrosService;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * El manager de un nodo, método a método, para LibrosManagerRemoto. No es parte del API
+ * público: Main solo lo registra con -Dlibros.particiones.nodo=true, y en ese modo el nodo
+ * no comprueba los lectores al prestar, así que solo debe verlo quien reparte.
+ *
+ * Los resultados simples (enums, números) van en texto; los modelos, en JSON. Las lecturas
+ * que en el manager devuelven null responden 404 (o 400 si el null es por datos no válidos).
+ */
+@Path("/nodo")
+public class NodoService {
+    // Con el charset explícito, MOXy lee y escribe UTF-8 sea cual sea la codificación por defecto
+    static final MediaType JSON_UTF8 = MediaType.APPLICATION_JSON_TYPE.withCharset("UTF-8");
+
+    private final LibrosManager manager;
+
+    public NodoService(LibrosManager manager) {
+        this.manager = manager;
+    }
+
+    private static Response texto(Object valor) {
+        return Response.ok(String.valueOf(valor), MediaType.TEXT_PLAIN).build();
+    }
+
+    private static Response json(Object entidad, int siEsNull) {
+        return (entidad == null) ? Response.status(siEsNull).build() : Response.ok(entidad, JSON_UTF8).build();
+    }
+
+    private static <T> Response pagina(Pagina<T> pagina, GenericEntity<List<T>> elementos) {
+        return Response.ok(elementos, JSON_UTF8)
+                .header(LibrosService.CABECERA_CURSOR_SIGUIENTE, pagina.getCursorSiguiente()).build();
+    }
+
+    // -------- LECTORES --------
+
+    @POST
+    @Path("/lectores")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response addLector(Lector l) {
+        return texto(manager.addLector(l.getId(), l.getNombre(), l.getApellidos(), l.getDni(), l.getFechaNacimiento(), l.getLugarNacimiento(), l.getDireccion()));
+    }
+
+    @GET
+    @Path("/lectores/{id}")
+    public Response getLector(@PathParam("id") String id) {
+        return json(manager.getLector(id), 404);
+    }
+
+    @GET
+    @Path("/lectores/total")
+    public Response lectoresSize() {
+        return texto(manager.lectoresSize());
+    }
+
+    @GET
+    @Path("/lectores")
+    public Response listarLectores(@QueryParam("cursor") String cursor, @QueryParam("limite") int limite) {
+        Pagina<Lector> p = manager.listarLectores(cursor, limite);
+        return (p == null) ? Response.status(400).build() : pagina(p, new GenericEntity<List<Lector>>(p.getElementos()) {});
+    }
+
+    // -------- LIBROS --------
+
+    @POST
+    @Path("/almacen")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response almacenarLibro(Libro libro) {
+        return texto(manager.almacenarLibro(libro));
+    }
+
+    @POST
+    @Path("/almacen/lote")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response almacenarLibros(List<Libro> libros) {
+        return json(manager.almacenarLibros(libros), 500);
+    }
+
+    @POST
+    @Path("/catalogo/siguiente")
+    public Response catalogarSiguienteLibro() {
+        return json(manager.catalogarSiguienteLibro(), 204);
+    }
+
+    @POST
+    @Path("/catalogo/lote")
+    public Response catalogarSiguientesLibros(@QueryParam("n") int n) {
+        return json(manager.catalogarSiguientesLibros(n), 500);
+    }
+
+    @POST
+    @Path("/catalogo/todos")
+    public Response catalogarTodosLosLibros() {
+        return json(manager.catalogarTodosLosLibros(), 500);
+    }
+
+    @GET
+    @Path("/catalogo")
+    public Response listarCatalogo(@QueryParam("cursor") String cursor, @QueryParam("limite") int limite) {
+        Pagina<Libro> p = manager.listarCatalogo(cursor, limite);
+        return (p == null) ? Response.status(400).build() : pagina(p, new GenericEntity<List<Libro>>(p.getElementos()) {});
+    }
+
+    @GET
+    @Path("/catalogo/{isbn}")
+    public Response getLibroPorIsbn(@PathParam("isbn") String isbn) {
+        return json(manager.getLibroPorIsbn(isbn), 404);
+    }
+
+    @GET
+    @Path("/catalogo/{isbn}/stock")
+    public Response getStockPorIsbn(@PathParam("isbn") String isbn) {
+        return texto(manager.getStockPorIsbn(isbn));
+    }
+
+    @GET
+    @Path("/catalogo/{isbn}/version")
+    public Response getVersionIsbn(@PathParam("isbn") String isbn) {
+        return texto(manager.getVersionIsbn(isbn));
+    }
+
+    @GET
+    @Path("/busqueda")
+    public Response buscarLibros(@QueryParam("q") String texto, @QueryParam("tematica") String tematica,
+                                 @QueryParam("editorial") String editorial, @QueryParam("año") Integer año,
+                                 @QueryParam("pagina") int pagina, @QueryParam("tamaño") int tamañoPagina) {
+        ResultadoBusqueda resultado = manager.buscarLibros(texto, tematica, editorial, año, pagina, tamañoPagina);
+        return json(resultado, 400);
+    }
+
+    @GET
+    @Path("/analitica")
+    public Response analizarCatalogo(@QueryParam("agrupar") String agrupacion) {
+        AnaliticaCatalogo resultado = manager.analizarCatalogo(agrupacion);
+        return json(resultado, 400);
+    }
+
+    // -------- PRÉSTAMOS --------
+
+    @POST
+    @Path("/prestamos")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response prestarLibro(Prestamo prestamo) {
+        return texto(manager.prestarLibro(prestamo));
+    }
+
+    @POST
+    @Path("/prestamos/{id}/devolucion")
+    public Response devolverLibro(@PathParam("id") String id) {
+        return texto(manager.devolverLibro(id));
+    }
+
+    @GET
+    @Path("/prestamos/{id}")
+    public Response getPrestamo(@PathParam("id") String id) {
+        return json(manager.getPrestamo(id), 404);
+    }
+
+    // En streaming, como en LibrosService. Con enTramite solo los de uno de los dos almacenes
+    @GET
+    @Path("/prestamos/lector/{lectorId}")
+    public Response prestamosDeLector(@PathParam("lectorId") String lectorId, @QueryParam("enTramite") Boolean enTramite) {
+        Consumer<Consumer<Prestamo>> recorrido = (enTramite == null)
+                ? c -> manager.recorrerPrestamosDeLector(lectorId, c)
+                : c -> manager.recorrerPrestamosDeLector(lectorId, enTramite, c);
+        StreamingOutput salida = out -> SalidaJson.escribirArray(out, recorrido, ModelosJson::escribirPrestamo);
+        return Response.ok(salida, JSON_UTF8).build();
+    }
+
+    @GET
+    @Path("/vencimientos")
+    public Response prestamosVencidosHasta(@QueryParam("hasta") String hasta) {
+        List<Prestamo> vencidos = manager.prestamosVencidosHasta(hasta);
+        return (vencidos == null) ? Response.status(400).build() : json(new GenericEntity<List<Prestamo>>(vencidos) {}, 500);
+    }
+
+    @GET
+    @Path("/prestamos")
+    public Response listarPrestamos(@QueryParam("cursor") String cursor, @QueryParam("limite") int limite) {
+        Pagina<Prestamo> p = manager.listarPrestamos(cursor, limite);
+        return (p == null) ? Response.status(400).build() : pagina(p, new GenericEntity<List<Prestamo>>(p.getElementos()) {});
+    }
+
+    // -------- ESTADO --------
+
+    @GET
+    @Path("/estadisticas")
+    public Response getEstadisticas() {
+        return json(manager.getEstadisticas(), 500);
+    }
+
+    @DELETE
+    public Response clear() {
+        manager.clear();
+        return Response.noContent().build();
+    }
+}
@@ -0,0 +1,27 @@
+package edu.upc.dsa.persistencia;
+
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Prestamo;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Recorrido del estado completo del manager, en este orden: lectores, montones del almacén
+ * (en orden de cola), ejemplares catalogados, agregados por ISBN y préstamos (los que están
+ * en trámite y después los devueltos).
+ */
+public interface ConsumidorEstado {
+    void lector(Lector lector) throws IOException;
+
+    /** Un montón del almacén, de la base a la cima */
+    void monton(List<Libro> baseACima) throws IOException;
+
+    void ejemplar(Libro libro) throws IOException;
+
+    /** El ejemplar idEjemplar es el que representa al ISBN en el catálogo, con su stock */
+    void agregado(String isbn, String idEjemplar, int stock) throws IOException;
+
+    void prestamo(Prestamo prestamo) throws IOException;
+}
@@ -0,0 +1,369 @@
+package edu.upc.dsa.persistencia;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import edu.upc.dsa.LibrosManagerImpl;
+import edu.upc.dsa.json.ModelosJson;
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Prestamo;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Diario de escritura anticipada (write-ahead log) con commit en grupo. Cada mutación se
+ * serializa como una línea JSON y se encola con un número de secuencia; un único hilo escritor
+ * vuelca a disco todo lo encolado y hace un solo fsync por grupo. Quien necesite que su operación
+ * sea duradera espera con esperarDurable, fuera de los cerrojos del manager.
+ *
+ * El diario se guarda en segmentos diario-NNNNNN.log; la compactación abre un segmento nuevo
+ * y los anteriores se borran cuando la instantánea que los cubre ya está en disco.
+ */
+public class DiarioOperaciones implements RegistroOperaciones {
+    final static Logger logger = Logger.getLogger(DiarioOperaciones.class);
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final Path directorio;
+    private FileChannel canal;
+    private int segmento;
+
+    private List<byte[]> pendientes = new ArrayList<>();
+    private long ultimaSecuencia;
+    private long secuenciaDurable;
+    private IOException error;
+    private boolean cerrando;
+    private final Thread escritor;
+
+    public DiarioOperaciones(Path directorio, int segmento) throws IOException {
+        this.directorio = directorio;
+        this.segmento = segmento;
+        this.canal = abrirSegmento(segmento);
+        this.escritor = new Thread(this::bucleEscritor, "diario-operaciones");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    public static String nombreSegmento(int segmento) {
+        return String.format("diario-%06d.log", segmento);
+    }
+
+    /** @return el número de segmento, o -1 si el fichero no es un segmento del diario */
+    public static int numeroSegmento(Path fichero) {
+        String nombre = fichero.getFileName().toString();
+        if (!nombre.startsWith("diario-") || !nombre.endsWith(".log")) return -1;
+        try {
+            return Integer.parseInt(nombre.substring("diario-".length(), nombre.length() - ".log".length()));
+        }
+        catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private FileChannel abrirSegmento(int numero) throws IOException {
+        return FileChannel.open(directorio.resolve(nombreSegmento(numero)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // -------- REGISTRO --------
+
+    @Override
+    public void lectorGuardado(Lector lector) {
+        añadir(g -> {
+            g.writeStringField("op", "lector");
+            g.writeFieldName("lector");
+            ModelosJson.escribirLector(g, lector);
+        });
+    }
+
+    @Override
+    public void libroAlmacenado(Libro libro) {
+        añadir(g -> {
+            g.writeStringField("op", "almacenar");
+            g.writeFieldName("libro");
+            ModelosJson.escribirLibro(g, libro);
+        });
+    }
+
+    @Override
+    public void librosAlmacenados(List<Libro> libros) {
+        añadir(g -> {
+            g.writeStringField("op", "almacenarLote");
+            g.writeArrayFieldStart("libros");
+            for (Libro libro : libros) {
+                ModelosJson.escribirLibro(g, libro);
+            }
+            g.writeEndArray();
+        });
+    }
+
+    @Override
+    public void librosCatalogados(int n) {
+        añadir(g -> {
+            g.writeStringField("op", "catalogar");
+            g.writeNumberField("n", n);
+        });
+    }
+
+    @Override
+    public void prestamoCreado(Prestamo prestamo) {
+        añadir(g -> {
+            g.writeStringField("op", "prestar");
+            g.writeFieldName("prestamo");
+            ModelosJson.escribirPrestamo(g, prestamo);
+        });
+    }
+
+    @Override
+    public void prestamoDevuelto(String prestamoId) {
+        añadir(g -> {
+            g.writeStringField("op", "devolver");
+            g.writeStringField("id", prestamoId);
+        });
+    }
+
+    @Override
+    public void borradoTotal() {
+        añadir(g -> g.writeStringField("op", "borrar"));
+    }
+
+    private interface Campos {
+        void escribir(JsonGenerator g) throws IOException;
+    }
+
+    private void añadir(Campos campos) {
+        byte[] linea;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            try (JsonGenerator g = FACTORY.createGenerator(out)) {
+                g.writeStartObject();
+                campos.escribir(g);
+                g.writeEndObject();
+            }
+            out.write('\n');
+            linea = out.toByteArray();
+        }
+        catch (IOException ex) {
+            // Serializar a memoria no hace E/S real
+            throw new UncheckedIOException(ex);
+        }
+        synchronized (this) {
+            pendientes.add(linea);
+            ultimaSecuencia++;
+            notifyAll();
+        }
+    }
+
+    // -------- COMMIT EN GRUPO --------
+
+    private void bucleEscritor() {
+        while (true) {
+            List<byte[]> lote;
+            FileChannel destino;
+            long hasta;
+            synchronized (this) {
+                while (pendientes.isEmpty() && !cerrando) {
+                    try {
+                        wait();
+                    }
+                    catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pendientes.isEmpty()) return;
+                lote = pendientes;
+                pendientes = new ArrayList<>();
+                destino = canal;
+                hasta = ultimaSecuencia;
+            }
+            try {
+                int total = 0;
+                for (byte[] linea : lote) total += linea.length;
+                ByteBuffer buffer = ByteBuffer.allocate(total);
+                for (byte[] linea : lote) buffer.put(linea);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    destino.write(buffer);
+                }
+                destino.force(false);
+                synchronized (this) {
+                    secuenciaDurable = hasta;
+                    notifyAll();
+                }
+            }
+            catch (IOException ex) {
+                logger.error("Error escribiendo el diario de operaciones: ", ex);
+                synchronized (this) {
+                    error = ex;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    public synchronized long secuenciaActual() {
+        return ultimaSecuencia;
+    }
+
+    /**
+     * Espera a que todas las operaciones hasta la secuencia dada estén en disco.
+     */
+    public synchronized void esperarDurable(long secuencia) {
+        boolean interrumpido = false;
+        while (secuenciaDurable < secuencia && error == null) {
+            try {
+                wait();
+            }
+            catch (InterruptedException ex) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) Thread.currentThread().interrupt();
+        if (secuenciaDurable < secuencia) {
+            throw new UncheckedIOException("El diario de operaciones ha fallado", error);
+        }
+    }
+
+    /**
+     * Pasa a escribir en un segmento nuevo. Quien la llame debe haber parado las mutaciones,
+     * así todo lo anterior queda en el segmento viejo.
+     * @return el número del segmento nuevo
+     */
+    public int rotar() throws IOException {
+        esperarDurable(secuenciaActual());
+        synchronized (this) {
+            FileChannel nuevo = abrirSegmento(segmento + 1);
+            canal.close();
+            canal = nuevo;
+            segmento++;
+            return segmento;
+        }
+    }
+
+    public void cerrar() throws IOException {
+        synchronized (this) {
+            cerrando = true;
+            notifyAll();
+        }
+        try {
+            escritor.join();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            canal.close();
+        }
+    }
+
+    // -------- REPRODUCCIÓN --------
+
+    /**
+     * Vuelve a aplicar sobre el manager las operaciones de un segmento, en orden. Una última
+     * línea incompleta (caída a mitad de escritura) se descarta: esa operación nunca se confirmó.
+     * Cada registro se lee entero, hasta su llave de cierre y el final de la línea, antes de
+     * aplicarlo: una línea cortada en mitad de un número o antes de la última llave se lee
+     * sin error, pero no es el registro que se escribió.
+     * @return el número de operaciones aplicadas
+     */
+    public static long reproducir(Path fichero, LibrosManagerImpl manager) throws IOException {
+        long aplicadas = 0;
+        try (BufferedReader reader = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                if (linea.isEmpty()) continue;
+                try (JsonParser p = FACTORY.createParser(linea)) {
+                    Consumer<LibrosManagerImpl> operacion = leer(p);
+                    if (p.nextToken() != JsonToken.END_OBJECT || p.nextToken() != null) {
+                        throw new JsonParseException("Registro incompleto", p.getCurrentLocation());
+                    }
+                    operacion.accept(manager);
+                    aplicadas++;
+                }
+                catch (JsonProcessingException ex) {
+                    if (reader.readLine() == null) {
+                        logger.warn("Descartada la última línea incompleta de " + fichero);
+                        break;
+                    }
+                    throw new IOException("Línea corrupta en " + fichero + ": " + linea, ex);
+                }
+            }
+        }
+        return aplicadas;
+    }
+
+    // Deja el parser en el último valor del registro, sin aplicar nada
+    private static Consumer<LibrosManagerImpl> leer(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT || p.nextToken() != JsonToken.FIELD_NAME || !"op".equals(p.getCurrentName())) {
+            throw new IOException("Registro sin campo op");
+        }
+        p.nextToken();
+        String op = p.getText();
+        switch (op) {
+            case "lector": {
+                siguienteValor(p);
+                Lector l = ModelosJson.leerLector(p);
+                return m -> m.addLector(l.getId(), l.getNombre(), l.getApellidos(), l.getDni(), l.getFechaNacimiento(), l.getLugarNacimiento(), l.getDireccion());
+            }
+            case "almacenar": {
+                siguienteValor(p);
+                Libro libro = ModelosJson.leerLibro(p);
+                return m -> m.almacenarLibro(libro);
+            }
+            case "almacenarLote": {
+                siguienteValor(p);
+                List<Libro> libros = new ArrayList<>();
+                while (p.nextToken() == JsonToken.START_OBJECT) {
+                    libros.add(ModelosJson.leerLibro(p));
+                }
+                return m -> m.almacenarLibros(libros);
+            }
+            case "catalogar": {
+                siguienteValor(p);
+                int n = p.getIntValue();
+                return m -> m.catalogarSiguientesLibros(n);
+            }
+            case "prestar": {
+                siguienteValor(p);
+                Prestamo prestamo = ModelosJson.leerPrestamo(p);
+                return m -> m.prestarLibro(prestamo);
+            }
+            case "devolver": {
+                siguienteValor(p);
+                String id = p.getText();
+                return m -> m.devolverLibro(id);
+            }
+            case "borrar":
+                return LibrosManagerImpl::clear;
+            default:
+                throw new IOException("Operación desconocida en el diario: " + op);
+        }
+    }
+
+    private static void siguienteValor(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.FIELD_NAME) {
+            throw new IOException("Registro incompleto");
+        }
+        p.nextToken();
+    }
+}
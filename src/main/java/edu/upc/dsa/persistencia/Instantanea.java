@@ -0,0 +1,190 @@
+package edu.upc.dsa.persistencia;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import edu.upc.dsa.LibrosManagerImpl;
+import edu.upc.dsa.json.ModelosJson;
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Prestamo;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instantánea del estado completo del manager: una cabecera con el primer segmento del diario
+ * que queda por reproducir y después una línea JSON por elemento del estado.
+ */
+public class Instantanea {
+    public static final String NOMBRE = "instantanea.json";
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Vuelca el estado a un fichero temporal junto al destino. Las mutaciones deben estar paradas.
+     * El fichero no es visible hasta publicar().
+     */
+    public static Path escribir(Path directorio, int segmento, LibrosManagerImpl manager) throws IOException {
+        Path temporal = directorio.resolve(NOMBRE + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporal), 1 << 16);
+             JsonGenerator g = FACTORY.createGenerator(out)) {
+            g.setRootValueSeparator(null);
+            g.writeStartObject();
+            g.writeStringField("op", "instantanea");
+            g.writeNumberField("segmento", segmento);
+            g.writeEndObject();
+            g.writeRaw('\n');
+            manager.volcarEstado(new ConsumidorEstado() {
+                @Override
+                public void lector(Lector lector) throws IOException {
+                    g.writeStartObject();
+                    g.writeStringField("op", "lector");
+                    g.writeFieldName("lector");
+                    ModelosJson.escribirLector(g, lector);
+                    g.writeEndObject();
+                    g.writeRaw('\n');
+                }
+
+                @Override
+                public void monton(List<Libro> baseACima) throws IOException {
+                    g.writeStartObject();
+                    g.writeStringField("op", "monton");
+                    g.writeArrayFieldStart("libros");
+                    for (Libro libro : baseACima) {
+                        ModelosJson.escribirLibro(g, libro);
+                    }
+                    g.writeEndArray();
+                    g.writeEndObject();
+                    g.writeRaw('\n');
+                }
+
+                @Override
+                public void ejemplar(Libro libro) throws IOException {
+                    g.writeStartObject();
+                    g.writeStringField("op", "ejemplar");
+                    g.writeFieldName("libro");
+                    ModelosJson.escribirLibro(g, libro);
+                    g.writeEndObject();
+                    g.writeRaw('\n');
+                }
+
+                @Override
+                public void agregado(String isbn, String idEjemplar, int stock) throws IOException {
+                    g.writeStartObject();
+                    g.writeStringField("op", "agregado");
+                    g.writeStringField("isbn", isbn);
+                    g.writeStringField("id", idEjemplar);
+                    g.writeNumberField("stock", stock);
+                    g.writeEndObject();
+                    g.writeRaw('\n');
+                }
+
+                @Override
+                public void prestamo(Prestamo prestamo) throws IOException {
+                    g.writeStartObject();
+                    g.writeStringField("op", "prestamo");
+                    g.writeFieldName("prestamo");
+                    ModelosJson.escribirPrestamo(g, prestamo);
+                    g.writeEndObject();
+                    g.writeRaw('\n');
+                }
+            });
+        }
+        return temporal;
+    }
+
+    /**
+     * Fuerza el temporal a disco y lo publica con un renombrado atómico.
+     */
+    public static void publicar(Path temporal) throws IOException {
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+        Files.move(temporal, temporal.resolveSibling(NOMBRE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Carga una instantánea en un manager vacío.
+     * @return el primer segmento del diario que hay que reproducir después
+     */
+    public static int cargar(Path fichero, LibrosManagerImpl manager) throws IOException {
+        ConsumidorEstado destino = manager.restaurador();
+        // Los agregados se aplican al final: necesitan todos sus ejemplares ya cargados
+        List<Object[]> agregados = new ArrayList<>();
+        int segmento;
+        try (InputStream in = Files.newInputStream(fichero);
+             JsonParser p = FACTORY.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT || !"instantanea".equals(leerOp(p))) {
+                throw new IOException("Cabecera de instantánea no válida en " + fichero);
+            }
+            campo(p, "segmento");
+            segmento = p.getIntValue();
+            p.nextToken();
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                String op = leerOp(p);
+                switch (op) {
+                    case "lector":
+                        campo(p, "lector");
+                        destino.lector(ModelosJson.leerLector(p));
+                        break;
+                    case "monton": {
+                        campo(p, "libros");
+                        List<Libro> libros = new ArrayList<>();
+                        while (p.nextToken() == JsonToken.START_OBJECT) {
+                            libros.add(ModelosJson.leerLibro(p));
+                        }
+                        destino.monton(libros);
+                        break;
+                    }
+                    case "ejemplar":
+                        campo(p, "libro");
+                        destino.ejemplar(ModelosJson.leerLibro(p));
+                        break;
+                    case "agregado": {
+                        campo(p, "isbn");
+                        String isbn = p.getText();
+                        campo(p, "id");
+                        String id = p.getText();
+                        campo(p, "stock");
+                        agregados.add(new Object[]{isbn, id, p.getIntValue()});
+                        break;
+                    }
+                    case "prestamo":
+                        campo(p, "prestamo");
+                        destino.prestamo(ModelosJson.leerPrestamo(p));
+                        break;
+                    default:
+                        throw new IOException("Elemento desconocido en la instantánea: " + op);
+                }
+                p.nextToken(); // END_OBJECT del registro
+            }
+        }
+        for (Object[] a : agregados) {
+            destino.agregado((String) a[0], (String) a[1], (Integer) a[2]);
+        }
+        return segmento;
+    }
+
+    private static String leerOp(JsonParser p) throws IOException {
+        campo(p, "op");
+        return p.getText();
+    }
+
+    private static void campo(JsonParser p, String nombre) throws IOException {
+        if (p.nextToken() != JsonToken.FIELD_NAME || !nombre.equals(p.getCurrentName())) {
+            throw new IOException("Se esperaba el campo " + nombre + " en la instantánea");
+        }
+        p.nextToken();
+    }
+}
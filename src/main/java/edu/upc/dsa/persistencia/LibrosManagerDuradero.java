@@ -0,0 +1,308 @@
+package edu.upc.dsa.persistencia;
+
+import edu.upc.dsa.LibrosManager;
+import edu.upc.dsa.LibrosManagerImpl;
+import edu.upc.dsa.models.AnaliticaCatalogo;
+import edu.upc.dsa.models.Estadisticas;
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Pagina;
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.ResultadoBusqueda;
+import edu.upc.dsa.models.ResultadoDevolucion;
+import edu.upc.dsa.models.ResultadoLector;
+import edu.upc.dsa.models.ResultadoLote;
+import edu.upc.dsa.models.ResultadoPrestamo;
+import edu.upc.dsa.models.ResumenCatalogacion;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Modo duradero del manager: cada mutación queda en el diario de operaciones antes de
+ * responder, y periódicamente el estado se compacta en una instantánea.
+ *
+ * Las mutaciones comparten el cerrojo de lectura; la compactación y clear() toman el de
+ * escritura para tener una foto consistente del estado.
+ */
+public class LibrosManagerDuradero implements LibrosManager {
+    final static Logger logger = Logger.getLogger(LibrosManagerDuradero.class);
+
+    private final LibrosManagerImpl manager;
+    private final Path directorio;
+    private final DiarioOperaciones diario;
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private ScheduledExecutorService compactador;
+
+    private LibrosManagerDuradero(LibrosManagerImpl manager, Path directorio, DiarioOperaciones diario) {
+        this.manager = manager;
+        this.directorio = directorio;
+        this.diario = diario;
+    }
+
+    /**
+     * Recupera el estado guardado en el directorio sobre un manager vacío (instantánea más
+     * los segmentos del diario posteriores) y lo deja en modo duradero.
+     * @param compactarCadaMs periodo de compactación, o 0 para no compactar automáticamente
+     */
+    public static LibrosManagerDuradero abrir(LibrosManagerImpl manager, Path directorio, long compactarCadaMs) throws IOException {
+        long inicio = System.currentTimeMillis();
+        Files.createDirectories(directorio);
+        Path instantanea = directorio.resolve(Instantanea.NOMBRE);
+        int primerSegmento = 0;
+        if (Files.exists(instantanea)) {
+            primerSegmento = Instantanea.cargar(instantanea, manager);
+        }
+        int siguienteSegmento = primerSegmento;
+        long operaciones = 0;
+        for (Path segmento : segmentos(directorio)) {
+            int numero = DiarioOperaciones.numeroSegmento(segmento);
+            if (numero < primerSegmento) {
+                // Ya cubierto por la instantánea: quedó de una compactación interrumpida
+                Files.delete(segmento);
+                continue;
+            }
+            operaciones += DiarioOperaciones.reproducir(segmento, manager);
+            siguienteSegmento = numero + 1;
+        }
+        logger.info("Estado recuperado de " + directorio + " en " + (System.currentTimeMillis() - inicio) + " ms (" + operaciones + " operaciones del diario)");
+
+        // Siempre se empieza un segmento nuevo, así nunca se escribe detrás de una línea a medias
+        DiarioOperaciones diario = new DiarioOperaciones(directorio, siguienteSegmento);
+        manager.setRegistro(diario);
+        LibrosManagerDuradero duradero = new LibrosManagerDuradero(manager, directorio, diario);
+        if (compactarCadaMs > 0) {
+            duradero.programarCompactacion(compactarCadaMs);
+        }
+        return duradero;
+    }
+
+    private static List<Path> segmentos(Path directorio) throws IOException {
+        List<Path> segmentos = new ArrayList<>();
+        try (DirectoryStream<Path> ficheros = Files.newDirectoryStream(directorio, "diario-*.log")) {
+            for (Path fichero : ficheros) {
+                if (DiarioOperaciones.numeroSegmento(fichero) >= 0) segmentos.add(fichero);
+            }
+        }
+        Collections.sort(segmentos, (a, b) -> Integer.compare(DiarioOperaciones.numeroSegmento(a), DiarioOperaciones.numeroSegmento(b)));
+        return segmentos;
+    }
+
+    private void programarCompactacion(long periodoMs) {
+        compactador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "compactador-diario");
+            t.setDaemon(true);
+            return t;
+        });
+        compactador.scheduleWithFixedDelay(() -> {
+            try {
+                compactar();
+            }
+            catch (IOException | RuntimeException ex) {
+                logger.error("Error compactando el diario: ", ex);
+            }
+        }, periodoMs, periodoMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Escribe una instantánea del estado y borra los segmentos del diario que ya cubre.
+     * Las mutaciones solo se paran mientras se vuelca el estado; el fsync y el renombrado
+     * se hacen ya sin el cerrojo.
+     */
+    public void compactar() throws IOException {
+        long inicio = System.currentTimeMillis();
+        int segmento;
+        Path temporal;
+        cerrojo.writeLock().lock();
+        try {
+            segmento = diario.rotar();
+            temporal = Instantanea.escribir(directorio, segmento, manager);
+        }
+        finally {
+            cerrojo.writeLock().unlock();
+        }
+        Instantanea.publicar(temporal);
+        for (Path viejo : segmentos(directorio)) {
+            if (DiarioOperaciones.numeroSegmento(viejo) < segmento) {
+                Files.delete(viejo);
+            }
+        }
+        logger.info("Diario compactado en " + (System.currentTimeMillis() - inicio) + " ms; nuevo segmento " + segmento);
+    }
+
+    public void cerrar() throws IOException {
+        if (compactador != null) {
+            compactador.shutdownNow();
+        }
+        manager.setRegistro(null);
+        diario.cerrar();
+    }
+
+    /** El manager en memoria; lo que se le haga directamente no queda en el diario */
+    public LibrosManagerImpl getEnvuelto() {
+        return manager;
+    }
+
+    private <T> T mutar(Supplier<T> operacion) {
+        T resultado;
+        cerrojo.readLock().lock();
+        try {
+            resultado = operacion.get();
+        }
+        finally {
+            cerrojo.readLock().unlock();
+        }
+        // Commit en grupo: se espera fuera del cerrojo a que el escritor haga el fsync
+        diario.esperarDurable(diario.secuenciaActual());
+        return resultado;
+    }
+
+    // -------- MUTACIONES --------
+
+    @Override
+    public ResultadoLector addLector(String id, String nombre, String apellidos, String dni, String fechaNacimiento, String lugarNacimiento, String direccion) {
+        return mutar(() -> manager.addLector(id, nombre, apellidos, dni, fechaNacimiento, lugarNacimiento, direccion));
+    }
+
+    @Override
+    public boolean almacenarLibro(Libro libro) {
+        return mutar(() -> manager.almacenarLibro(libro));
+    }
+
+    @Override
+    public ResultadoLote almacenarLibros(List<Libro> libros) {
+        return mutar(() -> manager.almacenarLibros(libros));
+    }
+
+    @Override
+    public Libro catalogarSiguienteLibro() {
+        return mutar(manager::catalogarSiguienteLibro);
+    }
+
+    @Override
+    public ResumenCatalogacion catalogarSiguientesLibros(int n) {
+        return mutar(() -> manager.catalogarSiguientesLibros(n));
+    }
+
+    @Override
+    public ResumenCatalogacion catalogarTodosLosLibros() {
+        return mutar(manager::catalogarTodosLosLibros);
+    }
+
+    @Override
+    public ResultadoPrestamo prestarLibro(Prestamo prestamo) {
+        return mutar(() -> manager.prestarLibro(prestamo));
+    }
+
+    @Override
+    public ResultadoDevolucion devolverLibro(String prestamoId) {
+        return mutar(() -> manager.devolverLibro(prestamoId));
+    }
+
+    @Override
+    public void clear() {
+        cerrojo.writeLock().lock();
+        try {
+            manager.clear();
+        }
+        finally {
+            cerrojo.writeLock().unlock();
+        }
+        diario.esperarDurable(diario.secuenciaActual());
+    }
+
+    // -------- LECTURAS --------
+
+    @Override
+    public List<Prestamo> prestamosDeLector(String lectorId) {
+        return manager.prestamosDeLector(lectorId);
+    }
+
+    @Override
+    public void recorrerPrestamosDeLector(String lectorId, Consumer<Prestamo> consumidor) {
+        manager.recorrerPrestamosDeLector(lectorId, consumidor);
+    }
+
+    @Override
+    public void recorrerPrestamosDeLector(String lectorId, boolean enTramite, Consumer<Prestamo> consumidor) {
+        manager.recorrerPrestamosDeLector(lectorId, enTramite, consumidor);
+    }
+
+    @Override
+    public List<Prestamo> prestamosVencidosHasta(String fecha) {
+        return manager.prestamosVencidosHasta(fecha);
+    }
+
+    @Override
+    public Pagina<Lector> listarLectores(String cursor, int limite) {
+        return manager.listarLectores(cursor, limite);
+    }
+
+    @Override
+    public Pagina<Libro> listarCatalogo(String cursor, int limite) {
+        return manager.listarCatalogo(cursor, limite);
+    }
+
+    @Override
+    public Pagina<Prestamo> listarPrestamos(String cursor, int limite) {
+        return manager.listarPrestamos(cursor, limite);
+    }
+
+    @Override
+    public ResultadoBusqueda buscarLibros(String texto, String tematica, String editorial, Integer año, int pagina, int tamañoPagina) {
+        return manager.buscarLibros(texto, tematica, editorial, año, pagina, tamañoPagina);
+    }
+
+    @Override
+    public AnaliticaCatalogo analizarCatalogo(String agrupacion) {
+        return manager.analizarCatalogo(agrupacion);
+    }
+
+    @Override
+    public Prestamo getPrestamo(String id) {
+        return manager.getPrestamo(id);
+    }
+
+    @Override
+    public Lector getLector(String id) {
+        return manager.getLector(id);
+    }
+
+    @Override
+    public int lectoresSize() {
+        return manager.lectoresSize();
+    }
+
+    @Override
+    public Libro getLibroPorIsbn(String isbn) {
+        return manager.getLibroPorIsbn(isbn);
+    }
+
+    @Override
+    public int getStockPorIsbn(String isbn) {
+        return manager.getStockPorIsbn(isbn);
+    }
+
+    @Override
+    public long getVersionIsbn(String isbn) {
+        return manager.getVersionIsbn(isbn);
+    }
+
+    @Override
+    public Estadisticas getEstadisticas() {
+        return manager.getEstadisticas();
+    }
+}
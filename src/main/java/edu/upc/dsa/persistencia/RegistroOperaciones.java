@@ -0,0 +1,33 @@
+package edu.upc.dsa.persistencia;
+
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Prestamo;
+
+import java.util.List;
+
+/**
+ * Recibe cada mutación del manager ya aplicada. El manager la notifica dentro de la misma
+ * sección crítica que la aplica, así el orden del registro es el mismo que el del estado.
+ * El stock es la excepción: un préstamo se notifica después de reservar su ejemplar, y una
+ * devolución o una catalogación antes de sumar los suyos, así que repetir el registro en
+ * orden nunca se queda sin stock para un préstamo que sí se hizo.
+ * Por eso las implementaciones no pueden bloquear ni lanzar excepciones.
+ */
+public interface RegistroOperaciones {
+    RegistroOperaciones NINGUNO = new RegistroOperaciones() {};
+
+    default void lectorGuardado(Lector lector) {}
+
+    default void libroAlmacenado(Libro libro) {}
+
+    default void librosAlmacenados(List<Libro> libros) {}
+
+    default void librosCatalogados(int n) {}
+
+    default void prestamoCreado(Prestamo prestamo) {}
+
+    default void prestamoDevuelto(String prestamoId) {}
+
+    default void borradoTotal() {}
+}
@@ -0,0 +1,48 @@
+package edu.upc.dsa.prestamos;
+
+import edu.upc.dsa.models.Prestamo;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Dónde guarda el manager sus préstamos. Las implementaciones deben ser thread-safe:
+ * el manager guarda préstamos de ISBNs distintos en paralelo.
+ */
+public interface AlmacenPrestamos {
+    /** @return el préstamo que había con el mismo id, o null */
+    Prestamo guardar(Prestamo prestamo);
+
+    Prestamo buscar(String id);
+
+    /** @return el préstamo quitado, o null si no estaba */
+    Prestamo eliminar(String id);
+
+    /** Préstamos del lector en orden de creación */
+    List<Prestamo> deLector(String lectorId);
+
+    /**
+     * Como deLector pero entregando los préstamos uno a uno, sin reunirlos en una lista.
+     * No bloquea el almacén mientras el consumidor trabaja, así que puede no ver los cambios
+     * hechos durante el recorrido.
+     */
+    void recorrerDeLector(String lectorId, Consumer<Prestamo> consumidor);
+
+    /**
+     * Préstamos en trámite cuyo final es como mucho el día dado, ordenados por fecha final.
+     * Sale de un índice ordenado por fecha final, no de recorrer todos los préstamos.
+     */
+    List<Prestamo> activosConFinalHasta(int diaEpoch);
+
+    /**
+     * Hasta limite préstamos por orden de id, empezando por el primero con id mayor que
+     * desdeId (o igual, si incluirDesde). Con desdeId null empieza por el principio.
+     */
+    List<Prestamo> porId(String desdeId, boolean incluirDesde, int limite);
+
+    void recorrer(Consumer<Prestamo> consumidor);
+
+    int tamaño();
+
+    void clear();
+}
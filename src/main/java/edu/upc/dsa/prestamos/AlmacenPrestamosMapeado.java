@@ -0,0 +1,294 @@
+package edu.upc.dsa.prestamos;
+
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.util.Fechas;
+import edu.upc.dsa.util.ListaEnteros;
+import edu.upc.dsa.util.TablaIdentificadores;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Préstamos en un fichero mapeado en memoria, con registros de ancho fijo:
+ *
+ *   lector (int) | libro (int) | inicio (int, día epoch) | final (int, día epoch) | secuencia (long) | flags (byte) | relleno
+ *
+ * Los ids de lector y libro se internan en enteros, las fechas se guardan como días desde epoch
+ * y enTramite es un bit. La secuencia crece con cada guardar(), así que ordena los préstamos de
+ * un lector igual que su índice y permite retomar un recorrido aunque el índice haya cambiado. Solo se crea un Prestamo al devolverlo. En el heap quedan los ids de
+ * préstamo (hacen falta para buscar por id, y van ordenados para listar por páginas), el índice
+ * por lector y el de préstamos en trámite por fecha final, los dos de int a int.
+ *
+ * Los registros borrados se reutilizan antes de añadir otros al final, así que el fichero crece
+ * con el máximo de préstamos vivos a la vez y no con todos los que ha habido.
+ *
+ * El fichero es espacio de trabajo, no persistencia: se vacía al abrir. La durabilidad la da
+ * el diario de operaciones.
+ */
+public class AlmacenPrestamosMapeado implements AlmacenPrestamos {
+    static final int TAMAÑO_REGISTRO = 28;
+    private static final int OFF_LECTOR = 0;
+    private static final int OFF_LIBRO = 4;
+    private static final int OFF_INICIO = 8;
+    private static final int OFF_FINAL = 12;
+    private static final int OFF_SECUENCIA = 16;
+    private static final int OFF_FLAGS = 24;
+    private static final byte FLAG_EN_TRAMITE = 1;
+    private static final byte FLAG_BORRADO = 2;
+
+    private static final int REGISTROS_INICIALES = 1 << 16;
+    // Un solo MappedByteBuffer se direcciona con int
+    private static final int MAX_REGISTROS = Integer.MAX_VALUE / TAMAÑO_REGISTRO;
+    // Préstamos que recorrerDeLector lee de una vez con el cerrojo
+    static final int TROZO_RECORRIDO = 256;
+
+    private final Path fichero;
+    private final FileChannel canal;
+    private MappedByteBuffer buffer;
+    private int capacidad;
+    // Registros ocupados alguna vez; los de [0, numRegistros) que no están vivos están en libres
+    private int numRegistros;
+    private int numVivos;
+    // No vuelve a cero con clear(): un recorrido empezado antes no confunde los préstamos nuevos
+    private long siguienteSecuencia;
+    private final ListaEnteros libres = new ListaEnteros();
+
+    private final TablaIdentificadores lectores = new TablaIdentificadores();
+    private final TablaIdentificadores libros = new TablaIdentificadores();
+    private final TreeMap<String, Integer> posicionPorId = new TreeMap<>();
+    private final List<String> idPorPosicion = new ArrayList<>();
+    private final Map<Integer, ListaEnteros> posicionesPorLector = new HashMap<>();
+    private final TreeMap<Integer, ListaEnteros> activosPorFinal = new TreeMap<>();
+
+    public AlmacenPrestamosMapeado(Path fichero) throws IOException {
+        this.fichero = fichero;
+        this.canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        mapear(REGISTROS_INICIALES);
+    }
+
+    /**
+     * Almacén sobre un fichero temporal que se borra al salir de la JVM.
+     */
+    public static AlmacenPrestamosMapeado temporal() throws IOException {
+        Path fichero = Files.createTempFile("prestamos", ".dat");
+        fichero.toFile().deleteOnExit();
+        return new AlmacenPrestamosMapeado(fichero);
+    }
+
+    private void mapear(int registros) throws IOException {
+        this.buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, (long) registros * TAMAÑO_REGISTRO);
+        this.capacidad = registros;
+    }
+
+    private void asegurarCapacidad() {
+        if (numRegistros < capacidad) return;
+        if (capacidad >= MAX_REGISTROS) {
+            throw new IllegalStateException("El almacén de préstamos está lleno (" + MAX_REGISTROS + " registros)");
+        }
+        try {
+            mapear((int) Math.min((long) capacidad * 2, MAX_REGISTROS));
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException("No se ha podido ampliar " + fichero, ex);
+        }
+    }
+
+    @Override
+    public synchronized Prestamo guardar(Prestamo prestamo) {
+        int fin = prestamo.diaFinalPrestamo();
+        Prestamo anterior = null;
+        Integer posAnterior = posicionPorId.get(prestamo.getId());
+        if (posAnterior != null) {
+            anterior = leer(posAnterior);
+            borrar(posAnterior);
+        }
+        int pos;
+        if (!libres.isEmpty()) {
+            pos = libres.quitarUltimo();
+        }
+        else {
+            asegurarCapacidad();
+            pos = numRegistros++;
+            idPorPosicion.add(null);
+        }
+        int lector = lectores.internar(prestamo.getLectorId());
+        int base = pos * TAMAÑO_REGISTRO;
+        buffer.putInt(base + OFF_LECTOR, lector);
+        buffer.putInt(base + OFF_LIBRO, libros.internar(prestamo.getLibroId()));
+        buffer.putInt(base + OFF_INICIO, prestamo.diaInicioPrestamo());
+        buffer.putInt(base + OFF_FINAL, fin);
+        buffer.putLong(base + OFF_SECUENCIA, siguienteSecuencia++);
+        buffer.put(base + OFF_FLAGS, prestamo.isEnTramite() ? FLAG_EN_TRAMITE : 0);
+        posicionPorId.put(prestamo.getId(), pos);
+        idPorPosicion.set(pos, prestamo.getId());
+        posicionesPorLector.computeIfAbsent(lector, k -> new ListaEnteros()).añadir(pos);
+        if (prestamo.isEnTramite() && fin != Fechas.SIN_FECHA) {
+            activosPorFinal.computeIfAbsent(fin, k -> new ListaEnteros()).añadir(pos);
+        }
+        numVivos++;
+        return anterior;
+    }
+
+    /**
+     * Marca el registro como borrado, lo quita de los índices (salvo de posicionPorId) y lo deja
+     * libre para el siguiente guardar()
+     */
+    private void borrar(int pos) {
+        int base = pos * TAMAÑO_REGISTRO;
+        buffer.put(base + OFF_FLAGS, (byte) (buffer.get(base + OFF_FLAGS) | FLAG_BORRADO));
+        idPorPosicion.set(pos, null);
+        libres.añadir(pos);
+        posicionesPorLector.get(buffer.getInt(base + OFF_LECTOR)).eliminar(pos);
+        int fin = buffer.getInt(base + OFF_FINAL);
+        ListaEnteros delMismoDia = activosPorFinal.get(fin);
+        if (delMismoDia != null && delMismoDia.eliminar(pos) && delMismoDia.tamaño() == 0) {
+            activosPorFinal.remove(fin);
+        }
+        numVivos--;
+    }
+
+    private Prestamo leer(int pos) {
+        int base = pos * TAMAÑO_REGISTRO;
+        Prestamo p = new Prestamo(idPorPosicion.get(pos),
+                lectores.texto(buffer.getInt(base + OFF_LECTOR)),
+                libros.texto(buffer.getInt(base + OFF_LIBRO)),
+                buffer.getInt(base + OFF_INICIO),
+                buffer.getInt(base + OFF_FINAL));
+        p.setEnTramite((buffer.get(base + OFF_FLAGS) & FLAG_EN_TRAMITE) != 0);
+        return p;
+    }
+
+    @Override
+    public synchronized Prestamo buscar(String id) {
+        Integer pos = (id == null) ? null : posicionPorId.get(id);
+        return (pos == null) ? null : leer(pos);
+    }
+
+    @Override
+    public synchronized Prestamo eliminar(String id) {
+        Integer pos = (id == null) ? null : posicionPorId.remove(id);
+        if (pos == null) return null;
+        Prestamo eliminado = leer(pos);
+        borrar(pos);
+        return eliminado;
+    }
+
+    @Override
+    public synchronized List<Prestamo> deLector(String lectorId) {
+        int lector = (lectorId == null) ? TablaIdentificadores.NO_EXISTE : lectores.buscar(lectorId);
+        ListaEnteros posiciones = posicionesPorLector.get(lector);
+        if (posiciones == null) return new ArrayList<>();
+        List<Prestamo> resultado = new ArrayList<>(posiciones.tamaño());
+        for (int i = 0; i < posiciones.tamaño(); i++) {
+            resultado.add(leer(posiciones.get(i)));
+        }
+        return resultado;
+    }
+
+    /**
+     * Lee los préstamos del lector en trozos de TROZO_RECORRIDO, cada uno con el cerrojo, y los
+     * entrega sin él: ni la memoria ni el tiempo con el almacén bloqueado dependen de cuántos
+     * tenga el lector. Cada trozo sigue detrás de la secuencia del último préstamo entregado, no
+     * de su índice: si entretanto se han borrado préstamos del lector, su lista se ha desplazado.
+     */
+    @Override
+    public void recorrerDeLector(String lectorId, Consumer<Prestamo> consumidor) {
+        if (lectorId == null) return;
+        List<Prestamo> trozo = new ArrayList<>(TROZO_RECORRIDO);
+        int siguiente = 0;
+        long ultimaSecuencia = -1;
+        do {
+            trozo.clear();
+            synchronized (this) {
+                ListaEnteros delLector = posicionesPorLector.get(lectores.buscar(lectorId));
+                if (delLector == null) return;
+                if (siguiente > delLector.tamaño() || (siguiente > 0 && secuencia(delLector.get(siguiente - 1)) != ultimaSecuencia)) {
+                    siguiente = primeroDespuesDe(delLector, ultimaSecuencia);
+                }
+                while (siguiente < delLector.tamaño() && trozo.size() < TROZO_RECORRIDO) {
+                    int pos = delLector.get(siguiente++);
+                    trozo.add(leer(pos));
+                    ultimaSecuencia = secuencia(pos);
+                }
+            }
+            trozo.forEach(consumidor);
+        } while (trozo.size() == TROZO_RECORRIDO);
+    }
+
+    private long secuencia(int pos) {
+        return buffer.getLong(pos * TAMAÑO_REGISTRO + OFF_SECUENCIA);
+    }
+
+    // Las posiciones de un lector están en orden de secuencia: búsqueda binaria
+    private int primeroDespuesDe(ListaEnteros posiciones, long secuencia) {
+        int desde = 0, hasta = posiciones.tamaño();
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            if (secuencia(posiciones.get(medio)) <= secuencia) desde = medio + 1;
+            else hasta = medio;
+        }
+        return desde;
+    }
+
+    @Override
+    public synchronized List<Prestamo> activosConFinalHasta(int diaEpoch) {
+        List<Prestamo> resultado = new ArrayList<>();
+        for (ListaEnteros delDia : activosPorFinal.headMap(diaEpoch, true).values()) {
+            for (int i = 0; i < delDia.tamaño(); i++) {
+                resultado.add(leer(delDia.get(i)));
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public synchronized List<Prestamo> porId(String desdeId, boolean incluirDesde, int limite) {
+        NavigableMap<String, Integer> desde = (desdeId == null) ? posicionPorId : posicionPorId.tailMap(desdeId, incluirDesde);
+        List<Prestamo> resultado = new ArrayList<>(Math.min(limite, 1024));
+        for (int pos : desde.values()) {
+            if (resultado.size() >= limite) break;
+            resultado.add(leer(pos));
+        }
+        return resultado;
+    }
+
+    @Override
+    public synchronized void recorrer(Consumer<Prestamo> consumidor) {
+        for (int pos = 0; pos < numRegistros; pos++) {
+            if ((buffer.get(pos * TAMAÑO_REGISTRO + OFF_FLAGS) & FLAG_BORRADO) == 0) {
+                consumidor.accept(leer(pos));
+            }
+        }
+    }
+
+    @Override
+    public synchronized int tamaño() {
+        return numVivos;
+    }
+
+    @Override
+    public synchronized void clear() {
+        numRegistros = 0;
+        numVivos = 0;
+        libres.clear();
+        lectores.clear();
+        libros.clear();
+        posicionPorId.clear();
+        idPorPosicion.clear();
+        posicionesPorLector.clear();
+        activosPorFinal.clear();
+    }
+}
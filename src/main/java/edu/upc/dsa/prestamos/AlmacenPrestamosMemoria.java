@@ -0,0 +1,113 @@
+package edu.upc.dsa.prestamos;
+
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.util.Fechas;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * Préstamos como objetos en el heap, con un índice secundario lectorId -> préstamos
+ * para no recorrer todos los préstamos en deLector, otro de préstamos en trámite
+ * ordenado por fecha final y los ids ordenados para listar por páginas.
+ */
+public class AlmacenPrestamosMemoria implements AlmacenPrestamos {
+    private final ConcurrentHashMap<String, Prestamo> prestamos = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Queue<Prestamo>> prestamosPorLector = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Prestamo> activosPorFinal = new ConcurrentSkipListSet<>(
+            Comparator.comparingInt(Prestamo::diaFinalPrestamo).thenComparing(Prestamo::getId));
+    private final ConcurrentSkipListSet<String> idsOrdenados = new ConcurrentSkipListSet<>();
+
+    @Override
+    public Prestamo guardar(Prestamo prestamo) {
+        Prestamo anterior = prestamos.put(prestamo.getId(), prestamo);
+        if (anterior != null) {
+            Queue<Prestamo> delAnterior = prestamosPorLector.get(anterior.getLectorId());
+            if (delAnterior != null) delAnterior.remove(anterior);
+            activosPorFinal.remove(anterior);
+        }
+        prestamosPorLector.computeIfAbsent(prestamo.getLectorId(), k -> new ConcurrentLinkedQueue<>()).add(prestamo);
+        idsOrdenados.add(prestamo.getId());
+        if (prestamo.isEnTramite() && prestamo.diaFinalPrestamo() != Fechas.SIN_FECHA) {
+            activosPorFinal.add(prestamo);
+        }
+        return anterior;
+    }
+
+    @Override
+    public Prestamo buscar(String id) {
+        return (id == null) ? null : prestamos.get(id);
+    }
+
+    @Override
+    public Prestamo eliminar(String id) {
+        Prestamo eliminado = (id == null) ? null : prestamos.remove(id);
+        if (eliminado != null) {
+            Queue<Prestamo> delLector = prestamosPorLector.get(eliminado.getLectorId());
+            if (delLector != null) delLector.remove(eliminado);
+            activosPorFinal.remove(eliminado);
+            idsOrdenados.remove(id);
+        }
+        return eliminado;
+    }
+
+    @Override
+    public List<Prestamo> deLector(String lectorId) {
+        Queue<Prestamo> indexados = (lectorId == null) ? null : prestamosPorLector.get(lectorId);
+        return (indexados == null) ? new ArrayList<>() : new ArrayList<>(indexados);
+    }
+
+    @Override
+    public void recorrerDeLector(String lectorId, Consumer<Prestamo> consumidor) {
+        Queue<Prestamo> indexados = (lectorId == null) ? null : prestamosPorLector.get(lectorId);
+        if (indexados != null) {
+            indexados.forEach(consumidor);
+        }
+    }
+
+    @Override
+    public List<Prestamo> activosConFinalHasta(int diaEpoch) {
+        List<Prestamo> resultado = new ArrayList<>();
+        for (Prestamo p : activosPorFinal) {
+            if (p.diaFinalPrestamo() > diaEpoch) break;
+            resultado.add(p);
+        }
+        return resultado;
+    }
+
+    @Override
+    public List<Prestamo> porId(String desdeId, boolean incluirDesde, int limite) {
+        List<Prestamo> resultado = new ArrayList<>(Math.min(limite, 1024));
+        for (String id : (desdeId == null) ? idsOrdenados : idsOrdenados.tailSet(desdeId, incluirDesde)) {
+            if (resultado.size() >= limite) break;
+            // Puede haberse eliminado entre el índice y el mapa
+            Prestamo prestamo = prestamos.get(id);
+            if (prestamo != null) resultado.add(prestamo);
+        }
+        return resultado;
+    }
+
+    @Override
+    public void recorrer(Consumer<Prestamo> consumidor) {
+        prestamos.values().forEach(consumidor);
+    }
+
+    @Override
+    public int tamaño() {
+        return prestamos.size();
+    }
+
+    @Override
+    public void clear() {
+        prestamos.clear();
+        prestamosPorLector.clear();
+        activosPorFinal.clear();
+        idsOrdenados.clear();
+    }
+}
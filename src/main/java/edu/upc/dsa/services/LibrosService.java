@@ -1,31 +1,76 @@
 package edu.upc.dsa.services;
 
+import edu.upc.dsa.CatalogadorAutomatico;
 import edu.upc.dsa.LibrosManager;
+import edu.upc.dsa.FabricaManager;
 import edu.upc.dsa.LibrosManagerImpl;
+import edu.upc.dsa.busqueda.IndiceCatalogo;
+import edu.upc.dsa.ejecucion.Ejecucion;
+import edu.upc.dsa.json.LibrosJson;
+import edu.upc.dsa.json.ModelosJson;
+import edu.upc.dsa.json.SalidaJson;
+import edu.upc.dsa.models.AnaliticaCatalogo;
+import edu.upc.dsa.models.ErrorLote;
+import edu.upc.dsa.models.ErrorRespuesta;
+import edu.upc.dsa.models.EstadoCatalogador;
 import edu.upc.dsa.models.Lector;
 import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Pagina;
 import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.ResultadoBusqueda;
+import edu.upc.dsa.models.ResultadoDevolucion;
+import edu.upc.dsa.models.ResultadoLector;
+import edu.upc.dsa.models.ResultadoLote;
+import edu.upc.dsa.models.ResultadoPrestamo;
+import edu.upc.dsa.models.ResumenCatalogacion;
+import edu.upc.dsa.models.StockIsbn;
+import edu.upc.dsa.util.CacheSerializada;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Function;
 
 @Api(value = "/librosManager", description = "Endpoint to manage lectores, libros and préstamos")
 @Path("/librosManager")
 
 public class LibrosService {
 
+    // Cursor de la página siguiente en los listados; falta en la última página
+    public static final String CABECERA_CURSOR_SIGUIENTE = "X-Cursor-Siguiente";
+
+    // Respuestas de libro y de stock por ISBN ya serializadas, compartidas por todas las
+    // peticiones; cada entrada vale para una versión del ISBN (ver getVersionIsbn)
+    private static final CacheSerializada CACHE_LIBROS = new CacheSerializada(100000);
+    private static final CacheSerializada CACHE_STOCK = new CacheSerializada(100000);
+    // Las versiones vuelven a empezar en cada arranque: esto evita que una ETag de una
+    // ejecución anterior coincida por casualidad
+    private static final String INSTANCIA = Long.toString(System.currentTimeMillis(), 36);
+    // El cliente puede guardar la respuesta pero tiene que revalidarla (If-None-Match) cada vez
+    private static final CacheControl REVALIDAR = CacheControl.valueOf("no-cache");
+
     private LibrosManager manager;
+    private final Ejecucion ejecucion;
 
     public LibrosService() {
-        this.manager = LibrosManagerImpl.getInstance();
+        this.manager = FabricaManager.getInstance();
+        this.ejecucion = Ejecucion.getInstance();
 
         if (manager.lectoresSize() == 0) {
             if (manager.lectoresSize() == 0) {
@@ -51,37 +96,128 @@ public class LibrosService {
     }
 
     // -------- RUTES --------
+    // Cada ruta suspende la petición y la completa donde diga Ejecucion: por defecto en el
+    // mismo hilo de Grizzly, o en un pool o en hilos virtuales (libros.ejecucion.manejadores).
+
+    private static Response error(int status, String codigo, String motivo) {
+        return Response.status(status).entity(new ErrorRespuesta(codigo, motivo)).type(MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Los elementos van en el cuerpo, como en el resto de listados, y el cursor siguiente en
+     * una cabecera y en un Link rel="next" con la misma URI y el cursor cambiado.
+     */
+    private static Response respuestaPagina(Pagina<?> pagina, GenericEntity<?> elementos, UriInfo uriInfo) {
+        Response.ResponseBuilder respuesta = Response.status(201).entity(elementos);
+        if (pagina.getCursorSiguiente() != null) {
+            respuesta.header(CABECERA_CURSOR_SIGUIENTE, pagina.getCursorSiguiente());
+            respuesta.link(uriInfo.getRequestUriBuilder().replaceQueryParam("cursor", pagina.getCursorSiguiente()).build(), "next");
+        }
+        return respuesta.build();
+    }
+
+    private static Response errorPagina() {
+        return error(400, "NO_VALIDO", "Cursor no válido o límite fuera de 1 a " + LibrosManagerImpl.LIMITE_LISTADO_MAX);
+    }
+
+    @GET
+    @ApiOperation(value = "Listar los lectores por orden de id, por páginas")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successful", response = Lector.class, responseContainer = "List"),
+            @ApiResponse(code = 400, message = "Cursor o límite no válidos", response = ErrorRespuesta.class)
+    })
+    @Path("/lectores")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void listarLectores(@QueryParam("cursor") String cursor, @QueryParam("limite") @DefaultValue("100") int limite,
+                               @Context UriInfo uriInfo, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            Pagina<Lector> pagina = manager.listarLectores(cursor, limite);
+            if (pagina == null) {
+                return errorPagina();
+            }
+            return respuestaPagina(pagina, new GenericEntity<List<Lector>>(pagina.getElementos()) {}, uriInfo);
+        });
+    }
 
     @POST
     @ApiOperation(value = "Añadir un lector")
     @ApiResponses({
-            @ApiResponse(code = 201, message = "Successful", response=Lector.class),
-            @ApiResponse(code = 500, message = "Validation Error")
+            @ApiResponse(code = 201, message = "Lector añadido", response=Lector.class),
+            @ApiResponse(code = 200, message = "Lector actualizado o sin cambios", response=Lector.class),
+            @ApiResponse(code = 400, message = "Falta el id o la fecha no es válida", response = ErrorRespuesta.class)
     })
     @Path("/lectores")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response addLector(Lector lector) {
-        if (lector == null || lector.getId() == null) {
-            return Response.status(500).entity(lector).build();
-        }
-        manager.addLector(lector.getId(), lector.getNombre(), lector.getApellidos(), lector.getDni(), lector.getFechaNacimiento(), lector.getLugarNacimiento(), lector.getDireccion());
-        return Response.status(201).entity(lector).build();
+    public void addLector(Lector lector, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            if (lector == null) {
+                return error(400, ResultadoLector.NO_VALIDO.name(), ResultadoLector.NO_VALIDO.getMotivo());
+            }
+            ResultadoLector resultado = manager.addLector(lector.getId(), lector.getNombre(), lector.getApellidos(), lector.getDni(), lector.getFechaNacimiento(), lector.getLugarNacimiento(), lector.getDireccion());
+            switch (resultado) {
+                case CREADO:
+                    return Response.status(201).entity(lector).build();
+                case ACTUALIZADO:
+                case SIN_CAMBIOS:
+                    return Response.status(200).entity(lector).build();
+                default:
+                    return error(400, resultado.name(), resultado.getMotivo());
+            }
+        });
     }
 
     @POST
     @ApiOperation(value = "Almacenar un libro")
     @ApiResponses({
             @ApiResponse(code = 201, message = "Successful", response = Libro.class),
-            @ApiResponse(code = 404, message = "Libro no encontrado")
+            @ApiResponse(code = 400, message = "Falta el id o el isbn", response = ErrorRespuesta.class)
     })
     @Path("/libros/almacen")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response almacenarLibro(Libro libro) {
-        if (libro == null || libro.getId() == null) {
-            return Response.status(404).build();
+    public void almacenarLibro(Libro libro, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            if (!manager.almacenarLibro(libro)) {
+                return error(400, "NO_VALIDO", "Falta el libro, su id o su isbn");
+            }
+            return Response.status(201).entity(libro).build();
+        });
+    }
+
+    @POST
+    @ApiOperation(value = "Almacenar un lote de libros (array JSON)")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Lote procesado", response = ResultadoLote.class)
+    })
+    @Path("/libros/almacen/lote")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public void almacenarLoteJson(InputStream cuerpo, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            return almacenarLote(LibrosJson.leerArray(cuerpo));
+        });
+    }
+
+    @POST
+    @ApiOperation(value = "Almacenar un lote de libros (NDJSON, un libro por línea)")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Lote procesado", response = ResultadoLote.class)
+    })
+    @Path("/libros/almacen/lote")
+    @Consumes(LibrosJson.APPLICATION_NDJSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public void almacenarLoteNdjson(InputStream cuerpo, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            return almacenarLote(LibrosJson.leerNdjson(cuerpo));
+        });
+    }
+
+    private Response almacenarLote(LibrosJson.LoteLeido lote) {
+        ResultadoLote resultado = manager.almacenarLibros(lote.getLibros());
+        for (ErrorLote error : resultado.getErrores()) {
+            String motivo = lote.getErroresLectura().get(error.getPosicion());
+            if (motivo != null) error.setMotivo(motivo);
         }
-        manager.almacenarLibro(libro);
-        return Response.status(201).entity(libro).build();
+        return Response.status(201).entity(resultado).build();
     }
 
     @POST
@@ -92,40 +228,357 @@ public class LibrosService {
     })
     @Path("/libros/catalogo")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response catalogarSiguiente() {
-        Libro libro = manager.catalogarSiguienteLibro();
-        if (libro == null) {
+    public void catalogarSiguiente(@Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            Libro libro = manager.catalogarSiguienteLibro();
+            if (libro == null) {
+                return Response.status(404).build();
+            }
+            return Response.status(201).entity(libro).build();
+        });
+    }
+
+    @POST
+    @ApiOperation(value = "Catalogar los siguientes n libros del almacén")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successful", response = ResumenCatalogacion.class),
+            @ApiResponse(code = 400, message = "n debe ser positivo"),
+            @ApiResponse(code = 404, message = "No hay libros pendientes de catalogar")
+    })
+    @Path("/libros/catalogo/lote")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void catalogarSiguientes(@QueryParam("n") @DefaultValue("100") int n, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            if (n <= 0) {
+                return Response.status(400).build();
+            }
+            return respuestaCatalogacion(manager.catalogarSiguientesLibros(n));
+        });
+    }
+
+    @POST
+    @ApiOperation(value = "Catalogar todos los libros pendientes del almacén")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successful", response = ResumenCatalogacion.class),
+            @ApiResponse(code = 404, message = "No hay libros pendientes de catalogar")
+    })
+    @Path("/libros/catalogo/todos")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void catalogarTodos(@Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            return respuestaCatalogacion(manager.catalogarTodosLosLibros());
+        });
+    }
+
+    private Response respuestaCatalogacion(ResumenCatalogacion resumen) {
+        if (resumen.getNumCatalogados() == 0) {
             return Response.status(404).build();
         }
-        return Response.status(201).entity(libro).build();
+        return Response.status(201).entity(resumen).build();
+    }
+
+    @POST
+    @ApiOperation(value = "Arrancar el catalogador automático en segundo plano")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successful", response = EstadoCatalogador.class),
+            @ApiResponse(code = 400, message = "Lote o periodo no válidos")
+    })
+    @Path("/catalogador/iniciar")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void iniciarCatalogador(@QueryParam("lote") @DefaultValue("100") int lote, @QueryParam("periodoMs") @DefaultValue("1000") long periodoMs, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            if (lote <= 0 || periodoMs <= 0) {
+                return Response.status(400).build();
+            }
+            CatalogadorAutomatico catalogador = CatalogadorAutomatico.getInstance();
+            catalogador.iniciar(lote, periodoMs);
+            return Response.status(201).entity(catalogador.getEstado()).build();
+        });
+    }
+
+    @POST
+    @ApiOperation(value = "Detener el catalogador automático")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successful", response = EstadoCatalogador.class)
+    })
+    @Path("/catalogador/detener")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void detenerCatalogador(@Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            CatalogadorAutomatico catalogador = CatalogadorAutomatico.getInstance();
+            catalogador.detener();
+            return Response.status(201).entity(catalogador.getEstado()).build();
+        });
+    }
+
+    @GET
+    @ApiOperation(value = "Listar el catálogo por orden de ISBN (un libro por ISBN, con su stock), por páginas")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successful", response = Libro.class, responseContainer = "List"),
+            @ApiResponse(code = 400, message = "Cursor o límite no válidos", response = ErrorRespuesta.class)
+    })
+    @Path("/libros/catalogo")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void listarCatalogo(@QueryParam("cursor") String cursor, @QueryParam("limite") @DefaultValue("100") int limite,
+                               @Context UriInfo uriInfo, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            Pagina<Libro> pagina = manager.listarCatalogo(cursor, limite);
+            if (pagina == null) {
+                return errorPagina();
+            }
+            return respuestaPagina(pagina, new GenericEntity<List<Libro>>(pagina.getElementos()) {}, uriInfo);
+        });
+    }
+
+    /**
+     * Lectura de un ISBN con ETag: la versión del ISBN en el manager. Si coincide con
+     * If-None-Match se responde 304 sin serializar nada; si no, se sirven los bytes de la caché
+     * o se serializan y se guardan. Responde 200 y no 201 porque las cachés HTTP solo guardan
+     * respuestas 200.
+     */
+    private Response respuestaVersionada(String isbn, Request peticion, CacheSerializada cache, Function<String, byte[]> serializar) {
+        long version = manager.getVersionIsbn(isbn);
+        if (version == 0) {
+            return error(404, "NO_EXISTE", "El ISBN no está en el catálogo");
+        }
+        EntityTag etag = new EntityTag(INSTANCIA + "-" + version);
+        Response.ResponseBuilder noModificado = peticion.evaluatePreconditions(etag);
+        if (noModificado != null) {
+            return noModificado.cacheControl(REVALIDAR).build();
+        }
+        byte[] json = cache.obtener(isbn, version);
+        if (json == null) {
+            json = serializar.apply(isbn);
+            if (json == null) {
+                return error(404, "NO_EXISTE", "El ISBN no está en el catálogo");
+            }
+            if (manager.getVersionIsbn(isbn) != version) {
+                // Ha cambiado mientras se serializaba: ni ETag ni caché para estos bytes
+                return Response.ok(json, MediaType.APPLICATION_JSON).cacheControl(REVALIDAR).build();
+            }
+            cache.guardar(isbn, version, json);
+        }
+        return Response.ok(json, MediaType.APPLICATION_JSON).tag(etag).cacheControl(REVALIDAR).build();
+    }
+
+    @GET
+    @ApiOperation(value = "Libro del catálogo por ISBN (con su stock), con ETag")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successful", response = Libro.class),
+            @ApiResponse(code = 304, message = "No ha cambiado desde la ETag de If-None-Match"),
+            @ApiResponse(code = 404, message = "El ISBN no está en el catálogo", response = ErrorRespuesta.class)
+    })
+    @Path("/libros/catalogo/{isbn}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void getLibroPorIsbn(@PathParam("isbn") String isbn, @Context Request peticion, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            return respuestaVersionada(isbn, peticion, CACHE_LIBROS, i -> {
+                Libro libro = manager.getLibroPorIsbn(i);
+                return (libro == null) ? null : SalidaJson.aBytes(libro, ModelosJson::escribirLibro);
+            });
+        });
+    }
+
+    @GET
+    @ApiOperation(value = "Ejemplares disponibles de un ISBN, con ETag")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successful", response = StockIsbn.class),
+            @ApiResponse(code = 304, message = "No ha cambiado desde la ETag de If-None-Match"),
+            @ApiResponse(code = 404, message = "El ISBN no está en el catálogo", response = ErrorRespuesta.class)
+    })
+    @Path("/libros/catalogo/{isbn}/stock")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void getStockPorIsbn(@PathParam("isbn") String isbn, @Context Request peticion, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            return respuestaVersionada(isbn, peticion, CACHE_STOCK,
+                    i -> SalidaJson.aBytes(new StockIsbn(i, manager.getStockPorIsbn(i)), ModelosJson::escribirStock));
+        });
+    }
+
+    @GET
+    @ApiOperation(value = "Estado del catalogador automático")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successful", response = EstadoCatalogador.class)
+    })
+    @Path("/catalogador")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void estadoCatalogador(@Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            return Response.status(201).entity(CatalogadorAutomatico.getInstance().getEstado()).build();
+        });
     }
 
     @POST
     @ApiOperation(value = "Crear un préstamo (por id de lector e id de ejemplar catalogado)")
     @ApiResponses({
             @ApiResponse(code = 201, message = "Préstamo creado", response = Prestamo.class),
-            @ApiResponse(code = 404, message = "Petición inválida")
+            @ApiResponse(code = 400, message = "Falta el préstamo o su id, o una fecha no es dd/MM/yyyy", response = ErrorRespuesta.class),
+            @ApiResponse(code = 404, message = "El lector o el ejemplar no existen", response = ErrorRespuesta.class),
+            @ApiResponse(code = 409, message = "Sin ejemplares disponibles o id ya usado", response = ErrorRespuesta.class)
     })
     @Path("/prestamos")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response prestarLibro(Prestamo prestamo) {
-        if (prestamo == null || prestamo.getId() == null) {
-            return Response.status(400).build();
-        }
-        manager.prestarLibro(prestamo);
-        return Response.status(201).entity(prestamo).build();
+    public void prestarLibro(Prestamo prestamo, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            ResultadoPrestamo resultado = manager.prestarLibro(prestamo);
+            switch (resultado) {
+                case CREADO:
+                    return Response.status(201).entity(prestamo).build();
+                case LECTOR_NO_EXISTE:
+                case EJEMPLAR_NO_CATALOGADO:
+                    return error(404, resultado.name(), resultado.getMotivo());
+                case SIN_EJEMPLARES:
+                case DUPLICADO:
+                    return error(409, resultado.name(), resultado.getMotivo());
+                default:
+                    return error(400, resultado.name(), resultado.getMotivo());
+            }
+        });
+    }
+
+    @POST
+    @ApiOperation(value = "Devolver el libro de un préstamo en trámite")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Préstamo cerrado", response = Prestamo.class),
+            @ApiResponse(code = 404, message = "No hay ningún préstamo con ese id", response = ErrorRespuesta.class),
+            @ApiResponse(code = 409, message = "El préstamo ya estaba devuelto", response = ErrorRespuesta.class)
+    })
+    @Path("/prestamos/{prestamoId}/devolucion")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void devolverLibro(@PathParam("prestamoId") String prestamoId, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            ResultadoDevolucion resultado = manager.devolverLibro(prestamoId);
+            switch (resultado) {
+                case DEVUELTO:
+                    return Response.status(201).entity(manager.getPrestamo(prestamoId)).build();
+                case YA_DEVUELTO:
+                    return error(409, resultado.name(), resultado.getMotivo());
+                default:
+                    return error(404, resultado.name(), resultado.getMotivo());
+            }
+        });
+    }
+
+    @GET
+    @ApiOperation(value = "Listar los préstamos, en trámite y devueltos, por orden de id y por páginas")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successful", response = Prestamo.class, responseContainer = "List"),
+            @ApiResponse(code = 400, message = "Cursor o límite no válidos", response = ErrorRespuesta.class)
+    })
+    @Path("/prestamos")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void listarPrestamos(@QueryParam("cursor") String cursor, @QueryParam("limite") @DefaultValue("100") int limite,
+                                @Context UriInfo uriInfo, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            Pagina<Prestamo> pagina = manager.listarPrestamos(cursor, limite);
+            if (pagina == null) {
+                return errorPagina();
+            }
+            return respuestaPagina(pagina, new GenericEntity<List<Prestamo>>(pagina.getElementos()) {}, uriInfo);
+        });
     }
 
+    // Los préstamos de un lector se escriben en streaming desde los almacenes: ni la lista ni
+    // el documento JSON completos pasan por el heap, aunque el lector tenga un histórico enorme.
+    // Sin Accept (o con */*) se sirve JSON; NDJSON tiene menos calidad (qs) y hay que pedirlo.
+
     @GET
-    @ApiOperation(value = "Listar todos los préstamos de un lector")
+    @ApiOperation(value = "Listar todos los préstamos de un lector (en trámite y después devueltos)")
     @ApiResponses({
-            @ApiResponse(code = 201, message = "Successful", response = Prestamo.class, responseContainer="List")
+            @ApiResponse(code = 201, message = "Successful", response = Prestamo.class, responseContainer="List"),
+            @ApiResponse(code = 404, message = "El lector no existe", response = ErrorRespuesta.class)
     })
     @Path("/prestamos/{lectorId}")
-    public Response getPrestamosLector(@PathParam("lectorId") String lectorId) {
-        List<Prestamo> list = manager.prestamosDeLector(lectorId);
-        GenericEntity<List<Prestamo>> entity = new GenericEntity<List<Prestamo>>(list) {};
-        return Response.status(201).entity(entity).build();
+    @Produces(MediaType.APPLICATION_JSON)
+    public void getPrestamosLector(@PathParam("lectorId") String lectorId, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            if (manager.getLector(lectorId) == null) {
+                return error(404, ResultadoPrestamo.LECTOR_NO_EXISTE.name(), ResultadoPrestamo.LECTOR_NO_EXISTE.getMotivo());
+            }
+            StreamingOutput salida = out -> SalidaJson.<Prestamo>escribirArray(out,
+                    c -> manager.recorrerPrestamosDeLector(lectorId, c), ModelosJson::escribirPrestamo);
+            return Response.status(201).entity(salida).build();
+        });
+    }
+
+    @GET
+    @ApiOperation(value = "Listar todos los préstamos de un lector en NDJSON (un préstamo por línea)")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successful", response = Prestamo.class, responseContainer="List"),
+            @ApiResponse(code = 404, message = "El lector no existe", response = ErrorRespuesta.class)
+    })
+    @Path("/prestamos/{lectorId}")
+    @Produces(LibrosJson.APPLICATION_NDJSON + "; qs=0.5")
+    public void getPrestamosLectorNdjson(@PathParam("lectorId") String lectorId, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            if (manager.getLector(lectorId) == null) {
+                return error(404, ResultadoPrestamo.LECTOR_NO_EXISTE.name(), ResultadoPrestamo.LECTOR_NO_EXISTE.getMotivo());
+            }
+            StreamingOutput salida = out -> SalidaJson.<Prestamo>escribirNdjson(out,
+                    c -> manager.recorrerPrestamosDeLector(lectorId, c), ModelosJson::escribirPrestamo);
+            return Response.status(201).entity(salida).type(LibrosJson.APPLICATION_NDJSON).build();
+        });
+    }
+
+    // Fuera de /prestamos: ahí el segundo segmento es el id de un lector, y un lector
+    // puede llamarse "vencidos"
+
+    @GET
+    @ApiOperation(value = "Listar los préstamos en trámite que vencen en una fecha o antes")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successful", response = Prestamo.class, responseContainer="List"),
+            @ApiResponse(code = 400, message = "Fecha no válida (dd/MM/yyyy)")
+    })
+    @Path("/vencimientos")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void getPrestamosVencidos(@QueryParam("hasta") String hasta, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            List<Prestamo> list = (hasta == null) ? null : manager.prestamosVencidosHasta(hasta);
+            if (list == null) {
+                return Response.status(400).build();
+            }
+            GenericEntity<List<Prestamo>> entity = new GenericEntity<List<Prestamo>>(list) {};
+            return Response.status(201).entity(entity).build();
+        });
+    }
+
+    @GET
+    @ApiOperation(value = "Buscar en el catálogo por prefijos de palabra (título, autor, editorial y temática), con facetas")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successful", response = ResultadoBusqueda.class),
+            @ApiResponse(code = 400, message = "Página o tamaño de página no válidos", response = ErrorRespuesta.class)
+    })
+    @Path("/libros/busqueda")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void buscarLibros(@QueryParam("q") String texto, @QueryParam("tematica") String tematica,
+                             @QueryParam("editorial") String editorial, @QueryParam("año") Integer año,
+                             @QueryParam("pagina") @DefaultValue("0") int pagina,
+                             @QueryParam("tamaño") @DefaultValue("20") int tamañoPagina, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            ResultadoBusqueda resultado = manager.buscarLibros(texto, tematica, editorial, año, pagina, tamañoPagina);
+            if (resultado == null) {
+                return error(400, "NO_VALIDO", "La página empieza en 0 y su tamaño va de 1 a " + IndiceCatalogo.TAMAÑO_PAGINA_MAX);
+            }
+            return Response.status(201).entity(resultado).build();
+        });
+    }
+
+    @GET
+    @ApiOperation(value = "ISBNs, ejemplares y stock del catálogo agrupados por temática, editorial, autor, década, año o edición")
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Successful", response = AnaliticaCatalogo.class),
+            @ApiResponse(code = 400, message = "Agrupación no válida", response = ErrorRespuesta.class)
+    })
+    @Path("/libros/analitica")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void analizarCatalogo(@QueryParam("agrupar") @DefaultValue("tematica") String agrupacion, @Suspended AsyncResponse respuesta) {
+        ejecucion.responder(respuesta, () -> {
+            AnaliticaCatalogo resultado = manager.analizarCatalogo(agrupacion);
+            if (resultado == null) {
+                return error(400, "NO_VALIDO", "Agrupación no válida: tematica, editorial, autor, decada, año o edicion");
+            }
+            return Response.status(201).entity(resultado).build();
+        });
     }
 
 }
@@ -0,0 +1,39 @@
+package edu.upc.dsa.services;
+
+import edu.upc.dsa.FabricaManager;
+import edu.upc.dsa.metricas.Metricas;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@Api(value = "/metrics", description = "Métricas de la aplicación en formato Prometheus")
+@Path("/metrics")
+
+public class MetricasService {
+
+    @GET
+    @ApiOperation(value = "Latencias por operación, respuestas por código y tamaños del estado")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successful")
+    })
+    @Produces(Metricas.TIPO_PROMETHEUS)
+    public Response getMetricas() {
+        StreamingOutput salida = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            Metricas.getInstance().escribirPrometheus(writer, FabricaManager.getInstance().getEstadisticas());
+            writer.flush();
+        };
+        return Response.ok(salida).build();
+    }
+}
@@ -0,0 +1,172 @@
+package edu.upc.dsa.stock;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ejemplares disponibles de un ISBN. Mientras nadie compite por él es un único entero atómico:
+ * reservar() es un compareAndSet que nunca lo deja por debajo de 0 y disponibles() una lectura.
+ *
+ * Cuando las reservas empiezan a fallar el compareAndSet porque otros hilos lo han cambiado a
+ * la vez (un título muy prestado), el contador se reparte en celdas, cada una en su propia
+ * línea de caché: cada hilo suma a su celda y reserva primero de ella, y solo si está vacía
+ * mira las demás. Los hilos que prestan el mismo título dejan de escribir todos en la misma
+ * línea.
+ *
+ * Con celdas, "no queda ninguno" ya no se ve en una sola lectura: otro hilo puede estar sumando
+ * a una celda ya recorrida. Por eso cada suma se anuncia (anunciadas) antes de tocar su celda y
+ * se da por hecha (hechas) después, y reservar() solo responde que no hay stock si al empezar a
+ * recorrer las celdas no había ninguna suma a medias, no ha empezado ninguna mientras las
+ * recorría y todas estaban a 0. Entonces hubo un instante en que el stock era 0 de verdad.
+ */
+public class ContadorStock {
+    // 16 enteros = 64 bytes, una línea de caché: entre dos valores que escriben hilos distintos
+    static final int SEPARACION = 16;
+    // Compare-and-set fallidos en una misma reserva a partir de los que se reparte en celdas
+    private static final int FALLOS_PARA_REPARTIR = 2;
+
+    private static final AtomicReferenceFieldUpdater<ContadorStock, AtomicIntegerArray> CELDAS =
+            AtomicReferenceFieldUpdater.newUpdater(ContadorStock.class, AtomicIntegerArray.class, "celdas");
+
+    private final int maxCeldas;
+    // El valor está en la posición SEPARACION; lo demás es relleno para no compartir línea con
+    // los contadores de otros ISBN
+    private final AtomicIntegerArray base = new AtomicIntegerArray(2 * SEPARACION);
+    // null hasta que se reparte; la celda i está en la posición (i + 1) * SEPARACION
+    private volatile AtomicIntegerArray celdas;
+    private final LongAdder anunciadas = new LongAdder();
+    private final LongAdder hechas = new LongAdder();
+
+    /** @param maxCeldas celdas al repartirse; con 1 o menos nunca se reparte */
+    public ContadorStock(int maxCeldas) {
+        this.maxCeldas = maxCeldas;
+    }
+
+    /**
+     * Suma ejemplares (catalogados o devueltos).
+     */
+    public void añadir(int cantidad) {
+        anunciadas.increment();
+        try {
+            AtomicIntegerArray c = celdas;
+            if (c == null) {
+                base.addAndGet(SEPARACION, cantidad);
+            }
+            else {
+                c.addAndGet(posicion(celdaPropia()), cantidad);
+            }
+        }
+        finally {
+            hechas.increment();
+        }
+    }
+
+    /**
+     * Quita un ejemplar si queda alguno.
+     * @return false si el stock era 0
+     */
+    public boolean reservar() {
+        AtomicIntegerArray c = celdas;
+        if (c == null) {
+            int fallos = 0;
+            while (true) {
+                int actual = base.get(SEPARACION);
+                if (actual <= 0) {
+                    // Si todavía no hay celdas, la base era todo el stock al leerla
+                    c = celdas;
+                    if (c == null) return false;
+                    break;
+                }
+                if (base.compareAndSet(SEPARACION, actual, actual - 1)) return true;
+                if (++fallos >= FALLOS_PARA_REPARTIR && (c = repartir()) != null) break;
+            }
+        }
+        return reservarDeCeldas(c);
+    }
+
+    private boolean reservarDeCeldas(AtomicIntegerArray c) {
+        int propia = celdaPropia();
+        while (true) {
+            if (tomar(c, posicion(propia)) || tomar(base, SEPARACION)) return true;
+            for (int i = 1; i < maxCeldas; i++) {
+                if (tomar(c, posicion((propia + i) % maxCeldas))) return true;
+            }
+            if (agotado(c)) return false;
+        }
+    }
+
+    private static boolean tomar(AtomicIntegerArray valores, int posicion) {
+        int actual;
+        while ((actual = valores.get(posicion)) > 0) {
+            if (valores.compareAndSet(posicion, actual, actual - 1)) return true;
+        }
+        return false;
+    }
+
+    // Ver el comentario de la clase. Las sumas solo crecen, así que sum() da un valor entre el
+    // que había al empezar a leerla y el que hay al acabar
+    private boolean agotado(AtomicIntegerArray c) {
+        long hechasAntes = hechas.sum();
+        long anunciadasAntes = anunciadas.sum();
+        if (hechasAntes != anunciadasAntes) {
+            // Una suma a medias: que acabe antes de volver a mirar
+            Thread.yield();
+            return false;
+        }
+        if (base.get(SEPARACION) > 0) return false;
+        for (int i = 0; i < maxCeldas; i++) {
+            if (c.get(posicion(i)) > 0) return false;
+        }
+        return anunciadas.sum() == anunciadasAntes;
+    }
+
+    // Visible en el paquete para que las pruebas puedan repartir sin depender de la contención
+    AtomicIntegerArray repartir() {
+        if (maxCeldas <= 1) return null;
+        CELDAS.compareAndSet(this, null, new AtomicIntegerArray((maxCeldas + 1) * SEPARACION));
+        return celdas;
+    }
+
+    private static int posicion(int celda) {
+        return (celda + 1) * SEPARACION;
+    }
+
+    // Los hilos de un pool tienen ids seguidos, así que cada uno cae en una celda distinta
+    private int celdaPropia() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 33) % maxCeldas;
+    }
+
+    /**
+     * Sin esperas. Con celdas y reservas en curso es una suma de lecturas sueltas, así que
+     * puede no coincidir con el stock de ningún instante concreto; sin cambios en curso es exacto.
+     */
+    public int disponibles() {
+        int total = base.get(SEPARACION);
+        AtomicIntegerArray c = celdas;
+        if (c != null) {
+            for (int i = 0; i < maxCeldas; i++) {
+                total += c.get(posicion(i));
+            }
+        }
+        return total;
+    }
+
+    public boolean repartido() {
+        return celdas != null;
+    }
+
+    /**
+     * Fija el stock, para restaurar un volcado. Solo sin otras operaciones en curso.
+     */
+    public void fijar(int stock) {
+        AtomicIntegerArray c = celdas;
+        if (c != null) {
+            for (int i = 0; i < maxCeldas; i++) {
+                c.set(posicion(i), 0);
+            }
+        }
+        base.set(SEPARACION, stock);
+    }
+}
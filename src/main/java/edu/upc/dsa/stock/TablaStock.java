@@ -0,0 +1,64 @@
+package edu.upc.dsa.stock;
+
+import edu.upc.dsa.util.TablaPorNumero;
+
+/**
+ * Stock de cada ISBN del catálogo, un ContadorStock por número de ISBN (el que le da la
+ * TablaIdentificadoresConcurrente de ISBNs del manager). Los contadores se crean al catalogar
+ * el primer ejemplar y no se quitan, así que quien tenga uno puede reservar y sumar sin
+ * volver a buscarlo.
+ */
+public class TablaStock {
+    // Celdas en que se reparte el contador de un ISBN muy disputado (ver ContadorStock); con 1
+    // nunca se reparte. Por defecto, una por procesador, hasta 16
+    public static final String PROPIEDAD_CELDAS = "libros.stock.celdas";
+
+    private final TablaPorNumero<ContadorStock> contadores = new TablaPorNumero<>();
+    private final int maxCeldas;
+
+    public TablaStock() {
+        this(Integer.getInteger(PROPIEDAD_CELDAS, Math.min(16, Runtime.getRuntime().availableProcessors())));
+    }
+
+    public TablaStock(int maxCeldas) {
+        this.maxCeldas = maxCeldas;
+    }
+
+    /**
+     * El contador del ISBN, que se crea a 0 si no existe. Para un mismo número, llamar con el
+     * cerrojo del ISBN.
+     */
+    public ContadorStock registrar(int isbn) {
+        ContadorStock contador = contadores.get(isbn);
+        if (contador == null) {
+            contador = new ContadorStock(maxCeldas);
+            contadores.set(isbn, contador);
+        }
+        return contador;
+    }
+
+    /** @return null si el ISBN no tiene contador */
+    public ContadorStock contador(int isbn) {
+        return contadores.get(isbn);
+    }
+
+    /** @return 0 si el ISBN no tiene contador */
+    public int disponibles(int isbn) {
+        ContadorStock contador = contadores.get(isbn);
+        return (contador == null) ? 0 : contador.disponibles();
+    }
+
+    /**
+     * ISBNs, de los numIsbns primeros, sin ningún ejemplar disponible. Los recorre todos: es
+     * para las métricas, que lo piden de vez en cuando, y así prestar y devolver no tienen que
+     * llevar la cuenta.
+     */
+    public int numSinStock(int numIsbns) {
+        int sinStock = 0;
+        for (int isbn = 0; isbn < numIsbns; isbn++) {
+            ContadorStock contador = contadores.get(isbn);
+            if (contador != null && contador.disponibles() <= 0) sinStock++;
+        }
+        return sinStock;
+    }
+}
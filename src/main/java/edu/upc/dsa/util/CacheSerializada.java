@@ -0,0 +1,49 @@
+package edu.upc.dsa.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Respuestas ya serializadas por clave, cada una válida para una versión de su dato. Una
+ * mutación invalida la entrada al cambiar la versión: la siguiente lectura no coincide y la
+ * vuelve a serializar. Al llegar a maxEntradas se vacía entera, que con claves de catálogo
+ * (ISBNs) pasa muy de vez en cuando y mantiene la memoria acotada sin LRU.
+ */
+public class CacheSerializada {
+    private static class Entrada {
+        final long version;
+        final byte[] bytes;
+
+        Entrada(long version, byte[] bytes) {
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final int maxEntradas;
+
+    public CacheSerializada(int maxEntradas) {
+        this.maxEntradas = maxEntradas;
+    }
+
+    /** @return los bytes guardados para esa versión, o null si no hay o son de otra */
+    public byte[] obtener(String clave, long version) {
+        Entrada entrada = entradas.get(clave);
+        return (entrada != null && entrada.version == version) ? entrada.bytes : null;
+    }
+
+    public void guardar(String clave, long version, byte[] bytes) {
+        if (entradas.size() >= maxEntradas && !entradas.containsKey(clave)) {
+            entradas.clear();
+        }
+        entradas.put(clave, new Entrada(version, bytes));
+    }
+
+    public int tamaño() {
+        return entradas.size();
+    }
+
+    public void clear() {
+        entradas.clear();
+    }
+}
@@ -0,0 +1,121 @@
+package edu.upc.dsa.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Cola de montones del almacén: los montones se atienden en orden FIFO y dentro de cada
+ * montón se desapila por arriba (LIFO). Apilar en el último montón y desapilar del primero
+ * son O(1). No es thread-safe: quien la use debe sincronizar el acceso.
+ */
+public class ColaMontones<T> {
+    private final ArrayDeque<ArrayDeque<T>> montones;
+    private final int maxPorMonton;
+    private ArrayDeque<T> ultimo;
+    private int numElementos;
+
+    public ColaMontones(int maxPorMonton) {
+        if (maxPorMonton <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo del montón debe ser positivo");
+        }
+        this.montones = new ArrayDeque<>();
+        this.maxPorMonton = maxPorMonton;
+    }
+
+    /**
+     * Apila el elemento en el último montón, o en uno nuevo si el último está lleno.
+     * @return true si se ha tenido que crear un montón nuevo
+     */
+    public boolean apilar(T elemento) {
+        boolean nuevoMonton = false;
+        if (ultimo == null || ultimo.size() >= maxPorMonton) {
+            ultimo = new ArrayDeque<>(maxPorMonton);
+            montones.addLast(ultimo);
+            nuevoMonton = true;
+        }
+        ultimo.push(elemento);
+        numElementos++;
+        return nuevoMonton;
+    }
+
+    /**
+     * Desapila la cima del primer montón y lo elimina de la cola si se queda vacío.
+     * @return el elemento, o null si no hay ninguno
+     */
+    public T desapilarSiguiente() {
+        ArrayDeque<T> primero = montones.peekFirst();
+        if (primero == null) {
+            return null;
+        }
+        T elemento = primero.pop();
+        numElementos--;
+        if (primero.isEmpty()) {
+            montones.pollFirst();
+            if (primero == ultimo) {
+                ultimo = null;
+            }
+        }
+        return elemento;
+    }
+
+    /**
+     * Copia los montones en orden de cola; cada montón va de la base a la cima.
+     */
+    public List<List<T>> copiarMontones() {
+        List<List<T>> copia = new ArrayList<>(montones.size());
+        for (ArrayDeque<T> monton : montones) {
+            List<T> elementos = new ArrayList<>(monton.size());
+            for (Iterator<T> it = monton.descendingIterator(); it.hasNext(); ) {
+                elementos.add(it.next());
+            }
+            copia.add(elementos);
+        }
+        return copia;
+    }
+
+    /**
+     * Añade al final de la cola un montón ya formado (de la base a la cima), tal como lo
+     * devuelve copiarMontones. Sirve para reconstruir la cola exactamente igual.
+     */
+    public void añadirMonton(List<T> baseACima) {
+        if (baseACima.isEmpty()) return;
+        if (baseACima.size() > maxPorMonton) {
+            throw new IllegalArgumentException("El montón supera el tamaño máximo de " + maxPorMonton);
+        }
+        ArrayDeque<T> monton = new ArrayDeque<>(maxPorMonton);
+        for (T elemento : baseACima) {
+            monton.push(elemento);
+        }
+        montones.addLast(monton);
+        ultimo = monton;
+        numElementos += baseACima.size();
+    }
+
+    public boolean isEmpty() {
+        return numElementos == 0;
+    }
+
+    public int numMontones() {
+        return montones.size();
+    }
+
+    public int numElementos() {
+        return numElementos;
+    }
+
+    public int tamañoUltimoMonton() {
+        return (ultimo == null) ? 0 : ultimo.size();
+    }
+
+    public int getMaxPorMonton() {
+        return maxPorMonton;
+    }
+
+    public void clear() {
+        montones.clear();
+        ultimo = null;
+        numElementos = 0;
+    }
+}
@@ -0,0 +1,28 @@
+package edu.upc.dsa.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursores opacos para los listados paginados. Un cursor es la última clave devuelta
+ * (en base64 para URL), así que sigue siendo válido aunque entre páginas se añadan o
+ * borren elementos: la página siguiente empieza justo después de esa clave.
+ */
+public class Cursores {
+    private static final Base64.Encoder CODIFICADOR = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODIFICADOR = Base64.getUrlDecoder();
+
+    public static String codificar(String clave) {
+        return CODIFICADOR.encodeToString(clave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return la clave del cursor, o null si no es un cursor válido */
+    public static String decodificar(String cursor) {
+        try {
+            return new String(DECODIFICADOR.decode(cursor), StandardCharsets.UTF_8);
+        }
+        catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
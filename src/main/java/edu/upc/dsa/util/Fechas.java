@@ -0,0 +1,57 @@
+package edu.upc.dsa.util;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+
+/**
+ * Conversión entre las fechas "dd/MM/yyyy" del API y días desde epoch (1970-01-01),
+ * que es como se guardan cuando hace falta compararlas u ocupar poco.
+ */
+public class Fechas {
+    /** Marca de "sin fecha" para los campos que pueden venir nulos */
+    public static final int SIN_FECHA = Integer.MIN_VALUE;
+
+    /**
+     * Resultado de leerDiaEpoch para una fecha sin el formato dd/MM/yyyy. Los modelos lo
+     * guardan tal cual en lugar de lanzar, porque MOXy se traga las excepciones de los setters
+     * y dejaría el campo sin fecha; el manager los rechaza después con NO_VALIDO.
+     */
+    public static final int NO_VALIDA = Integer.MIN_VALUE + 1;
+
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("dd/MM/uuuu").withResolverStyle(ResolverStyle.STRICT);
+
+    /**
+     * @return los días desde epoch, SIN_FECHA si la fecha es null o NO_VALIDA si no tiene el
+     * formato dd/MM/yyyy
+     */
+    public static int leerDiaEpoch(String fecha) {
+        if (fecha == null) return SIN_FECHA;
+        if (fecha.length() != 10 || fecha.charAt(2) != '/' || fecha.charAt(5) != '/') return NO_VALIDA;
+        int dia = digitos(fecha, 0, 2);
+        int mes = digitos(fecha, 3, 5);
+        int año = digitos(fecha, 6, 10);
+        if (dia < 1 || mes < 1 || mes > 12 || año < 0 || dia > YearMonth.of(año, mes).lengthOfMonth()) {
+            return NO_VALIDA;
+        }
+        return (int) LocalDate.of(año, mes, dia).toEpochDay();
+    }
+
+    /** @return el número formado por los dígitos [desde, hasta), o -1 si hay algo que no es un dígito */
+    private static int digitos(String texto, int desde, int hasta) {
+        int valor = 0;
+        for (int i = desde; i < hasta; i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            valor = valor * 10 + (c - '0');
+        }
+        return valor;
+    }
+
+    /** @return null para SIN_FECHA y NO_VALIDA */
+    public static String desdeDiaEpoch(int dia) {
+        if (dia == SIN_FECHA || dia == NO_VALIDA) return null;
+        return LocalDate.ofEpochDay(dia).format(FORMATO);
+    }
+}
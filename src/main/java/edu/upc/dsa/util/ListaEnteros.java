@@ -0,0 +1,66 @@
+package edu.upc.dsa.util;
+
+import java.util.Arrays;
+
+/**
+ * Lista creciente de int sin boxing. No es thread-safe.
+ */
+public class ListaEnteros {
+    private int[] valores;
+    private int tamaño;
+
+    public ListaEnteros() {
+        this(4);
+    }
+
+    public ListaEnteros(int capacidad) {
+        this.valores = new int[Math.max(1, capacidad)];
+    }
+
+    public void añadir(int valor) {
+        if (tamaño == valores.length) {
+            valores = Arrays.copyOf(valores, valores.length * 2);
+        }
+        valores[tamaño++] = valor;
+    }
+
+    public int get(int i) {
+        if (i >= tamaño) throw new IndexOutOfBoundsException("Índice " + i + ", tamaño " + tamaño);
+        return valores[i];
+    }
+
+    /** Quita la primera aparición del valor manteniendo el orden del resto */
+    public boolean eliminar(int valor) {
+        for (int i = 0; i < tamaño; i++) {
+            if (valores[i] == valor) {
+                System.arraycopy(valores, i + 1, valores, i, tamaño - i - 1);
+                tamaño--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Quita y devuelve el último valor; la lista no puede estar vacía */
+    public int quitarUltimo() {
+        if (tamaño == 0) throw new IndexOutOfBoundsException("Lista vacía");
+        return valores[--tamaño];
+    }
+
+    /** Copia de los valores, para recorrerlos sin bloquear a quien modifica la lista */
+    public int[] aArray() {
+        return Arrays.copyOf(valores, tamaño);
+    }
+
+    public int tamaño() {
+        return tamaño;
+    }
+
+    public boolean isEmpty() {
+        return tamaño == 0;
+    }
+
+    public void clear() {
+        tamaño = 0;
+    }
+}
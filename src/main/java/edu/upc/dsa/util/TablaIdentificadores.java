@@ -0,0 +1,46 @@
+package edu.upc.dsa.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Asigna a cada identificador de texto un entero denso (0, 1, 2...) la primera vez que aparece,
+ * así el resto de estructuras pueden guardar un int en lugar de la cadena. No es thread-safe.
+ */
+public class TablaIdentificadores {
+    public static final int NO_EXISTE = -1;
+
+    private final Map<String, Integer> porTexto = new HashMap<>();
+    private final List<String> porNumero = new ArrayList<>();
+
+    public int internar(String id) {
+        Integer numero = porTexto.get(id);
+        if (numero == null) {
+            numero = porNumero.size();
+            porTexto.put(id, numero);
+            porNumero.add(id);
+        }
+        return numero;
+    }
+
+    /** @return el número del identificador, o NO_EXISTE si nunca se ha internado */
+    public int buscar(String id) {
+        Integer numero = porTexto.get(id);
+        return (numero == null) ? NO_EXISTE : numero;
+    }
+
+    public String texto(int numero) {
+        return porNumero.get(numero);
+    }
+
+    public int tamaño() {
+        return porNumero.size();
+    }
+
+    public void clear() {
+        porTexto.clear();
+        porNumero.clear();
+    }
+}
@@ -0,0 +1,105 @@
+package edu.upc.dsa.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Como TablaIdentificadores, pero para varios hilos: buscar() y texto() no toman cerrojos e
+ * internar() solo lo toma la primera vez que ve un identificador. La tabla hash es de
+ * direccionamiento abierto sobre dos arrays, sin un nodo ni un Integer por identificador.
+ *
+ * texto() devuelve siempre la misma instancia de cada identificador (la primera que se
+ * internó), así quien guarde el texto en lugar del número puede compartirla.
+ */
+public class TablaIdentificadoresConcurrente {
+    public static final int NO_EXISTE = TablaIdentificadores.NO_EXISTE;
+
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    // Las claves se escriben después que su número: quien ve la clave ve también el número
+    private static final class Hash {
+        final AtomicReferenceArray<String> claves;
+        final int[] numeros;
+
+        Hash(int capacidad) {
+            claves = new AtomicReferenceArray<>(capacidad);
+            numeros = new int[capacidad];
+        }
+    }
+
+    private volatile Hash hash = new Hash(CAPACIDAD_INICIAL);
+    private final TablaPorNumero<String> textos = new TablaPorNumero<>();
+    private volatile int tamaño;
+
+    /** @return el número del identificador, o NO_EXISTE si nunca se ha internado */
+    public int buscar(String id) {
+        if (id == null) return NO_EXISTE;
+        Hash h = hash;
+        int mascara = h.numeros.length - 1;
+        for (int i = dispersar(id.hashCode()) & mascara; ; i = (i + 1) & mascara) {
+            String clave = h.claves.get(i);
+            if (clave == null) return NO_EXISTE;
+            if (clave == id || clave.equals(id)) return h.numeros[i];
+        }
+    }
+
+    /** @param id no puede ser null */
+    public int internar(String id) {
+        int numero = buscar(id);
+        if (numero != NO_EXISTE) return numero;
+        synchronized (this) {
+            numero = buscar(id);
+            if (numero != NO_EXISTE) return numero;
+            numero = tamaño;
+            Hash h = hash;
+            // Ocupación máxima de la mitad, para que las búsquedas fallidas acaben pronto
+            if (2 * (numero + 1) > h.numeros.length) {
+                h = ampliar(h);
+            }
+            textos.set(numero, id);
+            colocar(h, id, numero);
+            hash = h;
+            tamaño = numero + 1;
+            return numero;
+        }
+    }
+
+    private static Hash ampliar(Hash anterior) {
+        Hash nuevo = new Hash(anterior.numeros.length * 2);
+        for (int i = 0; i < anterior.numeros.length; i++) {
+            String clave = anterior.claves.get(i);
+            if (clave != null) colocar(nuevo, clave, anterior.numeros[i]);
+        }
+        return nuevo;
+    }
+
+    private static void colocar(Hash h, String id, int numero) {
+        int mascara = h.numeros.length - 1;
+        int i = dispersar(id.hashCode()) & mascara;
+        while (h.claves.get(i) != null) {
+            i = (i + 1) & mascara;
+        }
+        h.numeros[i] = numero;
+        h.claves.set(i, id);
+    }
+
+    private static int dispersar(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** @return el identificador con ese número, o null si no existe */
+    public String texto(int numero) {
+        return textos.get(numero);
+    }
+
+    /** Los números van de 0 a tamaño() - 1 */
+    public int tamaño() {
+        return tamaño;
+    }
+
+    public synchronized void clear() {
+        hash = new Hash(CAPACIDAD_INICIAL);
+        textos.clear();
+        tamaño = 0;
+    }
+}
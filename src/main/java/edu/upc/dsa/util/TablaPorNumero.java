@@ -0,0 +1,56 @@
+package edu.upc.dsa.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Valores indexados por un número denso (los de TablaIdentificadoresConcurrente), en trozos
+ * de tamaño fijo: crecer solo añade trozos, así que no se copian los valores y un set() nunca
+ * se pierde en una ampliación. get() y set() no toman cerrojos; solo crear un trozo lo toma.
+ */
+public class TablaPorNumero<T> {
+    private static final int BITS_TROZO = 10;
+    private static final int TAMAÑO_TROZO = 1 << BITS_TROZO;
+
+    // Se sustituye entero al añadir un trozo, nunca se modifica después de publicarlo
+    @SuppressWarnings("unchecked")
+    private volatile AtomicReferenceArray<T>[] trozos = new AtomicReferenceArray[0];
+
+    /** @return null si no se ha fijado ningún valor con ese número */
+    public T get(int numero) {
+        AtomicReferenceArray<T>[] t = trozos;
+        int trozo = numero >>> BITS_TROZO;
+        if (numero < 0 || trozo >= t.length || t[trozo] == null) return null;
+        return t[trozo].get(numero & (TAMAÑO_TROZO - 1));
+    }
+
+    public void set(int numero, T valor) {
+        if (numero < 0) throw new IndexOutOfBoundsException("Número " + numero);
+        trozo(numero >>> BITS_TROZO).set(numero & (TAMAÑO_TROZO - 1), valor);
+    }
+
+    private AtomicReferenceArray<T> trozo(int i) {
+        AtomicReferenceArray<T>[] t = trozos;
+        if (i < t.length && t[i] != null) return t[i];
+        synchronized (this) {
+            t = trozos;
+            if (i < t.length && t[i] != null) return t[i];
+            // Solo crece si el trozo cae fuera; si es un hueco dentro, la copia es del mismo tamaño
+            int longitud = i < t.length ? t.length : Math.max(i + 1, t.length * 2);
+            AtomicReferenceArray<T>[] nuevos = Arrays.copyOf(t, longitud);
+            nuevos[i] = new AtomicReferenceArray<>(TAMAÑO_TROZO);
+            trozos = nuevos;
+            return nuevos[i];
+        }
+    }
+
+    // Para los tests: la longitud del array de trozos
+    int capacidadTrozos() {
+        return trozos.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized void clear() {
+        trozos = new AtomicReferenceArray[0];
+    }
+}
@@ -0,0 +1,253 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.ResultadoDevolucion;
+import edu.upc.dsa.models.ResultadoPrestamo;
+import edu.upc.dsa.prestamos.AlmacenPrestamosMemoria;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class LibrosManagerConcurrenciaTest {
+    private static final int NUM_HILOS = 8;
+    private static final int NUM_ISBNS = 4;
+    private static final int EJEMPLARES_POR_ISBN = 25;
+
+    private LibrosManager manager;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        manager = FabricaManager.getInstance();
+        manager.clear();
+        executor = Executors.newFixedThreadPool(NUM_HILOS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        manager.clear();
+    }
+
+    // ---------------- TESTS ----------------
+
+    @Test
+    public void testPrestamosConcurrentes_stockNuncaNegativo_niPrestamosPerdidos() throws Exception {
+        for (int h = 0; h < NUM_HILOS; h++) {
+            manager.addLector("LC" + h, "Lector", "Concurrente", "DNI" + h, "01/01/2000", "Barcelona", "Carrer " + h);
+        }
+        for (int i = 0; i < NUM_ISBNS; i++) {
+            for (int j = 0; j < EJEMPLARES_POR_ISBN; j++) {
+                manager.almacenarLibro(new Libro("BC" + i + "-" + j, "ISBN-C" + i, "Titulo " + i, "Editorial", 2000, 1, "Autor", "Tematica"));
+            }
+        }
+        for (int i = 0; i < NUM_ISBNS * EJEMPLARES_POR_ISBN; i++) {
+            manager.catalogarSiguienteLibro();
+        }
+
+        // Cada hilo intenta prestar todos los ejemplares: solo se pueden conceder NUM_ISBNS * EJEMPLARES_POR_ISBN préstamos
+        final CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < NUM_HILOS; h++) {
+            final int hilo = h;
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                for (int j = 0; j < EJEMPLARES_POR_ISBN; j++) {
+                    for (int i = 0; i < NUM_ISBNS; i++) {
+                        manager.prestarLibro(new Prestamo("PC" + hilo + "-" + i + "-" + j, "LC" + hilo, "BC" + i + "-" + j, "01/01/2025", "15/01/2025"));
+                    }
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> t : tareas) {
+            t.get(60, TimeUnit.SECONDS);
+        }
+
+        int totalPrestamos = 0;
+        for (int h = 0; h < NUM_HILOS; h++) {
+            totalPrestamos += manager.prestamosDeLector("LC" + h).size();
+        }
+        Assert.assertEquals(NUM_ISBNS * EJEMPLARES_POR_ISBN, totalPrestamos);
+        for (int i = 0; i < NUM_ISBNS; i++) {
+            Assert.assertEquals(0, manager.getStockPorIsbn("ISBN-C" + i));
+        }
+    }
+
+    @Test
+    public void testPrestarYDevolverConcurrentes_unTituloMuyPrestado() throws Exception {
+        final int vueltas = 500;
+        for (int h = 0; h < NUM_HILOS; h++) {
+            manager.addLector("LC" + h, "Lector", "Concurrente", "DNI" + h, "01/01/2000", "Barcelona", "Carrer " + h);
+            manager.almacenarLibro(new Libro("BV" + h, "ISBN-V", "Titulo", "Editorial", 2000, 1, "Autor", "Tematica"));
+        }
+        manager.catalogarTodosLosLibros();
+
+        // Un ejemplar por hilo y cada hilo tiene como mucho uno prestado: nunca puede faltar stock
+        final CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < NUM_HILOS; h++) {
+            final int hilo = h;
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                for (int v = 0; v < vueltas; v++) {
+                    String id = "PV" + hilo + "-" + v;
+                    Assert.assertEquals(ResultadoPrestamo.CREADO, manager.prestarLibro(new Prestamo(id, "LC" + hilo, "BV" + hilo, "01/01/2025", "15/01/2025")));
+                    Assert.assertEquals(ResultadoDevolucion.DEVUELTO, manager.devolverLibro(id));
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> t : tareas) {
+            t.get(60, TimeUnit.SECONDS);
+        }
+
+        Assert.assertEquals(NUM_HILOS, manager.getStockPorIsbn("ISBN-V"));
+        Assert.assertEquals(NUM_HILOS, manager.getLibroPorIsbn("ISBN-V").getNumEjemplares());
+        Assert.assertEquals(0, manager.getEstadisticas().getNumIsbnsSinStock());
+        Assert.assertEquals(NUM_HILOS * vueltas, manager.getEstadisticas().getNumPrestamosDevueltos());
+    }
+
+    @Test
+    public void testDevolverMientrasSeVacia_sinExcepciones() {
+        // El histórico vacía el manager justo al guardar la devolución: es el hueco entre
+        // soltar el cerrojo del préstamo y sumar el stock, sin depender del planificador
+        LibrosManagerImpl[] vaciable = new LibrosManagerImpl[1];
+        AlmacenPrestamosMemoria historico = new AlmacenPrestamosMemoria() {
+            @Override
+            public Prestamo guardar(Prestamo prestamo) {
+                Prestamo anterior = super.guardar(prestamo);
+                if (!prestamo.isEnTramite() && vaciable[0] != null) {
+                    LibrosManagerImpl m = vaciable[0];
+                    vaciable[0] = null;
+                    m.clear();
+                }
+                return anterior;
+            }
+        };
+        LibrosManagerImpl local = new LibrosManagerImpl(new AlmacenPrestamosMemoria(), historico);
+        local.addLector("L1", "Lector", "Uno", "DNI1", "01/01/2000", "Barcelona", "Carrer 1");
+        local.almacenarLibro(new Libro("B1", "ISBN-1", "Titulo", "Editorial", 2000, 1, "Autor", "Tematica"));
+        local.catalogarSiguienteLibro();
+        Assert.assertEquals(ResultadoPrestamo.CREADO, local.prestarLibro(new Prestamo("P1", "L1", "B1", "01/01/2025", "15/01/2025")));
+
+        vaciable[0] = local;
+        Assert.assertEquals(ResultadoDevolucion.DEVUELTO, local.devolverLibro("P1"));
+        Assert.assertEquals(0, local.getStockPorIsbn("ISBN-1"));
+        Assert.assertNull(local.getLibroPorIsbn("ISBN-1"));
+    }
+
+    @Test
+    public void testMismoIdEnIsbnsDistintos_soloUnPrestamo() throws Exception {
+        for (int h = 0; h < NUM_HILOS; h++) {
+            manager.addLector("LC" + h, "Lector", "Concurrente", "DNI" + h, "01/01/2000", "Barcelona", "Carrer " + h);
+            manager.almacenarLibro(new Libro("BD" + h, "ISBN-D" + h, "Titulo", "Editorial", 2000, 1, "Autor", "Tematica"));
+        }
+        manager.catalogarTodosLosLibros();
+
+        final CountDownLatch salida = new CountDownLatch(1);
+        List<Future<ResultadoPrestamo>> tareas = new ArrayList<>();
+        for (int h = 0; h < NUM_HILOS; h++) {
+            final int hilo = h;
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                return manager.prestarLibro(new Prestamo("PD", "LC" + hilo, "BD" + hilo, "01/01/2025", "15/01/2025"));
+            }));
+        }
+        salida.countDown();
+        int creados = 0;
+        for (Future<ResultadoPrestamo> t : tareas) {
+            if (t.get(60, TimeUnit.SECONDS) == ResultadoPrestamo.CREADO) creados++;
+        }
+        Assert.assertEquals(1, creados);
+        Assert.assertEquals(NUM_HILOS - 1, manager.getEstadisticas().getNumIsbnsCatalogo() - manager.getEstadisticas().getNumIsbnsSinStock());
+    }
+
+    @Test
+    public void testAlmacenarYCatalogarConcurrentes_noSePierdenLibros() throws Exception {
+        final int librosPorHilo = 200;
+        final CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < NUM_HILOS; h++) {
+            final int hilo = h;
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                for (int j = 0; j < librosPorHilo; j++) {
+                    manager.almacenarLibro(new Libro("BA" + hilo + "-" + j, "ISBN-A" + (j % NUM_ISBNS), "Titulo", "Editorial", 2000, 1, "Autor", "Tematica"));
+                    if (j % 2 == 0) {
+                        manager.catalogarSiguienteLibro();
+                    }
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> t : tareas) {
+            t.get(60, TimeUnit.SECONDS);
+        }
+        while (manager.catalogarSiguienteLibro() != null) {
+            // vaciar el almacén
+        }
+
+        int stockTotal = 0;
+        for (int i = 0; i < NUM_ISBNS; i++) {
+            stockTotal += manager.getStockPorIsbn("ISBN-A" + i);
+        }
+        Assert.assertEquals(NUM_HILOS * librosPorHilo, stockTotal);
+    }
+
+    @Test
+    public void testAgregadoEsElPrimerDesapilado_aunqueOtroHiloLlegueAntes() throws Exception {
+        // El hilo que desapila E2 se para en su primer getIsbn(): con el agregado elegido ya
+        // con el cerrojo del almacén, E1 espera a que salga; si se eligiera después, E1
+        // tomaría antes el cerrojo del ISBN y quedaría como agregado
+        final CountDownLatch dentro = new CountDownLatch(1);
+        final Thread[] lento = new Thread[1];
+        class LibroLento extends Libro {
+            private boolean parado;
+            LibroLento(String id) {
+                super(id, "ISBN-O", "Titulo", "Editorial", 2000, 1, "Autor", "Tematica");
+            }
+            @Override
+            public String getIsbn() {
+                if (Thread.currentThread() == lento[0] && !parado) {
+                    parado = true;
+                    dentro.countDown();
+                    try {
+                        Thread.sleep(300);
+                    }
+                    catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getIsbn();
+            }
+        }
+        // Se desapila por arriba: sale antes E2
+        manager.almacenarLibro(new LibroLento("E1"));
+        manager.almacenarLibro(new LibroLento("E2"));
+
+        Future<Libro> primero = executor.submit(() -> {
+            lento[0] = Thread.currentThread();
+            return manager.catalogarSiguienteLibro();
+        });
+        Assert.assertTrue(dentro.await(60, TimeUnit.SECONDS));
+        manager.catalogarSiguienteLibro();
+        primero.get(60, TimeUnit.SECONDS);
+
+        Assert.assertEquals("E2", manager.getLibroPorIsbn("ISBN-O").getId());
+        Assert.assertEquals(2, manager.getStockPorIsbn("ISBN-O"));
+    }
+}
@@ -0,0 +1,146 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.Recuento;
+import edu.upc.dsa.models.ResultadoDevolucion;
+import edu.upc.dsa.persistencia.DiarioOperaciones;
+import edu.upc.dsa.persistencia.Instantanea;
+import edu.upc.dsa.persistencia.LibrosManagerDuradero;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+public class LibrosManagerDuraderoTest {
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    private Path directorio;
+    private LibrosManagerDuradero manager;
+
+    @Before
+    public void setUp() throws IOException {
+        directorio = carpeta.getRoot().toPath();
+        manager = LibrosManagerDuradero.abrir(new LibrosManagerImpl(), directorio, 0);
+
+        manager.addLector("L1", "Pau", "Garcia", "123A", "12/12/2004", "Barcelona", "Carrer 1");
+        manager.addLector("L2", "Nil", "Miralles", "123B", "06/12/2004", "Barcelona", "Carrer 2");
+        manager.almacenarLibro(new Libro("B1", "ISBN-1", "El Quijote", "Planeta", 2000, 1, "Cervantes", "Novela"));
+        manager.almacenarLibros(Arrays.asList(
+                new Libro("B2", "ISBN-2", "Cien años de soledad", "Sudamericana", 2005, 1, "G.G. Márquez", "Realismo mágico"),
+                new Libro("B3", "ISBN-1", "El Quijote", "Planeta", 2000, 1, "Cervantes", "Novela")));
+        manager.catalogarSiguienteLibro(); // B3
+        manager.prestarLibro(new Prestamo("P1", "L1", "B3", "01/01/2025", "15/01/2025"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        manager.cerrar();
+    }
+
+    private void reabrir() throws IOException {
+        manager.cerrar();
+        manager = LibrosManagerDuradero.abrir(new LibrosManagerImpl(), directorio, 0);
+    }
+
+    // ---------------- TESTS ----------------
+
+    @Test
+    public void testRecuperaEstadoReproduciendoElDiario() throws IOException {
+        reabrir();
+        Assert.assertEquals(2, manager.lectoresSize());
+        Assert.assertEquals(0, manager.getStockPorIsbn("ISBN-1"));
+        List<Prestamo> prestamos = manager.prestamosDeLector("L1");
+        Assert.assertEquals(1, prestamos.size());
+        Assert.assertEquals("B3", prestamos.get(0).getLibroId());
+        // El almacén conserva el orden: quedan B2 y luego B1 en el mismo montón
+        Assert.assertEquals("ISBN-2", manager.catalogarSiguienteLibro().getIsbn());
+        Assert.assertEquals("ISBN-1", manager.catalogarSiguienteLibro().getIsbn());
+        Assert.assertEquals(1, manager.getStockPorIsbn("ISBN-1"));
+        Assert.assertNull(manager.catalogarSiguienteLibro());
+    }
+
+    @Test
+    public void testCompactar_recuperaDesdeInstantaneaYDiarioPosterior() throws IOException {
+        manager.compactar();
+        Assert.assertTrue(Files.exists(directorio.resolve(Instantanea.NOMBRE)));
+        Assert.assertFalse(Files.exists(directorio.resolve(DiarioOperaciones.nombreSegmento(0))));
+
+        manager.catalogarSiguientesLibros(2); // B2, B1
+        manager.prestarLibro(new Prestamo("P2", "L2", "B1", "02/01/2025", "16/01/2025"));
+        reabrir();
+
+        Assert.assertEquals(2, manager.lectoresSize());
+        Assert.assertEquals(0, manager.getStockPorIsbn("ISBN-1"));
+        Assert.assertEquals(1, manager.getStockPorIsbn("ISBN-2"));
+        Assert.assertEquals("B3", manager.getLibroPorIsbn("ISBN-1").getId());
+        Assert.assertEquals(1, manager.prestamosDeLector("L1").size());
+        Assert.assertEquals("P2", manager.prestamosDeLector("L2").get(0).getId());
+        Assert.assertNull(manager.catalogarSiguienteLibro());
+        // Las columnas de la analítica salen de la instantánea y del diario
+        List<Recuento> editoriales = manager.analizarCatalogo("editorial").getGrupos();
+        Assert.assertEquals("Planeta", editoriales.get(0).getValor());
+        Assert.assertEquals(2, editoriales.get(0).getNumEjemplares());
+        Assert.assertEquals(0, editoriales.get(0).getStock());
+        Assert.assertEquals(1, editoriales.get(1).getStock());
+    }
+
+    @Test
+    public void testDevolucion_seRecuperaDelDiarioYDeLaInstantanea() throws IOException {
+        Assert.assertEquals(ResultadoDevolucion.DEVUELTO, manager.devolverLibro("P1"));
+        reabrir();
+        Assert.assertEquals(1, manager.getStockPorIsbn("ISBN-1"));
+        Assert.assertFalse(manager.prestamosDeLector("L1").get(0).isEnTramite());
+
+        manager.compactar();
+        reabrir();
+        Assert.assertEquals(1, manager.getStockPorIsbn("ISBN-1"));
+        Assert.assertFalse(manager.prestamosDeLector("L1").get(0).isEnTramite());
+        Assert.assertEquals(ResultadoDevolucion.YA_DEVUELTO, manager.devolverLibro("P1"));
+    }
+
+    @Test
+    public void testUltimaLineaIncompletaSeDescarta() throws IOException {
+        manager.cerrar();
+        Path segmento = directorio.resolve(DiarioOperaciones.nombreSegmento(0));
+        Files.write(segmento, "{\"op\":\"prestar\",\"prest".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        manager = LibrosManagerDuradero.abrir(new LibrosManagerImpl(), directorio, 0);
+        Assert.assertEquals(1, manager.prestamosDeLector("L1").size());
+        Assert.assertEquals(0, manager.getStockPorIsbn("ISBN-1"));
+    }
+
+    @Test
+    public void testUltimaLineaCortadaSinErrorDeJson_seDescarta() throws IOException {
+        manager.cerrar();
+        Path segmento = directorio.resolve(DiarioOperaciones.nombreSegmento(0));
+        byte[] original = Files.readAllBytes(segmento);
+        // Cortada en mitad de un número ("n":12) y antes de la última llave: jackson lee
+        // los valores sin quejarse, pero el registro no llegó a escribirse entero
+        String[] colas = {
+                "{\"op\":\"catalogar\",\"n\":1",
+                "{\"op\":\"devolver\",\"id\":\"P1\""
+        };
+        for (String cola : colas) {
+            Files.write(segmento, original);
+            Files.write(segmento, cola.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            manager = LibrosManagerDuradero.abrir(new LibrosManagerImpl(), directorio, 0);
+            Assert.assertNull(cola, manager.getLibroPorIsbn("ISBN-2"));
+            Assert.assertEquals(cola, 0, manager.getStockPorIsbn("ISBN-1"));
+            Assert.assertEquals(cola, 1, manager.prestamosDeLector("L1").size());
+            manager.cerrar();
+        }
+        Files.write(segmento, original);
+        manager = LibrosManagerDuradero.abrir(new LibrosManagerImpl(), directorio, 0);
+    }
+}
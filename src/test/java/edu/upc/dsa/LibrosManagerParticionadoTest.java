@@ -0,0 +1,332 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.models.Estadisticas;
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Pagina;
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.Recuento;
+import edu.upc.dsa.models.ResultadoBusqueda;
+import edu.upc.dsa.models.ResultadoDevolucion;
+import edu.upc.dsa.models.ResultadoLote;
+import edu.upc.dsa.models.ResultadoPrestamo;
+import edu.upc.dsa.models.ResumenCatalogacion;
+import edu.upc.dsa.particiones.LibrosManagerParticionado;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Las particiones son managers de este proceso; LibrosManagerRemotoTest repite los mismos casos
+ * con cada una detrás de un NodoService.
+ */
+public class LibrosManagerParticionadoTest {
+    static final int NUM_PARTICIONES = 3;
+    private static final int NUM_ISBNS = 30;
+
+    /** Cuenta las llamadas de préstamo que le llegan a la partición */
+    static class ParticionContada extends LibrosManagerImpl {
+        final AtomicInteger llamadas = new AtomicInteger();
+        // Recorridos de los dos almacenes a la vez
+        final AtomicInteger recorridosCompletos = new AtomicInteger();
+
+        @Override
+        public ResultadoPrestamo prestarLibro(Prestamo prestamo) {
+            llamadas.incrementAndGet();
+            return super.prestarLibro(prestamo);
+        }
+
+        @Override
+        public ResultadoDevolucion devolverLibro(String prestamoId) {
+            llamadas.incrementAndGet();
+            return super.devolverLibro(prestamoId);
+        }
+
+        @Override
+        public Prestamo getPrestamo(String id) {
+            llamadas.incrementAndGet();
+            return super.getPrestamo(id);
+        }
+
+        @Override
+        public void recorrerPrestamosDeLector(String lectorId, Consumer<Prestamo> consumidor) {
+            recorridosCompletos.incrementAndGet();
+            super.recorrerPrestamosDeLector(lectorId, consumidor);
+        }
+    }
+
+    // Los managers de cada partición, y cómo los ve el manager particionado
+    List<ParticionContada> particiones;
+    private List<? extends LibrosManager> accesos;
+    LibrosManagerParticionado manager;
+
+    /** Cómo llega el manager particionado a cada partición: aquí, directamente */
+    List<? extends LibrosManager> conectar(List<ParticionContada> particiones) {
+        return particiones;
+    }
+
+    @Before
+    public void setUp() {
+        particiones = new ArrayList<>();
+        for (int i = 0; i < NUM_PARTICIONES; i++) {
+            ParticionContada particion = new ParticionContada();
+            particion.setValidarLectores(false);
+            particiones.add(particion);
+        }
+        accesos = conectar(particiones);
+        manager = new LibrosManagerParticionado(accesos);
+
+        for (int i = 0; i < 20; i++) {
+            manager.addLector("L" + i, "Nombre" + i, "Apellido" + i, "DNI" + i, "01/01/2000", "Barcelona", "Carrer " + i);
+        }
+        // Dos ejemplares de cada ISBN; los pares de Planeta y los impares de Anagrama
+        for (int i = 0; i < NUM_ISBNS; i++) {
+            String editorial = (i % 2 == 0) ? "Planeta" : "Anagrama";
+            manager.almacenarLibro(new Libro("A" + i, "ISBN-" + i, "Titulo " + i, editorial, 2000, 1, "Autor", "Novela"));
+            manager.almacenarLibro(new Libro("B" + i, "ISBN-" + i, "Titulo " + i, editorial, 2000, 1, "Autor", "Novela"));
+        }
+        manager.catalogarTodosLosLibros();
+    }
+
+    @Test
+    public void testReparto_cadaClaveEnSuParticion() {
+        Set<Integer> usadas = new HashSet<>();
+        for (int i = 0; i < NUM_ISBNS; i++) {
+            String isbn = "ISBN-" + i;
+            int dueña = accesos.indexOf(manager.particionDeIsbn(isbn));
+            usadas.add(dueña);
+            for (int p = 0; p < NUM_PARTICIONES; p++) {
+                Assert.assertEquals(p == dueña ? 2 : 0, particiones.get(p).getStockPorIsbn(isbn));
+            }
+            Assert.assertEquals(2, manager.getStockPorIsbn(isbn));
+            Assert.assertEquals(isbn, manager.getLibroPorIsbn(isbn).getIsbn());
+        }
+        Assert.assertEquals(NUM_PARTICIONES, usadas.size());
+
+        Assert.assertEquals(20, manager.lectoresSize());
+        for (int i = 0; i < 20; i++) {
+            Lector lector = manager.getLector("L" + i);
+            Assert.assertEquals("Nombre" + i, lector.getNombre());
+            int dueña = accesos.indexOf(manager.particionDeLector("L" + i));
+            Assert.assertEquals("Nombre" + i, particiones.get(dueña).getLector("L" + i).getNombre());
+        }
+    }
+
+    @Test
+    public void testAlmacenarLibros_erroresConPosicionDelLoteEntero() {
+        manager.clear();
+        List<Libro> lote = Arrays.asList(
+                new Libro("X0", "ISBN-0", "T", "E", 2000, 1, "A", "N"),
+                new Libro("X1", null, "T", "E", 2000, 1, "A", "N"),
+                new Libro("X2", "ISBN-1", "T", "E", 2000, 1, "A", "N"),
+                new Libro("X3", "ISBN-2", "T", "E", 2000, 1, "A", "N"),
+                null,
+                new Libro("X5", "ISBN-3", "T", "E", 2000, 1, "A", "N"));
+        ResultadoLote resultado = manager.almacenarLibros(lote);
+        Assert.assertEquals(6, resultado.getNumProcesados());
+        Assert.assertEquals(4, resultado.getNumAlmacenados());
+        Assert.assertEquals(2, resultado.getErrores().size());
+        Assert.assertEquals(1, resultado.getErrores().get(0).getPosicion());
+        Assert.assertEquals(4, resultado.getErrores().get(1).getPosicion());
+
+        ResumenCatalogacion resumen = manager.catalogarSiguientesLibros(3);
+        Assert.assertEquals(3, resumen.getNumCatalogados());
+        Assert.assertEquals(1, resumen.getNumPendientes());
+        Assert.assertEquals(1, manager.catalogarTodosLosLibros().getNumCatalogados());
+        Assert.assertNull(manager.catalogarSiguienteLibro());
+    }
+
+    @Test
+    public void testPrestarYDevolver_enLaParticionDelEjemplar() {
+        Assert.assertEquals(ResultadoPrestamo.CREADO, manager.prestarLibro(new Prestamo("P1", "L1", "A7", "01/05/2025", "15/05/2025")));
+        Assert.assertEquals(1, manager.getStockPorIsbn("ISBN-7"));
+        Assert.assertTrue(manager.getPrestamo("P1").isEnTramite());
+        Assert.assertNotNull(manager.particionDeIsbn("ISBN-7").getPrestamo("P1"));
+        Assert.assertEquals(1, manager.prestamosDeLector("L1").size());
+
+        // El id ya está en trámite, aunque el ejemplar esté en otra partición
+        Assert.assertEquals(ResultadoPrestamo.DUPLICADO, manager.prestarLibro(new Prestamo("P1", "L2", "A8", "01/05/2025", "15/05/2025")));
+        Assert.assertEquals(ResultadoPrestamo.LECTOR_NO_EXISTE, manager.prestarLibro(new Prestamo("P2", "NADIE", "A8", "01/05/2025", "15/05/2025")));
+        Assert.assertEquals(ResultadoPrestamo.EJEMPLAR_NO_CATALOGADO, manager.prestarLibro(new Prestamo("P2", "L2", "Z9", "01/05/2025", "15/05/2025")));
+        Assert.assertEquals(ResultadoPrestamo.NO_VALIDO, manager.prestarLibro(null));
+
+        Assert.assertEquals(ResultadoDevolucion.DEVUELTO, manager.devolverLibro("P1"));
+        Assert.assertEquals(ResultadoDevolucion.YA_DEVUELTO, manager.devolverLibro("P1"));
+        Assert.assertEquals(ResultadoDevolucion.NO_EXISTE, manager.devolverLibro("P9"));
+        Assert.assertEquals(2, manager.getStockPorIsbn("ISBN-7"));
+
+        // Un id devuelto no se vuelve a usar, en ninguna partición
+        Assert.assertEquals(ResultadoPrestamo.DUPLICADO, manager.prestarLibro(new Prestamo("P1", "L1", "A8", "20/05/2025", "30/05/2025")));
+        Assert.assertEquals("A7", manager.getPrestamo("P1").getLibroId());
+        Assert.assertEquals(ResultadoPrestamo.CREADO, manager.prestarLibro(new Prestamo("P2", "L1", "A8", "20/05/2025", "30/05/2025")));
+        List<Prestamo> deL1 = manager.prestamosDeLector("L1");
+        Assert.assertEquals(2, deL1.size());
+        Assert.assertTrue(deL1.get(0).isEnTramite());
+        Assert.assertFalse(deL1.get(1).isEnTramite());
+        for (ParticionContada particion : particiones) {
+            particion.recorridosCompletos.set(0);
+        }
+        List<Prestamo> recorridos = new ArrayList<>();
+        manager.recorrerPrestamosDeLector("L1", recorridos::add);
+        // Prestamo no tiene equals, y por un nodo cada llamada da instancias nuevas
+        Assert.assertEquals(deL1.toString(), recorridos.toString());
+        // Cada partición recorre sus préstamos en trámite y sus devueltos una vez, por separado
+        for (ParticionContada particion : particiones) {
+            Assert.assertEquals(0, particion.recorridosCompletos.get());
+        }
+    }
+
+    private int llamadas() {
+        int total = 0;
+        for (ParticionContada particion : particiones) {
+            total += particion.llamadas.getAndSet(0);
+        }
+        return total;
+    }
+
+    @Test
+    public void testPrestarYDevolver_unaSolaParticionPorLlamada() {
+        Assert.assertEquals(ResultadoPrestamo.CREADO, manager.prestarLibro(new Prestamo("P1", "L1", "A7", "01/05/2025", "15/05/2025")));
+        Assert.assertEquals(1, llamadas());
+        Assert.assertEquals(ResultadoPrestamo.CREADO, manager.prestarLibro(new Prestamo("P2", "L2", "B7", "01/05/2025", "15/05/2025")));
+        Assert.assertEquals(ResultadoPrestamo.SIN_EJEMPLARES, manager.prestarLibro(new Prestamo("P3", "L2", "A7", "01/05/2025", "15/05/2025")));
+        Assert.assertEquals(2, llamadas());
+        Assert.assertTrue(manager.getPrestamo("P1").isEnTramite());
+        Assert.assertNull(manager.getPrestamo("P9"));
+        Assert.assertEquals(1, llamadas());
+        Assert.assertEquals(ResultadoDevolucion.DEVUELTO, manager.devolverLibro("P1"));
+        Assert.assertEquals(ResultadoDevolucion.YA_DEVUELTO, manager.devolverLibro("P1"));
+        Assert.assertEquals(ResultadoDevolucion.NO_EXISTE, manager.devolverLibro("P9"));
+        Assert.assertEquals(2, llamadas());
+        Assert.assertEquals(ResultadoPrestamo.NO_VALIDO, manager.prestarLibro(new Prestamo("P3", "L1", "A7", "01/05/2025", "35/05/2025")));
+        Assert.assertEquals(0, llamadas());
+    }
+
+    @Test
+    public void testDirectorio_seRehaceDesdeLasParticiones() {
+        Assert.assertEquals(ResultadoPrestamo.CREADO, manager.prestarLibro(new Prestamo("P1", "L1", "A7", "01/05/2025", "15/05/2025")));
+        Assert.assertEquals(ResultadoPrestamo.CREADO, manager.prestarLibro(new Prestamo("P2", "L2", "A8", "01/05/2025", "15/05/2025")));
+        Assert.assertEquals(ResultadoDevolucion.DEVUELTO, manager.devolverLibro("P2"));
+
+        // Otro manager sobre las mismas particiones, como tras reiniciar el que las reparte
+        LibrosManagerParticionado otro = new LibrosManagerParticionado(accesos);
+        Assert.assertEquals(ResultadoPrestamo.DUPLICADO, otro.prestarLibro(new Prestamo("P1", "L2", "A9", "01/05/2025", "15/05/2025")));
+        Assert.assertEquals(ResultadoDevolucion.YA_DEVUELTO, otro.devolverLibro("P2"));
+        Assert.assertEquals("A7", otro.getPrestamo("P1").getLibroId());
+        Assert.assertEquals(ResultadoDevolucion.DEVUELTO, otro.devolverLibro("P1"));
+        // Un id ya devuelto no se reutiliza, esté donde esté el ejemplar
+        Assert.assertEquals(ResultadoPrestamo.DUPLICADO, otro.prestarLibro(new Prestamo("P2", "L1", "A7", "01/06/2025", "15/06/2025")));
+        Assert.assertEquals("A8", otro.getPrestamo("P2").getLibroId());
+        // Los ejemplares que no almacenó se buscan en todas la primera vez
+        Assert.assertEquals(ResultadoPrestamo.CREADO, otro.prestarLibro(new Prestamo("P3", "L3", "B9", "01/05/2025", "15/05/2025")));
+        Assert.assertEquals(1, manager.particionDeIsbn("ISBN-9").getStockPorIsbn("ISBN-9"));
+        Assert.assertEquals(ResultadoPrestamo.EJEMPLAR_NO_CATALOGADO, otro.prestarLibro(new Prestamo("P4", "L3", "Z9", "01/05/2025", "15/05/2025")));
+        llamadas();
+        Assert.assertEquals(ResultadoPrestamo.CREADO, otro.prestarLibro(new Prestamo("P5", "L3", "B9", "01/05/2025", "15/05/2025")));
+        Assert.assertEquals(1, llamadas());
+    }
+
+    @Test
+    public void testPrestamosVencidos_ordenadosEntreParticiones() {
+        manager.prestarLibro(new Prestamo("P1", "L1", "A1", "01/05/2025", "20/05/2025"));
+        manager.prestarLibro(new Prestamo("P2", "L2", "A2", "01/05/2025", "10/05/2025"));
+        manager.prestarLibro(new Prestamo("P3", "L3", "A3", "01/05/2025", "15/05/2025"));
+        manager.prestarLibro(new Prestamo("P4", "L4", "A4", "01/05/2025", "30/06/2025"));
+        List<Prestamo> vencidos = manager.prestamosVencidosHasta("31/05/2025");
+        Assert.assertEquals(3, vencidos.size());
+        Assert.assertEquals("P2", vencidos.get(0).getId());
+        Assert.assertEquals("P3", vencidos.get(1).getId());
+        Assert.assertEquals("P1", vencidos.get(2).getId());
+        Assert.assertNull(manager.prestamosVencidosHasta("no es una fecha"));
+    }
+
+    @Test
+    public void testListados_cursoresSobreTodasLasParticiones() {
+        List<String> lectores = new ArrayList<>();
+        String cursor = null;
+        do {
+            Pagina<Lector> pagina = manager.listarLectores(cursor, 7);
+            Assert.assertTrue(pagina.getElementos().size() <= 7);
+            for (Lector lector : pagina.getElementos()) lectores.add(lector.getId());
+            cursor = pagina.getCursorSiguiente();
+        } while (cursor != null);
+        List<String> esperados = new ArrayList<>();
+        for (int i = 0; i < 20; i++) esperados.add("L" + i);
+        esperados.sort(null);
+        Assert.assertEquals(esperados, lectores);
+
+        List<String> isbns = new ArrayList<>();
+        cursor = null;
+        do {
+            Pagina<Libro> pagina = manager.listarCatalogo(cursor, 4);
+            for (Libro libro : pagina.getElementos()) isbns.add(libro.getIsbn());
+            cursor = pagina.getCursorSiguiente();
+        } while (cursor != null);
+        Assert.assertEquals(NUM_ISBNS, isbns.size());
+        Assert.assertEquals(NUM_ISBNS, new HashSet<>(isbns).size());
+        for (int i = 1; i < isbns.size(); i++) {
+            Assert.assertTrue(isbns.get(i - 1).compareTo(isbns.get(i)) < 0);
+        }
+
+        Assert.assertNull(manager.listarLectores("no es un cursor", 5));
+    }
+
+    @Test
+    public void testBuscarLibros_paginasYFacetasDeTodasLasParticiones() {
+        ResultadoBusqueda primera = manager.buscarLibros(null, null, "Planeta", null, 0, 4);
+        Assert.assertEquals(NUM_ISBNS / 2, primera.getTotal());
+        Assert.assertEquals(4, primera.getLibros().size());
+        Assert.assertEquals(1, primera.getEditoriales().size());
+        Assert.assertEquals(NUM_ISBNS / 2, primera.getEditoriales().get(0).getNumLibros());
+
+        Set<String> vistos = new HashSet<>();
+        for (int pagina = 0; pagina * 4 < NUM_ISBNS / 2; pagina++) {
+            for (Libro libro : manager.buscarLibros(null, null, "Planeta", null, pagina, 4).getLibros()) {
+                Assert.assertEquals("Planeta", libro.getEditorial());
+                Assert.assertTrue(vistos.add(libro.getIsbn()));
+            }
+        }
+        Assert.assertEquals(NUM_ISBNS / 2, vistos.size());
+        Assert.assertTrue(manager.buscarLibros(null, null, "Planeta", null, 10, 4).getLibros().isEmpty());
+
+        ResultadoBusqueda todos = manager.buscarLibros(null, null, null, null, 0, 10);
+        Assert.assertEquals(NUM_ISBNS, todos.getTotal());
+        Assert.assertEquals(2, todos.getEditoriales().size());
+    }
+
+    @Test
+    public void testAnalizarCatalogo_sumaDeParticiones() {
+        manager.prestarLibro(new Prestamo("P1", "L1", "A0", "01/05/2025", "20/05/2025"));
+        List<Recuento> editoriales = manager.analizarCatalogo("editorial").getGrupos();
+        Assert.assertEquals(2, editoriales.size());
+        for (Recuento editorial : editoriales) {
+            Assert.assertEquals(NUM_ISBNS / 2, editorial.getNumIsbns());
+            Assert.assertEquals(NUM_ISBNS, editorial.getNumEjemplares());
+        }
+        Recuento planeta = editoriales.get(0).getValor().equals("Planeta") ? editoriales.get(0) : editoriales.get(1);
+        Assert.assertEquals(NUM_ISBNS - 1, planeta.getStock());
+        Assert.assertNull(manager.analizarCatalogo("precio"));
+    }
+
+    @Test
+    public void testGetEstadisticas_sumaDeParticiones() {
+        manager.prestarLibro(new Prestamo("P1", "L1", "A1", "01/05/2025", "20/05/2025"));
+        manager.prestarLibro(new Prestamo("P2", "L1", "B1", "01/05/2025", "20/05/2025"));
+        manager.devolverLibro("P2");
+        Estadisticas e = manager.getEstadisticas();
+        Assert.assertEquals(NUM_ISBNS, e.getNumIsbnsCatalogo());
+        Assert.assertEquals(2 * NUM_ISBNS, e.getNumEjemplaresCatalogo());
+        Assert.assertEquals(0, e.getNumIsbnsSinStock());
+        Assert.assertEquals(1, e.getNumPrestamosActivos());
+        Assert.assertEquals(1, e.getNumPrestamosDevueltos());
+        Assert.assertEquals(0, e.getNumLibrosAlmacen());
+    }
+}
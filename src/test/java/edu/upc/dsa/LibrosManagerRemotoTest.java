@@ -0,0 +1,135 @@
+package edu.upc.dsa;
+
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Pagina;
+import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.ResultadoLector;
+import edu.upc.dsa.models.ResultadoPrestamo;
+import edu.upc.dsa.particiones.LibrosManagerRemoto;
+import edu.upc.dsa.particiones.NodoService;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Los casos de LibrosManagerParticionadoTest con cada partición en un NodoService en un puerto
+ * libre y el manager particionado llegando a ellas con LibrosManagerRemoto; y lo propio del
+ * remoto: los null de 204/400/404, los estados inesperados, el texto no ASCII y el cursor en
+ * la cabecera.
+ */
+public class LibrosManagerRemotoTest extends LibrosManagerParticionadoTest {
+    private final List<HttpServer> nodos = new ArrayList<>();
+    private final List<LibrosManagerRemoto> remotos = new ArrayList<>();
+
+    @Override
+    List<LibrosManagerRemoto> conectar(List<ParticionContada> particiones) {
+        for (ParticionContada particion : particiones) {
+            remotos.add(new LibrosManagerRemoto(arrancarNodo(particion)));
+        }
+        return remotos;
+    }
+
+    private String arrancarNodo(LibrosManager particion) {
+        ResourceConfig rc = new ResourceConfig().register(new NodoService(particion));
+        HttpServer nodo = GrizzlyHttpServerFactory.createHttpServer(URI.create("http://localhost:0/dsaApp/"), rc);
+        nodos.add(nodo);
+        return "http://localhost:" + nodo.getListener("grizzly").getPort() + "/dsaApp/";
+    }
+
+    @After
+    public void tearDown() {
+        for (LibrosManagerRemoto remoto : remotos) {
+            remoto.cerrar();
+        }
+        for (HttpServer nodo : nodos) {
+            nodo.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRemoto_lecturasQueNoExistenDanNull() {
+        LibrosManagerRemoto remoto = remotos.get(0);
+        Assert.assertNull(remoto.getLector("NADIE"));
+        Assert.assertNull(remoto.getPrestamo("P9"));
+        Assert.assertNull(remoto.getLibroPorIsbn("ISBN-NO-EXISTE"));
+        Assert.assertEquals(0, remoto.getStockPorIsbn("ISBN-NO-EXISTE"));
+        // 204: no quedan libros por catalogar
+        Assert.assertNull(remoto.catalogarSiguienteLibro());
+        // 400: datos no válidos
+        Assert.assertNull(remoto.buscarLibros(null, null, null, null, -1, 10));
+        Assert.assertNull(remoto.listarPrestamos("no es un cursor", 10));
+        Assert.assertNull(remoto.prestamosVencidosHasta("ayer"));
+        Assert.assertNull(remoto.analizarCatalogo("precio"));
+        Assert.assertTrue(remoto.prestamosDeLector("NADIE").isEmpty());
+    }
+
+    @Test
+    public void testRemoto_resultadosYEstadosDelNodo() {
+        LibrosManagerRemoto remoto = remotos.get(0);
+        Assert.assertEquals(ResultadoLector.CREADO, remoto.addLector("LR1", "Ana", null, null, "01/01/2000", null, null));
+        Assert.assertEquals(ResultadoLector.SIN_CAMBIOS, remoto.addLector("LR1", "Ana", null, null, "01/01/2000", null, null));
+        Assert.assertEquals(ResultadoLector.NO_VALIDO, remoto.addLector("LR2", "Ana", null, null, "2000-01-01", null, null));
+        Assert.assertFalse(remoto.almacenarLibro(new Libro("BR1", null, "T", "E", 2000, 1, "A", "N")));
+
+        Prestamo prestamo = new Prestamo("PR1", "LR1", "NO-EXISTE", "01/05/2025", "15/05/2025");
+        Assert.assertEquals(ResultadoPrestamo.EJEMPLAR_NO_CATALOGADO, remoto.prestarLibro(prestamo));
+        Assert.assertFalse(prestamo.isEnTramite());
+
+        // Un nodo que responde algo que no se esperaba es un fallo, no un null
+        LibrosManagerRemoto sinNodo = new LibrosManagerRemoto(arrancarNodo(particiones.get(0)) + "otra/");
+        try {
+            sinNodo.lectoresSize();
+            Assert.fail();
+        }
+        catch (IllegalStateException ex) {
+            Assert.assertTrue(ex.getMessage().contains("404"));
+        }
+        finally {
+            sinNodo.cerrar();
+        }
+    }
+
+    @Test
+    public void testRemoto_textoNoAsciiEnUtf8() {
+        LibrosManagerRemoto remoto = remotos.get(0);
+        manager.clear();
+        Assert.assertEquals(ResultadoLector.CREADO, remoto.addLector("LR1", "Núria", "Muñoz i Solà", "123Ñ", "29/02/2004", "L'Hospitalet", "Carrer d'Aragó"));
+        Lector local = particiones.get(0).getLector("LR1");
+        Assert.assertEquals("Núria", local.getNombre());
+        Assert.assertEquals("Muñoz i Solà", local.getApellidos());
+        Assert.assertEquals("Carrer d'Aragó", remoto.getLector("LR1").getDireccion());
+
+        remoto.almacenarLibros(Arrays.asList(new Libro("BR1", "ISBN-Ñ", "Cien años de soledad", "Sudamericana", 1967, 1, "García Márquez", "Realismo mágico")));
+        Assert.assertEquals("Cien años de soledad", remoto.catalogarSiguienteLibro().getTitulo());
+        Libro libro = remoto.getLibroPorIsbn("ISBN-Ñ");
+        Assert.assertEquals("García Márquez", libro.getAutor());
+        Assert.assertEquals("Realismo mágico", remoto.analizarCatalogo("tematica").getGrupos().get(0).getValor());
+        Assert.assertEquals("Cien años de soledad", particiones.get(0).getLibroPorIsbn("ISBN-Ñ").getTitulo());
+    }
+
+    @Test
+    public void testRemoto_cursorEnLaCabecera() {
+        for (int p = 0; p < NUM_PARTICIONES; p++) {
+            List<String> ids = new ArrayList<>();
+            String cursor = null;
+            do {
+                Pagina<Lector> remota = remotos.get(p).listarLectores(cursor, 2);
+                Pagina<Lector> local = particiones.get(p).listarLectores(cursor, 2);
+                Assert.assertEquals(local.getCursorSiguiente(), remota.getCursorSiguiente());
+                Assert.assertEquals(local.getElementos().size(), remota.getElementos().size());
+                for (Lector lector : remota.getElementos()) ids.add(lector.getId());
+                cursor = remota.getCursorSiguiente();
+            } while (cursor != null);
+            Assert.assertEquals(particiones.get(p).lectoresSize(), ids.size());
+        }
+    }
+}
@@ -1,13 +1,28 @@
 package edu.upc.dsa;
 
+import edu.upc.dsa.json.ModelosJson;
+import edu.upc.dsa.json.SalidaJson;
+import edu.upc.dsa.models.AnaliticaCatalogo;
+import edu.upc.dsa.models.Estadisticas;
 import edu.upc.dsa.models.Lector;
 import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Pagina;
 import edu.upc.dsa.models.Prestamo;
+import edu.upc.dsa.models.ResultadoBusqueda;
+import edu.upc.dsa.models.ResultadoDevolucion;
+import edu.upc.dsa.models.ResultadoLector;
+import edu.upc.dsa.models.ResultadoLote;
+import edu.upc.dsa.models.ResultadoPrestamo;
+import edu.upc.dsa.models.ResumenCatalogacion;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class LibrosManagerTest {
@@ -15,7 +30,7 @@ public class LibrosManagerTest {
 
     @Before
     public void setUp() {
-        manager = LibrosManagerImpl.getInstance();
+        manager = FabricaManager.getInstance();
 
         // ----- Lectores -----
         manager.addLector("L1", "Pau", "Garcia", "123A", "12/12/2004", "Barcelona", "Carrer 1");
@@ -39,7 +54,7 @@ public class LibrosManagerTest {
 
     @Test
     public void testAddLectorNuevo_ok() {
-        manager.addLector("L4", "Joan", "Ribas", "999Z", "01/01/2000", "Girona", "Av. 1");
+        Assert.assertEquals(ResultadoLector.CREADO, manager.addLector("L4", "Joan", "Ribas", "999Z", "01/01/2000", "Girona", "Av. 1"));
         Assert.assertEquals(4, manager.lectoresSize());
         Lector l4 = manager.getLector("L4");
         Assert.assertNotNull(l4);
@@ -48,7 +63,7 @@ public class LibrosManagerTest {
 
     @Test
     public void testAddLectorMismoId_mismosParametros_noCambia() {
-        manager.addLector("L1", "Pau", "Garcia", "123A", "12/12/2004", "Barcelona", "Carrer 1");
+        Assert.assertEquals(ResultadoLector.SIN_CAMBIOS, manager.addLector("L1", "Pau", "Garcia", "123A", "12/12/2004", "Barcelona", "Carrer 1"));
         Assert.assertEquals(3, manager.lectoresSize());
         Lector l1 = manager.getLector("L1");
         Assert.assertEquals("Pau", l1.getNombre());
@@ -57,12 +72,30 @@ public class LibrosManagerTest {
 
     @Test
     public void testAddLectorMismoId_parametrosDistintos_actualiza() {
-        manager.addLector("L1", "Pauet", "García", "123A", "12/12/2004", "Barcelona", "Carrer 2");
+        Assert.assertEquals(ResultadoLector.ACTUALIZADO, manager.addLector("L1", "Pauet", "García", "123A", "12/12/2004", "Barcelona", "Carrer 2"));
         Lector l1 = manager.getLector("L1");
         Assert.assertEquals("Pauet", l1.getNombre());
         Assert.assertEquals("Carrer 2", l1.getDireccion());
     }
 
+    @Test
+    public void testAddLectorMismoId_camposNull_sinExcepciones() {
+        Assert.assertEquals(ResultadoLector.CREADO, manager.addLector("L4", null, null, null, null, null, null));
+        Assert.assertEquals(ResultadoLector.SIN_CAMBIOS, manager.addLector("L4", null, null, null, null, null, null));
+        Assert.assertEquals(ResultadoLector.ACTUALIZADO, manager.addLector("L4", "Joan", null, null, "01/01/2000", null, null));
+        Assert.assertEquals(ResultadoLector.ACTUALIZADO, manager.addLector("L4", null, null, null, null, null, null));
+        Lector l4 = manager.getLector("L4");
+        Assert.assertNull(l4.getNombre());
+        Assert.assertNull(l4.getFechaNacimiento());
+    }
+
+    @Test
+    public void testAddLector_sinIdOFechaInvalida_noValido() {
+        Assert.assertEquals(ResultadoLector.NO_VALIDO, manager.addLector(null, "Joan", "Ribas", "999Z", "01/01/2000", "Girona", "Av. 1"));
+        Assert.assertEquals(ResultadoLector.NO_VALIDO, manager.addLector("L4", "Joan", "Ribas", "999Z", "31/02/2000", "Girona", "Av. 1"));
+        Assert.assertEquals(3, manager.lectoresSize());
+    }
+
     @Test
     public void testCatalogar_acumulaStockPorIsbn() {
         for (int i = 0; i < 5; i++) {
@@ -86,6 +119,78 @@ public class LibrosManagerTest {
         Assert.assertEquals(11, manager.getStockPorIsbn("ISBN-6"));
     }
 
+    @Test
+    public void testCatalogar_ordenLifoEnMonton_yFifoEntreMontones() {
+        // El primer montón tiene B1..B5; con 10 libros más se llena y se abre un segundo montón
+        for (int i = 1; i <= 10; i++) {
+            manager.almacenarLibro(new Libro("C" + i, "ISBN-C" + i, "Titulo " + i, "Editorial", 2000, 1, "Autor", "Tematica"));
+        }
+        String[] esperados = {"ISBN-C5", "ISBN-C4", "ISBN-C3", "ISBN-C2", "ISBN-C1", "ISBN-4", "ISBN-3", "ISBN-1", "ISBN-2", "ISBN-1",
+                "ISBN-C10", "ISBN-C9", "ISBN-C8", "ISBN-C7", "ISBN-C6"};
+        for (String isbn : esperados) {
+            Assert.assertEquals(isbn, manager.catalogarSiguienteLibro().getIsbn());
+        }
+        Assert.assertNull(manager.catalogarSiguienteLibro());
+    }
+
+    @Test
+    public void testAlmacenarLibros_lote_informaErroresSinAbortar() {
+        ResultadoLote resultado = manager.almacenarLibros(Arrays.asList(
+                new Libro("B8", "ISBN-8", "Dracula", "Constable", 1897, 1, "Bram Stoker", "Terror"),
+                null,
+                new Libro(null, "ISBN-9", "Sin id", "Editorial", 2000, 1, "Autor", "Tematica"),
+                new Libro("B9", "ISBN-8", "Dracula", "Constable", 1897, 1, "Bram Stoker", "Terror")));
+        Assert.assertEquals(4, resultado.getNumProcesados());
+        Assert.assertEquals(2, resultado.getNumAlmacenados());
+        Assert.assertEquals(2, resultado.getErrores().size());
+        Assert.assertEquals(1, resultado.getErrores().get(0).getPosicion());
+        Assert.assertEquals(2, resultado.getErrores().get(1).getPosicion());
+        for (int i = 0; i < 7; i++) {
+            manager.catalogarSiguienteLibro();
+        }
+        Assert.assertEquals(2, manager.getStockPorIsbn("ISBN-8"));
+    }
+
+    @Test
+    public void testCatalogarSiguientesLibros_resumenYStock() {
+        ResumenCatalogacion resumen = manager.catalogarSiguientesLibros(3); // B5, B4, B3
+        Assert.assertEquals(3, resumen.getNumCatalogados());
+        Assert.assertEquals(3, resumen.getNumIsbnsNuevos());
+        Assert.assertEquals(2, resumen.getNumPendientes());
+        Assert.assertEquals("B3", manager.getLibroPorIsbn("ISBN-1").getId());
+
+        resumen = manager.catalogarTodosLosLibros(); // B2, B1
+        Assert.assertEquals(2, resumen.getNumCatalogados());
+        Assert.assertEquals(1, resumen.getNumIsbnsNuevos());
+        Assert.assertEquals(0, resumen.getNumPendientes());
+        Assert.assertEquals(2, manager.getStockPorIsbn("ISBN-1"));
+        Assert.assertEquals(1, manager.getStockPorIsbn("ISBN-2"));
+        Assert.assertEquals(0, manager.catalogarTodosLosLibros().getNumCatalogados());
+
+        manager.prestarLibro(new Prestamo("PB1", "L1", "B1", "01/05/2025", "15/05/2025"));
+        Assert.assertEquals(1, manager.getStockPorIsbn("ISBN-1"));
+    }
+
+    @Test
+    public void testCatalogadorAutomatico_vaciaElAlmacen() throws InterruptedException {
+        CatalogadorAutomatico catalogador = new CatalogadorAutomatico(manager);
+        catalogador.iniciar(2, 5);
+        try {
+            long limite = System.currentTimeMillis() + 5000;
+            while (catalogador.getEstado().getNumCatalogados() < 5 && System.currentTimeMillis() < limite) {
+                Thread.sleep(10);
+            }
+        }
+        finally {
+            catalogador.detener();
+        }
+        Assert.assertFalse(catalogador.isActivo());
+        Assert.assertEquals(5, catalogador.getEstado().getNumCatalogados());
+        Assert.assertEquals(2, manager.getStockPorIsbn("ISBN-1"));
+        Assert.assertEquals("B3", manager.getLibroPorIsbn("ISBN-1").getId());
+        Assert.assertNull(manager.catalogarSiguienteLibro());
+    }
+
     @Test
     public void testPrestarLibro_porId_ok_decrementaStockDelIsbn() {
         for (int i = 0; i < 5; i++) {
@@ -93,7 +198,7 @@ public class LibrosManagerTest {
         }
         Assert.assertEquals(2, manager.getStockPorIsbn("ISBN-1"));
         Prestamo p = new Prestamo("PR1", "L1", "B1", "01/01/2025", "15/01/2025");
-        manager.prestarLibro(p);
+        Assert.assertEquals(ResultadoPrestamo.CREADO, manager.prestarLibro(p));
         Assert.assertEquals(1, manager.getStockPorIsbn("ISBN-1"));
         Assert.assertNotNull(manager.getLibroPorIsbn("ISBN-1"));
         List<Prestamo> prestamosL1 = manager.prestamosDeLector("L1");
@@ -112,13 +217,61 @@ public class LibrosManagerTest {
         Assert.assertEquals(1, manager.getStockPorIsbn("ISBN-7"));
         manager.prestarLibro(new Prestamo("PU1", "L2", "B7", "01/02/2025", "07/02/2025"));
         Assert.assertEquals(0, manager.getStockPorIsbn("ISBN-7"));
-        manager.prestarLibro(new Prestamo("PU2", "L2", "B7", "02/02/2025", "08/02/2025"));
+        Assert.assertEquals(ResultadoPrestamo.SIN_EJEMPLARES, manager.prestarLibro(new Prestamo("PU2", "L2", "B7", "02/02/2025", "08/02/2025")));
         Assert.assertEquals(0, manager.getStockPorIsbn("ISBN-7"));
         List<Prestamo> pL2 = manager.prestamosDeLector("L2");
         Assert.assertEquals(1, pL2.size());
         Assert.assertEquals("PU1", pL2.get(0).getId());
     }
 
+    @Test
+    public void testPrestarLibro_rechazos_noTocanElStock() {
+        for (int i = 0; i < 5; i++) {
+            manager.catalogarSiguienteLibro();
+        }
+        Assert.assertEquals(ResultadoPrestamo.CREADO, manager.prestarLibro(new Prestamo("PX1", "L1", "B1", "01/01/2025", "15/01/2025")));
+        Assert.assertEquals(ResultadoPrestamo.DUPLICADO, manager.prestarLibro(new Prestamo("PX1", "L1", "B1", "01/01/2025", "15/01/2025")));
+        Assert.assertEquals(ResultadoPrestamo.LECTOR_NO_EXISTE, manager.prestarLibro(new Prestamo("PX2", "L9", "B1", "01/01/2025", "15/01/2025")));
+        Assert.assertEquals(ResultadoPrestamo.EJEMPLAR_NO_CATALOGADO, manager.prestarLibro(new Prestamo("PX3", "L1", "B9", "01/01/2025", "15/01/2025")));
+        Assert.assertEquals(ResultadoPrestamo.NO_VALIDO, manager.prestarLibro(null));
+        Assert.assertEquals(1, manager.getStockPorIsbn("ISBN-1"));
+        Assert.assertEquals(1, manager.prestamosDeLector("L1").size());
+    }
+
+    @Test
+    public void testPrestarLibro_idYaDevuelto_duplicado() {
+        for (int i = 0; i < 5; i++) {
+            manager.catalogarSiguienteLibro();
+        }
+        Assert.assertEquals(ResultadoPrestamo.CREADO, manager.prestarLibro(new Prestamo("PR1", "L1", "B1", "01/01/2025", "15/01/2025")));
+        Assert.assertEquals(ResultadoDevolucion.DEVUELTO, manager.devolverLibro("PR1"));
+        Assert.assertEquals(ResultadoPrestamo.DUPLICADO, manager.prestarLibro(new Prestamo("PR1", "L2", "B1", "01/02/2025", "15/02/2025")));
+
+        // El préstamo devuelto sigue en el histórico, y en el del lector
+        Assert.assertEquals("L1", manager.getPrestamo("PR1").getLectorId());
+        Assert.assertEquals(1, manager.prestamosDeLector("L1").size());
+        Assert.assertTrue(manager.prestamosDeLector("L2").isEmpty());
+        Assert.assertEquals(2, manager.getStockPorIsbn("ISBN-1"));
+        Assert.assertEquals(ResultadoDevolucion.YA_DEVUELTO, manager.devolverLibro("PR1"));
+    }
+
+    @Test
+    public void testPrestamosDeLector_soloDevuelveLosDelLector() {
+        for (int i = 0; i < 5; i++) {
+            manager.catalogarSiguienteLibro();
+        }
+        manager.prestarLibro(new Prestamo("PL1", "L1", "B1", "01/04/2025", "15/04/2025"));
+        manager.prestarLibro(new Prestamo("PL2", "L2", "B2", "01/04/2025", "15/04/2025"));
+        manager.prestarLibro(new Prestamo("PL3", "L1", "B4", "02/04/2025", "16/04/2025"));
+        List<Prestamo> pL1 = manager.prestamosDeLector("L1");
+        Assert.assertEquals(2, pL1.size());
+        Assert.assertEquals("PL1", pL1.get(0).getId());
+        Assert.assertEquals("PL3", pL1.get(1).getId());
+        List<Prestamo> pL2 = manager.prestamosDeLector("L2");
+        Assert.assertEquals(1, pL2.size());
+        Assert.assertEquals("PL2", pL2.get(0).getId());
+    }
+
     @Test
     public void testPrestamosDeLector_sinPrestamos_listaVacia() {
         List<Prestamo> prestamos = manager.prestamosDeLector("L3");
@@ -126,6 +279,228 @@ public class LibrosManagerTest {
         Assert.assertTrue(prestamos.isEmpty());
     }
 
+    @Test
+    public void testRecorrerPrestamosDeLector_enStreamingJsonYNdjson() throws IOException {
+        manager.catalogarTodosLosLibros();
+        manager.prestarLibro(new Prestamo("PS1", "L1", "B1", "01/04/2025", "15/04/2025"));
+        manager.prestarLibro(new Prestamo("PS2", "L1", "B4", "02/04/2025", "16/04/2025"));
+        manager.devolverLibro("PS1");
+
+        ByteArrayOutputStream array = new ByteArrayOutputStream();
+        SalidaJson.<Prestamo>escribirArray(array, c -> manager.recorrerPrestamosDeLector("L1", c), ModelosJson::escribirPrestamo);
+        Assert.assertEquals("[{\"id\":\"PS2\",\"lectorId\":\"L1\",\"libroId\":\"B4\",\"inicioPrestamo\":\"02/04/2025\",\"finalPrestamo\":\"16/04/2025\",\"enTramite\":true},"
+                + "{\"id\":\"PS1\",\"lectorId\":\"L1\",\"libroId\":\"B1\",\"inicioPrestamo\":\"01/04/2025\",\"finalPrestamo\":\"15/04/2025\",\"enTramite\":false}]",
+                array.toString("UTF-8"));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        SalidaJson.<Prestamo>escribirNdjson(ndjson, c -> manager.recorrerPrestamosDeLector("L1", c), ModelosJson::escribirPrestamo);
+        String[] lineas = ndjson.toString("UTF-8").split("\n");
+        Assert.assertEquals(2, lineas.length);
+        Assert.assertTrue(lineas[0].startsWith("{\"id\":\"PS2\""));
+        Assert.assertTrue(lineas[1].startsWith("{\"id\":\"PS1\""));
+
+        ByteArrayOutputStream vacio = new ByteArrayOutputStream();
+        SalidaJson.<Prestamo>escribirArray(vacio, c -> manager.recorrerPrestamosDeLector("L3", c), ModelosJson::escribirPrestamo);
+        Assert.assertEquals("[]", vacio.toString("UTF-8"));
+    }
+
+    @Test
+    public void testPrestamosVencidosHasta_ordenadosPorFechaFinal() {
+        for (int i = 0; i < 5; i++) {
+            manager.catalogarSiguienteLibro();
+        }
+        manager.prestarLibro(new Prestamo("PV1", "L1", "B1", "01/04/2025", "16/04/2025"));
+        manager.prestarLibro(new Prestamo("PV2", "L2", "B2", "01/04/2025", "10/04/2025"));
+        manager.prestarLibro(new Prestamo("PV3", "L1", "B4", "02/04/2025", "30/04/2025"));
+        List<Prestamo> vencidos = manager.prestamosVencidosHasta("16/04/2025");
+        Assert.assertEquals(2, vencidos.size());
+        Assert.assertEquals("PV2", vencidos.get(0).getId());
+        Assert.assertEquals("PV1", vencidos.get(1).getId());
+        Assert.assertEquals(0, manager.prestamosVencidosHasta("09/04/2025").size());
+        Assert.assertNull(manager.prestamosVencidosHasta("2025-04-16"));
+    }
+
+    @Test
+    public void testBuscarLibros_indexaAlCatalogar() {
+        Assert.assertEquals(0, manager.buscarLibros("quijote", null, null, null, 0, 20).getTotal());
+        manager.catalogarSiguientesLibros(3);  // B5, B4 y B3
+        manager.catalogarSiguienteLibro();     // B2
+        ResultadoBusqueda r = manager.buscarLibros("quij cerv", null, null, null, 0, 20);
+        Assert.assertEquals(1, r.getTotal());
+        Assert.assertEquals("ISBN-1", r.getLibros().get(0).getIsbn());
+        Assert.assertEquals(4, manager.buscarLibros("", null, null, null, 0, 20).getTotal());
+        Assert.assertNull(manager.buscarLibros("", null, null, null, 0, 0));
+        manager.catalogarSiguienteLibro();     // B1, mismo ISBN que B3
+        Assert.assertEquals(1, manager.buscarLibros("quijote", null, null, null, 0, 20).getTotal());
+    }
+
+    @Test
+    public void testAnalizarCatalogo_ejemplaresYStockPorGrupo() {
+        manager.catalogarTodosLosLibros();
+        manager.prestarLibro(new Prestamo("P1", "L1", "B1", "01/06/2025", "15/06/2025"));
+
+        AnaliticaCatalogo tematicas = manager.analizarCatalogo("tematica");
+        Assert.assertEquals(4, tematicas.getGrupos().size());
+        Assert.assertEquals("Novela", tematicas.getGrupos().get(0).getValor());
+        Assert.assertEquals(1, tematicas.getGrupos().get(0).getNumIsbns());
+        Assert.assertEquals(2, tematicas.getGrupos().get(0).getNumEjemplares());
+        Assert.assertEquals(1, tematicas.getGrupos().get(0).getStock());
+
+        AnaliticaCatalogo decadas = manager.analizarCatalogo("decada");
+        Assert.assertEquals(Arrays.asList("1930", "1940", "2000"), Arrays.asList(decadas.getGrupos().get(0).getValor(),
+                decadas.getGrupos().get(1).getValor(), decadas.getGrupos().get(2).getValor()));
+        Assert.assertEquals(2, decadas.getGrupos().get(2).getNumIsbns());
+        Assert.assertEquals(3, decadas.getGrupos().get(2).getNumEjemplares());
+
+        Assert.assertNull(manager.analizarCatalogo("precio"));
+        manager.clear();
+        Assert.assertTrue(manager.analizarCatalogo("tematica").getGrupos().isEmpty());
+    }
+
+    @Test
+    public void testListarLectores_porPaginasConCursor() {
+        Pagina<Lector> pagina = manager.listarLectores(null, 2);
+        Assert.assertEquals(2, pagina.getElementos().size());
+        Assert.assertEquals("L1", pagina.getElementos().get(0).getId());
+        Assert.assertEquals("L2", pagina.getElementos().get(1).getId());
+        Assert.assertNotNull(pagina.getCursorSiguiente());
+
+        manager.addLector("L0", "Joan", "Ribas", "999Z", "01/01/2000", "Girona", "Av. 1");  // antes del cursor
+        pagina = manager.listarLectores(pagina.getCursorSiguiente(), 2);
+        Assert.assertEquals(1, pagina.getElementos().size());
+        Assert.assertEquals("L3", pagina.getElementos().get(0).getId());
+        Assert.assertNull(pagina.getCursorSiguiente());
+
+        Assert.assertNull(manager.listarLectores("no es un cursor!", 2));
+        Assert.assertNull(manager.listarLectores(null, 0));
+    }
+
+    @Test
+    public void testListarCatalogoYPrestamos_enTramiteYDevueltos() {
+        manager.catalogarTodosLosLibros();
+        Pagina<Libro> catalogo = manager.listarCatalogo(null, 3);
+        Assert.assertEquals("ISBN-1", catalogo.getElementos().get(0).getIsbn());
+        Assert.assertEquals(2, catalogo.getElementos().get(0).getNumEjemplares());
+        Assert.assertEquals(1, manager.listarCatalogo(catalogo.getCursorSiguiente(), 3).getElementos().size());
+
+        manager.prestarLibro(new Prestamo("PP1", "L1", "B1", "01/06/2025", "15/06/2025"));
+        manager.prestarLibro(new Prestamo("PP2", "L2", "B2", "01/06/2025", "15/06/2025"));
+        manager.prestarLibro(new Prestamo("PP3", "L3", "B4", "01/06/2025", "15/06/2025"));
+        manager.devolverLibro("PP2");
+        manager.prestarLibro(new Prestamo("PP4", "L2", "B2", "16/06/2025", "30/06/2025"));
+
+        List<String> vistos = new ArrayList<>();
+        String cursor = null;
+        do {
+            Pagina<Prestamo> pagina = manager.listarPrestamos(cursor, 1);
+            for (Prestamo p : pagina.getElementos()) {
+                vistos.add(p.getId() + (p.isEnTramite() ? "" : "-devuelto"));
+            }
+            cursor = pagina.getCursorSiguiente();
+        } while (cursor != null);
+        Assert.assertEquals(Arrays.asList("PP1", "PP2-devuelto", "PP3", "PP4"), vistos);
+    }
+
+    @Test
+    public void testVersionIsbn_cambiaConCadaCambioDelAgregado() {
+        Assert.assertEquals(0, manager.getVersionIsbn("ISBN-1"));
+        manager.catalogarSiguienteLibro();  // B5
+        manager.catalogarSiguientesLibros(2);  // B4 y B3
+        long alCatalogar = manager.getVersionIsbn("ISBN-1");
+        Assert.assertTrue(alCatalogar > 0);
+        long otroIsbn = manager.getVersionIsbn("ISBN-3");
+
+        manager.catalogarSiguienteLibro();  // B2, otro ISBN
+        Assert.assertEquals(alCatalogar, manager.getVersionIsbn("ISBN-1"));
+        manager.catalogarSiguienteLibro();  // B1, segundo ejemplar de ISBN-1
+        long conDosEjemplares = manager.getVersionIsbn("ISBN-1");
+        Assert.assertTrue(conDosEjemplares > alCatalogar);
+
+        manager.prestarLibro(new Prestamo("PE1", "L1", "B1", "01/06/2025", "15/06/2025"));
+        long prestado = manager.getVersionIsbn("ISBN-1");
+        Assert.assertTrue(prestado > conDosEjemplares);
+        manager.prestarLibro(new Prestamo("PE1", "L1", "B1", "01/06/2025", "15/06/2025"));  // duplicado: no cambia nada
+        Assert.assertEquals(prestado, manager.getVersionIsbn("ISBN-1"));
+        manager.devolverLibro("PE1");
+        Assert.assertTrue(manager.getVersionIsbn("ISBN-1") > prestado);
+        Assert.assertEquals(otroIsbn, manager.getVersionIsbn("ISBN-3"));
+        Assert.assertEquals(0, manager.getVersionIsbn("NO-EXISTE"));
+    }
+
+    @Test
+    public void testGetLibroPorIsbn_copiaConElStockDelMomento() {
+        manager.catalogarTodosLosLibros();
+        Libro antes = manager.getLibroPorIsbn("ISBN-1");
+        Assert.assertEquals(2, antes.getNumEjemplares());
+        Assert.assertEquals("El Quijote", antes.getTitulo());
+
+        manager.prestarLibro(new Prestamo("PC1", "L1", "B1", "01/06/2025", "15/06/2025"));
+        Assert.assertEquals(2, antes.getNumEjemplares());
+        Assert.assertEquals(1, manager.getLibroPorIsbn("ISBN-1").getNumEjemplares());
+        Assert.assertEquals(1, manager.listarCatalogo(null, 10).getElementos().get(0).getNumEjemplares());
+        Assert.assertEquals(1, manager.buscarLibros("quijote", null, null, null, 0, 10).getLibros().get(0).getNumEjemplares());
+
+        // Cambiar la copia no cambia el catálogo
+        antes.setNumEjemplares(100);
+        Assert.assertEquals(1, manager.getStockPorIsbn("ISBN-1"));
+    }
+
+    @Test
+    public void testDevolverLibro_reponeStockYPasaAlHistorico() {
+        for (int i = 0; i < 5; i++) {
+            manager.catalogarSiguienteLibro();
+        }
+        manager.prestarLibro(new Prestamo("PD1", "L1", "B1", "01/06/2025", "15/06/2025"));
+        manager.prestarLibro(new Prestamo("PD2", "L1", "B4", "02/06/2025", "16/06/2025"));
+        Assert.assertEquals(1, manager.getStockPorIsbn("ISBN-1"));
+
+        Assert.assertEquals(ResultadoDevolucion.DEVUELTO, manager.devolverLibro("PD1"));
+        Assert.assertFalse(manager.getPrestamo("PD1").isEnTramite());
+        Assert.assertEquals(2, manager.getStockPorIsbn("ISBN-1"));
+        Assert.assertEquals(ResultadoDevolucion.YA_DEVUELTO, manager.devolverLibro("PD1"));
+        Assert.assertEquals(2, manager.getStockPorIsbn("ISBN-1"));
+        Assert.assertEquals(ResultadoDevolucion.NO_EXISTE, manager.devolverLibro("NO-EXISTE"));
+
+        List<Prestamo> vencidos = manager.prestamosVencidosHasta("30/06/2025");
+        Assert.assertEquals(1, vencidos.size());
+        Assert.assertEquals("PD2", vencidos.get(0).getId());
+        List<Prestamo> pL1 = manager.prestamosDeLector("L1");
+        Assert.assertEquals(2, pL1.size());
+        Assert.assertEquals("PD2", pL1.get(0).getId());
+        Assert.assertEquals("PD1", pL1.get(1).getId());
+        Assert.assertFalse(pL1.get(1).isEnTramite());
+    }
+
+    @Test
+    public void testGetEstadisticas_almacenCatalogoYStockCero() {
+        Estadisticas e = manager.getEstadisticas();
+        Assert.assertEquals(1, e.getNumMontones());
+        Assert.assertEquals(5, e.getNumLibrosAlmacen());
+        Assert.assertEquals(0, e.getNumIsbnsCatalogo());
+
+        manager.catalogarTodosLosLibros();
+        manager.prestarLibro(new Prestamo("PS1", "L1", "B2", "01/06/2025", "15/06/2025"));
+        manager.prestarLibro(new Prestamo("PS2", "L2", "B4", "01/06/2025", "15/06/2025"));
+        e = manager.getEstadisticas();
+        Assert.assertEquals(0, e.getNumMontones());
+        Assert.assertEquals(0, e.getNumLibrosAlmacen());
+        Assert.assertEquals(4, e.getNumIsbnsCatalogo());
+        Assert.assertEquals(5, e.getNumEjemplaresCatalogo());
+        Assert.assertEquals(2, e.getNumIsbnsSinStock());
+        Assert.assertEquals(2, e.getNumPrestamosActivos());
+
+        manager.devolverLibro("PS1");
+        manager.almacenarLibro(new Libro("B6", "ISBN-3", "1984", "Secker", 1949, 1, "G. Orwell", "Distopía"));
+        manager.catalogarSiguienteLibro();
+        e = manager.getEstadisticas();
+        Assert.assertEquals(0, e.getNumIsbnsSinStock());
+        Assert.assertEquals(1, e.getNumPrestamosActivos());
+        Assert.assertEquals(1, e.getNumPrestamosDevueltos());
+
+        manager.clear();
+        Assert.assertEquals(0, manager.getEstadisticas().getNumIsbnsSinStock());
+    }
+
     @Test
     public void testClear() {
         // Catalogamos algunos y prestamos uno
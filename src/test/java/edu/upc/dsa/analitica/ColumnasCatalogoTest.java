@@ -0,0 +1,100 @@
+package edu.upc.dsa.analitica;
+
+import edu.upc.dsa.models.AnaliticaCatalogo;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Recuento;
+import edu.upc.dsa.stock.TablaStock;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class ColumnasCatalogoTest {
+    private TablaStock stock;
+    private ColumnasCatalogo columnas;
+
+    @Before
+    public void setUp() {
+        stock = new TablaStock(1);
+        columnas = new ColumnasCatalogo(stock);
+    }
+
+    private void catalogar(int isbn, Libro agregado, int ejemplares, int disponibles) {
+        stock.registrar(isbn).añadir(disponibles);
+        columnas.fijarFila(isbn, agregado);
+        columnas.añadirEjemplares(isbn, ejemplares);
+    }
+
+    private static void comprobar(Recuento recuento, String valor, int numIsbns, long numEjemplares, long stock) {
+        Assert.assertEquals(valor, recuento.getValor());
+        Assert.assertEquals(numIsbns, recuento.getNumIsbns());
+        Assert.assertEquals(numEjemplares, recuento.getNumEjemplares());
+        Assert.assertEquals(stock, recuento.getStock());
+    }
+
+    @Test
+    public void testAgrupar_porTematicaDeMasAMenosEjemplares() {
+        catalogar(0, new Libro("B1", "ISBN-1", "El Quijote", "Planeta", 1605, 1, "Cervantes", "Novela"), 2, 1);
+        catalogar(1, new Libro("B2", "ISBN-2", "1984", "Secker", 1949, 1, "G. Orwell", "Distopía"), 5, 5);
+        catalogar(2, new Libro("B3", "ISBN-3", "Rinconete", "Planeta", 1613, 2, "Cervantes", "Novela"), 4, 0);
+        // Sin temática: cuenta en las demás agrupaciones, no en esta
+        catalogar(3, new Libro("B4", "ISBN-4", "Sin clasificar", "Planeta", 2000, 1, "Anónimo", null), 1, 1);
+
+        List<Recuento> grupos = columnas.agrupar(Agrupacion.TEMATICA).getGrupos();
+        Assert.assertEquals(2, grupos.size());
+        comprobar(grupos.get(0), "Novela", 2, 6, 1);
+        comprobar(grupos.get(1), "Distopía", 1, 5, 5);
+
+        grupos = columnas.agrupar(Agrupacion.EDITORIAL).getGrupos();
+        comprobar(grupos.get(0), "Planeta", 3, 7, 2);
+        comprobar(grupos.get(1), "Secker", 1, 5, 5);
+    }
+
+    @Test
+    public void testAgrupar_numericasEnOrden() {
+        catalogar(0, new Libro("B1", "ISBN-1", "A", "E", 1999, 3, "X", "T"), 1, 1);
+        catalogar(1, new Libro("B2", "ISBN-2", "B", "E", 1990, 1, "X", "T"), 2, 2);
+        catalogar(2, new Libro("B3", "ISBN-3", "C", "E", 2001, 1, "X", "T"), 3, 3);
+        catalogar(3, new Libro("B4", "ISBN-4", "D", "E", -5, 1, "X", "T"), 1, 0);
+
+        AnaliticaCatalogo decadas = columnas.agrupar(Agrupacion.DECADA);
+        Assert.assertEquals("decada", decadas.getAgrupacion());
+        Assert.assertEquals(3, decadas.getGrupos().size());
+        comprobar(decadas.getGrupos().get(0), "-10", 1, 1, 0);
+        comprobar(decadas.getGrupos().get(1), "1990", 2, 3, 3);
+        comprobar(decadas.getGrupos().get(2), "2000", 1, 3, 3);
+
+        List<Recuento> ediciones = columnas.agrupar(Agrupacion.EDICION).getGrupos();
+        comprobar(ediciones.get(0), "1", 3, 6, 5);
+        comprobar(ediciones.get(1), "3", 1, 1, 1);
+    }
+
+    @Test
+    public void testFilas_desordenadasYEjemplaresAntesQueLosDatos() {
+        // Como al restaurar: los ejemplares llegan antes que el agregado, y los números en cualquier orden
+        columnas.añadirEjemplares(500, 2);
+        Assert.assertTrue(columnas.agrupar(Agrupacion.AÑO).getGrupos().isEmpty());
+        catalogar(500, new Libro("B1", "ISBN-1", "A", "E", 2000, 1, "X", "T"), 0, 2);
+        catalogar(3, new Libro("B2", "ISBN-2", "B", "E", 2000, 1, "X", "T"), 1, 1);
+
+        List<Recuento> años = columnas.agrupar(Agrupacion.AÑO).getGrupos();
+        Assert.assertEquals(1, años.size());
+        comprobar(años.get(0), "2000", 2, 3, 3);
+
+        // Un agregado que cambia de temática deja la anterior sin grupo
+        columnas.fijarFila(3, new Libro("B2", "ISBN-2", "B", "E", 2000, 1, "X", "Otra"));
+        List<Recuento> tematicas = columnas.agrupar(Agrupacion.TEMATICA).getGrupos();
+        Assert.assertEquals(2, tematicas.size());
+        comprobar(tematicas.get(0), "T", 1, 2, 2);
+        comprobar(tematicas.get(1), "Otra", 1, 1, 1);
+    }
+
+    @Test
+    public void testAgrupacion_desdeNombre() {
+        Assert.assertEquals(Agrupacion.TEMATICA, Agrupacion.desde("tematica"));
+        Assert.assertEquals(Agrupacion.AÑO, Agrupacion.desde("Año"));
+        Assert.assertNull(Agrupacion.desde("precio"));
+        Assert.assertNull(Agrupacion.desde(null));
+    }
+}
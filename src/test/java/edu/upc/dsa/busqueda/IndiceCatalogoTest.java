@@ -0,0 +1,68 @@
+package edu.upc.dsa.busqueda;
+
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.ResultadoBusqueda;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class IndiceCatalogoTest {
+    private IndiceCatalogo indice;
+
+    @Before
+    public void setUp() {
+        indice = new IndiceCatalogo();
+        indice.añadir(new Libro("B1", "ISBN-1", "El Quijote", "Planeta", 2000, 1, "Cervantes", "Novela"));
+        indice.añadir(new Libro("B2", "ISBN-2", "Cien años de soledad", "Sudamericana", 1967, 1, "García Márquez", "Novela"));
+        indice.añadir(new Libro("B3", "ISBN-3", "El amor en los tiempos del cólera", "Planeta", 1985, 1, "García Márquez", "Novela"));
+        indice.añadir(new Libro("B4", "ISBN-4", "El Hobbit", "Minotauro", 1937, 1, "Tolkien", "Fantasía"));
+    }
+
+    @Test
+    public void testTokenizar_minusculasYSinAcentos() {
+        Assert.assertEquals(Arrays.asList("garcia", "marquez", "colera"), IndiceCatalogo.tokenizar("García-Márquez, CÓLERA"));
+        Assert.assertTrue(IndiceCatalogo.tokenizar(null).isEmpty());
+    }
+
+    @Test
+    public void testBuscar_prefijosDeTodasLasPalabras() {
+        ResultadoBusqueda r = indice.buscar("marq col", null, null, null, 0, 10);
+        Assert.assertEquals(1, r.getTotal());
+        Assert.assertEquals("ISBN-3", r.getLibros().get(0).getIsbn());
+        Assert.assertEquals(2, indice.buscar("GARC", null, null, null, 0, 10).getTotal());
+        Assert.assertEquals(0, indice.buscar("garcia tolkien", null, null, null, 0, 10).getTotal());
+        Assert.assertEquals(4, indice.buscar(null, null, null, null, 0, 10).getTotal());
+    }
+
+    @Test
+    public void testBuscar_facetasYFiltros() {
+        ResultadoBusqueda r = indice.buscar("el", null, null, null, 0, 10);
+        Assert.assertEquals(3, r.getTotal());
+        Assert.assertEquals("Novela", r.getTematicas().get(0).getValor());
+        Assert.assertEquals(2, r.getTematicas().get(0).getNumLibros());
+        Assert.assertEquals("Planeta", r.getEditoriales().get(0).getValor());
+        Assert.assertEquals(3, r.getAñosPublicacion().size());
+
+        r = indice.buscar("el", null, "planeta", 1985, 0, 10);
+        Assert.assertEquals(1, r.getTotal());
+        Assert.assertEquals("ISBN-3", r.getLibros().get(0).getIsbn());
+    }
+
+    @Test
+    public void testBuscar_paginasEnOrdenDeAlta() {
+        ResultadoBusqueda r = indice.buscar(null, null, null, null, 1, 3);
+        Assert.assertEquals(4, r.getTotal());
+        Assert.assertEquals(1, r.getLibros().size());
+        Assert.assertEquals("ISBN-4", r.getLibros().get(0).getIsbn());
+        Assert.assertEquals(4, r.getTematicas().get(0).getNumLibros() + r.getTematicas().get(1).getNumLibros());
+    }
+
+    @Test
+    public void testAñadir_mismoIsbnNoDuplica() {
+        indice.añadir(new Libro("B5", "ISBN-4", "El Hobbit", "Minotauro", 1937, 1, "Tolkien", "Fantasía"));
+        Assert.assertEquals(4, indice.numDocumentos());
+        Assert.assertEquals("B5", indice.buscar("hobbit", null, null, null, 0, 10).getLibros().get(0).getId());
+    }
+}
@@ -0,0 +1,141 @@
+package edu.upc.dsa.ejecucion;
+
+import edu.upc.dsa.models.ErrorRespuesta;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.ConnectionCallback;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class EjecucionTest {
+    private ExecutorService ejecutor;
+
+    @After
+    public void tearDown() {
+        System.clearProperty(Ejecucion.PROPIEDAD_HILOS);
+        System.clearProperty(Ejecucion.PROPIEDAD_COLA);
+        if (ejecutor != null) ejecutor.shutdownNow();
+    }
+
+    /** Guarda con qué se completa la petición y en qué hilo */
+    private static class RespuestaCapturada implements AsyncResponse {
+        private final CountDownLatch completada = new CountDownLatch(1);
+        volatile Object resultado;
+        volatile Thread hilo;
+
+        Object esperar() throws InterruptedException {
+            Assert.assertTrue(completada.await(5, TimeUnit.SECONDS));
+            return resultado;
+        }
+
+        @Override
+        public boolean resume(Object respuesta) {
+            resultado = respuesta;
+            hilo = Thread.currentThread();
+            completada.countDown();
+            return true;
+        }
+
+        @Override
+        public boolean resume(Throwable error) {
+            return resume((Object) error);
+        }
+
+        @Override public boolean cancel() { return false; }
+        @Override public boolean cancel(int reintentarEn) { return false; }
+        @Override public boolean cancel(Date reintentarEn) { return false; }
+        @Override public boolean isSuspended() { return resultado == null; }
+        @Override public boolean isCancelled() { return false; }
+        @Override public boolean isDone() { return resultado != null; }
+        @Override public boolean setTimeout(long tiempo, TimeUnit unidad) { return true; }
+        @Override public void setTimeoutHandler(TimeoutHandler handler) {}
+        @Override public Collection<Class<?>> register(Class<?> callback) { return Collections.emptyList(); }
+        @Override public Map<Class<?>, Collection<Class<?>>> register(Class<?> callback, Class<?>... callbacks) { return Collections.emptyMap(); }
+        @Override public Collection<Class<?>> register(Object callback) { return Collections.emptyList(); }
+        @Override public Map<Class<?>, Collection<Class<?>>> register(Object callback, Object... callbacks) { return Collections.emptyMap(); }
+    }
+
+    @Test
+    public void testResponder_directo_enElMismoHilo() throws Exception {
+        RespuestaCapturada respuesta = new RespuestaCapturada();
+        new Ejecucion(null).responder(respuesta, () -> Response.status(201).build());
+        Assert.assertEquals(201, ((Response) respuesta.esperar()).getStatus());
+        Assert.assertSame(Thread.currentThread(), respuesta.hilo);
+    }
+
+    @Test
+    public void testResponder_pool_enOtroHiloYConLasExcepciones() throws Exception {
+        ejecutor = Ejecucion.crearEjecutor("pool", "prueba");
+        Ejecucion ejecucion = new Ejecucion(ejecutor);
+
+        RespuestaCapturada ok = new RespuestaCapturada();
+        ejecucion.responder(ok, () -> Response.status(201).build());
+        Assert.assertEquals(201, ((Response) ok.esperar()).getStatus());
+        Assert.assertNotSame(Thread.currentThread(), ok.hilo);
+        Assert.assertTrue(ok.hilo.getName().startsWith("prueba-"));
+
+        RespuestaCapturada error = new RespuestaCapturada();
+        ejecucion.responder(error, () -> {
+            throw new IOException("cuerpo cortado");
+        });
+        Assert.assertTrue(error.esperar() instanceof IOException);
+    }
+
+    @Test
+    public void testResponder_poolLleno_503() throws Exception {
+        System.setProperty(Ejecucion.PROPIEDAD_HILOS, "1");
+        System.setProperty(Ejecucion.PROPIEDAD_COLA, "1");
+        ejecutor = Ejecucion.crearEjecutor("pool", "prueba");
+        Ejecucion ejecucion = new Ejecucion(ejecutor);
+
+        CountDownLatch soltar = new CountDownLatch(1);
+        RespuestaCapturada ocupada = new RespuestaCapturada();
+        RespuestaCapturada encolada = new RespuestaCapturada();
+        RespuestaCapturada rechazada = new RespuestaCapturada();
+        Ejecucion.Manejador bloqueado = () -> {
+            try {
+                soltar.await();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return Response.status(201).build();
+        };
+        ejecucion.responder(ocupada, bloqueado);
+        ejecucion.responder(encolada, bloqueado);
+        ejecucion.responder(rechazada, bloqueado);
+
+        Response saturado = (Response) rechazada.esperar();
+        Assert.assertEquals(503, saturado.getStatus());
+        Assert.assertEquals("SATURADO", ((ErrorRespuesta) saturado.getEntity()).getCodigo());
+        soltar.countDown();
+        Assert.assertEquals(201, ((Response) ocupada.esperar()).getStatus());
+        Assert.assertEquals(201, ((Response) encolada.esperar()).getStatus());
+    }
+
+    @Test
+    public void testCrearEjecutor_virtualSiempreDevuelveUnoQueFunciona() throws Exception {
+        // En Java 21 son hilos virtuales; antes, un pool
+        ejecutor = Ejecucion.crearEjecutor("virtual", "prueba");
+        Assert.assertEquals(Integer.valueOf(42), ejecutor.submit(() -> 42).get(5, TimeUnit.SECONDS));
+        Assert.assertNull(Ejecucion.crearEjecutor("directo", "prueba"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCrearEjecutor_desconocido() {
+        Ejecucion.crearEjecutor("reactivo", "prueba");
+    }
+}
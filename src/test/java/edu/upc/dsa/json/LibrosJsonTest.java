@@ -0,0 +1,116 @@
+package edu.upc.dsa.json;
+
+import edu.upc.dsa.FabricaManager;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.ResultadoLote;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class LibrosJsonTest {
+
+    @After
+    public void tearDown() {
+        FabricaManager.getInstance().clear();
+    }
+
+    private static InputStream cuerpo(String texto) {
+        return new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String libro(String id, String isbn) {
+        return "{\"id\":\"" + id + "\",\"isbn\":\"" + isbn + "\",\"titulo\":\"Cien años de soledad\",\"editorial\":\"Sudamericana\","
+                + "\"añoPublicacion\":1967,\"edicion\":1,\"autor\":\"García Márquez\",\"tematica\":\"Realismo mágico\"}";
+    }
+
+    @Test
+    public void testLeerArray_loteValido() throws IOException {
+        LibrosJson.LoteLeido lote = LibrosJson.leerArray(cuerpo("[" + libro("B1", "ISBN-1") + "," + libro("B2", "ISBN-2") + "]"));
+        Assert.assertTrue(lote.getErroresLectura().isEmpty());
+        Assert.assertEquals(2, lote.getLibros().size());
+        Libro b1 = lote.getLibros().get(0);
+        Assert.assertEquals("B1", b1.getId());
+        Assert.assertEquals("ISBN-1", b1.getIsbn());
+        Assert.assertEquals("Cien años de soledad", b1.getTitulo());
+        Assert.assertEquals(1967, b1.getAñoPublicacion());
+        Assert.assertEquals("García Márquez", b1.getAutor());
+
+        ResultadoLote resultado = FabricaManager.getInstance().almacenarLibros(lote.getLibros());
+        Assert.assertEquals(2, resultado.getNumProcesados());
+        Assert.assertEquals(2, resultado.getNumAlmacenados());
+        Assert.assertTrue(resultado.getErrores().isEmpty());
+    }
+
+    @Test
+    public void testLeerArray_entradasNoValidasConSuPosicion() throws IOException {
+        // 1: tipo incorrecto; 2: no es un objeto; 3: sin isbn (lo rechaza el manager)
+        String json = "[" + libro("B1", "ISBN-1") + ","
+                + "{\"id\":\"B2\",\"isbn\":\"ISBN-2\",\"añoPublicacion\":\"mil\"},"
+                + "42,"
+                + "{\"id\":\"B4\"},"
+                + libro("B5", "ISBN-5") + "]";
+        LibrosJson.LoteLeido lote = LibrosJson.leerArray(cuerpo(json));
+        Assert.assertEquals(5, lote.getLibros().size());
+        Assert.assertNull(lote.getLibros().get(1));
+        Assert.assertNull(lote.getLibros().get(2));
+        Assert.assertEquals(2, lote.getErroresLectura().size());
+        Assert.assertTrue(lote.getErroresLectura().get(1).contains("añoPublicacion"));
+        Assert.assertTrue(lote.getErroresLectura().get(1).contains("B2"));
+        Assert.assertEquals("Se esperaba un objeto libro", lote.getErroresLectura().get(2));
+
+        ResultadoLote resultado = FabricaManager.getInstance().almacenarLibros(lote.getLibros());
+        Assert.assertEquals(5, resultado.getNumProcesados());
+        Assert.assertEquals(2, resultado.getNumAlmacenados());
+        Assert.assertEquals(3, resultado.getErrores().size());
+        Assert.assertEquals(1, resultado.getErrores().get(0).getPosicion());
+        Assert.assertEquals(2, resultado.getErrores().get(1).getPosicion());
+        Assert.assertEquals(3, resultado.getErrores().get(2).getPosicion());
+        Assert.assertEquals("B4", resultado.getErrores().get(2).getId());
+    }
+
+    @Test
+    public void testLeerArray_cuerpoVacioOMalFormado() throws IOException {
+        LibrosJson.LoteLeido vacio = LibrosJson.leerArray(cuerpo(""));
+        Assert.assertEquals(1, vacio.getLibros().size());
+        Assert.assertNull(vacio.getLibros().get(0));
+        Assert.assertTrue(vacio.getErroresLectura().get(0).startsWith("JSON mal formado"));
+
+        Assert.assertTrue(LibrosJson.leerArray(cuerpo("[]")).getLibros().isEmpty());
+
+        LibrosJson.LoteLeido objeto = LibrosJson.leerArray(cuerpo(libro("B1", "ISBN-1")));
+        Assert.assertEquals(1, objeto.getErroresLectura().size());
+
+        // Un error de sintaxis invalida el resto del array, pero no lo que ya se había leído
+        LibrosJson.LoteLeido cortado = LibrosJson.leerArray(cuerpo("[" + libro("B1", "ISBN-1") + ", {\"id\": "));
+        Assert.assertEquals(2, cortado.getLibros().size());
+        Assert.assertEquals("B1", cortado.getLibros().get(0).getId());
+        Assert.assertTrue(cortado.getErroresLectura().get(1).startsWith("JSON mal formado"));
+
+        LibrosJson.LoteLeido sinCerrar = LibrosJson.leerArray(cuerpo("[" + libro("B1", "ISBN-1")));
+        Assert.assertEquals(2, sinCerrar.getLibros().size());
+        Assert.assertNotNull(sinCerrar.getErroresLectura().get(1));
+    }
+
+    @Test
+    public void testLeerNdjson_unaLineaMalaNoImpideLasSiguientes() throws IOException {
+        String ndjson = libro("B1", "ISBN-1") + "\n"
+                + "\n"
+                + "{\"id\": \"B2\", \n"
+                + "[1, 2]\n"
+                + libro("B3", "ISBN-3") + "\n";
+        LibrosJson.LoteLeido lote = LibrosJson.leerNdjson(cuerpo(ndjson));
+        Assert.assertEquals(4, lote.getLibros().size());
+        Assert.assertEquals("B1", lote.getLibros().get(0).getId());
+        Assert.assertTrue(lote.getErroresLectura().get(1).startsWith("JSON mal formado"));
+        Assert.assertEquals("Se esperaba un objeto libro", lote.getErroresLectura().get(2));
+        Assert.assertEquals("B3", lote.getLibros().get(3).getId());
+        Assert.assertEquals("Cien años de soledad", lote.getLibros().get(3).getTitulo());
+
+        Assert.assertTrue(LibrosJson.leerNdjson(cuerpo("")).getLibros().isEmpty());
+    }
+}
@@ -0,0 +1,171 @@
+package edu.upc.dsa.json;
+
+import edu.upc.dsa.models.Lector;
+import edu.upc.dsa.models.Libro;
+import edu.upc.dsa.models.Prestamo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ida y vuelta de Lector, Libro y Prestamo por ProveedorJsonModelos (y así por ModelosJson),
+ * con los streams que le daría Jersey.
+ */
+public class ModelosJsonTest {
+
+    private static <T> String escribir(ProveedorJsonModelos<T> proveedor, T modelo) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        proveedor.writeTo(modelo, modelo.getClass(), modelo.getClass(), null, MediaType.APPLICATION_JSON_TYPE, null, salida);
+        return new String(salida.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static <T> T leer(ProveedorJsonModelos<T> proveedor, Class<T> clase, String json) throws IOException {
+        return proveedor.readFrom(clase, clase, null, MediaType.APPLICATION_JSON_TYPE, null,
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testLector_idaYVuelta() throws IOException {
+        ProveedorJsonModelos.DeLector proveedor = new ProveedorJsonModelos.DeLector();
+        Lector lector = new Lector("L1", "Núria", "Muñoz i Solà", "123456789A", "29/02/2004", "L'Hospitalet", "Carrer d'Aragó 1, 3r 2a");
+        String json = escribir(proveedor, lector);
+        Assert.assertTrue(json.contains("\"fechaNacimiento\":\"29/02/2004\""));
+
+        Lector leido = leer(proveedor, Lector.class, json);
+        Assert.assertEquals("L1", leido.getId());
+        Assert.assertEquals("Núria", leido.getNombre());
+        Assert.assertEquals("Muñoz i Solà", leido.getApellidos());
+        Assert.assertEquals("123456789A", leido.getDni());
+        Assert.assertEquals("29/02/2004", leido.getFechaNacimiento());
+        Assert.assertEquals(lector.diaNacimiento(), leido.diaNacimiento());
+        Assert.assertEquals("L'Hospitalet", leido.getLugarNacimiento());
+        Assert.assertEquals("Carrer d'Aragó 1, 3r 2a", leido.getDireccion());
+    }
+
+    @Test
+    public void testLector_camposNull() throws IOException {
+        ProveedorJsonModelos.DeLector proveedor = new ProveedorJsonModelos.DeLector();
+        Lector lector = new Lector();
+        lector.setId("L2");
+        // Como MOXy, los campos null no se escriben
+        Assert.assertEquals("{\"id\":\"L2\"}", escribir(proveedor, lector));
+
+        Lector leido = leer(proveedor, Lector.class, "{\"id\":\"L2\",\"nombre\":null,\"fechaNacimiento\":null,\"desconocido\":{\"a\":[1]}}");
+        Assert.assertEquals("L2", leido.getId());
+        Assert.assertNull(leido.getNombre());
+        Assert.assertNull(leido.getFechaNacimiento());
+        Assert.assertNull(leido.getDireccion());
+    }
+
+    @Test
+    public void testLector_fechaNoValidaSeConserva() throws IOException {
+        Lector leido = leer(new ProveedorJsonModelos.DeLector(), Lector.class, "{\"id\":\"L3\",\"fechaNacimiento\":\"2004-12-12\"}");
+        Assert.assertEquals("2004-12-12", leido.getFechaNacimiento());
+    }
+
+    @Test
+    public void testLibro_idaYVuelta() throws IOException {
+        ProveedorJsonModelos.DeLibro proveedor = new ProveedorJsonModelos.DeLibro();
+        Libro libro = new Libro("B1", "9788437604947", "Cien años de soledad", "Sudamericana", 1967, 2, "Gabriel García Márquez", "Realismo mágico \"latinoamericano\"");
+        libro.setNumEjemplares(3);
+        Libro leido = leer(proveedor, Libro.class, escribir(proveedor, libro));
+        Assert.assertEquals("B1", leido.getId());
+        Assert.assertEquals("9788437604947", leido.getIsbn());
+        Assert.assertEquals("Cien años de soledad", leido.getTitulo());
+        Assert.assertEquals("Sudamericana", leido.getEditorial());
+        Assert.assertEquals(1967, leido.getAñoPublicacion());
+        Assert.assertEquals(2, leido.getEdicion());
+        Assert.assertEquals("Gabriel García Márquez", leido.getAutor());
+        Assert.assertEquals("Realismo mágico \"latinoamericano\"", leido.getTematica());
+        Assert.assertEquals(3, leido.getNumEjemplares());
+
+        Libro vacio = leer(proveedor, Libro.class, escribir(proveedor, new Libro()));
+        Assert.assertNull(vacio.getId());
+        Assert.assertNull(vacio.getTitulo());
+        Assert.assertEquals(0, vacio.getAñoPublicacion());
+    }
+
+    @Test
+    public void testPrestamo_idaYVuelta() throws IOException {
+        ProveedorJsonModelos.DePrestamo proveedor = new ProveedorJsonModelos.DePrestamo();
+        Prestamo prestamo = new Prestamo("P1", "L1", "B1", "31/12/2025", "14/01/2026");
+        prestamo.setEnTramite(true);
+        Prestamo leido = leer(proveedor, Prestamo.class, escribir(proveedor, prestamo));
+        Assert.assertEquals("P1", leido.getId());
+        Assert.assertEquals("L1", leido.getLectorId());
+        Assert.assertEquals("B1", leido.getLibroId());
+        Assert.assertEquals("31/12/2025", leido.getInicioPrestamo());
+        Assert.assertEquals("14/01/2026", leido.getFinalPrestamo());
+        Assert.assertEquals(prestamo.diaInicioPrestamo(), leido.diaInicioPrestamo());
+        Assert.assertEquals(prestamo.diaFinalPrestamo(), leido.diaFinalPrestamo());
+        Assert.assertTrue(leido.isEnTramite());
+
+        Prestamo sinFechas = leer(proveedor, Prestamo.class, "{\"id\":\"P2\",\"inicioPrestamo\":null,\"enTramite\":\"false\"}");
+        Assert.assertNull(sinFechas.getInicioPrestamo());
+        Assert.assertNull(sinFechas.getFinalPrestamo());
+        Assert.assertTrue(sinFechas.fechasValidas());
+        Assert.assertFalse(sinFechas.isEnTramite());
+        Assert.assertEquals("{\"id\":\"P2\",\"enTramite\":false}", escribir(proveedor, sinFechas));
+
+        Prestamo fechaNoValida = leer(proveedor, Prestamo.class, "{\"id\":\"P3\",\"inicioPrestamo\":\"32/01/2026\"}");
+        Assert.assertFalse(fechaNoValida.fechasValidas());
+    }
+
+    @Test
+    public void testColeccion_escribeCadaModelo() throws IOException {
+        List<Prestamo> prestamos = Arrays.asList(new Prestamo("P1", "L1", "B1", "01/01/2026", "15/01/2026"), new Prestamo("P2", "L1", "B2", null, null));
+        GenericEntity<List<Prestamo>> entidad = new GenericEntity<List<Prestamo>>(prestamos) {};
+        ProveedorJsonModelos.DeColeccion proveedor = new ProveedorJsonModelos.DeColeccion();
+        Assert.assertTrue(proveedor.isWriteable(entidad.getRawType(), entidad.getType(), null, MediaType.APPLICATION_JSON_TYPE));
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        proveedor.writeTo(prestamos, entidad.getRawType(), entidad.getType(), null, MediaType.APPLICATION_JSON_TYPE, null, salida);
+        Assert.assertEquals("[{\"id\":\"P1\",\"lectorId\":\"L1\",\"libroId\":\"B1\",\"inicioPrestamo\":\"01/01/2026\",\"finalPrestamo\":\"15/01/2026\",\"enTramite\":false},"
+                + "{\"id\":\"P2\",\"lectorId\":\"L1\",\"libroId\":\"B2\",\"enTramite\":false}]", new String(salida.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLeer_cuerpoVacioONull_esNull() throws IOException {
+        Assert.assertNull(leer(new ProveedorJsonModelos.DeLector(), Lector.class, ""));
+        Assert.assertNull(leer(new ProveedorJsonModelos.DeLibro(), Libro.class, "null"));
+    }
+
+    @Test
+    public void testLeer_malFormado_400() throws IOException {
+        String[] cuerpos = {
+                "{\"id\":\"B1\",\"titulo\":",        // cortado
+                "{\"id\":\"B1\" \"titulo\":\"x\"}",  // sin coma
+                "[{\"id\":\"B1\"}]",                  // no es un objeto
+                "{\"id\":\"B1\",\"añoPublicacion\":\"mil\"}",
+                "{\"id\":\"B1\",\"edicion\":99999999999}",
+                "{\"id\":\"B1\",\"titulo\":{\"es\":\"x\"}}"
+        };
+        for (String cuerpo : cuerpos) {
+            try {
+                leer(new ProveedorJsonModelos.DeLibro(), Libro.class, cuerpo);
+                Assert.fail("Se esperaba 400 para " + cuerpo);
+            }
+            catch (BadRequestException ex) {
+                Assert.assertEquals(400, ex.getResponse().getStatus());
+            }
+        }
+
+        try {
+            leer(new ProveedorJsonModelos.DePrestamo(), Prestamo.class, "{\"id\":\"P1\",\"enTramite\":3}");
+            Assert.fail();
+        }
+        catch (BadRequestException ex) {
+            Assert.assertTrue(ex.getMessage().contains("enTramite"));
+            Assert.assertTrue(ex.getMessage().contains("P1"));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package edu.upc.dsa.metricas;
+
+import edu.upc.dsa.models.Estadisticas;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+public class MetricasTest {
+
+    @Test
+    public void testHistograma_cubosEnPotenciasDeDos() {
+        HistogramaLatencias h = new HistogramaLatencias();
+        h.registrar(0);
+        h.registrar(1024);
+        h.registrar(1025);
+        h.registrar(3000);
+        h.registrar(Long.MAX_VALUE / 2);
+        long[] muestras = h.muestrasPorCubo();
+        Assert.assertEquals(2, muestras[0]);   // hasta 2^10 ns
+        Assert.assertEquals(1, muestras[1]);   // hasta 2^11 ns
+        Assert.assertEquals(1, muestras[2]);   // hasta 2^12 ns
+        Assert.assertEquals(1, muestras[HistogramaLatencias.NUM_CUBOS - 1]);
+        Assert.assertEquals(5, h.numMuestras());
+        Assert.assertEquals(1024 / 1e9, HistogramaLatencias.limiteSegundos(0), 0);
+        Assert.assertTrue(Double.isInfinite(HistogramaLatencias.limiteSegundos(HistogramaLatencias.NUM_CUBOS - 1)));
+    }
+
+    @Test
+    public void testEscribirPrometheus_histogramasContadoresYGauges() throws IOException {
+        Metricas metricas = new Metricas();
+        metricas.operacionManager("prestarLibro").registrar(1500);
+        metricas.operacionManager("prestarLibro").registrar(5000);
+        metricas.respuestaHttp("prestarLibro", 201);
+        metricas.respuestaHttp("prestarLibro", 409);
+        metricas.respuestaHttp("prestarLibro", 201);
+        Estadisticas estadisticas = new Estadisticas();
+        estadisticas.setNumIsbnsSinStock(3);
+
+        StringWriter out = new StringWriter();
+        metricas.escribirPrometheus(out, estadisticas);
+        String texto = out.toString();
+        Assert.assertTrue(texto.contains("# TYPE libros_manager_operacion_segundos histogram\n"));
+        Assert.assertTrue(texto.contains("libros_manager_operacion_segundos_bucket{operacion=\"prestarLibro\",le=\"1.024E-6\"} 0\n"));
+        Assert.assertTrue(texto.contains("libros_manager_operacion_segundos_bucket{operacion=\"prestarLibro\",le=\"2.048E-6\"} 1\n"));
+        Assert.assertTrue(texto.contains("libros_manager_operacion_segundos_bucket{operacion=\"prestarLibro\",le=\"+Inf\"} 2\n"));
+        Assert.assertTrue(texto.contains("libros_manager_operacion_segundos_sum{operacion=\"prestarLibro\"} 6.5E-6\n"));
+        Assert.assertTrue(texto.contains("libros_manager_operacion_segundos_count{operacion=\"prestarLibro\"} 2\n"));
+        Assert.assertTrue(texto.contains("libros_http_respuestas_total{operacion=\"prestarLibro\",codigo=\"201\"} 2\n"));
+        Assert.assertTrue(texto.contains("libros_http_respuestas_total{operacion=\"prestarLibro\",codigo=\"409\"} 1\n"));
+        Assert.assertTrue(texto.contains("# TYPE libros_catalogo_isbns_sin_stock gauge\nlibros_catalogo_isbns_sin_stock 3\n"));
+
+        metricas.clear();
+        out = new StringWriter();
+        metricas.escribirPrometheus(out, null);
+        Assert.assertTrue(out.toString().contains("libros_manager_operacion_segundos_count{operacion=\"prestarLibro\"} 0\n"));
+        Assert.assertFalse(out.toString().contains("libros_http_respuestas_total{"));
+        Assert.assertFalse(out.toString().contains("libros_catalogo_isbns_sin_stock"));
+    }
+}
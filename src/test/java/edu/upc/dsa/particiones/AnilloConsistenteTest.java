@@ -0,0 +1,55 @@
+package edu.upc.dsa.particiones;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AnilloConsistenteTest {
+    private static final int NUM_CLAVES = 20000;
+
+    @Test
+    public void testParticion_determinista() {
+        AnilloConsistente a = new AnilloConsistente(4);
+        AnilloConsistente b = new AnilloConsistente(4);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(a.particion("ISBN-" + i), b.particion("ISBN-" + i));
+        }
+        Assert.assertEquals(0, a.particion(null));
+        Assert.assertEquals(0, new AnilloConsistente(1).particion("ISBN-1"));
+    }
+
+    @Test
+    public void testParticion_repartoEquilibrado() {
+        AnilloConsistente anillo = new AnilloConsistente(4);
+        int[] claves = new int[4];
+        for (int i = 0; i < NUM_CLAVES; i++) {
+            claves[anillo.particion("ISBN-" + i)]++;
+        }
+        for (int n : claves) {
+            // Cada una cerca de la cuarta parte (5000)
+            Assert.assertTrue("Reparto desigual: " + n, n > 3500 && n < 6500);
+        }
+    }
+
+    @Test
+    public void testParticion_unaMasSoloMueveSuParte() {
+        AnilloConsistente cuatro = new AnilloConsistente(4);
+        AnilloConsistente cinco = new AnilloConsistente(5);
+        int movidas = 0;
+        for (int i = 0; i < NUM_CLAVES; i++) {
+            int antes = cuatro.particion("ISBN-" + i);
+            int despues = cinco.particion("ISBN-" + i);
+            if (antes != despues) {
+                // Solo pueden ir a la partición nueva
+                Assert.assertEquals(4, despues);
+                movidas++;
+            }
+        }
+        // ~1/5 de las claves
+        Assert.assertTrue("Claves movidas: " + movidas, movidas > NUM_CLAVES / 8 && movidas < NUM_CLAVES / 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSinParticiones_error() {
+        new AnilloConsistente(0);
+    }
+}
@@ -0,0 +1,219 @@
+package edu.upc.dsa.prestamos;
+
+import edu.upc.dsa.models.Prestamo;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+@RunWith(Parameterized.class)
+public class AlmacenPrestamosTest {
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> almacenes() {
+        return Arrays.asList(new Object[][]{{"memoria"}, {"mapeado"}});
+    }
+
+    private final String tipo;
+    private AlmacenPrestamos almacen;
+
+    public AlmacenPrestamosTest(String tipo) {
+        this.tipo = tipo;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        almacen = tipo.equals("memoria") ? new AlmacenPrestamosMemoria() : AlmacenPrestamosMapeado.temporal();
+        almacen.guardar(prestamo("P1", "L1", "B1", "01/01/2025", "15/01/2025"));
+        almacen.guardar(prestamo("P2", "L2", "B2", "02/01/2025", "16/01/2025"));
+        almacen.guardar(prestamo("P3", "L1", "B3", "03/01/2025", "17/01/2025"));
+    }
+
+    @After
+    public void tearDown() {
+        almacen.clear();
+    }
+
+    private static Prestamo prestamo(String id, String lectorId, String libroId, String inicio, String fin) {
+        Prestamo p = new Prestamo(id, lectorId, libroId, inicio, fin);
+        p.setEnTramite(true);
+        return p;
+    }
+
+    // ---------------- TESTS ----------------
+
+    @Test
+    public void testDeLector_enOrdenDeCreacion() {
+        List<Prestamo> pL1 = almacen.deLector("L1");
+        Assert.assertEquals(2, pL1.size());
+        Assert.assertEquals("P1", pL1.get(0).getId());
+        Assert.assertEquals("P3", pL1.get(1).getId());
+        Assert.assertEquals("B3", pL1.get(1).getLibroId());
+        Assert.assertEquals("03/01/2025", pL1.get(1).getInicioPrestamo());
+        Assert.assertEquals("17/01/2025", pL1.get(1).getFinalPrestamo());
+        Assert.assertTrue(pL1.get(1).isEnTramite());
+        Assert.assertTrue(almacen.deLector("L9").isEmpty());
+    }
+
+    @Test
+    public void testRecorrerDeLector_mismoOrdenQueDeLector() {
+        almacen.guardar(prestamo("P1", "L2", "B1", "05/01/2025", "20/01/2025"));  // P1 pasa a L2
+        List<String> ids = new ArrayList<>();
+        almacen.recorrerDeLector("L2", p -> ids.add(p.getId()));
+        Assert.assertEquals(Arrays.asList("P2", "P1"), ids);
+        almacen.recorrerDeLector("L9", p -> Assert.fail());
+    }
+
+    @Test
+    public void testGuardarMismoId_reemplazaYMueveDeLector() {
+        Prestamo anterior = almacen.guardar(prestamo("P1", "L2", "B1", "05/01/2025", "20/01/2025"));
+        Assert.assertEquals("L1", anterior.getLectorId());
+        Assert.assertEquals(3, almacen.tamaño());
+        Assert.assertEquals(1, almacen.deLector("L1").size());
+        Assert.assertEquals(2, almacen.deLector("L2").size());
+        Assert.assertEquals("L2", almacen.buscar("P1").getLectorId());
+    }
+
+    @Test
+    public void testEliminar_quitaDeTodosLosIndices() {
+        Prestamo eliminado = almacen.eliminar("P1");
+        Assert.assertEquals("B1", eliminado.getLibroId());
+        Assert.assertNull(almacen.eliminar("P1"));
+        Assert.assertNull(almacen.buscar("P1"));
+        Assert.assertEquals(2, almacen.tamaño());
+        Assert.assertEquals("P3", almacen.deLector("L1").get(0).getId());
+        int dia = (int) java.time.LocalDate.of(2025, 1, 16).toEpochDay();
+        Assert.assertEquals("P2", almacen.activosConFinalHasta(dia).get(0).getId());
+    }
+
+    @Test
+    public void testRecorrerYClear() {
+        List<String> ids = new ArrayList<>();
+        almacen.recorrer(p -> ids.add(p.getId()));
+        Assert.assertEquals(3, ids.size());
+        Assert.assertTrue(ids.containsAll(Arrays.asList("P1", "P2", "P3")));
+        almacen.clear();
+        Assert.assertEquals(0, almacen.tamaño());
+        Assert.assertNull(almacen.buscar("P1"));
+        Assert.assertTrue(almacen.deLector("L1").isEmpty());
+    }
+
+    @Test
+    public void testPorId_ordenadoDesdeUnIdYConLimite() {
+        almacen.guardar(prestamo("P0", "L3", "B4", "01/01/2025", "10/01/2025"));
+        almacen.eliminar("P2");
+        List<Prestamo> primeros = almacen.porId(null, false, 2);
+        Assert.assertEquals(2, primeros.size());
+        Assert.assertEquals("P0", primeros.get(0).getId());
+        Assert.assertEquals("P1", primeros.get(1).getId());
+        List<Prestamo> siguientes = almacen.porId("P1", false, 2);
+        Assert.assertEquals(1, siguientes.size());
+        Assert.assertEquals("P3", siguientes.get(0).getId());
+        Assert.assertEquals("P1", almacen.porId("P1", true, 1).get(0).getId());
+        Assert.assertTrue(almacen.porId("P3", false, 10).isEmpty());
+    }
+
+    @Test
+    public void testActivosConFinalHasta_ordenadosPorFechaFinal() {
+        almacen.guardar(prestamo("P4", "L3", "B4", "01/01/2025", "10/01/2025"));
+        Prestamo devuelto = new Prestamo("P5", "L3", "B5", "01/01/2025", "11/01/2025");
+        almacen.guardar(devuelto); // no está en trámite
+        int dia = (int) java.time.LocalDate.of(2025, 1, 16).toEpochDay();
+        List<Prestamo> vencidos = almacen.activosConFinalHasta(dia);
+        Assert.assertEquals(3, vencidos.size());
+        Assert.assertEquals("P4", vencidos.get(0).getId());
+        Assert.assertEquals("P1", vencidos.get(1).getId());
+        Assert.assertEquals("P2", vencidos.get(2).getId());
+        Assert.assertTrue(almacen.activosConFinalHasta(dia - 7).isEmpty());
+    }
+
+    @Test
+    public void testRecorrerDeLector_saltaPosicionesReutilizadas() {
+        // El mapeado lee por trozos: lo que se borra al acabar uno ya no sale en el siguiente
+        int trozo = AlmacenPrestamosMapeado.TROZO_RECORRIDO;
+        List<String> esperados = new ArrayList<>(Arrays.asList("P1", "P3"));
+        for (int i = 0; i < trozo; i++) {
+            almacen.guardar(prestamo("PL" + i, "L1", "B" + i, "01/02/2025", "15/02/2025"));
+            esperados.add("PL" + i);
+        }
+        String borrado = esperados.remove(trozo);
+        List<String> ids = new ArrayList<>();
+        almacen.recorrerDeLector("L1", p -> {
+            ids.add(p.getId());
+            if (ids.size() == trozo) {
+                // P9 puede ocupar la posición que deja el borrado, pero es de otro lector
+                almacen.eliminar(borrado);
+                almacen.guardar(prestamo("P9", "L2", "B9", "04/01/2025", "18/01/2025"));
+            }
+        });
+        Assert.assertEquals(esperados, ids);
+        Assert.assertEquals(2, almacen.deLector("L2").size());
+    }
+
+    @Test
+    public void testRecorrerDeLector_borrandoLosYaVistos_noSeSaltaNinguno() {
+        int trozo = AlmacenPrestamosMapeado.TROZO_RECORRIDO;
+        List<String> esperados = new ArrayList<>();
+        for (int i = 0; i < 3 * trozo + 10; i++) {
+            almacen.guardar(prestamo("PB" + i, "L5", "B" + i, "01/02/2025", "15/02/2025"));
+            esperados.add("PB" + i);
+        }
+        // Al borrar los ya vistos, la lista del lector se desplaza: un índice guardado se
+        // saltaría los que quedan
+        List<String> ids = new ArrayList<>();
+        almacen.recorrerDeLector("L5", p -> {
+            ids.add(p.getId());
+            if (ids.size() == trozo + 5 || ids.size() == 2 * trozo + 7) {
+                for (String visto : ids) almacen.eliminar(visto);
+            }
+        });
+        Assert.assertEquals(esperados, ids);
+    }
+
+    @Test
+    public void testPrestarYDevolverMuchasVeces_reutilizaRegistros() {
+        for (int i = 0; i < 1000; i++) {
+            almacen.guardar(prestamo("PX" + i, "L3", "B" + i, "01/02/2025", "15/02/2025"));
+            Assert.assertNotNull(almacen.eliminar("PX" + i));
+        }
+        Assert.assertEquals(3, almacen.tamaño());
+        List<String> ids = new ArrayList<>();
+        almacen.recorrer(p -> ids.add(p.getId()));
+        ids.sort(null);
+        Assert.assertEquals(Arrays.asList("P1", "P2", "P3"), ids);
+        Assert.assertTrue(almacen.deLector("L3").isEmpty());
+        Assert.assertEquals(2, almacen.deLector("L1").size());
+    }
+
+    @Test
+    public void testMapeado_elFicheroNoCreceConLosPrestamosDevueltos() throws IOException {
+        Assume.assumeTrue(tipo.equals("mapeado"));
+        Path fichero = Files.createTempFile("prestamos", ".dat");
+        AlmacenPrestamosMapeado mapeado = new AlmacenPrestamosMapeado(fichero);
+        try {
+            long tamañoInicial = Files.size(fichero);
+            // Más ciclos que registros caben al principio: sin reutilizar, el fichero se ampliaría
+            int ciclos = 2 * (int) (tamañoInicial / AlmacenPrestamosMapeado.TAMAÑO_REGISTRO);
+            for (int i = 0; i < ciclos; i++) {
+                mapeado.guardar(prestamo("P" + i, "L" + (i % 10), "B" + (i % 100), "01/01/2025", "15/01/2025"));
+                mapeado.eliminar("P" + i);
+            }
+            Assert.assertEquals(tamañoInicial, Files.size(fichero));
+            Assert.assertEquals(0, mapeado.tamaño());
+        }
+        finally {
+            mapeado.clear();
+            Files.deleteIfExists(fichero);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package edu.upc.dsa.services;
+
+import edu.upc.dsa.FabricaManager;
+import edu.upc.dsa.Main;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * LibrosService por HTTP, con el servidor de Main en un puerto libre y el manager de
+ * getInstance() (con los datos de ejemplo del constructor del servicio).
+ */
+public class LibrosServiceTest {
+    private static HttpServer server;
+    private static Client cliente;
+    private static WebTarget libros;
+
+    @BeforeClass
+    public static void arrancar() {
+        server = Main.startServer("http://localhost:0/dsaApp/");
+        int puerto = server.getListener("grizzly").getPort();
+        cliente = ClientBuilder.newClient();
+        libros = cliente.target("http://localhost:" + puerto + "/dsaApp/").path("librosManager");
+    }
+
+    @AfterClass
+    public static void parar() {
+        cliente.close();
+        server.shutdownNow();
+        FabricaManager.getInstance().clear();
+    }
+
+    private static Response post(String ruta, String json) {
+        return libros.path(ruta).request().post(Entity.entity(json, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void testAddLector_fechaNoValida_400() {
+        Response respuesta = post("lectores", "{\"id\":\"LS1\",\"nombre\":\"Ana\",\"fechaNacimiento\":\"2004-12-12\"}");
+        Assert.assertEquals(400, respuesta.getStatus());
+        Assert.assertTrue(respuesta.readEntity(String.class).contains("NO_VALIDO"));
+
+        Response valida = post("lectores", "{\"id\":\"LS1\",\"nombre\":\"Ana\",\"fechaNacimiento\":\"12/12/2004\"}");
+        Assert.assertEquals(201, valida.getStatus());
+        valida.close();
+    }
+
+    @Test
+    public void testPrestarLibro_fechaNoValida_400() {
+        Response inicio = post("prestamos", "{\"id\":\"PS1\",\"lectorId\":\"L1\",\"libroId\":\"B4\","
+                + "\"inicioPrestamo\":\"1/11\",\"finalPrestamo\":\"15/11/2025\"}");
+        Assert.assertEquals(400, inicio.getStatus());
+        Assert.assertTrue(inicio.readEntity(String.class).contains("NO_VALIDO"));
+
+        Response fin = post("prestamos", "{\"id\":\"PS1\",\"lectorId\":\"L1\",\"libroId\":\"B4\","
+                + "\"inicioPrestamo\":\"01/11/2025\",\"finalPrestamo\":\"mañana\"}");
+        Assert.assertEquals(400, fin.getStatus());
+        fin.close();
+    }
+
+    private static Response get(String ruta, EntityTag etag) {
+        return libros.path(ruta).request().header(HttpHeaders.IF_NONE_MATCH, etag).get();
+    }
+
+    // 200 con ETag si etag es null o ya no vale; la ETag nueva
+    private static EntityTag comprobarModificado(String ruta, EntityTag etag) {
+        Response respuesta = get(ruta, etag);
+        Assert.assertEquals(200, respuesta.getStatus());
+        Assert.assertNotNull(respuesta.getEntityTag());
+        Assert.assertNotEquals(etag, respuesta.getEntityTag());
+        respuesta.close();
+        return respuesta.getEntityTag();
+    }
+
+    private static void comprobarNoModificado(String ruta, EntityTag etag) {
+        Response respuesta = get(ruta, etag);
+        Assert.assertEquals(304, respuesta.getStatus());
+        Assert.assertFalse(respuesta.hasEntity());
+        respuesta.close();
+    }
+
+    @Test
+    public void testCatalogoPorIsbn_etag() {
+        String libro = "\"isbn\":\"ISBN-ETAG\",\"titulo\":\"El nombre de la rosa\",\"añoPublicacion\":1980";
+        Assert.assertEquals(201, post("lectores", "{\"id\":\"LE1\",\"fechaNacimiento\":\"01/01/2000\"}").getStatus());
+        Assert.assertEquals(201, post("libros/almacen", "{\"id\":\"BE1\"," + libro + "}").getStatus());
+        Assert.assertEquals(201, post("libros/catalogo/todos", "").getStatus());
+
+        String rutaLibro = "libros/catalogo/ISBN-ETAG";
+        String rutaStock = rutaLibro + "/stock";
+        EntityTag etagLibro = comprobarModificado(rutaLibro, null);
+        EntityTag etagStock = comprobarModificado(rutaStock, null);
+        comprobarNoModificado(rutaLibro, etagLibro);
+        comprobarNoModificado(rutaStock, etagStock);
+
+        // Un préstamo cambia el stock, y con él la versión del ISBN
+        Assert.assertEquals(201, post("prestamos", "{\"id\":\"PE1\",\"lectorId\":\"LE1\",\"libroId\":\"BE1\","
+                + "\"inicioPrestamo\":\"01/11/2025\",\"finalPrestamo\":\"15/11/2025\"}").getStatus());
+        etagStock = comprobarModificado(rutaStock, etagStock);
+        Assert.assertTrue(get(rutaStock, null).readEntity(String.class).contains("\"numEjemplares\":0"));
+        etagLibro = comprobarModificado(rutaLibro, etagLibro);
+        comprobarNoModificado(rutaStock, etagStock);
+
+        // Otro ejemplar del mismo ISBN
+        Assert.assertEquals(201, post("libros/almacen", "{\"id\":\"BE2\"," + libro + "}").getStatus());
+        Assert.assertEquals(201, post("libros/catalogo/todos", "").getStatus());
+        etagLibro = comprobarModificado(rutaLibro, etagLibro);
+        etagStock = comprobarModificado(rutaStock, etagStock);
+        comprobarNoModificado(rutaLibro, etagLibro);
+
+        Response devolucion = post("prestamos/PE1/devolucion", "");
+        Assert.assertTrue(devolucion.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL);
+        devolucion.close();
+        comprobarModificado(rutaStock, etagStock);
+
+        Response noExiste = get("libros/catalogo/ISBN-NO-EXISTE", etagLibro);
+        Assert.assertEquals(404, noExiste.getStatus());
+        noExiste.close();
+    }
+
+    @Test
+    public void testVencimientos_noChocanConLosPrestamosDeUnLector() {
+        Assert.assertEquals(201, post("lectores", "{\"id\":\"vencidos\",\"fechaNacimiento\":\"01/01/2000\"}").getStatus());
+        Assert.assertEquals(201, post("libros/almacen", "{\"id\":\"BV1\",\"isbn\":\"ISBN-VENC\",\"titulo\":\"Dune\"}").getStatus());
+        Assert.assertEquals(201, post("libros/catalogo/todos", "").getStatus());
+        Assert.assertEquals(201, post("prestamos", "{\"id\":\"PV1\",\"lectorId\":\"vencidos\",\"libroId\":\"BV1\","
+                + "\"inicioPrestamo\":\"01/01/1990\",\"finalPrestamo\":\"15/01/1990\"}").getStatus());
+
+        Response vencidos = libros.path("vencimientos").queryParam("hasta", "31/01/1990").request().get();
+        Assert.assertEquals(201, vencidos.getStatus());
+        Assert.assertTrue(vencidos.readEntity(String.class).contains("\"id\":\"PV1\""));
+        Response sinFecha = libros.path("vencimientos").request().get();
+        Assert.assertEquals(400, sinFecha.getStatus());
+        sinFecha.close();
+
+        // /prestamos/{lectorId} llega al lector "vencidos"
+        Response delLector = libros.path("prestamos/vencidos").request(MediaType.APPLICATION_JSON).get();
+        Assert.assertEquals(201, delLector.getStatus());
+        Assert.assertTrue(delLector.readEntity(String.class).contains("\"lectorId\":\"vencidos\""));
+    }
+}
@@ -0,0 +1,126 @@
+package edu.upc.dsa.stock;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ContadorStockTest {
+    private static final int NUM_HILOS = 8;
+    private static final int VUELTAS = 20000;
+
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    @Test
+    public void testReservar_nuncaPorDebajoDeCero() {
+        ContadorStock stock = new ContadorStock(4);
+        Assert.assertFalse(stock.reservar());
+        stock.añadir(3);
+        Assert.assertEquals(3, stock.disponibles());
+        Assert.assertTrue(stock.reservar());
+        Assert.assertTrue(stock.reservar());
+        Assert.assertTrue(stock.reservar());
+        Assert.assertFalse(stock.reservar());
+        Assert.assertEquals(0, stock.disponibles());
+        Assert.assertFalse(stock.repartido());
+    }
+
+    @Test
+    public void testRepartido_mantieneElStockYLoEncuentraEnCualquierCelda() throws Exception {
+        ContadorStock stock = new ContadorStock(4);
+        stock.añadir(2);
+        Assert.assertNotNull(stock.repartir());
+        Assert.assertTrue(stock.repartido());
+        Assert.assertEquals(2, stock.disponibles());
+
+        // Lo que suma otro hilo va a su celda, y se puede reservar desde aquí
+        executor = Executors.newFixedThreadPool(NUM_HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < NUM_HILOS; h++) {
+            tareas.add(executor.submit(() -> stock.añadir(1)));
+        }
+        for (Future<?> t : tareas) {
+            t.get(10, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(2 + NUM_HILOS, stock.disponibles());
+        for (int i = 0; i < 2 + NUM_HILOS; i++) {
+            Assert.assertTrue(stock.reservar());
+        }
+        Assert.assertFalse(stock.reservar());
+
+        stock.fijar(5);
+        Assert.assertEquals(5, stock.disponibles());
+    }
+
+    @Test
+    public void testSinCeldas_nuncaSeReparte() {
+        ContadorStock stock = new ContadorStock(1);
+        Assert.assertNull(stock.repartir());
+        stock.añadir(1);
+        Assert.assertTrue(stock.reservar());
+        Assert.assertFalse(stock.repartido());
+    }
+
+    @Test
+    public void testReservarYDevolverConcurrentes_nuncaFaltaNiSobra() throws Exception {
+        for (boolean repartido : new boolean[] {false, true}) {
+            ContadorStock stock = new ContadorStock(4);
+            if (repartido) stock.repartir();
+            // Un ejemplar por hilo y cada hilo tiene como mucho uno: reservar nunca puede fallar
+            stock.añadir(NUM_HILOS);
+            executor = Executors.newFixedThreadPool(NUM_HILOS);
+            CountDownLatch salida = new CountDownLatch(1);
+            List<Future<Integer>> tareas = new ArrayList<>();
+            for (int h = 0; h < NUM_HILOS; h++) {
+                tareas.add(executor.submit(() -> {
+                    salida.await();
+                    int fallos = 0;
+                    for (int v = 0; v < VUELTAS; v++) {
+                        if (stock.reservar()) {
+                            stock.añadir(1);
+                        }
+                        else {
+                            fallos++;
+                        }
+                    }
+                    return fallos;
+                }));
+            }
+            salida.countDown();
+            for (Future<Integer> t : tareas) {
+                Assert.assertEquals(Integer.valueOf(0), t.get(60, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(NUM_HILOS, stock.disponibles());
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTabla_contadoresPorIsbn() {
+        TablaStock tabla = new TablaStock(4);
+        Assert.assertNull(tabla.contador(0));
+        Assert.assertEquals(0, tabla.disponibles(0));
+        Assert.assertNull(tabla.contador(-1));
+        tabla.registrar(0).añadir(2);
+        tabla.registrar(1);
+        Assert.assertSame(tabla.contador(0), tabla.registrar(0));
+        Assert.assertEquals(2, tabla.disponibles(0));
+        Assert.assertEquals(1, tabla.numSinStock(2));
+        // Números lejanos: la tabla crece por trozos sin perder los contadores que ya tenía
+        tabla.registrar(5000).añadir(1);
+        Assert.assertEquals(2, tabla.disponibles(0));
+        Assert.assertEquals(1, tabla.disponibles(5000));
+    }
+}
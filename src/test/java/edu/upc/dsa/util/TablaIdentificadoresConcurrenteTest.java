@@ -0,0 +1,121 @@
+package edu.upc.dsa.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TablaIdentificadoresConcurrenteTest {
+    private static final int NUM_HILOS = 8;
+    private static final int NUM_IDS = 5000;
+
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    @Test
+    public void testInternar_numerosSeguidosYTextoCompartido() {
+        TablaIdentificadoresConcurrente tabla = new TablaIdentificadoresConcurrente();
+        Assert.assertEquals(TablaIdentificadoresConcurrente.NO_EXISTE, tabla.buscar("ISBN-1"));
+        Assert.assertEquals(TablaIdentificadoresConcurrente.NO_EXISTE, tabla.buscar(null));
+
+        String isbn = "ISBN-1";
+        Assert.assertEquals(0, tabla.internar(isbn));
+        Assert.assertEquals(1, tabla.internar("ISBN-2"));
+        // Otra instancia con el mismo texto: mismo número y texto() da la primera
+        String copia = new String(isbn);
+        Assert.assertEquals(0, tabla.internar(copia));
+        Assert.assertEquals(0, tabla.buscar(copia));
+        Assert.assertSame(isbn, tabla.texto(0));
+        Assert.assertEquals(2, tabla.tamaño());
+        Assert.assertNull(tabla.texto(2));
+        Assert.assertNull(tabla.texto(-1));
+
+        tabla.clear();
+        Assert.assertEquals(0, tabla.tamaño());
+        Assert.assertEquals(TablaIdentificadoresConcurrente.NO_EXISTE, tabla.buscar(isbn));
+    }
+
+    @Test
+    public void testInternar_creceSinPerderIdentificadores() {
+        TablaIdentificadoresConcurrente tabla = new TablaIdentificadoresConcurrente();
+        for (int i = 0; i < NUM_IDS; i++) {
+            Assert.assertEquals(i, tabla.internar("L" + i));
+        }
+        for (int i = 0; i < NUM_IDS; i++) {
+            Assert.assertEquals(i, tabla.buscar("L" + i));
+            Assert.assertEquals("L" + i, tabla.texto(i));
+        }
+        Assert.assertEquals(NUM_IDS, tabla.tamaño());
+    }
+
+    @Test
+    public void testInternar_concurrente_unNumeroPorIdentificador() throws Exception {
+        TablaIdentificadoresConcurrente tabla = new TablaIdentificadoresConcurrente();
+        executor = Executors.newFixedThreadPool(NUM_HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<int[]>> futuros = new ArrayList<>();
+        for (int h = 0; h < NUM_HILOS; h++) {
+            futuros.add(executor.submit(() -> {
+                salida.await();
+                int[] numeros = new int[NUM_IDS];
+                for (int i = 0; i < NUM_IDS; i++) {
+                    numeros[i] = tabla.internar("L" + i);
+                }
+                return numeros;
+            }));
+        }
+        salida.countDown();
+
+        int[] primeros = futuros.get(0).get();
+        for (Future<int[]> futuro : futuros) {
+            Assert.assertArrayEquals(primeros, futuro.get());
+        }
+        Set<Integer> distintos = new HashSet<>();
+        for (int i = 0; i < NUM_IDS; i++) {
+            distintos.add(primeros[i]);
+            Assert.assertEquals("L" + i, tabla.texto(primeros[i]));
+        }
+        Assert.assertEquals(NUM_IDS, distintos.size());
+        Assert.assertEquals(NUM_IDS, tabla.tamaño());
+    }
+
+    @Test
+    public void testTablaPorNumero_porTrozos() {
+        TablaPorNumero<String> tabla = new TablaPorNumero<>();
+        Assert.assertNull(tabla.get(0));
+        Assert.assertNull(tabla.get(-1));
+        tabla.set(3, "a");
+        tabla.set(100000, "b");
+        Assert.assertEquals("a", tabla.get(3));
+        Assert.assertEquals("b", tabla.get(100000));
+        Assert.assertNull(tabla.get(4));
+        Assert.assertNull(tabla.get(5000));
+        tabla.clear();
+        Assert.assertNull(tabla.get(3));
+    }
+
+    @Test
+    public void testTablaPorNumero_numerosSeguidos_trozosProporcionales() {
+        TablaPorNumero<Integer> tabla = new TablaPorNumero<>();
+        int n = 100000;
+        for (int i = 0; i < n; i++) {
+            tabla.set(i, i);
+        }
+        Assert.assertEquals(Integer.valueOf(n - 1), tabla.get(n - 1));
+        // 98 trozos de 1024: como mucho el doble al crecer duplicando
+        int trozosUsados = (n + 1023) / 1024;
+        Assert.assertTrue("" + tabla.capacidadTrozos(), tabla.capacidadTrozos() <= 2 * trozosUsados);
+    }
+}